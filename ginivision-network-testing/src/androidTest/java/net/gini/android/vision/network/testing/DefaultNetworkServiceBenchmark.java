@@ -0,0 +1,239 @@
+package net.gini.android.vision.network.testing;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.Log;
+
+import net.gini.android.vision.document.DocumentFactory;
+import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.internal.camera.photo.PhotoFactory;
+import net.gini.android.vision.network.AnalysisResult;
+import net.gini.android.vision.network.Error;
+import net.gini.android.vision.network.ExponentialPollingStrategy;
+import net.gini.android.vision.network.GiniVisionDefaultNetworkService;
+import net.gini.android.vision.network.GiniVisionNetworkCallback;
+import net.gini.android.vision.network.Result;
+import net.gini.android.vision.network.Transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+/**
+ * Measures the time from the start of the page uploads until the extractions were received with
+ * the {@link GiniVisionDefaultNetworkService} against the {@link MockGiniApiServer}. Each page
+ * count is measured with both {@link Transport}s.
+ *
+ * <p> The server simulates a mobile connection: every response is delayed and the bandwidth is
+ * limited. The results are written to the log with the tag {@value #TAG}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DefaultNetworkServiceBenchmark {
+
+    private static final String TAG = "NetworkBenchmark";
+    private static final int RUNS = 5;
+    private static final long LATENCY_MS = 80;
+    private static final long BANDWIDTH_BYTES_PER_SECOND = 512 * 1024;
+    private static final long PROCESSING_TIME_MS = 800;
+    private static final long PROCESSING_TIME_PER_PAGE_MS = 150;
+    private static final long TIMEOUT_S = 120;
+
+    private MockGiniApiServer mServer;
+    private byte[] mPageJpeg;
+
+    @Before
+    public void setUp() throws Exception {
+        mPageJpeg = createPageJpeg();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (mServer != null) {
+            mServer.shutdown();
+        }
+    }
+
+    @Test
+    public void benchmark_volley_1Page() throws Exception {
+        runBenchmark(Transport.VOLLEY, 1);
+    }
+
+    @Test
+    public void benchmark_http2_1Page() throws Exception {
+        runBenchmark(Transport.HTTP2, 1);
+    }
+
+    @Test
+    public void benchmark_volley_5Pages() throws Exception {
+        runBenchmark(Transport.VOLLEY, 5);
+    }
+
+    @Test
+    public void benchmark_http2_5Pages() throws Exception {
+        runBenchmark(Transport.HTTP2, 5);
+    }
+
+    @Test
+    public void benchmark_volley_10Pages() throws Exception {
+        runBenchmark(Transport.VOLLEY, 10);
+    }
+
+    @Test
+    public void benchmark_http2_10Pages() throws Exception {
+        runBenchmark(Transport.HTTP2, 10);
+    }
+
+    private void runBenchmark(@NonNull final Transport transport, final int pageCount)
+            throws Exception {
+        startServer(transport);
+        final long[] durationsMs = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            mServer.resetStatistics();
+            durationsMs[run] = uploadAndAnalyze(createNetworkService(transport), pageCount);
+            Log.i(TAG, String.format(Locale.US,
+                    "%s, %d pages, run %d: %d ms, %d polls, %d bytes received", transport,
+                    pageCount, run + 1, durationsMs[run],
+                    mServer.getRequestCount(Endpoint.GET_DOCUMENT), mServer.getReceivedBytes()));
+        }
+        Arrays.sort(durationsMs);
+        Log.i(TAG, String.format(Locale.US, "%s, %d pages: median %d ms, min %d ms, max %d ms",
+                transport, pageCount, durationsMs[RUNS / 2], durationsMs[0],
+                durationsMs[RUNS - 1]));
+    }
+
+    private void startServer(@NonNull final Transport transport) throws Exception {
+        mServer = new MockGiniApiServer();
+        if (transport == Transport.HTTP2) {
+            mServer.enableHttp2();
+        }
+        mServer.start();
+        mServer.getScript()
+                .setLatency(LATENCY_MS)
+                .setBandwidth(BANDWIDTH_BYTES_PER_SECOND)
+                .setProcessingTime(PROCESSING_TIME_MS, PROCESSING_TIME_PER_PAGE_MS);
+    }
+
+    @NonNull
+    private GiniVisionDefaultNetworkService createNetworkService(
+            @NonNull final Transport transport) {
+        return GiniVisionDefaultNetworkService.builder(getApplicationContext())
+                .setSessionManager(new MockSessionManager())
+                .setBaseUrl(mServer.getBaseUrl())
+                .setTransport(transport)
+                .setPollingStrategy(ExponentialPollingStrategy.builder()
+                        .setInitialDelayMs(200)
+                        .setDelayPerPageMs(50)
+                        .setMaxDelayMs(1000)
+                        .build())
+                .build();
+    }
+
+    private long uploadAndAnalyze(@NonNull final GiniVisionDefaultNetworkService networkService,
+            final int pageCount) throws Exception {
+        final long startMs = System.currentTimeMillis();
+
+        // Upload all pages at once like the multi-page review screen does
+        final List<String> apiDocumentIds = new ArrayList<>(
+                Collections.nCopies(pageCount, (String) null));
+        final CountDownLatch uploadLatch = new CountDownLatch(pageCount);
+        final AtomicReference<Error> uploadError = new AtomicReference<>();
+        for (int i = 0; i < pageCount; i++) {
+            final int pageIndex = i;
+            final ImageDocument page = DocumentFactory.newImageDocumentFromPhoto(
+                    PhotoFactory.newPhotoFromJpeg(mPageJpeg, 0, "portrait", "phone",
+                            ImageDocument.Source.newCameraSource()));
+            networkService.upload(page, new GiniVisionNetworkCallback<Result, Error>() {
+                @Override
+                public void failure(final Error error) {
+                    uploadError.set(error);
+                    uploadLatch.countDown();
+                }
+
+                @Override
+                public void success(final Result result) {
+                    synchronized (apiDocumentIds) {
+                        apiDocumentIds.set(pageIndex, result.getGiniApiDocumentId());
+                    }
+                    uploadLatch.countDown();
+                }
+
+                @Override
+                public void cancelled() {
+                    uploadLatch.countDown();
+                }
+            });
+        }
+        assertThat(uploadLatch.await(TIMEOUT_S, TimeUnit.SECONDS)).isTrue();
+        assertThat(uploadError.get()).isNull();
+
+        final LinkedHashMap<String, Integer> apiDocumentIdRotationDeltas = new LinkedHashMap<>();
+        synchronized (apiDocumentIds) {
+            for (final String apiDocumentId : apiDocumentIds) {
+                apiDocumentIdRotationDeltas.put(apiDocumentId, 0);
+            }
+        }
+        final CountDownLatch analysisLatch = new CountDownLatch(1);
+        final AtomicReference<AnalysisResult> analysisResult = new AtomicReference<>();
+        networkService.analyze(apiDocumentIdRotationDeltas,
+                new GiniVisionNetworkCallback<AnalysisResult, Error>() {
+                    @Override
+                    public void failure(final Error error) {
+                        analysisLatch.countDown();
+                    }
+
+                    @Override
+                    public void success(final AnalysisResult result) {
+                        analysisResult.set(result);
+                        analysisLatch.countDown();
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        analysisLatch.countDown();
+                    }
+                });
+        assertThat(analysisLatch.await(TIMEOUT_S, TimeUnit.SECONDS)).isTrue();
+        final long durationMs = System.currentTimeMillis() - startMs;
+
+        assertThat(analysisResult.get()).isNotNull();
+        assertThat(analysisResult.get().getExtractions()).isNotEmpty();
+        return durationMs;
+    }
+
+    @NonNull
+    private static byte[] createPageJpeg() {
+        // A noisy image compresses to a size close to a real page photo
+        final int width = 1240;
+        final int height = 1754;
+        final int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            final int gray = (i * 7919) % 256;
+            pixels[i] = Color.rgb(gray, gray, gray);
+        }
+        final Bitmap bitmap = Bitmap.createBitmap(pixels, width, height,
+                Bitmap.Config.ARGB_8888);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, 60, outputStream);
+        bitmap.recycle();
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,97 @@
+package net.gini.android.vision.network.testing;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * The Gini API endpoints served by the {@link MockGiniApiServer}.
+ */
+public enum Endpoint {
+    /**
+     * {@code POST /documents/} with a partial document or a complete document.
+     */
+    UPLOAD_DOCUMENT,
+    /**
+     * {@code POST /documents/} with a composite document referencing partial documents.
+     */
+    CREATE_COMPOSITE_DOCUMENT,
+    /**
+     * {@code GET /documents/{id}}, also used to poll the processing state.
+     */
+    GET_DOCUMENT,
+    /**
+     * {@code GET /documents/{id}/extractions}.
+     */
+    GET_EXTRACTIONS,
+    /**
+     * {@code PUT /documents/{id}/extractions} and {@code PUT /documents/{id}/extractions/{label}}.
+     */
+    SEND_FEEDBACK,
+    /**
+     * {@code DELETE /documents/{id}}.
+     */
+    DELETE_DOCUMENT;
+
+    private static final String DOCUMENTS = "documents";
+    private static final String EXTRACTIONS = "extractions";
+
+    /**
+     * @param method      the HTTP method
+     * @param path        the request path, may contain a query
+     * @param contentType the content type of the request body
+     * @return the endpoint or {@code null}, if the request is not served by the mock server
+     */
+    @Nullable
+    static Endpoint match(@NonNull final String method, @NonNull final String path,
+            @Nullable final String contentType) {
+        final String[] segments = getSegments(path);
+        if (segments.length == 0 || !DOCUMENTS.equals(segments[0])) {
+            return null;
+        }
+        if (segments.length == 1) {
+            if (!"POST".equals(method)) {
+                return null;
+            }
+            return contentType != null && contentType.contains("composite")
+                    ? CREATE_COMPOSITE_DOCUMENT : UPLOAD_DOCUMENT;
+        }
+        if (segments.length == 2) {
+            if ("GET".equals(method)) {
+                return GET_DOCUMENT;
+            }
+            return "DELETE".equals(method) ? DELETE_DOCUMENT : null;
+        }
+        if (!EXTRACTIONS.equals(segments[2])) {
+            return null;
+        }
+        if ("GET".equals(method) && segments.length == 3) {
+            return GET_EXTRACTIONS;
+        }
+        return "PUT".equals(method) ? SEND_FEEDBACK : null;
+    }
+
+    /**
+     * @return the document id in the path or {@code null}, if there is none
+     */
+    @Nullable
+    static String getDocumentId(@NonNull final String path) {
+        final String[] segments = getSegments(path);
+        return segments.length >= 2 ? segments[1] : null;
+    }
+
+    @NonNull
+    private static String[] getSegments(@NonNull final String path) {
+        String cleanPath = path;
+        final int queryStart = cleanPath.indexOf('?');
+        if (queryStart >= 0) {
+            cleanPath = cleanPath.substring(0, queryStart);
+        }
+        while (cleanPath.startsWith("/")) {
+            cleanPath = cleanPath.substring(1);
+        }
+        while (cleanPath.endsWith("/")) {
+            cleanPath = cleanPath.substring(0, cleanPath.length() - 1);
+        }
+        return cleanPath.isEmpty() ? new String[0] : cleanPath.split("/");
+    }
+}
@@ -0,0 +1,109 @@
+package net.gini.android.vision.network.testing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Response bodies of the {@link MockGiniApiServer}.
+ */
+public final class GiniApiFixtures {
+
+    /**
+     * Extractions of a typical invoice with the payment extractions and amount candidates.
+     */
+    public static final String DEFAULT_EXTRACTIONS = "{"
+            + "\"extractions\":{"
+            + "\"amountToPay\":{\"entity\":\"amount\",\"value\":\"24.99:EUR\","
+            + "\"candidates\":\"amounts\",\"box\":{\"page\":1,\"left\":312.0,\"top\":540.0,"
+            + "\"width\":58.0,\"height\":11.0}},"
+            + "\"iban\":{\"entity\":\"iban\",\"value\":\"DE89370400440532013000\","
+            + "\"box\":{\"page\":1,\"left\":80.0,\"top\":720.0,\"width\":160.0,"
+            + "\"height\":10.0}},"
+            + "\"bic\":{\"entity\":\"bic\",\"value\":\"COBADEFFXXX\"},"
+            + "\"paymentRecipient\":{\"entity\":\"companyname\",\"value\":\"Gini GmbH\"},"
+            + "\"paymentReference\":{\"entity\":\"reference\",\"value\":\"RE-2018-0042\"}"
+            + "},"
+            + "\"candidates\":{"
+            + "\"amounts\":["
+            + "{\"entity\":\"amount\",\"value\":\"24.99:EUR\"},"
+            + "{\"entity\":\"amount\",\"value\":\"21.00:EUR\"}"
+            + "]"
+            + "},"
+            + "\"compoundExtractions\":{}"
+            + "}";
+
+    /**
+     * Extractions of a document where nothing was found.
+     */
+    public static final String EMPTY_EXTRACTIONS =
+            "{\"extractions\":{},\"candidates\":{},\"compoundExtractions\":{}}";
+
+    /**
+     * Loads a fixture from the classpath, for example from the {@code resources} folder of a
+     * test source set.
+     *
+     * @param resourceName the absolute name of the resource, for example {@code
+     *                     /fixtures/extractions.json}
+     * @return the content of the resource
+     * @throws IOException if the resource could not be read
+     */
+    @NonNull
+    public static String fromResource(@NonNull final String resourceName) throws IOException {
+        final InputStream inputStream = GiniApiFixtures.class.getResourceAsStream(resourceName);
+        if (inputStream == null) {
+            throw new IOException("Fixture not found: " + resourceName);
+        }
+        try {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toString("UTF-8");
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @NonNull
+    static String document(@NonNull final String documentUrl, @NonNull final String id,
+            @NonNull final String name, @NonNull final String progress, final int pageCount,
+            final long creationDate, @NonNull final List<String> partialDocumentUrls) {
+        final StringBuilder partialDocuments = new StringBuilder();
+        for (int i = 0; i < partialDocumentUrls.size(); i++) {
+            if (i > 0) {
+                partialDocuments.append(',');
+            }
+            partialDocuments.append("{\"document\":\"")
+                    .append(partialDocumentUrls.get(i))
+                    .append("\",\"rotationDelta\":0}");
+        }
+        return String.format(Locale.US, "{"
+                        + "\"id\":\"%1$s\","
+                        + "\"creationDate\":%2$d,"
+                        + "\"name\":\"%3$s\","
+                        + "\"progress\":\"%4$s\","
+                        + "\"origin\":\"UPLOAD\","
+                        + "\"sourceClassification\":\"SCANNED\","
+                        + "\"pageCount\":%5$d,"
+                        + "\"_links\":{"
+                        + "\"document\":\"%6$s\","
+                        + "\"extractions\":\"%6$s/extractions\","
+                        + "\"layout\":\"%6$s/layout\","
+                        + "\"processed\":\"%6$s/processed\""
+                        + "},"
+                        + "\"partialDocuments\":[%7$s],"
+                        + "\"compositeDocuments\":[]"
+                        + "}",
+                id, creationDate, name, progress, pageCount, documentUrl, partialDocuments);
+    }
+
+    private GiniApiFixtures() {
+    }
+}
@@ -0,0 +1,367 @@
+package net.gini.android.vision.network.testing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * An in-process HTTP stand-in for the document endpoints of the Gini API. It lets the network
+ * services be measured and tested without the real backend.
+ *
+ * <p> Uploaded documents are kept in memory. Composite documents and complete documents are
+ * processed for the time set in the {@link ServerScript} and are reported as {@code PENDING}
+ * until then. Partial documents are available immediately.
+ *
+ * <p> Point the network service to {@link #getBaseUrl()} and use a {@link MockSessionManager}
+ * to skip the user center:
+ *
+ * <pre>
+ * final MockGiniApiServer server = new MockGiniApiServer();
+ * server.start();
+ * server.getScript().setLatency(50).setProcessingTime(1000, 200);
+ * final GiniVisionDefaultNetworkService networkService = GiniVisionDefaultNetworkService
+ *         .builder(context)
+ *         .setSessionManager(new MockSessionManager())
+ *         .setBaseUrl(server.getBaseUrl())
+ *         .build();
+ * </pre>
+ */
+public class MockGiniApiServer {
+
+    private static final String DOCUMENTS_PATH = "documents/";
+    private static final long THROTTLE_PERIOD_MS = 100;
+    private static final Pattern SUBDOCUMENT_PATTERN = Pattern.compile(
+            "\"document\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final MockWebServer mServer;
+    private final ServerScript mScript;
+    private final Map<String, StoredDocument> mDocuments = new ConcurrentHashMap<>();
+    private final Map<Endpoint, AtomicInteger> mRequestCounts = new EnumMap<>(Endpoint.class);
+    private final AtomicLong mReceivedBytes = new AtomicLong();
+
+    public MockGiniApiServer() {
+        mServer = new MockWebServer();
+        mScript = new ServerScript();
+        for (final Endpoint endpoint : Endpoint.values()) {
+            mRequestCounts.put(endpoint, new AtomicInteger());
+        }
+        mServer.setDispatcher(new GiniApiDispatcher());
+    }
+
+    /**
+     * Serves HTTP/2 with prior knowledge instead of HTTP/1.1. Clients have to use HTTP/2 without
+     * TLS, for example the {@code HTTP2} transport of the default network service.
+     *
+     * <p> Must be called before {@link #start()}.
+     */
+    public void enableHttp2() {
+        mServer.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+    }
+
+    /**
+     * Starts the server on a free port of the loopback interface.
+     *
+     * @throws IOException if the server could not be started
+     */
+    public void start() throws IOException {
+        mServer.start();
+    }
+
+    /**
+     * Stops the server and drops the stored documents.
+     *
+     * @throws IOException if the server could not be stopped
+     */
+    public void shutdown() throws IOException {
+        mServer.shutdown();
+        mDocuments.clear();
+    }
+
+    /**
+     * @return the base url to be set on the network service, ends with a slash
+     */
+    @NonNull
+    public String getBaseUrl() {
+        return mServer.url("/").toString();
+    }
+
+    /**
+     * @return the script controlling the behaviour of the server
+     */
+    @NonNull
+    public ServerScript getScript() {
+        return mScript;
+    }
+
+    /**
+     * @return the number of requests received by an endpoint, including failed ones
+     */
+    public int getRequestCount(@NonNull final Endpoint endpoint) {
+        return mRequestCounts.get(endpoint).get();
+    }
+
+    /**
+     * @return the total size of the received request bodies in bytes
+     */
+    public long getReceivedBytes() {
+        return mReceivedBytes.get();
+    }
+
+    /**
+     * @return the number of documents which were uploaded and not deleted
+     */
+    public int getDocumentCount() {
+        return mDocuments.size();
+    }
+
+    /**
+     * Resets the request counters without dropping the stored documents.
+     */
+    public void resetStatistics() {
+        for (final AtomicInteger count : mRequestCounts.values()) {
+            count.set(0);
+        }
+        mReceivedBytes.set(0);
+    }
+
+    @NonNull
+    private String getDocumentUrl(@NonNull final String documentId) {
+        return getBaseUrl() + DOCUMENTS_PATH + documentId;
+    }
+
+    @NonNull
+    private MockResponse handle(@NonNull final Endpoint endpoint,
+            @NonNull final RecordedRequest request) {
+        switch (endpoint) {
+            case UPLOAD_DOCUMENT:
+                return createDocument(request, Collections.<String>emptyList());
+            case CREATE_COMPOSITE_DOCUMENT:
+                return createDocument(request,
+                        getSubdocumentUrls(request.getBody().readUtf8()));
+            case GET_DOCUMENT:
+                return getDocument(request);
+            case GET_EXTRACTIONS:
+                return getExtractions(request);
+            case SEND_FEEDBACK:
+                return getStoredDocument(request) != null
+                        ? new MockResponse().setResponseCode(204) : notFound();
+            case DELETE_DOCUMENT:
+                return mDocuments.remove(Endpoint.getDocumentId(request.getPath())) != null
+                        ? new MockResponse().setResponseCode(204) : notFound();
+            default:
+                return notFound();
+        }
+    }
+
+    @NonNull
+    private MockResponse createDocument(@NonNull final RecordedRequest request,
+            @NonNull final List<String> partialDocumentUrls) {
+        final String contentType = request.getHeader("Content-Type");
+        final boolean partial = contentType != null && contentType.contains("partial");
+        final HttpUrl requestUrl = request.getRequestUrl();
+        final String fileName = requestUrl != null ? requestUrl.queryParameter("filename")
+                : null;
+        final String documentId = UUID.randomUUID().toString();
+        final StoredDocument document = new StoredDocument(documentId,
+                fileName != null ? fileName : "document", partial,
+                partialDocumentUrls.isEmpty() ? 1 : partialDocumentUrls.size(),
+                partialDocumentUrls, System.currentTimeMillis(),
+                partial ? 0 : mScript.getProcessingTimeMs(
+                        partialDocumentUrls.isEmpty() ? 1 : partialDocumentUrls.size()));
+        mDocuments.put(documentId, document);
+        return new MockResponse()
+                .setResponseCode(201)
+                .setHeader("Location", getDocumentUrl(documentId));
+    }
+
+    @NonNull
+    private MockResponse getDocument(@NonNull final RecordedRequest request) {
+        final StoredDocument document = getStoredDocument(request);
+        if (document == null) {
+            return notFound();
+        }
+        return json(GiniApiFixtures.document(getDocumentUrl(document.mId), document.mId,
+                document.mName, getProgress(document), document.mPageCount,
+                document.mCreatedAtMs, document.mPartialDocumentUrls));
+    }
+
+    @NonNull
+    private MockResponse getExtractions(@NonNull final RecordedRequest request) {
+        final StoredDocument document = getStoredDocument(request);
+        if (document == null) {
+            return notFound();
+        }
+        if (!"COMPLETED".equals(getProgress(document))) {
+            // The Gini API doesn't return extractions before the processing finished
+            return new MockResponse().setResponseCode(409);
+        }
+        return json(mScript.getExtractionsFixture());
+    }
+
+    @NonNull
+    private String getProgress(@NonNull final StoredDocument document) {
+        if (document.mPartial) {
+            return "COMPLETED";
+        }
+        if (System.currentTimeMillis() - document.mCreatedAtMs < document.mProcessingTimeMs) {
+            return "PENDING";
+        }
+        return mScript.isProcessingFails() ? "ERROR" : "COMPLETED";
+    }
+
+    @Nullable
+    private StoredDocument getStoredDocument(@NonNull final RecordedRequest request) {
+        final String documentId = Endpoint.getDocumentId(request.getPath());
+        return documentId != null ? mDocuments.get(documentId) : null;
+    }
+
+    @NonNull
+    private static List<String> getSubdocumentUrls(@NonNull final String body) {
+        final List<String> urls = new ArrayList<>();
+        final Matcher matcher = SUBDOCUMENT_PATTERN.matcher(body);
+        while (matcher.find()) {
+            urls.add(matcher.group(1));
+        }
+        return urls;
+    }
+
+    @NonNull
+    private static MockResponse json(@NonNull final String body) {
+        return new MockResponse()
+                .setResponseCode(200)
+                .setHeader("Content-Type", "application/vnd.gini.v1+json")
+                .setBody(body);
+    }
+
+    @NonNull
+    private static MockResponse notFound() {
+        return new MockResponse().setResponseCode(404);
+    }
+
+    /**
+     * Compresses the response body, if the client accepts gzip like the Gini API does.
+     */
+    @NonNull
+    private static MockResponse applyCompression(@NonNull final RecordedRequest request,
+            @NonNull final MockResponse response) {
+        final String acceptEncoding = request.getHeader("Accept-Encoding");
+        final Buffer body = response.getBody();
+        if (acceptEncoding == null || !acceptEncoding.contains("gzip") || body == null
+                || body.size() == 0) {
+            return response;
+        }
+        final Buffer compressed = new Buffer();
+        try {
+            final BufferedSink sink = Okio.buffer(new GzipSink(compressed));
+            sink.writeAll(body);
+            sink.close();
+        } catch (final IOException e) {
+            // Writing to a buffer doesn't fail
+            return response;
+        }
+        return response
+                .setBody(compressed)
+                .setHeader("Content-Encoding", "gzip");
+    }
+
+    @NonNull
+    private MockResponse applyScript(@NonNull final Endpoint endpoint,
+            @NonNull final MockResponse response) {
+        final long latencyMs = mScript.getLatencyMs(endpoint);
+        if (latencyMs > 0) {
+            response.setHeadersDelay(latencyMs, TimeUnit.MILLISECONDS);
+        }
+        return applyBandwidth(response);
+    }
+
+    @NonNull
+    private MockResponse applyBandwidth(@NonNull final MockResponse response) {
+        final long bandwidth = mScript.getBandwidthBytesPerSecond();
+        if (bandwidth > 0) {
+            response.throttleBody(Math.max(1, bandwidth * THROTTLE_PERIOD_MS / 1000),
+                    THROTTLE_PERIOD_MS, TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    private class GiniApiDispatcher extends Dispatcher {
+
+        @Override
+        public MockResponse dispatch(final RecordedRequest request) {
+            final String path = request.getPath();
+            final Endpoint endpoint = Endpoint.match(request.getMethod(),
+                    path != null ? path : "", request.getHeader("Content-Type"));
+            if (endpoint == null) {
+                return notFound();
+            }
+            mRequestCounts.get(endpoint).incrementAndGet();
+            mReceivedBytes.addAndGet(request.getBodySize());
+
+            final Integer failure = mScript.pollFailure(endpoint);
+            if (failure != null) {
+                if (failure == ServerScript.DISCONNECT) {
+                    return new MockResponse().setSocketPolicy(
+                            SocketPolicy.DISCONNECT_AFTER_REQUEST);
+                }
+                return applyScript(endpoint, new MockResponse()
+                        .setResponseCode(failure)
+                        .setBody("{\"message\":\"Failure injected by the mock server\"}"));
+            }
+            return applyScript(endpoint, applyCompression(request, handle(endpoint, request)));
+        }
+
+        @Override
+        public MockResponse peek() {
+            // Used by the server to throttle reading the request bodies
+            return applyBandwidth(new MockResponse().setSocketPolicy(SocketPolicy.KEEP_OPEN));
+        }
+    }
+
+    private static class StoredDocument {
+
+        private final String mId;
+        private final String mName;
+        private final boolean mPartial;
+        private final int mPageCount;
+        private final List<String> mPartialDocumentUrls;
+        private final long mCreatedAtMs;
+        private final long mProcessingTimeMs;
+
+        StoredDocument(@NonNull final String id, @NonNull final String name,
+                final boolean partial, final int pageCount,
+                @NonNull final List<String> partialDocumentUrls, final long createdAtMs,
+                final long processingTimeMs) {
+            mId = id;
+            mName = name;
+            mPartial = partial;
+            mPageCount = pageCount;
+            mPartialDocumentUrls = partialDocumentUrls;
+            mCreatedAtMs = createdAtMs;
+            mProcessingTimeMs = processingTimeMs;
+        }
+    }
+}
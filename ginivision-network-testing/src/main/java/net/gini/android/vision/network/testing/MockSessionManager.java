@@ -0,0 +1,24 @@
+package net.gini.android.vision.network.testing;
+
+import net.gini.android.authorization.Session;
+import net.gini.android.authorization.SessionManager;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import bolts.Task;
+
+/**
+ * Returns a fixed session without contacting the Gini user center. The {@link
+ * MockGiniApiServer} accepts any access token.
+ */
+public class MockSessionManager implements SessionManager {
+
+    private static final String ACCESS_TOKEN = "mock-access-token";
+
+    @Override
+    public Task<Session> getSession() {
+        return Task.forResult(new Session(ACCESS_TOKEN,
+                new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1))));
+    }
+}
@@ -0,0 +1,190 @@
+package net.gini.android.vision.network.testing;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Scripts the behaviour of the {@link MockGiniApiServer}: response latencies, bandwidth, the
+ * processing time of the analysis, failures and the returned extractions.
+ *
+ * <p> The script can be changed while the server is running. Changes apply to the requests
+ * arriving afterwards.
+ */
+public final class ServerScript {
+
+    /**
+     * Status code used for failures which close the connection without a response.
+     */
+    static final int DISCONNECT = -1;
+
+    private final Map<Endpoint, Long> mLatenciesMs = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Deque<Integer>> mFailures = new EnumMap<>(Endpoint.class);
+    private long mBandwidthBytesPerSecond;
+    private long mProcessingTimeMs;
+    private long mProcessingTimePerPageMs;
+    private boolean mProcessingFails;
+    private String mExtractionsFixture = GiniApiFixtures.DEFAULT_EXTRACTIONS;
+
+    /**
+     * Delays the responses of an endpoint.
+     *
+     * @param endpoint  the endpoint
+     * @param latencyMs the delay before the response headers are sent
+     * @return this instance
+     */
+    @NonNull
+    public synchronized ServerScript setLatency(@NonNull final Endpoint endpoint,
+            final long latencyMs) {
+        mLatenciesMs.put(endpoint, Math.max(0, latencyMs));
+        return this;
+    }
+
+    /**
+     * Delays the responses of all endpoints.
+     *
+     * @param latencyMs the delay before the response headers are sent
+     * @return this instance
+     */
+    @NonNull
+    public synchronized ServerScript setLatency(final long latencyMs) {
+        for (final Endpoint endpoint : Endpoint.values()) {
+            setLatency(endpoint, latencyMs);
+        }
+        return this;
+    }
+
+    /**
+     * Limits the speed request bodies are read and response bodies are written with.
+     *
+     * @param bytesPerSecond the bandwidth or 0 for no limit
+     * @return this instance
+     */
+    @NonNull
+    public synchronized ServerScript setBandwidth(final long bytesPerSecond) {
+        mBandwidthBytesPerSecond = Math.max(0, bytesPerSecond);
+        return this;
+    }
+
+    /**
+     * Sets how long the analysis of a document takes. Polled documents are reported as {@code
+     * PENDING} until the processing time has passed since their creation.
+     *
+     * @param baseMs    the processing time of every document
+     * @param perPageMs the additional processing time per page
+     * @return this instance
+     */
+    @NonNull
+    public synchronized ServerScript setProcessingTime(final long baseMs, final long perPageMs) {
+        mProcessingTimeMs = Math.max(0, baseMs);
+        mProcessingTimePerPageMs = Math.max(0, perPageMs);
+        return this;
+    }
+
+    /**
+     * @param fails {@code true} to report the analysis of documents as {@code ERROR}
+     * @return this instance
+     */
+    @NonNull
+    public synchronized ServerScript setProcessingFails(final boolean fails) {
+        mProcessingFails = fails;
+        return this;
+    }
+
+    /**
+     * Answers the next requests to an endpoint with an error status code.
+     *
+     * @param endpoint   the endpoint
+     * @param times      the number of requests to fail
+     * @param statusCode the HTTP status code, for example 500 or 503
+     * @return this instance
+     */
+    @NonNull
+    public synchronized ServerScript failNext(@NonNull final Endpoint endpoint, final int times,
+            final int statusCode) {
+        Deque<Integer> failures = mFailures.get(endpoint);
+        if (failures == null) {
+            failures = new ArrayDeque<>();
+            mFailures.put(endpoint, failures);
+        }
+        for (int i = 0; i < times; i++) {
+            failures.add(statusCode);
+        }
+        return this;
+    }
+
+    /**
+     * Closes the connection of the next requests to an endpoint without a response.
+     *
+     * @param endpoint the endpoint
+     * @param times    the number of requests to fail
+     * @return this instance
+     */
+    @NonNull
+    public synchronized ServerScript disconnectNext(@NonNull final Endpoint endpoint,
+            final int times) {
+        return failNext(endpoint, times, DISCONNECT);
+    }
+
+    /**
+     * Sets the response of the extractions endpoint. Use {@link GiniApiFixtures} to load one of
+     * the bundled fixtures.
+     *
+     * @param extractionsJson the JSON returned for {@code GET /documents/{id}/extractions}
+     * @return this instance
+     */
+    @NonNull
+    public synchronized ServerScript setExtractionsFixture(@NonNull final String extractionsJson) {
+        mExtractionsFixture = extractionsJson;
+        return this;
+    }
+
+    /**
+     * Restores the default behaviour: no latency, no bandwidth limit, instant processing, no
+     * failures and the default extractions.
+     */
+    public synchronized void reset() {
+        mLatenciesMs.clear();
+        mFailures.clear();
+        mBandwidthBytesPerSecond = 0;
+        mProcessingTimeMs = 0;
+        mProcessingTimePerPageMs = 0;
+        mProcessingFails = false;
+        mExtractionsFixture = GiniApiFixtures.DEFAULT_EXTRACTIONS;
+    }
+
+    synchronized long getLatencyMs(@NonNull final Endpoint endpoint) {
+        final Long latencyMs = mLatenciesMs.get(endpoint);
+        return latencyMs != null ? latencyMs : 0;
+    }
+
+    synchronized long getBandwidthBytesPerSecond() {
+        return mBandwidthBytesPerSecond;
+    }
+
+    synchronized long getProcessingTimeMs(final int pageCount) {
+        return mProcessingTimeMs + mProcessingTimePerPageMs * pageCount;
+    }
+
+    synchronized boolean isProcessingFails() {
+        return mProcessingFails;
+    }
+
+    /**
+     * @return the status code of the next failure or {@code null}, if the request should succeed
+     */
+    @Nullable
+    synchronized Integer pollFailure(@NonNull final Endpoint endpoint) {
+        final Deque<Integer> failures = mFailures.get(endpoint);
+        return failures != null ? failures.poll() : null;
+    }
+
+    @NonNull
+    synchronized String getExtractionsFixture() {
+        return mExtractionsFixture;
+    }
+}
@@ -0,0 +1,238 @@
+package net.gini.android.vision.network.testing;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+@RunWith(JUnit4.class)
+public class MockGiniApiServerTest {
+
+    private static final String PARTIAL_CONTENT_TYPE = "application/vnd.gini.v2.partial+jpeg";
+    private static final String COMPOSITE_CONTENT_TYPE =
+            "application/vnd.gini.v2.composite+json";
+
+    private MockGiniApiServer mServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockGiniApiServer();
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void should_storeUploadedPartialDocument() throws Exception {
+        // When
+        final Response upload = send("POST", "documents/?filename=page.jpg",
+                PARTIAL_CONTENT_TYPE, new byte[1024]);
+        final Response document = send("GET", upload.mLocation, null, null);
+        // Then
+        assertThat(upload.mCode).isEqualTo(201);
+        assertThat(document.mCode).isEqualTo(200);
+        assertThat(document.mBody).contains("\"progress\":\"COMPLETED\"");
+        assertThat(document.mBody).contains("\"name\":\"page.jpg\"");
+        assertThat(mServer.getRequestCount(Endpoint.UPLOAD_DOCUMENT)).isEqualTo(1);
+        assertThat(mServer.getReceivedBytes()).isEqualTo(1024L);
+    }
+
+    @Test
+    public void should_reportCompositeDocument_asPending_untilProcessed() throws Exception {
+        // Given
+        mServer.getScript().setProcessingTime(300, 0);
+        final String compositeUrl = createCompositeDocument(2);
+        // When
+        final Response pending = send("GET", compositeUrl, null, null);
+        final Response extractionsWhilePending = send("GET", compositeUrl + "/extractions",
+                null, null);
+        Thread.sleep(400);
+        final Response completed = send("GET", compositeUrl, null, null);
+        // Then
+        assertThat(pending.mBody).contains("\"progress\":\"PENDING\"");
+        assertThat(pending.mBody).contains("\"pageCount\":2");
+        assertThat(extractionsWhilePending.mCode).isEqualTo(409);
+        assertThat(completed.mBody).contains("\"progress\":\"COMPLETED\"");
+    }
+
+    @Test
+    public void should_returnExtractionsFixture() throws Exception {
+        // Given
+        mServer.getScript().setExtractionsFixture(GiniApiFixtures.EMPTY_EXTRACTIONS);
+        final String compositeUrl = createCompositeDocument(1);
+        // When
+        final Response extractions = send("GET", compositeUrl + "/extractions", null, null);
+        // Then
+        assertThat(extractions.mCode).isEqualTo(200);
+        assertThat(extractions.mBody).isEqualTo(GiniApiFixtures.EMPTY_EXTRACTIONS);
+    }
+
+    @Test
+    public void should_reportProcessingError() throws Exception {
+        // Given
+        mServer.getScript().setProcessingFails(true);
+        final String compositeUrl = createCompositeDocument(1);
+        // When
+        final Response document = send("GET", compositeUrl, null, null);
+        // Then
+        assertThat(document.mBody).contains("\"progress\":\"ERROR\"");
+    }
+
+    @Test
+    public void should_injectFailures() throws Exception {
+        // Given
+        mServer.getScript().failNext(Endpoint.UPLOAD_DOCUMENT, 2, 503);
+        // When
+        final Response first = send("POST", "documents/", PARTIAL_CONTENT_TYPE, new byte[8]);
+        final Response second = send("POST", "documents/", PARTIAL_CONTENT_TYPE, new byte[8]);
+        final Response third = send("POST", "documents/", PARTIAL_CONTENT_TYPE, new byte[8]);
+        // Then
+        assertThat(first.mCode).isEqualTo(503);
+        assertThat(second.mCode).isEqualTo(503);
+        assertThat(third.mCode).isEqualTo(201);
+        assertThat(mServer.getRequestCount(Endpoint.UPLOAD_DOCUMENT)).isEqualTo(3);
+        assertThat(mServer.getDocumentCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_delayResponses() throws Exception {
+        // Given
+        mServer.getScript().setLatency(Endpoint.UPLOAD_DOCUMENT, 200);
+        // When
+        final long start = System.currentTimeMillis();
+        send("POST", "documents/", PARTIAL_CONTENT_TYPE, new byte[8]);
+        // Then
+        assertThat(System.currentTimeMillis() - start).isAtLeast(200L);
+    }
+
+    @Test
+    public void should_limitBandwidth() throws Exception {
+        // Given
+        mServer.getScript().setBandwidth(10 * 1024);
+        // When
+        final long start = System.currentTimeMillis();
+        send("POST", "documents/", PARTIAL_CONTENT_TYPE, new byte[5 * 1024]);
+        // Then
+        assertThat(System.currentTimeMillis() - start).isAtLeast(400L);
+    }
+
+    @Test
+    public void should_deleteDocument() throws Exception {
+        // Given
+        final Response upload = send("POST", "documents/", PARTIAL_CONTENT_TYPE, new byte[8]);
+        // When
+        final Response delete = send("DELETE", upload.mLocation, null, null);
+        final Response document = send("GET", upload.mLocation, null, null);
+        // Then
+        assertThat(delete.mCode).isEqualTo(204);
+        assertThat(document.mCode).isEqualTo(404);
+        assertThat(mServer.getDocumentCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_acceptFeedback() throws Exception {
+        // Given
+        final String compositeUrl = createCompositeDocument(1);
+        // When
+        final Response feedback = send("PUT", compositeUrl + "/extractions",
+                "application/vnd.gini.v1+json", "{\"feedback\":{}}".getBytes("UTF-8"));
+        // Then
+        assertThat(feedback.mCode).isEqualTo(204);
+        assertThat(mServer.getRequestCount(Endpoint.SEND_FEEDBACK)).isEqualTo(1);
+    }
+
+    @Test
+    public void should_compressResponses_whenGzipAccepted() throws Exception {
+        // Given
+        final String compositeUrl = createCompositeDocument(1);
+        final HttpURLConnection connection = (HttpURLConnection) new URL(
+                compositeUrl + "/extractions").openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        try {
+            // When
+            final String body = read(new GZIPInputStream(connection.getInputStream()));
+            // Then
+            assertThat(connection.getHeaderField("Content-Encoding")).isEqualTo("gzip");
+            assertThat(body).isEqualTo(GiniApiFixtures.DEFAULT_EXTRACTIONS);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private String createCompositeDocument(final int pageCount) throws IOException {
+        final StringBuilder body = new StringBuilder("{\"subdocuments\":[");
+        for (int i = 0; i < pageCount; i++) {
+            final Response upload = send("POST", "documents/", PARTIAL_CONTENT_TYPE,
+                    new byte[8]);
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"document\":\"").append(upload.mLocation)
+                    .append("\",\"rotationDelta\":0}");
+        }
+        body.append("]}");
+        return send("POST", "documents/", COMPOSITE_CONTENT_TYPE,
+                body.toString().getBytes("UTF-8")).mLocation;
+    }
+
+    private Response send(final String method, final String pathOrUrl, final String contentType,
+            final byte[] body) throws IOException {
+        final URL url = new URL(pathOrUrl.startsWith("http") ? pathOrUrl
+                : mServer.getBaseUrl() + pathOrUrl);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod(method);
+            if (contentType != null) {
+                connection.setRequestProperty("Content-Type", contentType);
+            }
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(body.length);
+                final OutputStream outputStream = connection.getOutputStream();
+                outputStream.write(body);
+                outputStream.close();
+            }
+            final Response response = new Response();
+            response.mCode = connection.getResponseCode();
+            response.mLocation = connection.getHeaderField("Location");
+            final InputStream inputStream = response.mCode < 400
+                    ? connection.getInputStream() : connection.getErrorStream();
+            response.mBody = inputStream != null ? read(inputStream) : "";
+            return response;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String read(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        inputStream.close();
+        return outputStream.toString("UTF-8");
+    }
+
+    private static class Response {
+
+        private int mCode;
+        private String mLocation;
+        private String mBody;
+    }
+}
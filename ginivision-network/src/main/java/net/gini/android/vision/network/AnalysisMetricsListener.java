@@ -0,0 +1,21 @@
+package net.gini.android.vision.network;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Receives the durations of the stages of each document analysis done by the {@link
+ * GiniVisionDefaultNetworkService}.
+ *
+ * <p> Set it with {@link
+ * GiniVisionDefaultNetworkService.Builder#setAnalysisMetricsListener(AnalysisMetricsListener)}.
+ * It is called on the main thread.
+ */
+public interface AnalysisMetricsListener {
+
+    /**
+     * Called when an analysis succeeded or failed. Not called for cancelled analyses.
+     *
+     * @param timings the durations of the analysis stages
+     */
+    void onAnalysisFinished(@NonNull AnalysisTimings timings);
+}
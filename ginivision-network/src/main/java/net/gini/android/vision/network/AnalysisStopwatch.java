@@ -0,0 +1,57 @@
+package net.gini.android.vision.network;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Measures the stages of a document analysis. The stages run on different threads, therefore all
+ * methods are synchronized.
+ */
+class AnalysisStopwatch {
+
+    private final long mStartMs;
+    private long mCompositeCreatedMs = -1;
+    private long mProcessedMs = -1;
+    private int mPollCount;
+
+    AnalysisStopwatch() {
+        mStartMs = SystemClock.elapsedRealtime();
+    }
+
+    synchronized void compositeCreated() {
+        mCompositeCreatedMs = SystemClock.elapsedRealtime();
+    }
+
+    synchronized void polled() {
+        mPollCount++;
+    }
+
+    synchronized void processed() {
+        mProcessedMs = SystemClock.elapsedRealtime();
+    }
+
+    synchronized int getPollCount() {
+        return mPollCount;
+    }
+
+    /**
+     * @return the time since the composite document was created or 0, if it wasn't created yet
+     */
+    synchronized long getProcessingWaitMs() {
+        return mCompositeCreatedMs < 0 ? 0 : SystemClock.elapsedRealtime() - mCompositeCreatedMs;
+    }
+
+    @NonNull
+    synchronized AnalysisTimings finish(final boolean successful) {
+        final long nowMs = SystemClock.elapsedRealtime();
+        final long compositeCreationMs = mCompositeCreatedMs < 0 ? -1
+                : mCompositeCreatedMs - mStartMs;
+        final long processingWaitMs = mCompositeCreatedMs < 0 || mProcessedMs < 0 ? -1
+                : mProcessedMs - mCompositeCreatedMs;
+        final long extractionFetchMs = mProcessedMs < 0 || !successful ? -1
+                : nowMs - mProcessedMs;
+        return new AnalysisTimings(compositeCreationMs, processingWaitMs, extractionFetchMs,
+                nowMs - mStartMs, mPollCount, successful);
+    }
+}
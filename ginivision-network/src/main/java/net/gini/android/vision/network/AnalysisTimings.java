@@ -0,0 +1,83 @@
+package net.gini.android.vision.network;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Durations of the stages of a document analysis. Stages which were not reached because the
+ * analysis failed have a duration of -1.
+ */
+public final class AnalysisTimings {
+
+    private final long mCompositeCreationMs;
+    private final long mProcessingWaitMs;
+    private final long mExtractionFetchMs;
+    private final long mTotalMs;
+    private final int mPollCount;
+    private final boolean mSuccessful;
+
+    AnalysisTimings(final long compositeCreationMs, final long processingWaitMs,
+            final long extractionFetchMs, final long totalMs, final int pollCount,
+            final boolean successful) {
+        mCompositeCreationMs = compositeCreationMs;
+        mProcessingWaitMs = processingWaitMs;
+        mExtractionFetchMs = extractionFetchMs;
+        mTotalMs = totalMs;
+        mPollCount = pollCount;
+        mSuccessful = successful;
+    }
+
+    /**
+     * @return the time in milliseconds it took to create the composite document from the pages
+     */
+    public long getCompositeCreationMs() {
+        return mCompositeCreationMs;
+    }
+
+    /**
+     * @return the time in milliseconds spent waiting for the Gini API to process the document
+     */
+    public long getProcessingWaitMs() {
+        return mProcessingWaitMs;
+    }
+
+    /**
+     * @return the time in milliseconds it took to download the extractions
+     */
+    public long getExtractionFetchMs() {
+        return mExtractionFetchMs;
+    }
+
+    /**
+     * @return the time in milliseconds from starting the analysis until it finished
+     */
+    public long getTotalMs() {
+        return mTotalMs;
+    }
+
+    /**
+     * @return the number of times the document was polled while waiting for the processing
+     */
+    public int getPollCount() {
+        return mPollCount;
+    }
+
+    /**
+     * @return {@code true} if the analysis succeeded
+     */
+    public boolean isSuccessful() {
+        return mSuccessful;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "AnalysisTimings{"
+                + "compositeCreationMs=" + mCompositeCreationMs
+                + ", processingWaitMs=" + mProcessingWaitMs
+                + ", extractionFetchMs=" + mExtractionFetchMs
+                + ", totalMs=" + mTotalMs
+                + ", pollCount=" + mPollCount
+                + ", successful=" + mSuccessful
+                + '}';
+    }
+}
@@ -0,0 +1,42 @@
+package net.gini.android.vision.network;
+
+import net.gini.android.DocumentMetadata;
+import net.gini.android.models.Document;
+import net.gini.android.models.SpecificExtraction;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import bolts.Task;
+
+/**
+ * Executes the Gini API requests of the {@link GiniVisionDefaultNetworkService}.
+ */
+interface DocumentTransport {
+
+    @NonNull
+    Task<Document> createPartialDocument(@NonNull byte[] data, @NonNull String mimeType,
+            @Nullable DocumentMetadata documentMetadata);
+
+    @NonNull
+    Task<Document> createCompositeDocument(
+            @NonNull LinkedHashMap<Document, Integer> documentRotationMap); // NOPMD
+
+    @NonNull
+    Task<Document> getDocument(@NonNull String documentId);
+
+    @NonNull
+    Task<Map<String, SpecificExtraction>> getSpecificExtractions(@NonNull Document document);
+
+    /**
+     * Deletes the composite documents referencing the partial document before deleting the
+     * partial document.
+     *
+     * @return a task with the id of the deleted partial document
+     */
+    @NonNull
+    Task<String> deletePartialDocumentAndParents(@NonNull String documentId);
+}
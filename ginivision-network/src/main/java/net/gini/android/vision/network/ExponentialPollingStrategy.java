@@ -0,0 +1,162 @@
+package net.gini.android.vision.network;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Polls with an exponentially growing delay up to a maximum delay and gives up after a timeout.
+ *
+ * <p> The first poll is delayed by a base delay and an additional delay per page, because the
+ * processing time grows with the number of pages reported by the Gini API.
+ *
+ * <p> To create an instance use the {@link ExponentialPollingStrategy.Builder} returned by the
+ * {@link #builder()} method.
+ */
+public class ExponentialPollingStrategy implements PollingStrategy {
+
+    private final long mInitialDelayMs;
+    private final long mDelayPerPageMs;
+    private final double mMultiplier;
+    private final long mMaxDelayMs;
+    private final long mTimeoutMs;
+
+    /**
+     * Creates a new {@link ExponentialPollingStrategy.Builder} to configure and create a new
+     * instance.
+     *
+     * @return a new {@link ExponentialPollingStrategy.Builder}
+     */
+    @NonNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    ExponentialPollingStrategy(@NonNull final Builder builder) {
+        mInitialDelayMs = builder.mInitialDelayMs;
+        mDelayPerPageMs = builder.mDelayPerPageMs;
+        mMultiplier = builder.mMultiplier;
+        mMaxDelayMs = builder.mMaxDelayMs;
+        mTimeoutMs = builder.mTimeoutMs;
+    }
+
+    @Override
+    public long getInitialDelayMs(final int pageCount) {
+        return Math.min(mMaxDelayMs,
+                mInitialDelayMs + mDelayPerPageMs * Math.max(0, pageCount - 1));
+    }
+
+    @Override
+    public long getNextDelayMs(final int pollCount, final long elapsedMs) {
+        if (elapsedMs >= mTimeoutMs) {
+            return -1;
+        }
+        final double delayMs = mInitialDelayMs * Math.pow(mMultiplier, pollCount);
+        return Math.min(Math.min(mMaxDelayMs, (long) delayMs), mTimeoutMs - elapsedMs);
+    }
+
+    /**
+     * Builder for configuring a new instance of the {@link ExponentialPollingStrategy}.
+     */
+    public static class Builder {
+
+        private long mInitialDelayMs = 500;
+        private long mDelayPerPageMs = 250;
+        private double mMultiplier = 1.5;
+        private long mMaxDelayMs = 3000;
+        private long mTimeoutMs = 120000;
+
+        Builder() {
+        }
+
+        /**
+         * Create a new instance of the {@link ExponentialPollingStrategy}.
+         *
+         * @return new {@link ExponentialPollingStrategy} instance
+         */
+        @NonNull
+        public ExponentialPollingStrategy build() {
+            if (mInitialDelayMs < 0 || mDelayPerPageMs < 0 || mMaxDelayMs < mInitialDelayMs
+                    || mTimeoutMs <= 0) {
+                throw new IllegalStateException("Invalid delays for the polling strategy");
+            }
+            if (mMultiplier < 1) {
+                throw new IllegalStateException("Multiplier must be at least 1");
+            }
+            return new ExponentialPollingStrategy(this);
+        }
+
+        /**
+         * Set the delay before the first poll and the base of the following delays.
+         *
+         * <p> Default value is 500ms.
+         *
+         * @param initialDelayMs the initial delay in milliseconds
+         *
+         * @return the {@link Builder} instance
+         */
+        @NonNull
+        public Builder setInitialDelayMs(final long initialDelayMs) {
+            mInitialDelayMs = initialDelayMs;
+            return this;
+        }
+
+        /**
+         * Set the delay added to the first delay for each page after the first one.
+         *
+         * <p> Default value is 250ms.
+         *
+         * @param delayPerPageMs the additional delay per page in milliseconds
+         *
+         * @return the {@link Builder} instance
+         */
+        @NonNull
+        public Builder setDelayPerPageMs(final long delayPerPageMs) {
+            mDelayPerPageMs = delayPerPageMs;
+            return this;
+        }
+
+        /**
+         * Set the factor the delay grows by after each poll.
+         *
+         * <p> Default value is 1.5.
+         *
+         * @param multiplier the backoff multiplier, at least 1
+         *
+         * @return the {@link Builder} instance
+         */
+        @NonNull
+        public Builder setMultiplier(final double multiplier) {
+            mMultiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Set the longest delay between two polls.
+         *
+         * <p> Default value is 3000ms.
+         *
+         * @param maxDelayMs the maximum delay in milliseconds
+         *
+         * @return the {@link Builder} instance
+         */
+        @NonNull
+        public Builder setMaxDelayMs(final long maxDelayMs) {
+            mMaxDelayMs = maxDelayMs;
+            return this;
+        }
+
+        /**
+         * Set how long to wait for the processing of a document before the analysis fails.
+         *
+         * <p> Default value is 120000ms.
+         *
+         * @param timeoutMs the timeout in milliseconds
+         *
+         * @return the {@link Builder} instance
+         */
+        @NonNull
+        public Builder setTimeoutMs(final long timeoutMs) {
+            mTimeoutMs = timeoutMs;
+            return this;
+        }
+    }
+}
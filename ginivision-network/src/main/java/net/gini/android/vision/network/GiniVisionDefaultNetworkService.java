@@ -6,13 +6,12 @@ import android.text.TextUtils;
 import com.android.volley.Cache;
 
 import net.gini.android.DocumentMetadata;
-import net.gini.android.DocumentTaskManager;
 import net.gini.android.Gini;
 import net.gini.android.SdkBuilder;
 import net.gini.android.authorization.CredentialsStore;
 import net.gini.android.authorization.SessionManager;
 import net.gini.android.authorization.SharedPreferencesCredentialsStore;
-import net.gini.android.models.ExtractionsContainer;
+import net.gini.android.models.SpecificExtraction;
 import net.gini.android.vision.Document;
 import net.gini.android.vision.GiniVision;
 import net.gini.android.vision.document.GiniVisionMultiPageDocument;
@@ -24,10 +23,13 @@ import net.gini.android.vision.util.NoOpCancellationToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -36,6 +38,7 @@ import androidx.annotation.Nullable;
 import androidx.annotation.XmlRes;
 
 import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
 
 import bolts.Continuation;
 import bolts.Task;
@@ -69,8 +72,11 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
             GiniVisionDefaultNetworkService.class);
 
     private final Gini mGiniApi;
+    private final DocumentTransport mDocumentTransport;
     private final Map<String, net.gini.android.models.Document> mGiniApiDocuments = new HashMap<>();
     private final DocumentMetadata mDocumentMetadata;
+    private final PollingStrategy mPollingStrategy;
+    private final AnalysisMetricsListener mAnalysisMetricsListener;
     private net.gini.android.models.Document mAnalyzedGiniApiDocument;
 
     /**
@@ -86,9 +92,15 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
     }
 
     GiniVisionDefaultNetworkService(@NonNull final Gini giniApi,
-            @Nullable final DocumentMetadata documentMetadata) {
+            @NonNull final DocumentTransport documentTransport,
+            @Nullable final DocumentMetadata documentMetadata,
+            @NonNull final PollingStrategy pollingStrategy,
+            @Nullable final AnalysisMetricsListener analysisMetricsListener) {
         mGiniApi = giniApi;
+        mDocumentTransport = documentTransport;
         mDocumentMetadata = documentMetadata;
+        mPollingStrategy = pollingStrategy;
+        mAnalysisMetricsListener = analysisMetricsListener;
     }
 
     @Override
@@ -108,16 +120,9 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
             callback.failure(error);
             return new NoOpCancellationToken();
         }
-        final DocumentTaskManager documentTaskManager = mGiniApi.getDocumentTaskManager();
-        final Task<net.gini.android.models.Document> createDocumentTask;
-        if (mDocumentMetadata != null) {
-            createDocumentTask = documentTaskManager.createPartialDocument(document.getData(),
-                    document.getMimeType(), null, null, mDocumentMetadata);
-        } else {
-            createDocumentTask = documentTaskManager.createPartialDocument(document.getData(),
-                    document.getMimeType(), null, null);
-        }
-        createDocumentTask.continueWith(new Continuation<net.gini.android.models.Document, Void>() {
+        mDocumentTransport.createPartialDocument(document.getData(), document.getMimeType(),
+                mDocumentMetadata)
+                .continueWith(new Continuation<net.gini.android.models.Document, Void>() {
                     @Override
                     public Void then(final Task<net.gini.android.models.Document> task)
                             throws Exception {
@@ -155,7 +160,7 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
     public CancellationToken delete(@NonNull final String giniApiDocumentId,
             @NonNull final GiniVisionNetworkCallback<Result, Error> callback) {
         LOG.debug("Delete document with api id {}", giniApiDocumentId);
-        mGiniApi.getDocumentTaskManager().deletePartialDocumentAndParents(giniApiDocumentId)
+        mDocumentTransport.deletePartialDocumentAndParents(giniApiDocumentId)
                 .continueWith(new Continuation<String, Void>() {
                     @Override
                     public Void then(final Task<String> task) throws Exception {
@@ -185,6 +190,12 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
             @NonNull final LinkedHashMap<String, Integer> giniApiDocumentIdRotationMap,
             @NonNull final GiniVisionNetworkCallback<AnalysisResult, Error> callback) {
         LOG.debug("Analyze documents {}", giniApiDocumentIdRotationMap);
+        final List<String> missingDocumentIds = getMissingGiniApiDocumentIds(
+                giniApiDocumentIdRotationMap);
+        if (!missingDocumentIds.isEmpty()) {
+            return fetchMissingDocumentsAndAnalyze(missingDocumentIds,
+                    giniApiDocumentIdRotationMap, callback);
+        }
         final LinkedHashMap<net.gini.android.models.Document, Integer> giniApiDocumentRotationMap =
                 new LinkedHashMap<>();
         final boolean success = collectGiniApiDocuments(giniApiDocumentRotationMap,
@@ -196,7 +207,8 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
         final AtomicBoolean isCancelled = new AtomicBoolean();
         final AtomicReference<net.gini.android.models.Document> compositeDocument =
                 new AtomicReference<>();
-        mGiniApi.getDocumentTaskManager().createCompositeDocument(giniApiDocumentRotationMap, null)
+        final AnalysisStopwatch stopwatch = new AnalysisStopwatch();
+        mDocumentTransport.createCompositeDocument(giniApiDocumentRotationMap)
                 .onSuccessTask(
                         new Continuation<net.gini.android.models.Document,
                                 Task<net.gini.android.models.Document>>() {
@@ -216,20 +228,20 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
                                             giniApiDocumentIdRotationMap);
                                     return task;
                                 }
+                                stopwatch.compositeCreated();
                                 final net.gini.android.models.Document giniApiDocument =
                                         task.getResult();
                                 // Composite document needed to create the AnalysisResult later
                                 compositeDocument.set(giniApiDocument);
                                 mGiniApiDocuments.put(giniApiDocument.getId(), giniApiDocument);
-                                return mGiniApi.getDocumentTaskManager().pollDocument(
-                                        giniApiDocument);
+                                return pollDocument(giniApiDocument, stopwatch, isCancelled);
                             }
                         })
                 .onSuccessTask(
                         new Continuation<net.gini.android.models.Document,
-                                Task<ExtractionsContainer>>() {
+                                Task<Map<String, SpecificExtraction>>>() {
                             @Override
-                            public Task<ExtractionsContainer> then(
+                            public Task<Map<String, SpecificExtraction>> then(
                                     final Task<net.gini.android.models.Document> task)
                                     throws Exception {
                                 if (isCancelled.get()) {
@@ -246,27 +258,30 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
                                             giniApiDocumentIdRotationMap);
                                     return Task.cancelled();
                                 }
-                                return mGiniApi.getDocumentTaskManager().getAllExtractions(
+                                stopwatch.processed();
+                                return mDocumentTransport.getSpecificExtractions(
                                         giniApiDocument);
                             }
                         })
                 .continueWith(
-                        new Continuation<ExtractionsContainer, Void>() {
+                        new Continuation<Map<String, SpecificExtraction>, Void>() {
                             @Override
                             public Void then(
-                                    final Task<ExtractionsContainer> task)
+                                    final Task<Map<String, SpecificExtraction>> task)
                                     throws Exception {
                                 if (task.isFaulted()) {
                                     final Error error = new Error(getTaskErrorMessage(task), task.getError());
                                     LOG.error("Document analysis failed for documents {}: {}",
                                             giniApiDocumentIdRotationMap, error.getMessage());
+                                    notifyAnalysisFinished(stopwatch.finish(false));
                                     callback.failure(error);
                                 } else if (task.getResult() != null) {
                                     mAnalyzedGiniApiDocument = compositeDocument.get();
                                     final Map<String, GiniVisionSpecificExtraction> extractions =
-                                            SpecificExtractionMapper.mapToGVL(task.getResult().getSpecificExtractions());
+                                            SpecificExtractionMapper.mapToGVL(task.getResult());
                                     LOG.debug("Document analysis success for documents {}: extractions = {}; compoundExtractions = {}; returnReasons = {}",
                                             giniApiDocumentIdRotationMap, extractions);
+                                    notifyAnalysisFinished(stopwatch.finish(true));
                                     callback.success(
                                             new AnalysisResult(compositeDocument.get().getId(),
                                                     extractions));
@@ -284,21 +299,149 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
                 LOG.debug("Document analaysis cancellation requested for documents {}",
                         giniApiDocumentIdRotationMap);
                 isCancelled.set(true);
-                if (compositeDocument.get() != null) {
-                    mGiniApi.getDocumentTaskManager().cancelDocumentPolling(
-                            compositeDocument.get());
-                }
             }
         };
 
     }
 
+    /**
+     * Polls the document with the delays of the {@link PollingStrategy} until it was processed.
+     * Documents which failed processing complete the task with an error without waiting for the
+     * next poll.
+     */
+    @NonNull
+    private Task<net.gini.android.models.Document> pollDocument(
+            @NonNull final net.gini.android.models.Document giniApiDocument,
+            @NonNull final AnalysisStopwatch stopwatch,
+            @NonNull final AtomicBoolean isCancelled) {
+        final long delayMs = stopwatch.getPollCount() == 0
+                ? mPollingStrategy.getInitialDelayMs(giniApiDocument.getPageCount())
+                : mPollingStrategy.getNextDelayMs(stopwatch.getPollCount(),
+                        stopwatch.getProcessingWaitMs());
+        if (delayMs < 0) {
+            LOG.error("Gave up waiting for the processing of document {} after {} polls",
+                    giniApiDocument.getId(), stopwatch.getPollCount());
+            return Task.forError(new TimeoutException("Document processing timed out."));
+        }
+        return Task.delay(delayMs).continueWithTask(
+                new Continuation<Void, Task<net.gini.android.models.Document>>() {
+                    @Override
+                    public Task<net.gini.android.models.Document> then(final Task<Void> task)
+                            throws Exception {
+                        if (isCancelled.get()) {
+                            return Task.cancelled();
+                        }
+                        stopwatch.polled();
+                        return mDocumentTransport.getDocument(giniApiDocument.getId());
+                    }
+                }).onSuccessTask(
+                new Continuation<net.gini.android.models.Document,
+                        Task<net.gini.android.models.Document>>() {
+                    @Override
+                    public Task<net.gini.android.models.Document> then(
+                            final Task<net.gini.android.models.Document> task)
+                            throws Exception {
+                        final net.gini.android.models.Document document = task.getResult();
+                        if (isCancelled.get() || document == null) {
+                            return Task.cancelled();
+                        }
+                        final net.gini.android.models.Document.ProcessingState state =
+                                document.getState();
+                        if (state == net.gini.android.models.Document.ProcessingState.COMPLETED) {
+                            return task;
+                        } else if (state
+                                == net.gini.android.models.Document.ProcessingState.ERROR) {
+                            LOG.error("Processing failed for document {}", document.getId());
+                            return Task.forError(
+                                    new RuntimeException("Document processing failed."));
+                        }
+                        return pollDocument(document, stopwatch, isCancelled);
+                    }
+                });
+    }
+
+    private void notifyAnalysisFinished(@NonNull final AnalysisTimings timings) {
+        LOG.debug("Document analysis timings: {}", timings);
+        if (mAnalysisMetricsListener != null) {
+            mAnalysisMetricsListener.onAnalysisFinished(timings);
+        }
+    }
+
     @Override
     public void cleanup() {
         mAnalyzedGiniApiDocument = null; // NOPMD
         mGiniApiDocuments.clear();
     }
 
+    @NonNull
+    private List<String> getMissingGiniApiDocumentIds(
+            @NonNull final LinkedHashMap<String, Integer> giniApiDocumentIdRotationMap) { // NOPMD
+        final List<String> missingDocumentIds = new ArrayList<>();
+        for (final String documentId : giniApiDocumentIdRotationMap.keySet()) {
+            if (!mGiniApiDocuments.containsKey(documentId)) {
+                missingDocumentIds.add(documentId);
+            }
+        }
+        return missingDocumentIds;
+    }
+
+    /**
+     * Partial documents uploaded before the app process was restarted are not known to this
+     * instance. They are requested from the Gini API before the analysis is started.
+     */
+    @NonNull
+    private CancellationToken fetchMissingDocumentsAndAnalyze(
+            @NonNull final List<String> missingDocumentIds,
+            @NonNull final LinkedHashMap<String, Integer> giniApiDocumentIdRotationMap, // NOPMD
+            @NonNull final GiniVisionNetworkCallback<AnalysisResult, Error> callback) {
+        LOG.debug("Fetch missing partial documents {}", missingDocumentIds);
+        final AtomicBoolean isCancelled = new AtomicBoolean();
+        final AtomicReference<CancellationToken> analysisCancellationToken =
+                new AtomicReference<>();
+        final List<Task<net.gini.android.models.Document>> tasks = new ArrayList<>();
+        for (final String documentId : missingDocumentIds) {
+            tasks.add(mDocumentTransport.getDocument(documentId));
+        }
+        Task.whenAll(tasks).continueWith(new Continuation<Void, Void>() {
+            @Override
+            public Void then(final Task<Void> task) throws Exception {
+                if (isCancelled.get()) {
+                    LOG.debug("Document analysis cancelled after fetching documents {}",
+                            missingDocumentIds);
+                    callback.cancelled();
+                    return null;
+                }
+                for (final Task<net.gini.android.models.Document> documentTask : tasks) {
+                    if (documentTask.isCompleted() && !documentTask.isFaulted()
+                            && !documentTask.isCancelled() && documentTask.getResult() != null) {
+                        final net.gini.android.models.Document document =
+                                documentTask.getResult();
+                        mGiniApiDocuments.put(document.getId(), document);
+                    }
+                }
+                if (!getMissingGiniApiDocumentIds(giniApiDocumentIdRotationMap).isEmpty()) {
+                    final Error error = new Error("Missing partial document."); // NOPMD
+                    LOG.error("Document analysis failed for documents {}: {}",
+                            giniApiDocumentIdRotationMap, error.getMessage());
+                    callback.failure(error);
+                    return null;
+                }
+                analysisCancellationToken.set(analyze(giniApiDocumentIdRotationMap, callback));
+                return null;
+            }
+        }, Task.UI_THREAD_EXECUTOR);
+        return new CancellationToken() {
+            @Override
+            public void cancel() {
+                isCancelled.set(true);
+                final CancellationToken cancellationToken = analysisCancellationToken.get();
+                if (cancellationToken != null) {
+                    cancellationToken.cancel();
+                }
+            }
+        };
+    }
+
     private boolean collectGiniApiDocuments(
             @NonNull final LinkedHashMap<net.gini.android.models.Document, Integer> // NOPMD
                     giniApiDocumentRotationMap,
@@ -350,6 +493,9 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
         private float mBackoffMultiplier;
         private DocumentMetadata mDocumentMetadata;
         private TrustManager mTrustManager;
+        private PollingStrategy mPollingStrategy;
+        private AnalysisMetricsListener mAnalysisMetricsListener;
+        private Transport mTransport = Transport.VOLLEY;
 
         Builder(@NonNull final Context context) {
             mContext = context;
@@ -398,7 +544,37 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
                 sdkBuilder.setTrustManager(mTrustManager);
             }
             final Gini giniApi = sdkBuilder.build();
-            return new GiniVisionDefaultNetworkService(giniApi, mDocumentMetadata);
+            final PollingStrategy pollingStrategy = mPollingStrategy != null ? mPollingStrategy
+                    : ExponentialPollingStrategy.builder().build();
+            return new GiniVisionDefaultNetworkService(giniApi,
+                    createDocumentTransport(giniApi), mDocumentMetadata, pollingStrategy,
+                    mAnalysisMetricsListener);
+        }
+
+        @NonNull
+        private DocumentTransport createDocumentTransport(@NonNull final Gini giniApi) {
+            if (mTransport == Transport.HTTP2) {
+                if (mSessionManager == null) {
+                    LOG.warn("The HTTP/2 transport requires a custom session manager. "
+                            + "Using the Volley transport.");
+                } else if (mNetworkSecurityConfigResId != 0) {
+                    LOG.warn("The HTTP/2 transport doesn't support a network security config. "
+                            + "Using the Volley transport.");
+                } else if (mTrustManager != null && !(mTrustManager instanceof X509TrustManager)) {
+                    LOG.warn("The HTTP/2 transport requires an X509TrustManager. "
+                            + "Using the Volley transport.");
+                } else {
+                    final long timeoutMs = mConnectionTimeoutUnit != null
+                            ? TimeUnit.MILLISECONDS.convert(mConnectionTimeout,
+                            mConnectionTimeoutUnit) : 0;
+                    return new Http2DocumentTransport(
+                            !TextUtils.isEmpty(mBaseUrl) ? mBaseUrl
+                                    : Http2DocumentTransport.DEFAULT_BASE_URL,
+                            mSessionManager, timeoutMs, mMaxNumberOfRetries, mBackoffMultiplier,
+                            (X509TrustManager) mTrustManager);
+                }
+            }
+            return new SdkDocumentTransport(giniApi.getDocumentTaskManager());
         }
 
         /**
@@ -583,6 +759,53 @@ public class GiniVisionDefaultNetworkService implements GiniVisionNetworkService
             mTrustManager = trustManager;
             return this;
         }
+
+        /**
+         * Set the strategy which decides how often to poll the Gini API while waiting for a
+         * document to be processed during analysis. If no strategy is set, an {@link
+         * ExponentialPollingStrategy} with the default values is used.
+         *
+         * @param pollingStrategy a {@link PollingStrategy} implementation
+         *
+         * @return the {@link Builder} instance
+         */
+        @NonNull
+        public Builder setPollingStrategy(@NonNull final PollingStrategy pollingStrategy) {
+            mPollingStrategy = pollingStrategy;
+            return this;
+        }
+
+        /**
+         * Set a listener to receive the durations of the analysis stages. You can use them to tune
+         * the {@link PollingStrategy} for your deployment.
+         *
+         * @param analysisMetricsListener an {@link AnalysisMetricsListener} implementation
+         *
+         * @return the {@link Builder} instance
+         */
+        @NonNull
+        public Builder setAnalysisMetricsListener(
+                @NonNull final AnalysisMetricsListener analysisMetricsListener) {
+            mAnalysisMetricsListener = analysisMetricsListener;
+            return this;
+        }
+
+        /**
+         * Set the HTTP client used for uploading, polling, downloading the extractions and
+         * deleting documents. {@link Transport#VOLLEY} is used by default.
+         *
+         * <p> {@link Transport#HTTP2} requires a custom {@link SessionManager} set with {@link
+         * #setSessionManager(SessionManager)}.
+         *
+         * @param transport the {@link Transport} to use
+         *
+         * @return the {@link Builder} instance
+         */
+        @NonNull
+        public Builder setTransport(@NonNull final Transport transport) {
+            mTransport = transport;
+            return this;
+        }
     }
 
 }
@@ -0,0 +1,502 @@
+package net.gini.android.vision.network;
+
+import net.gini.android.DocumentMetadata;
+import net.gini.android.authorization.Session;
+import net.gini.android.authorization.SessionManager;
+import net.gini.android.models.Box;
+import net.gini.android.models.Document;
+import net.gini.android.models.Extraction;
+import net.gini.android.models.SpecificExtraction;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import bolts.Continuation;
+import bolts.Task;
+import bolts.TaskCompletionSource;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Executes the requests with OkHttp. A single client is used so that HTTP/2 capable servers
+ * receive all requests multiplexed over one connection. OkHttp requests gzip compressed responses
+ * and decompresses them transparently.
+ *
+ * <p> Base urls without TLS are expected to speak HTTP/2 with prior knowledge. This is only meant
+ * for local test servers.
+ *
+ * <p> Requests failing because of the network or with HTTP 502, 503 or 504 are retried up to the
+ * maximum number of retries and the timeout of each retry is increased by the backoff multiplier,
+ * like Volley's retry policy. If a request is rejected with HTTP 401, the session manager is asked
+ * for a session once more and the request is repeated, if it returned another access token.
+ */
+class Http2DocumentTransport implements DocumentTransport {
+
+    static final String DEFAULT_BASE_URL = "https://api.gini.net/";
+
+    private static final String DOCUMENTS_PATH = "documents/";
+    private static final String MEDIA_TYPE_DOCUMENT = "application/vnd.gini.v2+json";
+    private static final String MEDIA_TYPE_EXTRACTIONS = "application/vnd.gini.v1+json";
+    private static final String MEDIA_TYPE_PARTIAL_PREFIX = "application/vnd.gini.v2.partial+";
+    private static final MediaType MEDIA_TYPE_COMPOSITE = MediaType.parse(
+            "application/vnd.gini.v2.composite+json");
+    // Concurrent streams per connection, OkHttp limits it to 5 by default
+    private static final int MAX_REQUESTS_PER_HOST = 16;
+    // OkHttp's default timeouts
+    private static final long DEFAULT_TIMEOUT_MS = 10000;
+    private static final int HTTP_UNAUTHORIZED = 401;
+
+    private final OkHttpClient mClient;
+    private final HttpUrl mBaseUrl;
+    private final SessionManager mSessionManager;
+    private final long mTimeoutMs;
+    private final int mMaxNumberOfRetries;
+    private final float mBackoffMultiplier;
+
+    Http2DocumentTransport(@NonNull final String baseUrl,
+            @NonNull final SessionManager sessionManager, final long timeoutMs,
+            final int maxNumberOfRetries, final float backoffMultiplier,
+            @Nullable final X509TrustManager trustManager) {
+        final HttpUrl url = HttpUrl.parse(baseUrl);
+        if (url == null) {
+            throw new IllegalArgumentException("Invalid base url: " + baseUrl);
+        }
+        mBaseUrl = url;
+        mSessionManager = sessionManager;
+        mTimeoutMs = timeoutMs > 0 ? timeoutMs : DEFAULT_TIMEOUT_MS;
+        mMaxNumberOfRetries = Math.max(0, maxNumberOfRetries);
+        mBackoffMultiplier = Math.max(0, backoffMultiplier);
+        mClient = createClient(url, mTimeoutMs, trustManager);
+    }
+
+    @NonNull
+    private static OkHttpClient createClient(@NonNull final HttpUrl baseUrl,
+            final long timeoutMs, @Nullable final X509TrustManager trustManager) {
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        final OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .protocols(baseUrl.isHttps()
+                        ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                        : Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+                .connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        if (trustManager != null) {
+            try {
+                final SSLContext sslContext = SSLContext.getInstance("TLS");
+                sslContext.init(null, new TrustManager[]{trustManager}, null);
+                builder.sslSocketFactory(sslContext.getSocketFactory(), trustManager);
+            } catch (final GeneralSecurityException e) {
+                throw new IllegalStateException("Could not use the custom trust manager", e);
+            }
+        }
+        return builder.build();
+    }
+
+    @NonNull
+    @Override
+    public Task<Document> createPartialDocument(@NonNull final byte[] data,
+            @NonNull final String mimeType, @Nullable final DocumentMetadata documentMetadata) {
+        final Request.Builder request = new Request.Builder()
+                .url(getDocumentsUrl())
+                .header("Accept", MEDIA_TYPE_DOCUMENT)
+                .post(RequestBody.create(
+                        MediaType.parse(MEDIA_TYPE_PARTIAL_PREFIX + getSubtype(mimeType)), data));
+        if (documentMetadata != null) {
+            for (final Map.Entry<String, String> header
+                    : documentMetadata.getMetadata().entrySet()) {
+                request.header(header.getKey(), header.getValue());
+            }
+        }
+        return execute(request).onSuccessTask(new FetchCreatedDocument());
+    }
+
+    @NonNull
+    @Override
+    public Task<Document> createCompositeDocument(
+            @NonNull final LinkedHashMap<Document, Integer> documentRotationMap) { // NOPMD
+        final JSONArray subdocuments = new JSONArray();
+        try {
+            for (final Map.Entry<Document, Integer> entry : documentRotationMap.entrySet()) {
+                subdocuments.put(new JSONObject()
+                        .put("document", getDocumentUrl(entry.getKey().getId()).toString())
+                        .put("rotationDelta", entry.getValue()));
+            }
+            final String body = new JSONObject().put("subdocuments", subdocuments).toString();
+            return execute(new Request.Builder()
+                    .url(getDocumentsUrl())
+                    .header("Accept", MEDIA_TYPE_DOCUMENT)
+                    .post(RequestBody.create(MEDIA_TYPE_COMPOSITE, body)))
+                    .onSuccessTask(new FetchCreatedDocument());
+        } catch (final JSONException e) {
+            return Task.forError(e);
+        }
+    }
+
+    @NonNull
+    @Override
+    public Task<Document> getDocument(@NonNull final String documentId) {
+        return getDocument(getDocumentUrl(documentId));
+    }
+
+    @NonNull
+    private Task<Document> getDocument(@NonNull final HttpUrl documentUrl) {
+        return execute(new Request.Builder()
+                .url(documentUrl)
+                .header("Accept", MEDIA_TYPE_DOCUMENT)
+                .get())
+                .onSuccess(new Continuation<ApiResponse, Document>() {
+                    @Override
+                    public Document then(final Task<ApiResponse> task) throws Exception {
+                        return Document.fromApiResponse(new JSONObject(task.getResult().mBody));
+                    }
+                });
+    }
+
+    @NonNull
+    @Override
+    public Task<Map<String, SpecificExtraction>> getSpecificExtractions(
+            @NonNull final Document document) {
+        return execute(new Request.Builder()
+                .url(getDocumentUrl(document.getId()).newBuilder()
+                        .addPathSegment("extractions")
+                        .build())
+                .header("Accept", MEDIA_TYPE_EXTRACTIONS)
+                .get())
+                .onSuccess(new Continuation<ApiResponse, Map<String, SpecificExtraction>>() {
+                    @Override
+                    public Map<String, SpecificExtraction> then(final Task<ApiResponse> task)
+                            throws Exception {
+                        return parseSpecificExtractions(new JSONObject(task.getResult().mBody));
+                    }
+                });
+    }
+
+    @NonNull
+    @Override
+    public Task<String> deletePartialDocumentAndParents(@NonNull final String documentId) {
+        final HttpUrl documentUrl = getDocumentUrl(documentId);
+        return execute(new Request.Builder()
+                .url(documentUrl)
+                .header("Accept", MEDIA_TYPE_DOCUMENT)
+                .get())
+                .onSuccessTask(new Continuation<ApiResponse, Task<Void>>() {
+                    @Override
+                    public Task<Void> then(final Task<ApiResponse> task) throws Exception {
+                        final List<Task<ApiResponse>> deletions = new ArrayList<>();
+                        for (final String compositeUrl : parseCompositeDocumentUrls(
+                                new JSONObject(task.getResult().mBody))) {
+                            final HttpUrl url = HttpUrl.parse(compositeUrl);
+                            if (url != null) {
+                                deletions.add(delete(url));
+                            }
+                        }
+                        return Task.whenAll(deletions);
+                    }
+                })
+                .onSuccessTask(new Continuation<Void, Task<ApiResponse>>() {
+                    @Override
+                    public Task<ApiResponse> then(final Task<Void> task) {
+                        return delete(documentUrl);
+                    }
+                })
+                .onSuccess(new Continuation<ApiResponse, String>() {
+                    @Override
+                    public String then(final Task<ApiResponse> task) {
+                        return documentId;
+                    }
+                });
+    }
+
+    @NonNull
+    private Task<ApiResponse> delete(@NonNull final HttpUrl documentUrl) {
+        return execute(new Request.Builder()
+                .url(documentUrl)
+                .delete());
+    }
+
+    @NonNull
+    private Task<ApiResponse> execute(@NonNull final Request.Builder requestBuilder) {
+        return execute(requestBuilder, 0, mTimeoutMs, null);
+    }
+
+    /**
+     * @param retry               the number of retries before this attempt
+     * @param timeoutMs           the timeout of this attempt
+     * @param rejectedAccessToken the access token rejected by a previous attempt or null
+     */
+    @NonNull
+    private Task<ApiResponse> execute(@NonNull final Request.Builder requestBuilder,
+            final int retry, final long timeoutMs, @Nullable final String rejectedAccessToken) {
+        return mSessionManager.getSession().onSuccessTask(
+                new Continuation<Session, Task<ApiResponse>>() {
+                    @Override
+                    public Task<ApiResponse> then(final Task<Session> task) {
+                        final String accessToken = task.getResult().getAccessToken();
+                        if (rejectedAccessToken != null
+                                && rejectedAccessToken.equals(accessToken)) {
+                            return Task.forError(new HttpStatusException(HTTP_UNAUTHORIZED,
+                                    "Access token rejected and the session was not renewed"));
+                        }
+                        final Request request = requestBuilder
+                                .header("Authorization", "BEARER " + accessToken)
+                                .build();
+                        return send(request, timeoutMs).continueWithTask(
+                                new Continuation<ApiResponse, Task<ApiResponse>>() {
+                                    @Override
+                                    public Task<ApiResponse> then(
+                                            final Task<ApiResponse> response) {
+                                        return retryIfNeeded(response, requestBuilder, retry,
+                                                timeoutMs, accessToken, rejectedAccessToken);
+                                    }
+                                });
+                    }
+                });
+    }
+
+    @NonNull
+    private Task<ApiResponse> retryIfNeeded(@NonNull final Task<ApiResponse> response,
+            @NonNull final Request.Builder requestBuilder, final int retry,
+            final long timeoutMs, @NonNull final String accessToken,
+            @Nullable final String rejectedAccessToken) {
+        if (!response.isFaulted()) {
+            return response;
+        }
+        final Exception error = response.getError();
+        final int statusCode = error instanceof HttpStatusException
+                ? ((HttpStatusException) error).getStatusCode() : 0;
+        if (statusCode == HTTP_UNAUTHORIZED && rejectedAccessToken == null) {
+            // The session might have expired on the server before it expired locally
+            return execute(requestBuilder, retry, timeoutMs, accessToken);
+        }
+        final boolean retryable = statusCode == 0 || isRetryableStatus(statusCode);
+        if (retryable && retry < mMaxNumberOfRetries) {
+            return execute(requestBuilder, retry + 1,
+                    getRetryTimeoutMs(timeoutMs, mBackoffMultiplier), rejectedAccessToken);
+        }
+        return response;
+    }
+
+    @NonNull
+    private Task<ApiResponse> send(@NonNull final Request request, final long timeoutMs) {
+        // Clients derived with newBuilder() share the connection pool and the dispatcher
+        final OkHttpClient client = timeoutMs == mTimeoutMs ? mClient : mClient.newBuilder()
+                .connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+        final TaskCompletionSource<ApiResponse> completionSource = new TaskCompletionSource<>();
+        client.newCall(request).enqueue(new ResponseCallback(completionSource));
+        return completionSource.getTask();
+    }
+
+    /**
+     * @return {@code true} for the server errors which mean that the request was not processed
+     */
+    @VisibleForTesting
+    static boolean isRetryableStatus(final int statusCode) {
+        return statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Increases the timeout like Volley's {@code DefaultRetryPolicy}.
+     */
+    @VisibleForTesting
+    static long getRetryTimeoutMs(final long timeoutMs, final float backoffMultiplier) {
+        return timeoutMs + (long) (timeoutMs * backoffMultiplier);
+    }
+
+    @NonNull
+    private HttpUrl getDocumentsUrl() {
+        final HttpUrl url = mBaseUrl.resolve(DOCUMENTS_PATH);
+        return url != null ? url : mBaseUrl;
+    }
+
+    @NonNull
+    private HttpUrl getDocumentUrl(@NonNull final String documentId) {
+        return getDocumentsUrl().newBuilder()
+                .addPathSegment(documentId)
+                .build();
+    }
+
+    @NonNull
+    private static String getSubtype(@NonNull final String mimeType) {
+        final int separator = mimeType.indexOf('/');
+        return separator >= 0 ? mimeType.substring(separator + 1) : mimeType;
+    }
+
+    @VisibleForTesting
+    @NonNull
+    static Map<String, SpecificExtraction> parseSpecificExtractions(
+            @NonNull final JSONObject response) throws JSONException {
+        final Map<String, List<Extraction>> candidateLists = new HashMap<>();
+        final JSONObject candidates = response.optJSONObject("candidates");
+        if (candidates != null) {
+            final Iterator<String> names = candidates.keys();
+            while (names.hasNext()) {
+                final String name = names.next();
+                candidateLists.put(name, parseExtractions(candidates.getJSONArray(name)));
+            }
+        }
+        final Map<String, SpecificExtraction> specificExtractions = new HashMap<>();
+        final JSONObject extractions = response.getJSONObject("extractions");
+        final Iterator<String> names = extractions.keys();
+        while (names.hasNext()) {
+            final String name = names.next();
+            final JSONObject extraction = extractions.getJSONObject(name);
+            final List<Extraction> extractionCandidates =
+                    candidateLists.get(extraction.optString("candidates"));
+            specificExtractions.put(name, new SpecificExtraction(name,
+                    extraction.getString("value"), extraction.getString("entity"),
+                    parseBox(extraction.optJSONObject("box")),
+                    extractionCandidates != null ? extractionCandidates
+                            : new ArrayList<Extraction>()));
+        }
+        return specificExtractions;
+    }
+
+    @NonNull
+    private static List<Extraction> parseExtractions(@NonNull final JSONArray array)
+            throws JSONException {
+        final List<Extraction> extractions = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            final JSONObject extraction = array.getJSONObject(i);
+            extractions.add(new Extraction(extraction.getString("value"),
+                    extraction.getString("entity"), parseBox(extraction.optJSONObject("box"))));
+        }
+        return extractions;
+    }
+
+    @Nullable
+    private static Box parseBox(@Nullable final JSONObject box) throws JSONException {
+        if (box == null) {
+            return null;
+        }
+        return new Box(box.getInt("page"), box.getDouble("left"), box.getDouble("top"),
+                box.getDouble("width"), box.getDouble("height"));
+    }
+
+    @VisibleForTesting
+    @NonNull
+    static List<String> parseCompositeDocumentUrls(@NonNull final JSONObject document)
+            throws JSONException {
+        final List<String> urls = new ArrayList<>();
+        final JSONArray compositeDocuments = document.optJSONArray("compositeDocuments");
+        if (compositeDocuments == null) {
+            return urls;
+        }
+        for (int i = 0; i < compositeDocuments.length(); i++) {
+            urls.add(compositeDocuments.getJSONObject(i).getString("document"));
+        }
+        return urls;
+    }
+
+    /**
+     * Fetches the document from the url in the {@code Location} header of a create response.
+     */
+    private class FetchCreatedDocument implements Continuation<ApiResponse, Task<Document>> {
+
+        @Override
+        public Task<Document> then(final Task<ApiResponse> task) {
+            final String location = task.getResult().mLocation;
+            final HttpUrl documentUrl = location != null ? mBaseUrl.resolve(location) : null;
+            if (documentUrl == null) {
+                return Task.forError(new IOException("Created document has no location."));
+            }
+            return getDocument(documentUrl);
+        }
+    }
+
+    private static class ResponseCallback implements Callback {
+
+        private final TaskCompletionSource<ApiResponse> mCompletionSource;
+
+        ResponseCallback(@NonNull final TaskCompletionSource<ApiResponse> completionSource) {
+            mCompletionSource = completionSource;
+        }
+
+        @Override
+        public void onFailure(@NonNull final Call call, @NonNull final IOException e) {
+            if (call.isCanceled()) {
+                mCompletionSource.setCancelled();
+            } else {
+                mCompletionSource.setError(e);
+            }
+        }
+
+        @Override
+        public void onResponse(@NonNull final Call call, @NonNull final Response response) {
+            final ResponseBody body = response.body();
+            try {
+                if (!response.isSuccessful()) {
+                    mCompletionSource.setError(new HttpStatusException(response.code(),
+                            call.request().method() + " " + call.request().url()
+                                    + " failed with HTTP " + response.code()));
+                    return;
+                }
+                mCompletionSource.setResult(new ApiResponse(response.header("Location"),
+                        body != null ? body.string() : ""));
+            } catch (final IOException e) {
+                mCompletionSource.setError(e);
+            } finally {
+                response.close();
+            }
+        }
+    }
+
+    private static class HttpStatusException extends IOException {
+
+        private final int mStatusCode;
+
+        HttpStatusException(final int statusCode, @NonNull final String message) {
+            super(message);
+            mStatusCode = statusCode;
+        }
+
+        int getStatusCode() {
+            return mStatusCode;
+        }
+    }
+
+    private static class ApiResponse {
+
+        private final String mLocation;
+        private final String mBody;
+
+        ApiResponse(@Nullable final String location, @NonNull final String body) {
+            mLocation = location;
+            mBody = body;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package net.gini.android.vision.network;
+
+/**
+ * Decides how often the {@link GiniVisionDefaultNetworkService} polls the Gini API while waiting
+ * for a document to be processed.
+ *
+ * <p> Polling stops as soon as the document is processed or its processing failed. Use {@link
+ * ExponentialPollingStrategy} or implement your own strategy and set it with {@link
+ * GiniVisionDefaultNetworkService.Builder#setPollingStrategy(PollingStrategy)}.
+ */
+public interface PollingStrategy {
+
+    /**
+     * @param pageCount the number of pages of the document as reported by the Gini API
+     *
+     * @return the delay in milliseconds before the first poll
+     */
+    long getInitialDelayMs(int pageCount);
+
+    /**
+     * @param pollCount the number of polls which returned an unprocessed document, at least 1
+     * @param elapsedMs the time in milliseconds since the wait for processing started
+     *
+     * @return the delay in milliseconds before the next poll or a negative value to give up
+     * waiting, which fails the analysis
+     */
+    long getNextDelayMs(int pollCount, long elapsedMs);
+}
@@ -0,0 +1,72 @@
+package net.gini.android.vision.network;
+
+import net.gini.android.DocumentMetadata;
+import net.gini.android.DocumentTaskManager;
+import net.gini.android.models.Document;
+import net.gini.android.models.ExtractionsContainer;
+import net.gini.android.models.SpecificExtraction;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import bolts.Continuation;
+import bolts.Task;
+
+/**
+ * Executes the requests with the Gini API SDK's {@link DocumentTaskManager}.
+ */
+class SdkDocumentTransport implements DocumentTransport {
+
+    private final DocumentTaskManager mDocumentTaskManager;
+
+    SdkDocumentTransport(@NonNull final DocumentTaskManager documentTaskManager) {
+        mDocumentTaskManager = documentTaskManager;
+    }
+
+    @NonNull
+    @Override
+    public Task<Document> createPartialDocument(@NonNull final byte[] data,
+            @NonNull final String mimeType, @Nullable final DocumentMetadata documentMetadata) {
+        if (documentMetadata != null) {
+            return mDocumentTaskManager.createPartialDocument(data, mimeType, null, null,
+                    documentMetadata);
+        }
+        return mDocumentTaskManager.createPartialDocument(data, mimeType, null, null);
+    }
+
+    @NonNull
+    @Override
+    public Task<Document> createCompositeDocument(
+            @NonNull final LinkedHashMap<Document, Integer> documentRotationMap) { // NOPMD
+        return mDocumentTaskManager.createCompositeDocument(documentRotationMap, null);
+    }
+
+    @NonNull
+    @Override
+    public Task<Document> getDocument(@NonNull final String documentId) {
+        return mDocumentTaskManager.getDocument(documentId);
+    }
+
+    @NonNull
+    @Override
+    public Task<Map<String, SpecificExtraction>> getSpecificExtractions(
+            @NonNull final Document document) {
+        return mDocumentTaskManager.getAllExtractions(document).onSuccess(
+                new Continuation<ExtractionsContainer, Map<String, SpecificExtraction>>() {
+                    @Override
+                    public Map<String, SpecificExtraction> then(
+                            final Task<ExtractionsContainer> task) throws Exception {
+                        return task.getResult().getSpecificExtractions();
+                    }
+                });
+    }
+
+    @NonNull
+    @Override
+    public Task<String> deletePartialDocumentAndParents(@NonNull final String documentId) {
+        return mDocumentTaskManager.deletePartialDocumentAndParents(documentId);
+    }
+}
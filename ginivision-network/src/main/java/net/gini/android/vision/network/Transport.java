@@ -0,0 +1,27 @@
+package net.gini.android.vision.network;
+
+/**
+ * The HTTP client used by the {@link GiniVisionDefaultNetworkService} for uploading, polling,
+ * downloading the extractions and deleting documents.
+ *
+ * <p> Set it with {@link GiniVisionDefaultNetworkService.Builder#setTransport(Transport)}.
+ */
+public enum Transport {
+    /**
+     * The requests are executed by the Gini API SDK with Volley over HTTP/1.1. This is the
+     * default.
+     */
+    VOLLEY,
+    /**
+     * The requests are executed with OkHttp. HTTP/2 is used if the server supports it: all
+     * uploads and polls share one connection and JSON responses are gzip compressed.
+     *
+     * <p> Requires a custom {@link net.gini.android.authorization.SessionManager} and doesn't
+     * support a network security config resource. The {@link #VOLLEY} transport is used if these
+     * requirements are not met. The Volley specific cache setting is ignored, the retry and
+     * backoff settings are applied like by Volley.
+     *
+     * <p> Sending feedback still uses the Gini API SDK.
+     */
+    HTTP2
+}
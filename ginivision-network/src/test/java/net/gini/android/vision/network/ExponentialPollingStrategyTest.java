@@ -0,0 +1,87 @@
+package net.gini.android.vision.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ExponentialPollingStrategyTest {
+
+    @Test
+    public void should_delayFirstPoll_byPageCount() {
+        // Given
+        final PollingStrategy strategy = ExponentialPollingStrategy.builder()
+                .setInitialDelayMs(500)
+                .setDelayPerPageMs(250)
+                .build();
+        // Then
+        assertThat(strategy.getInitialDelayMs(1)).isEqualTo(500L);
+        assertThat(strategy.getInitialDelayMs(3)).isEqualTo(1000L);
+    }
+
+    @Test
+    public void should_capFirstDelay_atMaxDelay() {
+        // Given
+        final PollingStrategy strategy = ExponentialPollingStrategy.builder()
+                .setInitialDelayMs(500)
+                .setDelayPerPageMs(1000)
+                .setMaxDelayMs(2000)
+                .build();
+        // Then
+        assertThat(strategy.getInitialDelayMs(10)).isEqualTo(2000L);
+    }
+
+    @Test
+    public void should_growDelay_exponentially() {
+        // Given
+        final PollingStrategy strategy = ExponentialPollingStrategy.builder()
+                .setInitialDelayMs(500)
+                .setMultiplier(2)
+                .setMaxDelayMs(10000)
+                .build();
+        // Then
+        assertThat(strategy.getNextDelayMs(1, 0)).isEqualTo(1000L);
+        assertThat(strategy.getNextDelayMs(2, 0)).isEqualTo(2000L);
+        assertThat(strategy.getNextDelayMs(3, 0)).isEqualTo(4000L);
+    }
+
+    @Test
+    public void should_capDelay_atMaxDelay() {
+        // Given
+        final PollingStrategy strategy = ExponentialPollingStrategy.builder()
+                .setInitialDelayMs(500)
+                .setMultiplier(2)
+                .setMaxDelayMs(3000)
+                .build();
+        // Then
+        assertThat(strategy.getNextDelayMs(10, 0)).isEqualTo(3000L);
+    }
+
+    @Test
+    public void should_notDelay_pastTimeout() {
+        // Given
+        final PollingStrategy strategy = ExponentialPollingStrategy.builder()
+                .setMaxDelayMs(3000)
+                .setTimeoutMs(10000)
+                .build();
+        // Then
+        assertThat(strategy.getNextDelayMs(10, 9000)).isEqualTo(1000L);
+    }
+
+    @Test
+    public void should_giveUp_afterTimeout() {
+        // Given
+        final PollingStrategy strategy = ExponentialPollingStrategy.builder()
+                .setTimeoutMs(10000)
+                .build();
+        // Then
+        assertThat(strategy.getNextDelayMs(10, 10000)).isLessThan(0L);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_throwException_forMultiplierBelowOne() {
+        ExponentialPollingStrategy.builder().setMultiplier(0.5).build();
+    }
+}
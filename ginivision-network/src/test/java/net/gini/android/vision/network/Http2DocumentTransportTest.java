@@ -0,0 +1,95 @@
+package net.gini.android.vision.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import net.gini.android.models.SpecificExtraction;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+@RunWith(AndroidJUnit4.class)
+public class Http2DocumentTransportTest {
+
+    @Test
+    public void should_parseSpecificExtractions_withCandidates() throws Exception {
+        // Given
+        final JSONObject response = new JSONObject("{"
+                + "\"extractions\":{"
+                + "\"amountToPay\":{\"entity\":\"amount\",\"value\":\"24.99:EUR\","
+                + "\"candidates\":\"amounts\",\"box\":{\"page\":1,\"left\":312.0,"
+                + "\"top\":540.0,\"width\":58.0,\"height\":11.0}},"
+                + "\"bic\":{\"entity\":\"bic\",\"value\":\"COBADEFFXXX\"}"
+                + "},"
+                + "\"candidates\":{\"amounts\":["
+                + "{\"entity\":\"amount\",\"value\":\"24.99:EUR\"},"
+                + "{\"entity\":\"amount\",\"value\":\"21.00:EUR\"}"
+                + "]}"
+                + "}");
+        // When
+        final Map<String, SpecificExtraction> extractions =
+                Http2DocumentTransport.parseSpecificExtractions(response);
+        // Then
+        assertThat(extractions).hasSize(2);
+        final SpecificExtraction amountToPay = extractions.get("amountToPay");
+        assertThat(amountToPay.getName()).isEqualTo("amountToPay");
+        assertThat(amountToPay.getValue()).isEqualTo("24.99:EUR");
+        assertThat(amountToPay.getEntity()).isEqualTo("amount");
+        assertThat(amountToPay.getBox().getPageNumber()).isEqualTo(1);
+        assertThat(amountToPay.getCandidate()).hasSize(2);
+        assertThat(amountToPay.getCandidate().get(1).getValue()).isEqualTo("21.00:EUR");
+        final SpecificExtraction bic = extractions.get("bic");
+        assertThat(bic.getBox()).isNull();
+        assertThat(bic.getCandidate()).isEmpty();
+    }
+
+    @Test
+    public void should_parseEmptyExtractions() throws Exception {
+        // Given
+        final JSONObject response = new JSONObject("{\"extractions\":{},\"candidates\":{}}");
+        // Then
+        assertThat(Http2DocumentTransport.parseSpecificExtractions(response)).isEmpty();
+    }
+
+    @Test
+    public void should_parseCompositeDocumentUrls() throws Exception {
+        // Given
+        final JSONObject document = new JSONObject("{\"id\":\"partial\","
+                + "\"compositeDocuments\":["
+                + "{\"document\":\"https://api.gini.net/documents/composite1\"},"
+                + "{\"document\":\"https://api.gini.net/documents/composite2\"}"
+                + "]}");
+        // Then
+        assertThat(Http2DocumentTransport.parseCompositeDocumentUrls(document)).containsExactly(
+                "https://api.gini.net/documents/composite1",
+                "https://api.gini.net/documents/composite2").inOrder();
+    }
+
+    @Test
+    public void should_returnNoCompositeDocumentUrls_whenMissing() throws Exception {
+        // Given
+        final JSONObject document = new JSONObject("{\"id\":\"partial\"}");
+        // Then
+        assertThat(Http2DocumentTransport.parseCompositeDocumentUrls(document)).isEmpty();
+    }
+
+    @Test
+    public void should_retryOnlyServerErrors_whereTheRequestWasNotProcessed() {
+        // Then
+        assertThat(Http2DocumentTransport.isRetryableStatus(503)).isTrue();
+        assertThat(Http2DocumentTransport.isRetryableStatus(504)).isTrue();
+        assertThat(Http2DocumentTransport.isRetryableStatus(500)).isFalse();
+        assertThat(Http2DocumentTransport.isRetryableStatus(404)).isFalse();
+    }
+
+    @Test
+    public void should_increaseRetryTimeout_byBackoffMultiplier() {
+        // Then
+        assertThat(Http2DocumentTransport.getRetryTimeoutMs(10000, 1f)).isEqualTo(20000);
+        assertThat(Http2DocumentTransport.getRetryTimeoutMs(10000, 0f)).isEqualTo(10000);
+    }
+}
@@ -8,6 +8,7 @@ import android.hardware.Camera;
 import android.view.SurfaceHolder;
 import android.view.View;
 
+import net.gini.android.vision.camera.CaptureLatencyHistogram;
 import net.gini.android.vision.document.ImageDocument;
 import net.gini.android.vision.internal.camera.photo.Photo;
 import net.gini.android.vision.internal.camera.photo.PhotoFactory;
@@ -117,6 +118,10 @@ public class CameraControllerFake implements CameraInterface {
         mPreviewCallback = previewCallback;
     }
 
+    @Override
+    public void addPreviewCallbackBuffer(@NonNull final byte[] buffer) {
+    }
+
     @Override
     public int getCameraRotation() {
         return 0;
@@ -137,6 +142,20 @@ public class CameraControllerFake implements CameraInterface {
         mFlashEnabled = enabled;
     }
 
+    @Override
+    public void setFastCaptureEnabled(final boolean enabled) {
+    }
+
+    @Override
+    public void setCaptureLatencyHistogram(@Nullable final CaptureLatencyHistogram histogram) {
+    }
+
+    @NonNull
+    @Override
+    public CameraLifecycleTimings getLifecycleTimings() {
+        return new CameraLifecycleTimings();
+    }
+
     public void showImageAsPreview(@NonNull final byte[] image, @Nullable final byte[] imageNV21) {
         if (mSurfaceHolder == null) {
             return;
@@ -90,6 +90,7 @@ public class NetworkRequestsManagerTest {
         };
         final NetworkRequestsManager networkRequestsManager =
                 new NetworkRequestsManager(networkService, mDocumentDataMemoryCache);
+        networkRequestsManager.setMaxUploadAttempts(1);
         final GiniVisionDocument document = GiniVisionDocumentHelper.newImageDocument();
         // When
         ExecutionException exception = null;
@@ -123,6 +124,7 @@ public class NetworkRequestsManagerTest {
         };
         final NetworkRequestsManager networkRequestsManager =
                 new NetworkRequestsManager(networkService, mDocumentDataMemoryCache);
+        networkRequestsManager.setMaxUploadAttempts(1);
         final GiniVisionDocument document = GiniVisionDocumentHelper.newImageDocument();
         // When
         ExecutionException firstException = null;
@@ -138,6 +140,36 @@ public class NetworkRequestsManagerTest {
         assertThat(secondRequestResult).isNotNull();
     }
 
+    @Test
+    public void should_retryDocumentUpload_afterFailure() throws Exception {
+        // Given
+        final GiniVisionNetworkService networkService = spy(new GiniVisionNetworkServiceStub() {
+            int counter = 0;
+
+            @Override
+            public CancellationToken upload(@NonNull final Document document,
+                    @NonNull final GiniVisionNetworkCallback<Result, Error> callback) {
+                counter++;
+                if (counter == 1) {
+                    callback.failure(new Error("Something went wrong."));
+                } else {
+                    super.upload(document, callback);
+                }
+                return new CallbackCancellationToken(callback);
+            }
+        });
+        final NetworkRequestsManager networkRequestsManager =
+                new NetworkRequestsManager(networkService, mDocumentDataMemoryCache);
+        final GiniVisionDocument document = GiniVisionDocumentHelper.newImageDocument();
+        // When
+        final NetworkRequestResult<GiniVisionDocument> requestResult =
+                networkRequestsManager.upload(mContext, document).get();
+        // Then
+        assertThat(requestResult.getApiDocumentId()).isEqualTo(DEFAULT_DOCUMENT_ID);
+        verify(networkService, times(2))
+                .upload(eq(document), any(GiniVisionNetworkCallback.class));
+    }
+
     @Test
     public void should_uploadSameDocument_onlyOnce() throws Exception {
         // Given
@@ -365,6 +397,28 @@ public class NetworkRequestsManagerTest {
                         any(GiniVisionNetworkCallback.class));
     }
 
+    @Test
+    public void should_analyzeDocumentAgain_whenPageWasRotated() throws Exception {
+        // Given
+        final NetworkRequestsManager networkRequestsManager =
+                new NetworkRequestsManager(mGiniVisionNetworkService, mDocumentDataMemoryCache);
+        final ImageMultiPageDocument multiPageDocument =
+                GiniVisionDocumentHelper.newMultiPageDocument();
+        for (final ImageDocument imageDocument : multiPageDocument.getDocuments()) {
+            networkRequestsManager.upload(mContext, imageDocument);
+        }
+        networkRequestsManager.analyze(multiPageDocument).get();
+        // When
+        multiPageDocument.getDocuments().get(0).updateRotationDeltaBy(90);
+        networkRequestsManager.analyze(multiPageDocument).get();
+        // Then
+        verify(mGiniVisionNetworkService, times(2))
+                .analyze(any(LinkedHashMap.class),
+                        any(GiniVisionNetworkCallback.class));
+        verify(mGiniVisionNetworkService)
+                .delete(eq(DEFAULT_DOCUMENT_ID), any(GiniVisionNetworkCallback.class));
+    }
+
     @Test
     public void should_waitForPageDocumentUploads_toComplete_beforeAnalyzingMultiPageDocument()
             throws Exception {
@@ -0,0 +1,136 @@
+package net.gini.android.vision.review;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static net.gini.android.vision.test.Helpers.createDocument;
+import static net.gini.android.vision.test.Helpers.getTestJpeg;
+
+import android.app.Instrumentation;
+import android.content.Intent;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import net.gini.android.vision.R;
+import net.gini.android.vision.analysis.AnalysisActivityTestSpy;
+import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.test.CurrentActivityTestRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+/**
+ * Measures the time from a tap on the rotate button of the Review Screen until the next frame
+ * was drawn. The rotation only updates the document's metadata and starts a transform animation,
+ * the jpeg is not modified until the user continues to the Analysis Screen.
+ *
+ * <p> The results are written to the log with the tag {@value #TAG}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReviewRotationBenchmark {
+
+    private static final String TAG = "RotationBenchmark";
+    private static final int RUNS = 12;
+    private static final int PAUSE_DURATION = 500;
+    private static final long TIMEOUT_S = 5;
+
+    @Rule
+    public CurrentActivityTestRule<ReviewActivityTestSpy> mActivityTestRule =
+            new CurrentActivityTestRule<>(ReviewActivityTestSpy.class, true, false);
+
+    @Test
+    public void benchmark_rotateTapToNextFrame() throws Exception {
+        final ReviewActivityTestSpy activity = mActivityTestRule.launchActivity(
+                getReviewActivityIntent(getTestJpeg()));
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.waitForIdleSync();
+        // Give some time for the activity to settle
+        Thread.sleep(PAUSE_DURATION);
+
+        final View rotateButton = activity.findViewById(R.id.gv_button_rotate);
+        final long[] durationsUs = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            durationsUs[run] = measureTapToNextFrame(instrumentation, rotateButton);
+            Log.i(TAG, String.format(Locale.US, "run %d: %d us", run + 1, durationsUs[run]));
+            // Let the rotation animation finish
+            Thread.sleep(PAUSE_DURATION);
+        }
+        Arrays.sort(durationsUs);
+        Log.i(TAG, String.format(Locale.US, "rotate tap to next frame: median %d us, min %d us, "
+                        + "max %d us", durationsUs[RUNS / 2], durationsUs[0],
+                durationsUs[RUNS - 1]));
+
+        assertThat(activity.getFragment().getFragmentImpl().getImageDocument().getRotation()
+                % 360).isWithin(0.0f).of(0);
+    }
+
+    private long measureTapToNextFrame(@NonNull final Instrumentation instrumentation,
+            @NonNull final View rotateButton) throws InterruptedException {
+        final NextFrameProbe nextFrameProbe = new NextFrameProbe(rotateButton);
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                nextFrameProbe.start();
+                rotateButton.performClick();
+            }
+        });
+        assertThat(nextFrameProbe.mFrameDrawn.await(TIMEOUT_S, TimeUnit.SECONDS)).isTrue();
+        return nextFrameProbe.mDurationUs;
+    }
+
+    private static Intent getReviewActivityIntent(@NonNull final byte[] jpeg) {
+        final Intent intent = new Intent(ApplicationProvider.getApplicationContext(),
+                ReviewActivityTestSpy.class);
+        intent.putExtra(ReviewActivity.EXTRA_IN_DOCUMENT,
+                createDocument(jpeg, 0, "portrait", "phone",
+                        ImageDocument.Source.newCameraSource()));
+        intent.putExtra(ReviewActivity.EXTRA_IN_ANALYSIS_ACTIVITY,
+                new Intent(ApplicationProvider.getApplicationContext(),
+                        AnalysisActivityTestSpy.class));
+        return intent;
+    }
+
+    private static class NextFrameProbe implements ViewTreeObserver.OnDrawListener {
+
+        private final View mView;
+        private final CountDownLatch mFrameDrawn = new CountDownLatch(1);
+        private volatile long mDurationUs;
+        private long mStartNs;
+
+        NextFrameProbe(@NonNull final View view) {
+            mView = view;
+        }
+
+        void start() {
+            mStartNs = System.nanoTime();
+            mView.getViewTreeObserver().addOnDrawListener(this);
+        }
+
+        @Override
+        public void onDraw() {
+            if (mFrameDrawn.getCount() == 0) {
+                return;
+            }
+            mDurationUs = (System.nanoTime() - mStartNs) / 1000;
+            mFrameDrawn.countDown();
+            // Draw listeners can't be removed while drawing
+            mView.post(new Runnable() {
+                @Override
+                public void run() {
+                    mView.getViewTreeObserver().removeOnDrawListener(NextFrameProbe.this);
+                }
+            });
+        }
+    }
+}
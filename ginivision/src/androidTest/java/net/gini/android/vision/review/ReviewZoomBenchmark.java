@@ -0,0 +1,99 @@
+package net.gini.android.vision.review;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static net.gini.android.vision.test.Helpers.createDocument;
+import static net.gini.android.vision.test.Helpers.getTestJpeg;
+
+import android.app.Instrumentation;
+import android.content.Intent;
+import android.util.Log;
+
+import com.ortiz.touch.TouchImageView;
+
+import net.gini.android.vision.R;
+import net.gini.android.vision.analysis.AnalysisActivityTestSpy;
+import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.internal.ui.FrameTimeProbe;
+import net.gini.android.vision.test.CurrentActivityTestRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.annotation.NonNull;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.espresso.Espresso;
+import androidx.test.espresso.action.ViewActions;
+import androidx.test.espresso.matcher.ViewMatchers;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+/**
+ * Measures the frame times of the double tap zoom animation on the Review Screen with a
+ * {@link FrameTimeProbe}. The image is drawn with the
+ * {@link TouchImageView.RenderingMode#GESTURE_PROXY} rendering mode.
+ *
+ * <p> The results are written to the log with the tag {@value #TAG}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReviewZoomBenchmark {
+
+    private static final String TAG = "ZoomBenchmark";
+    private static final int RUNS = 6;
+    private static final int PAUSE_DURATION = 1_000;
+
+    @Rule
+    public CurrentActivityTestRule<ReviewActivityTestSpy> mActivityTestRule =
+            new CurrentActivityTestRule<>(ReviewActivityTestSpy.class, true, false);
+
+    @Test
+    public void benchmark_doubleTapZoom() throws Exception {
+        final ReviewActivityTestSpy activity = mActivityTestRule.launchActivity(
+                getReviewActivityIntent(getTestJpeg()));
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.waitForIdleSync();
+        // Give some time for the activity to settle and for the proxy bitmap to be created
+        Thread.sleep(PAUSE_DURATION);
+
+        final TouchImageView imageView =
+                activity.getFragment().getFragmentImpl().getImageDocument();
+        final FrameTimeProbe probe = new FrameTimeProbe();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                imageView.setFrameTimeProbe(probe);
+            }
+        });
+
+        for (int run = 0; run < RUNS; run++) {
+            // Zooms in and out in turns
+            Espresso.onView(ViewMatchers.withId(R.id.gv_image_document))
+                    .perform(ViewActions.doubleClick());
+            // Let the zoom animation finish
+            Thread.sleep(PAUSE_DURATION);
+        }
+
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                imageView.setFrameTimeProbe(null);
+            }
+        });
+        Log.i(TAG, "double tap zoom: " + probe);
+
+        assertThat(probe.getFrameCount()).isGreaterThan(0);
+    }
+
+    private static Intent getReviewActivityIntent(@NonNull final byte[] jpeg) {
+        final Intent intent = new Intent(ApplicationProvider.getApplicationContext(),
+                ReviewActivityTestSpy.class);
+        intent.putExtra(ReviewActivity.EXTRA_IN_DOCUMENT,
+                createDocument(jpeg, 0, "portrait", "phone",
+                        ImageDocument.Source.newCameraSource()));
+        intent.putExtra(ReviewActivity.EXTRA_IN_ANALYSIS_ACTIVITY,
+                new Intent(ApplicationProvider.getApplicationContext(),
+                        AnalysisActivityTestSpy.class));
+        return intent;
+    }
+}
@@ -18,8 +18,10 @@ import android.content.res.Configuration;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
+import android.graphics.Paint;
 import android.graphics.PointF;
 import android.graphics.RectF;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Build.VERSION_CODES;
@@ -35,6 +37,14 @@ import android.view.animation.AccelerateDecelerateInterpolator;
 import android.widget.OverScroller;
 import android.widget.Scroller;
 
+import net.gini.android.vision.internal.async.BackgroundTask;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
+import net.gini.android.vision.internal.ui.FrameTimeProbe;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView {
 
     private static final String DEBUG = "DEBUG";
@@ -47,6 +57,12 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
     private static final float SUPER_MIN_MULTIPLIER = 1.f;
     private static final float SUPER_MAX_MULTIPLIER = 1.f;
 
+    //
+    // Maximum width or height of the proxy bitmap which is drawn instead of the image while
+    // zooming, dragging or flinging in the GESTURE_PROXY rendering mode.
+    //
+    private static final int PROXY_MAX_SIZE = 1024;
+
     //
     // Scale of image ranges from minScale to maxScale, where minScale == 1
     // when the image is stretched to fit view.
@@ -70,6 +86,28 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
 
     private State state;
 
+    /**
+     * Determines how the image is drawn while it is zoomed, dragged or flung.
+     */
+    public enum RenderingMode {
+        /**
+         * The image is always drawn at its full resolution.
+         */
+        STANDARD,
+        /**
+         * A downsampled copy of the image is drawn while the image is zoomed, dragged or flung.
+         * The image is drawn at its full resolution again when the gesture or animation ended.
+         */
+        GESTURE_PROXY
+    }
+
+    private RenderingMode renderingMode = RenderingMode.STANDARD;
+    private Bitmap proxyBitmap;
+    private ProxyBitmapTask proxyTask;
+    private final Paint proxyPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private boolean dragged;
+    private FrameTimeProbe frameTimeProbe;
+
     private float minScale;
     private float maxScale;
     private float superMinScale;
@@ -152,9 +190,46 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
         doubleTapListener = l;
     }
 
+    /**
+     * Set how the image is drawn while it is zoomed, dragged or flung. Default is
+     * {@link RenderingMode#STANDARD}.
+     * @param renderingMode the rendering mode
+     */
+    public void setRenderingMode(@NonNull final RenderingMode renderingMode) {
+        if (this.renderingMode == renderingMode) {
+            return;
+        }
+        this.renderingMode = renderingMode;
+        updateProxyBitmap();
+    }
+
+    public RenderingMode getRenderingMode() {
+        return renderingMode;
+    }
+
+    /**
+     * Set a probe which measures the frame times while the image is zoomed, dragged or flung.
+     * @param probe the probe or null to remove it
+     */
+    public void setFrameTimeProbe(@Nullable final FrameTimeProbe probe) {
+        if (frameTimeProbe != null) {
+            frameTimeProbe.stop();
+        }
+        frameTimeProbe = probe;
+        if (frameTimeProbe != null && isAnimating()) {
+            frameTimeProbe.start();
+        }
+    }
+
+    @Nullable
+    public FrameTimeProbe getFrameTimeProbe() {
+        return frameTimeProbe;
+    }
+
     @Override
     public void setImageResource(final int resId) {
         super.setImageResource(resId);
+        updateProxyBitmap();
         savePreviousImageValues();
         fitImageToView();
     }
@@ -162,6 +237,7 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
     @Override
     public void setImageBitmap(final Bitmap bm) {
         super.setImageBitmap(bm);
+        updateProxyBitmap();
         savePreviousImageValues();
         fitImageToView();
     }
@@ -169,6 +245,7 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
     @Override
     public void setImageDrawable(final Drawable drawable) {
         super.setImageDrawable(drawable);
+        updateProxyBitmap();
         savePreviousImageValues();
         fitImageToView();
     }
@@ -176,6 +253,7 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
     @Override
     public void setImageURI(final Uri uri) {
         super.setImageURI(uri);
+        updateProxyBitmap();
         savePreviousImageValues();
         fitImageToView();
     }
@@ -285,9 +363,64 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
                     delayedZoomVariables.focusY, delayedZoomVariables.scaleType);
             delayedZoomVariables = null;
         }
+        if (proxyBitmap != null && isAnimating()) {
+            drawProxyBitmap(canvas);
+            return;
+        }
         super.onDraw(canvas);
     }
 
+    /**
+     * Draws the proxy bitmap with the image matrix scaled to the size of the proxy bitmap.
+     * @param canvas
+     */
+    private void drawProxyBitmap(final Canvas canvas) {
+        final Drawable drawable = getDrawable();
+        if (drawable == null) {
+            return;
+        }
+        final int saveCount = canvas.save();
+        canvas.translate(getPaddingLeft(), getPaddingTop());
+        canvas.concat(getImageMatrix());
+        canvas.scale((float) drawable.getIntrinsicWidth() / proxyBitmap.getWidth(),
+                (float) drawable.getIntrinsicHeight() / proxyBitmap.getHeight());
+        canvas.drawBitmap(proxyBitmap, 0, 0, proxyPaint);
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (frameTimeProbe != null) {
+            frameTimeProbe.stop();
+        }
+    }
+
+    /**
+     * Creates the proxy bitmap in the background, if the GESTURE_PROXY rendering mode is used
+     * and the image is larger than the proxy.
+     */
+    private void updateProxyBitmap() {
+        if (proxyTask != null) {
+            proxyTask.cancel(false);
+            proxyTask = null;
+        }
+        proxyBitmap = null;
+        if (renderingMode != RenderingMode.GESTURE_PROXY) {
+            return;
+        }
+        final Drawable drawable = getDrawable();
+        if (!(drawable instanceof BitmapDrawable)) {
+            return;
+        }
+        final Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+        if (bitmap == null || Math.max(bitmap.getWidth(), bitmap.getHeight()) <= PROXY_MAX_SIZE) {
+            return;
+        }
+        proxyTask = new ProxyBitmapTask(bitmap);
+        proxyTask.execute();
+    }
+
     @Override
     public void onConfigurationChanged(final Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
@@ -737,7 +870,42 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
     }
 
     private void setState(final State state) {
+        final boolean wasAnimating = isAnimating();
         this.state = state;
+        dragged = false;
+        onAnimatingChanged(wasAnimating);
+    }
+
+    /**
+     * The image is animating while it is zoomed, flung or dragged. A touch without moving the
+     * image doesn't count. The state is reset when the finger is lifted, therefore a running
+     * fling is checked separately.
+     * @return true if the image is animating
+     */
+    private boolean isAnimating() {
+        final boolean flinging = fling != null && fling.scroller != null;
+        return flinging
+                || (state != null && state != State.NONE && (state != State.DRAG || dragged));
+    }
+
+    private void onAnimatingChanged(final boolean wasAnimating) {
+        final boolean animating = isAnimating();
+        if (animating == wasAnimating) {
+            return;
+        }
+        if (frameTimeProbe != null) {
+            if (animating) {
+                frameTimeProbe.start();
+            } else {
+                frameTimeProbe.stop();
+            }
+        }
+        if (!animating && proxyBitmap != null) {
+            //
+            // Swap back to the full resolution image
+            //
+            invalidate();
+        }
     }
 
     public boolean canScrollHorizontallyFroyo(final int direction) {
@@ -865,6 +1033,11 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
                             matrix.postTranslate(fixTransX, fixTransY);
                             fixTrans();
                             last.set(curr.x, curr.y);
+                            if (!dragged && (fixTransX != 0 || fixTransY != 0)) {
+                                final boolean wasAnimating = isAnimating();
+                                dragged = true;
+                                onAnimatingChanged(wasAnimating);
+                            }
                         }
                         break;
 
@@ -1189,7 +1362,9 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
             }
 
             if (scroller.isFinished()) {
+                final boolean wasAnimating = isAnimating();
                 scroller = null;
+                onAnimatingChanged(wasAnimating);
                 return;
             }
 
@@ -1208,6 +1383,47 @@ public class TouchImageView extends androidx.appcompat.widget.AppCompatImageView
         }
     }
 
+    /**
+     * Creates a downsampled copy of the image which is drawn while the image is animating.
+     */
+    private class ProxyBitmapTask extends BackgroundTask<Void, Bitmap> {
+
+        private final Bitmap bitmap;
+
+        ProxyBitmapTask(final Bitmap bitmap) {
+            super(TaskPool.CPU, TaskPriority.LOW);
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        protected Bitmap doInBackground(final Void... params) {
+            if (bitmap.isRecycled()) {
+                return null;
+            }
+            final float scale = (float) PROXY_MAX_SIZE
+                    / Math.max(bitmap.getWidth(), bitmap.getHeight());
+            try {
+                return Bitmap.createScaledBitmap(bitmap,
+                        Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                        Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+            } catch (final IllegalStateException e) {
+                //
+                // The image was recycled in the meantime
+                //
+                return null;
+            }
+        }
+
+        @Override
+        protected void onPostExecute(@Nullable final Bitmap result) {
+            if (proxyTask != this) {
+                return;
+            }
+            proxyTask = null;
+            proxyBitmap = result;
+        }
+    }
+
     @TargetApi(VERSION_CODES.GINGERBREAD)
     private static class CompatScroller {
         Scroller scroller;
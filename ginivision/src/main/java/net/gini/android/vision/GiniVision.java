@@ -4,13 +4,18 @@ import android.content.Context;
 import android.content.Intent;
 
 import net.gini.android.vision.analysis.AnalysisActivity;
+import net.gini.android.vision.camera.CaptureLatencyHistogram;
 import net.gini.android.vision.internal.cache.DocumentDataMemoryCache;
 import net.gini.android.vision.internal.cache.PhotoMemoryCache;
+import net.gini.android.vision.internal.cache.ThumbnailMemoryCache;
+import net.gini.android.vision.internal.camera.photo.UploadPayloadOptimizer;
 import net.gini.android.vision.internal.document.ImageMultiPageDocumentMemoryStore;
 import net.gini.android.vision.internal.network.NetworkRequestsManager;
+import net.gini.android.vision.internal.network.UploadJournal;
 import net.gini.android.vision.internal.storage.ImageDiskStore;
 import net.gini.android.vision.network.GiniVisionNetworkApi;
 import net.gini.android.vision.network.GiniVisionNetworkService;
+import net.gini.android.vision.network.UploadPayloadStatistics;
 import net.gini.android.vision.onboarding.OnboardingPage;
 import net.gini.android.vision.review.ReviewActivity;
 import net.gini.android.vision.review.multipage.MultiPageReviewFragment;
@@ -32,6 +37,7 @@ import java.util.Collections;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import jersey.repackaged.jsr166e.CompletableFuture;
 
 /**
  * Created by Alpar Szotyori on 22.02.2018.
@@ -59,12 +65,14 @@ public class GiniVision {
     private static GiniVision sInstance;
     private final GiniVisionNetworkService mGiniVisionNetworkService;
     private final GiniVisionNetworkApi mGiniVisionNetworkApi;
-    private final NetworkRequestsManager mNetworkRequestsManager;
-    private final DocumentDataMemoryCache mDocumentDataMemoryCache;
-    private final PhotoMemoryCache mPhotoMemoryCache;
-    private final ImageDiskStore mImageDiskStore;
-    private final ImageMultiPageDocumentMemoryStore mImageMultiPageDocumentMemoryStore;
-    private final GiniVisionFileImport mGiniVisionFileImport;
+    // Created lazily on first use to keep them off the app's and the Camera Screen's startup
+    private NetworkRequestsManager mNetworkRequestsManager;
+    private DocumentDataMemoryCache mDocumentDataMemoryCache;
+    private PhotoMemoryCache mPhotoMemoryCache;
+    private ThumbnailMemoryCache mThumbnailMemoryCache;
+    private ImageDiskStore mImageDiskStore;
+    private ImageMultiPageDocumentMemoryStore mImageMultiPageDocumentMemoryStore;
+    private GiniVisionFileImport mGiniVisionFileImport;
     private final Internal mInternal;
     private final DocumentImportEnabledFileTypes mDocumentImportEnabledFileTypes;
     private final boolean mFileImportEnabled;
@@ -77,6 +85,18 @@ public class GiniVision {
     private final boolean mFlashButtonEnabled;
     private final boolean mBackButtonsEnabled;
     private final boolean mIsFlashOnByDefault;
+    private final boolean mCamera2Enabled;
+    private final boolean mFastCaptureEnabled;
+    private final boolean mDocumentEdgeDetectionEnabled;
+    private final boolean mContinuousCaptureEnabled;
+    private final boolean mEagerUploadEnabled;
+    private final boolean mSpeculativeAnalysisEnabled;
+    private final CaptureLatencyHistogram mCaptureLatencyHistogram;
+    private final boolean mUploadPayloadOptimizationEnabled;
+    private final UploadPayloadStatistics mUploadPayloadStatistics;
+    private final UploadPayloadOptimizer mUploadPayloadOptimizer;
+    private final boolean mExtractionCacheEnabled;
+    private final boolean mExtractionCachePersisted;
     private final EventTracker mEventTracker;
 
     /**
@@ -132,20 +152,38 @@ public class GiniVision {
      */
     public static synchronized void cleanup(@NonNull final Context context) {
         if (sInstance != null) {
-            sInstance.mDocumentDataMemoryCache.clear();
-            sInstance.mPhotoMemoryCache.clear();
-            if (sInstance.mNetworkRequestsManager != null) {
-                sInstance.mNetworkRequestsManager.cleanup();
-            }
-            sInstance.mImageMultiPageDocumentMemoryStore.clear();
+            sInstance.cleanupLazyComponents();
             sInstance.internal().setReviewScreenAnalysisError(null);
+            if (sInstance.mUploadPayloadOptimizationEnabled) {
+                LOG.debug("Session finished: {}", sInstance.mUploadPayloadStatistics);
+            }
             sInstance = null; // NOPMD
         }
         ImageDiskStore.clear(context);
+        UploadJournal.clear(context);
+    }
+
+    private synchronized void cleanupLazyComponents() {
+        if (mDocumentDataMemoryCache != null) {
+            mDocumentDataMemoryCache.clear();
+        }
+        if (mPhotoMemoryCache != null) {
+            mPhotoMemoryCache.clear();
+        }
+        if (mThumbnailMemoryCache != null) {
+            mThumbnailMemoryCache.clear();
+        }
+        if (mNetworkRequestsManager != null) {
+            mNetworkRequestsManager.cleanup();
+        }
+        if (mImageMultiPageDocumentMemoryStore != null) {
+            mImageMultiPageDocumentMemoryStore.clear();
+        }
     }
 
     private static synchronized void createInstance(@NonNull final Builder builder) {
         sInstance = new GiniVision(builder);
+        StartupTrace.mark(StartupTrace.Milestone.GINI_VISION_READY);
     }
 
     private GiniVision(@NonNull final Builder builder) {
@@ -157,22 +195,46 @@ public class GiniVision {
         mCustomOnboardingPages = builder.getOnboardingPages();
         mShouldShowOnboardingAtFirstRun = builder.shouldShowOnboardingAtFirstRun();
         mShouldShowOnboarding = builder.shouldShowOnboarding();
-        mDocumentDataMemoryCache = new DocumentDataMemoryCache();
-        mPhotoMemoryCache = new PhotoMemoryCache(mDocumentDataMemoryCache);
-        mImageDiskStore = new ImageDiskStore();
-        mNetworkRequestsManager = mGiniVisionNetworkService != null ? new NetworkRequestsManager(
-                mGiniVisionNetworkService, mDocumentDataMemoryCache) : null;
-        mImageMultiPageDocumentMemoryStore = new ImageMultiPageDocumentMemoryStore();
-        mGiniVisionFileImport = new GiniVisionFileImport(this);
         mInternal = new Internal(this);
         mMultiPageEnabled = builder.isMultiPageEnabled();
         mIsSupportedFormatsHelpScreenEnabled = builder.isSupportedFormatsHelpScreenEnabled();
         mFlashButtonEnabled = builder.isFlashButtonEnabled();
         mBackButtonsEnabled = builder.areBackButtonsEnabled();
         mIsFlashOnByDefault = builder.isFlashOnByDefault();
+        mCamera2Enabled = builder.isCamera2Enabled();
+        mFastCaptureEnabled = builder.isFastCaptureEnabled();
+        mDocumentEdgeDetectionEnabled = builder.isDocumentEdgeDetectionEnabled();
+        mContinuousCaptureEnabled = builder.isContinuousCaptureEnabled();
+        mEagerUploadEnabled = builder.isEagerUploadEnabled();
+        mSpeculativeAnalysisEnabled = builder.isSpeculativeAnalysisEnabled();
+        mCaptureLatencyHistogram = new CaptureLatencyHistogram();
+        mUploadPayloadOptimizationEnabled = builder.isUploadPayloadOptimizationEnabled();
+        mUploadPayloadStatistics = new UploadPayloadStatistics();
+        mUploadPayloadOptimizer = mUploadPayloadOptimizationEnabled
+                ? createUploadPayloadOptimizer(builder.getUploadPayloadPageByteBudget()) : null;
+        mExtractionCacheEnabled = builder.isExtractionCacheEnabled();
+        mExtractionCachePersisted = builder.isExtractionCachePersisted();
         mEventTracker = builder.getEventTracker();
     }
 
+    @NonNull
+    private UploadPayloadOptimizer createUploadPayloadOptimizer(final int pageByteBudget) {
+        UploadPayloadOptimizer.ThroughputSource throughputSource = null;
+        if (mGiniVisionNetworkService != null) {
+            throughputSource = new UploadPayloadOptimizer.ThroughputSource() {
+                @Override
+                public double getUploadThroughputBytesPerSecond() {
+                    final NetworkRequestsManager networkRequestsManager =
+                            getNetworkRequestsManager();
+                    return networkRequestsManager != null ? networkRequestsManager
+                            .getRequestMetrics().getUploadThroughputBytesPerSecond() : 0;
+                }
+            };
+        }
+        return new UploadPayloadOptimizer(pageByteBudget, throughputSource,
+                mUploadPayloadStatistics);
+    }
+
     /**
      * Internal use only.
      *
@@ -311,6 +373,130 @@ public class GiniVision {
         return mFlashButtonEnabled;
     }
 
+    /**
+     * Find out whether the Camera2 API is used on devices which fully support it.
+     *
+     * <p> Disabled by default.
+     *
+     * @return {@code true} if the Camera2 API was enabled
+     */
+    public boolean isCamera2Enabled() {
+        return mCamera2Enabled;
+    }
+
+    /**
+     * Find out whether fast capture has been enabled in the Camera Screen.
+     *
+     * <p> Disabled by default.
+     *
+     * @return {@code true} if fast capture was enabled
+     */
+    public boolean isFastCaptureEnabled() {
+        return mFastCaptureEnabled;
+    }
+
+    /**
+     * Find out whether the document's edges are detected and outlined in the Camera Screen.
+     *
+     * <p> Disabled by default.
+     *
+     * @return {@code true} if document edge detection was enabled
+     */
+    public boolean isDocumentEdgeDetectionEnabled() {
+        return mDocumentEdgeDetectionEnabled;
+    }
+
+    /**
+     * Find out whether continuous capture has been enabled for multi-page documents.
+     *
+     * <p> Disabled by default.
+     *
+     * @return {@code true} if continuous capture was enabled
+     */
+    public boolean isContinuousCaptureEnabled() {
+        return mContinuousCaptureEnabled;
+    }
+
+    /**
+     * Find out whether the pages of multi-page documents are uploaded as soon as they were
+     * taken.
+     *
+     * <p> Disabled by default.
+     *
+     * @return {@code true} if eager upload was enabled
+     */
+    public boolean isEagerUploadEnabled() {
+        return mEagerUploadEnabled;
+    }
+
+    /**
+     * Find out whether the analysis of multi-page documents is started in advance on the
+     * multi-page review screen.
+     *
+     * <p> Disabled by default.
+     *
+     * @return {@code true} if speculative analysis was enabled
+     */
+    public boolean isSpeculativeAnalysisEnabled() {
+        return mSpeculativeAnalysisEnabled;
+    }
+
+    /**
+     * Find out whether the JPEG quality and resolution of the pages are chosen for each page
+     * before upload.
+     *
+     * <p> Disabled by default.
+     *
+     * @return {@code true} if upload payload optimization was enabled
+     */
+    public boolean isUploadPayloadOptimizationEnabled() {
+        return mUploadPayloadOptimizationEnabled;
+    }
+
+    /**
+     * Get the sizes of the pages prepared for upload in this session. Only pages optimized with
+     * upload payload optimization are recorded.
+     *
+     * @return the {@link UploadPayloadStatistics} of this instance
+     */
+    @NonNull
+    public UploadPayloadStatistics getUploadPayloadStatistics() {
+        return mUploadPayloadStatistics;
+    }
+
+    /**
+     * Find out whether analysis results are reused when pages with the same content and rotation
+     * are analyzed again.
+     *
+     * <p> Disabled by default.
+     *
+     * @return {@code true} if the extraction cache was enabled
+     */
+    public boolean isExtractionCacheEnabled() {
+        return mExtractionCacheEnabled;
+    }
+
+    /**
+     * Find out whether the cached analysis results are kept in a file.
+     *
+     * <p> Disabled by default.
+     *
+     * @return {@code true} if the extraction cache is persisted
+     */
+    public boolean isExtractionCachePersisted() {
+        return mExtractionCachePersisted;
+    }
+
+    /**
+     * Get the durations of the stages of taking pictures in the Camera Screen.
+     *
+     * @return the {@link CaptureLatencyHistogram} of this instance
+     */
+    @NonNull
+    public CaptureLatencyHistogram getCaptureLatencyHistogram() {
+        return mCaptureLatencyHistogram;
+    }
+
     /**
      * Screen API only
      *
@@ -361,7 +547,7 @@ public class GiniVision {
     public CancellationToken createIntentForImportedFiles(@NonNull final Intent intent,
             @NonNull final Context context,
             @NonNull final AsyncCallback<Intent, ImportedFileValidationException> callback) {
-        return mGiniVisionFileImport.createIntentForImportedFiles(intent, context, callback);
+        return getGiniVisionFileImport().createIntentForImportedFiles(intent, context, callback);
     }
 
     /**
@@ -391,7 +577,7 @@ public class GiniVision {
     public CancellationToken createDocumentForImportedFiles(@NonNull final Intent intent,
             @NonNull final Context context,
             @NonNull final AsyncCallback<Document, ImportedFileValidationException> callback) {
-        return mGiniVisionFileImport.createDocumentForImportedFiles(intent, context, callback);
+        return getGiniVisionFileImport().createDocumentForImportedFiles(intent, context, callback);
     }
 
     /**
@@ -456,7 +642,18 @@ public class GiniVision {
     }
 
     @NonNull
-    ImageMultiPageDocumentMemoryStore getImageMultiPageDocumentMemoryStore() {
+    private synchronized GiniVisionFileImport getGiniVisionFileImport() {
+        if (mGiniVisionFileImport == null) {
+            mGiniVisionFileImport = new GiniVisionFileImport(this);
+        }
+        return mGiniVisionFileImport;
+    }
+
+    @NonNull
+    synchronized ImageMultiPageDocumentMemoryStore getImageMultiPageDocumentMemoryStore() {
+        if (mImageMultiPageDocumentMemoryStore == null) {
+            mImageMultiPageDocumentMemoryStore = new ImageMultiPageDocumentMemoryStore();
+        }
         return mImageMultiPageDocumentMemoryStore;
     }
 
@@ -466,22 +663,45 @@ public class GiniVision {
     }
 
     @Nullable
-    NetworkRequestsManager getNetworkRequestsManager() {
+    synchronized NetworkRequestsManager getNetworkRequestsManager() {
+        if (mNetworkRequestsManager == null && mGiniVisionNetworkService != null) {
+            mNetworkRequestsManager = new NetworkRequestsManager(mGiniVisionNetworkService,
+                    getDocumentDataMemoryCache());
+            mNetworkRequestsManager.setExtractionCacheEnabled(mExtractionCacheEnabled,
+                    mExtractionCachePersisted);
+        }
         return mNetworkRequestsManager;
     }
 
     @NonNull
-    DocumentDataMemoryCache getDocumentDataMemoryCache() {
+    synchronized DocumentDataMemoryCache getDocumentDataMemoryCache() {
+        if (mDocumentDataMemoryCache == null) {
+            mDocumentDataMemoryCache = new DocumentDataMemoryCache();
+        }
         return mDocumentDataMemoryCache;
     }
 
     @NonNull
-    PhotoMemoryCache getPhotoMemoryCache() {
+    synchronized PhotoMemoryCache getPhotoMemoryCache() {
+        if (mPhotoMemoryCache == null) {
+            mPhotoMemoryCache = new PhotoMemoryCache(getDocumentDataMemoryCache());
+        }
         return mPhotoMemoryCache;
     }
 
     @NonNull
-    ImageDiskStore getImageDiskStore() {
+    synchronized ThumbnailMemoryCache getThumbnailMemoryCache() {
+        if (mThumbnailMemoryCache == null) {
+            mThumbnailMemoryCache = new ThumbnailMemoryCache(getDocumentDataMemoryCache());
+        }
+        return mThumbnailMemoryCache;
+    }
+
+    @NonNull
+    synchronized ImageDiskStore getImageDiskStore() {
+        if (mImageDiskStore == null) {
+            mImageDiskStore = new ImageDiskStore();
+        }
         return mImageDiskStore;
     }
 
@@ -490,6 +710,11 @@ public class GiniVision {
         return mEventTracker;
     }
 
+    @Nullable
+    UploadPayloadOptimizer getUploadPayloadOptimizer() {
+        return mUploadPayloadOptimizer;
+    }
+
     /**
      * Builder for {@link GiniVision}. To get an instance call {@link #newInstance()}.
      */
@@ -509,6 +734,16 @@ public class GiniVision {
         private boolean mFlashButtonEnabled;
         private boolean mBackButtonsEnabled = true;
         private boolean mIsFlashOnByDefault = true;
+        private boolean mCamera2Enabled;
+        private boolean mFastCaptureEnabled;
+        private boolean mDocumentEdgeDetectionEnabled;
+        private boolean mContinuousCaptureEnabled;
+        private boolean mEagerUploadEnabled;
+        private boolean mSpeculativeAnalysisEnabled;
+        private boolean mUploadPayloadOptimizationEnabled;
+        private int mUploadPayloadPageByteBudget = UploadPayloadOptimizer.DEFAULT_PAGE_BYTE_BUDGET;
+        private boolean mExtractionCacheEnabled;
+        private boolean mExtractionCachePersisted;
         private EventTracker mEventTracker = new EventTracker() {
             @Override
             public void onOnboardingScreenEvent(@NotNull final Event<OnboardingScreenEvent> event) {
@@ -769,6 +1004,248 @@ public class GiniVision {
             return mFlashButtonEnabled;
         }
 
+        /**
+         * Enable/disable using the Camera2 API in the Camera Screen.
+         *
+         * <p> If enabled, the Camera2 API is used on devices which support it with a hardware
+         * level above legacy. On other devices the deprecated Camera API is used.
+         *
+         * <p> Disabled by default.
+         *
+         * @param enabled {@code true} to use the Camera2 API
+         *
+         * @return the {@link Builder} instance
+         */
+        public Builder setCamera2Enabled(final boolean enabled) {
+            mCamera2Enabled = enabled;
+            return this;
+        }
+
+        boolean isCamera2Enabled() {
+            return mCamera2Enabled;
+        }
+
+        /**
+         * Enable/disable fast capture in the Camera Screen.
+         *
+         * <p> With fast capture a recent successful focus is reused instead of running auto-focus
+         * before each picture. If the camera is still focusing when the camera trigger is
+         * tapped, then the picture is taken as soon as the focus is locked.
+         *
+         * <p> Disabled by default.
+         *
+         * @param enabled {@code true} to enable fast capture
+         *
+         * @return the {@link Builder} instance
+         */
+        public Builder setFastCaptureEnabled(final boolean enabled) {
+            mFastCaptureEnabled = enabled;
+            return this;
+        }
+
+        boolean isFastCaptureEnabled() {
+            return mFastCaptureEnabled;
+        }
+
+        /**
+         * Enable/disable document edge detection in the Camera Screen.
+         *
+         * <p> When enabled the document's edges are searched for in the camera preview and the
+         * detected document is outlined. The detection runs on a background thread and uses only
+         * the luminance of the preview frames.
+         *
+         * <p> Disabled by default.
+         *
+         * @param enabled {@code true} to enable document edge detection
+         *
+         * @return the {@link Builder} instance
+         */
+        public Builder setDocumentEdgeDetectionEnabled(final boolean enabled) {
+            mDocumentEdgeDetectionEnabled = enabled;
+            return this;
+        }
+
+        boolean isDocumentEdgeDetectionEnabled() {
+            return mDocumentEdgeDetectionEnabled;
+        }
+
+        /**
+         * Enable/disable continuous capture for multi-page documents.
+         *
+         * <p> With continuous capture the camera trigger is enabled again right after a picture
+         * was taken and the pictures are compressed and saved in the background. The image stack
+         * is updated as the pictures are processed and the user can proceed to the multi-page
+         * review screen by tapping it. If too many pictures are waiting to be processed, then the
+         * camera trigger is disabled until a picture was processed.
+         *
+         * <p> Has no effect if multi-page is not enabled.
+         *
+         * <p> Disabled by default.
+         *
+         * @param enabled {@code true} to enable continuous capture
+         *
+         * @return the {@link Builder} instance
+         */
+        public Builder setContinuousCaptureEnabled(final boolean enabled) {
+            mContinuousCaptureEnabled = enabled;
+            return this;
+        }
+
+        boolean isContinuousCaptureEnabled() {
+            return mContinuousCaptureEnabled;
+        }
+
+        /**
+         * Enable/disable eager upload for multi-page documents.
+         *
+         * <p> With eager upload each page is uploaded in the background as soon as it was taken
+         * and saved on the Camera Screen instead of when the multi-page review screen is shown.
+         * Rotating pages on the review screen doesn't require uploading them again and pages
+         * deleted by the user are also deleted from the Gini API.
+         *
+         * <p> Has no effect if multi-page is not enabled or no {@link GiniVisionNetworkService}
+         * was set.
+         *
+         * <p> Disabled by default.
+         *
+         * @param enabled {@code true} to enable eager upload
+         *
+         * @return the {@link Builder} instance
+         */
+        public Builder setEagerUploadEnabled(final boolean enabled) {
+            mEagerUploadEnabled = enabled;
+            return this;
+        }
+
+        boolean isEagerUploadEnabled() {
+            return mEagerUploadEnabled;
+        }
+
+        /**
+         * Enable/disable speculative analysis for multi-page documents.
+         *
+         * <p> With speculative analysis the analysis of the document is started when all pages
+         * were uploaded and the user didn't change the document for a short while on the
+         * multi-page review screen. If the user proceeds to the analysis screen without changing
+         * the document, then the running or finished analysis is used. If the user changes the
+         * document, then the speculative analysis is discarded.
+         *
+         * <p> Has no effect if multi-page is not enabled or no {@link GiniVisionNetworkService}
+         * was set.
+         *
+         * <p> Disabled by default.
+         *
+         * @param enabled {@code true} to enable speculative analysis
+         *
+         * @return the {@link Builder} instance
+         */
+        public Builder setSpeculativeAnalysisEnabled(final boolean enabled) {
+            mSpeculativeAnalysisEnabled = enabled;
+            return this;
+        }
+
+        boolean isSpeculativeAnalysisEnabled() {
+            return mSpeculativeAnalysisEnabled;
+        }
+
+        /**
+         * Enable/disable upload payload optimization.
+         *
+         * <p> With upload payload optimization the JPEG quality and the resolution of each page
+         * are chosen from the amount of text on the page and the measured upload speed instead of
+         * compressing every page with the same quality. Pages with a lot of small text keep a
+         * higher quality. The chosen parameters are stored in the EXIF User Comment of the image.
+         *
+         * <p> Use {@link #setUploadPayloadPageByteBudget(int)} to limit the size of the pages and
+         * {@link GiniVision#getUploadPayloadStatistics()} to see how many bytes were saved.
+         *
+         * <p> Disabled by default.
+         *
+         * @param enabled {@code true} to enable upload payload optimization
+         *
+         * @return the {@link Builder} instance
+         */
+        public Builder setUploadPayloadOptimizationEnabled(final boolean enabled) {
+            mUploadPayloadOptimizationEnabled = enabled;
+            return this;
+        }
+
+        boolean isUploadPayloadOptimizationEnabled() {
+            return mUploadPayloadOptimizationEnabled;
+        }
+
+        /**
+         * Set the size a page should not exceed when upload payload optimization is enabled. On
+         * slow connections a lower limit is used. Pages are not downscaled below the resolution
+         * needed to read small print, so some pages may be larger.
+         *
+         * <p> Has no effect if upload payload optimization is not enabled.
+         *
+         * <p> Default value is 400KB. Values below 150KB are raised to 150KB.
+         *
+         * @param bytes the maximum size of a page in bytes
+         *
+         * @return the {@link Builder} instance
+         */
+        public Builder setUploadPayloadPageByteBudget(final int bytes) {
+            mUploadPayloadPageByteBudget = bytes;
+            return this;
+        }
+
+        int getUploadPayloadPageByteBudget() {
+            return mUploadPayloadPageByteBudget;
+        }
+
+        /**
+         * Enable/disable the extraction cache.
+         *
+         * <p> With the extraction cache the analysis result of a multi-page document is kept and
+         * returned immediately, if pages with the same content and rotation are analyzed again,
+         * for example when the same file is imported twice. The pages are compared by the hashes
+         * of their content without the EXIF metadata. Up to 16 results are kept for 30 minutes.
+         *
+         * <p> The cached result contains the Gini API document id of the first analysis. Results
+         * are dropped when their document is deleted.
+         *
+         * <p> Requires a {@link GiniVisionNetworkService}.
+         *
+         * <p> Disabled by default.
+         *
+         * @param enabled {@code true} to enable the extraction cache
+         *
+         * @return the {@link Builder} instance
+         */
+        public Builder setExtractionCacheEnabled(final boolean enabled) {
+            mExtractionCacheEnabled = enabled;
+            return this;
+        }
+
+        boolean isExtractionCacheEnabled() {
+            return mExtractionCacheEnabled;
+        }
+
+        /**
+         * Keep the cached analysis results in a file in the app's files directory to reuse them
+         * after the app was restarted. The file is not removed by {@link
+         * GiniVision#cleanup(Context)}, the results expire after 30 minutes.
+         *
+         * <p> Has no effect if the extraction cache is not enabled.
+         *
+         * <p> Disabled by default.
+         *
+         * @param persisted {@code true} to keep the cached results in a file
+         *
+         * @return the {@link Builder} instance
+         */
+        public Builder setExtractionCachePersisted(final boolean persisted) {
+            mExtractionCachePersisted = persisted;
+            return this;
+        }
+
+        boolean isExtractionCachePersisted() {
+            return mExtractionCachePersisted;
+        }
+
         /**
          * Screen API only
          *
@@ -837,6 +1314,7 @@ public class GiniVision {
         private final GiniVision mGiniVision;
 
         private Throwable mReviewScreenAnalysisError;
+        private CompletableFuture<?> mSpeculativeAnalysisFuture;
 
         public Internal(@NonNull final GiniVision giniVision) {
             mGiniVision = giniVision;
@@ -852,6 +1330,19 @@ public class GiniVision {
             return mGiniVision.getNetworkRequestsManager();
         }
 
+        /**
+         * Continues the background deletions of a previous app process. Called by the screens
+         * when they are created, because the deletion queue needs a context.
+         *
+         * @param context Android context
+         */
+        public void resumeBackgroundDeletions(@NonNull final Context context) {
+            final NetworkRequestsManager networkRequestsManager = getNetworkRequestsManager();
+            if (networkRequestsManager != null) {
+                networkRequestsManager.resumeDeletions(context);
+            }
+        }
+
         @NonNull
         public DocumentDataMemoryCache getDocumentDataMemoryCache() {
             return mGiniVision.getDocumentDataMemoryCache();
@@ -862,6 +1353,11 @@ public class GiniVision {
             return mGiniVision.getPhotoMemoryCache();
         }
 
+        @NonNull
+        public ThumbnailMemoryCache getThumbnailMemoryCache() {
+            return mGiniVision.getThumbnailMemoryCache();
+        }
+
         public ImageDiskStore getImageDiskStore() {
             return mGiniVision.getImageDiskStore();
         }
@@ -874,6 +1370,11 @@ public class GiniVision {
             return mGiniVision.getEventTracker();
         }
 
+        @Nullable
+        public UploadPayloadOptimizer getUploadPayloadOptimizer() {
+            return mGiniVision.getUploadPayloadOptimizer();
+        }
+
         @Nullable
         public Throwable getReviewScreenAnalysisError() {
             return mReviewScreenAnalysisError;
@@ -882,6 +1383,29 @@ public class GiniVision {
         public void setReviewScreenAnalysisError(@Nullable final Throwable analysisError) {
             mReviewScreenAnalysisError = analysisError;
         }
+
+        /**
+         * Keeps the Review Screen's subscription to its speculative analysis until the Analysis
+         * Screen subscribed to the same analysis.
+         *
+         * @param speculativeAnalysisFuture the Review Screen's analysis future
+         */
+        public synchronized void handOverSpeculativeAnalysis(
+                @NonNull final CompletableFuture<?> speculativeAnalysisFuture) {
+            releaseSpeculativeAnalysis();
+            mSpeculativeAnalysisFuture = speculativeAnalysisFuture;
+        }
+
+        /**
+         * Drops the handed over subscription. The analysis is cancelled, if no other screen
+         * subscribed to it.
+         */
+        public synchronized void releaseSpeculativeAnalysis() {
+            if (mSpeculativeAnalysisFuture != null) {
+                mSpeculativeAnalysisFuture.cancel(false);
+                mSpeculativeAnalysisFuture = null; // NOPMD
+            }
+        }
     }
 
 }
@@ -255,6 +255,7 @@ public final class GiniVisionFileImport {
             return new CancellationToken() {
                 @Override
                 public void cancel() {
+                    asyncTask.cancel(true);
                 }
             };
         }
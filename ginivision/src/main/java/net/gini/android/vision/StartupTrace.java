@@ -0,0 +1,161 @@
+package net.gini.android.vision;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Records how long it took from the start of your app until the Gini Vision Library reached the
+ * milestones of showing the Camera Screen.
+ *
+ * <p> On Android 7.0 and later the trace starts when your app's process was started. On older
+ * versions it starts when the Gini Vision Library is first used. You can start a new trace with
+ * {@link #restart()}, for example before launching the Camera Screen again.
+ *
+ * <p> Each milestone is only recorded the first time it is reached in a trace. The durations are
+ * also written to the log.
+ */
+public final class StartupTrace {
+
+    /**
+     * The milestones of showing the Camera Screen.
+     */
+    public enum Milestone {
+        /**
+         * A {@link GiniVision} instance was built.
+         */
+        GINI_VISION_READY,
+        /**
+         * The camera was opened and configured.
+         */
+        CAMERA_OPENED,
+        /**
+         * The first preview frame was received from the camera.
+         */
+        FIRST_PREVIEW_FRAME
+    }
+
+    /**
+     * Notified on the main thread when a milestone was reached.
+     */
+    public interface Listener {
+
+        /**
+         * @param milestone the reached milestone
+         * @param elapsedMs the milliseconds since the start of the trace
+         */
+        void onMilestoneReached(@NonNull Milestone milestone, long elapsedMs);
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupTrace.class);
+
+    private static final long NOT_REACHED = -1;
+
+    private static final long[] sElapsedMs = new long[Milestone.values().length];
+    private static long sStartMs = NOT_REACHED;
+    private static Listener sListener;
+    private static Handler sMainHandler;
+
+    static {
+        Arrays.fill(sElapsedMs, NOT_REACHED);
+    }
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Starts a new trace now and forgets the previously reached milestones.
+     */
+    public static synchronized void restart() {
+        sStartMs = SystemClock.elapsedRealtime();
+        Arrays.fill(sElapsedMs, NOT_REACHED);
+    }
+
+    /**
+     * @param milestone a milestone
+     *
+     * @return the milliseconds from the start of the trace until the milestone was reached or -1,
+     * if it wasn't reached yet
+     */
+    public static synchronized long getElapsedMs(@NonNull final Milestone milestone) {
+        return sElapsedMs[milestone.ordinal()];
+    }
+
+    /**
+     * @param listener a {@link Listener} to be notified about reached milestones or {@code null}
+     */
+    public static synchronized void setListener(@Nullable final Listener listener) {
+        sListener = listener;
+    }
+
+    /**
+     * Internal use only.
+     *
+     * @suppress
+     */
+    public static void mark(@NonNull final Milestone milestone) {
+        final long elapsedMs;
+        final Listener listener;
+        synchronized (StartupTrace.class) {
+            if (sStartMs == NOT_REACHED) {
+                sStartMs = getProcessStartMs();
+            }
+            if (sElapsedMs[milestone.ordinal()] != NOT_REACHED) {
+                return;
+            }
+            elapsedMs = SystemClock.elapsedRealtime() - sStartMs;
+            sElapsedMs[milestone.ordinal()] = elapsedMs;
+            listener = sListener;
+        }
+        LOG.info("Startup trace: {} after {} ms", milestone, elapsedMs);
+        if (listener != null) {
+            notifyListener(listener, milestone, elapsedMs);
+        }
+    }
+
+    @VisibleForTesting
+    static synchronized void clear() {
+        sStartMs = NOT_REACHED;
+        Arrays.fill(sElapsedMs, NOT_REACHED);
+        sListener = null; // NOPMD
+    }
+
+    private static long getProcessStartMs() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return Process.getStartElapsedRealtime();
+        }
+        return SystemClock.elapsedRealtime();
+    }
+
+    private static void notifyListener(@NonNull final Listener listener,
+            @NonNull final Milestone milestone, final long elapsedMs) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            listener.onMilestoneReached(milestone, elapsedMs);
+            return;
+        }
+        getMainHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                listener.onMilestoneReached(milestone, elapsedMs);
+            }
+        });
+    }
+
+    private static synchronized Handler getMainHandler() {
+        if (sMainHandler == null) {
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return sMainHandler;
+    }
+}
@@ -19,6 +19,7 @@ import android.widget.RelativeLayout;
 import android.widget.TextView;
 
 import net.gini.android.vision.Document;
+import net.gini.android.vision.GiniVision;
 import net.gini.android.vision.R;
 import net.gini.android.vision.internal.ui.ErrorSnackbar;
 import net.gini.android.vision.internal.ui.FragmentImplCallback;
@@ -235,6 +236,9 @@ class AnalysisFragmentImpl extends AnalysisScreenContract.View {
             return;
         }
         forcePortraitOrientationOnPhones(activity);
+        if (GiniVision.hasInstance()) {
+            GiniVision.getInstance().internal().resumeBackgroundDeletions(activity);
+        }
     }
 
     public View onCreateView(final LayoutInflater inflater, final ViewGroup container,
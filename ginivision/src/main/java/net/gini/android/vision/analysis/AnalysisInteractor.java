@@ -14,9 +14,7 @@ import net.gini.android.vision.internal.network.NetworkRequestResult;
 import net.gini.android.vision.internal.network.NetworkRequestsManager;
 import net.gini.android.vision.network.model.GiniVisionSpecificExtraction;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 
 import androidx.annotation.NonNull;
@@ -53,7 +51,11 @@ public class AnalysisInteractor {
                     final GiniVisionDocument giniVisionDocument = (GiniVisionDocument) document;
                     networkRequestsManager.upload(mApp, giniVisionDocument);
                 }
-                return networkRequestsManager.analyze(multiPageDocument)
+                final CompletableFuture<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>
+                        analysisFuture = networkRequestsManager.analyze(multiPageDocument);
+                // Subscribed, so the Review Screen's speculative analysis is not needed anymore
+                GiniVision.getInstance().internal().releaseSpeculativeAnalysis();
+                return analysisFuture
                         .handle(new CompletableFuture.BiFun<AnalysisNetworkRequestResult<
                                 GiniVisionMultiPageDocument>, Throwable, ResultHolder>() {
                             @Override
@@ -88,39 +90,15 @@ public class AnalysisInteractor {
     public CompletableFuture<Void> deleteMultiPageDocument(
             final GiniVisionMultiPageDocument<GiniVisionDocument, GiniVisionDocumentError>
                     multiPageDocument) {
-        return deleteDocument(multiPageDocument)
-                .handle(new CompletableFuture.BiFun<NetworkRequestResult<GiniVisionDocument>,
-                        Throwable, Void>() {
-                    @Override
-                    public Void apply(
-                            final NetworkRequestResult<GiniVisionDocument>
-                                    giniVisionDocumentNetworkRequestResult,
-                            final Throwable throwable) {
-                        return null;
-                    }
-                })
-                .thenCompose(
-                        new CompletableFuture.Fun<Void, CompletableFuture<Void>>() {
-                            @Override
-                            public CompletableFuture<Void> apply(
-                                    final Void result) {
-                                final NetworkRequestsManager networkRequestsManager =
-                                        GiniVision.getInstance()
-                                                .internal().getNetworkRequestsManager();
-                                if (networkRequestsManager == null) {
-                                    return CompletableFuture.completedFuture(null);
-                                }
-                                final List<CompletableFuture<NetworkRequestResult<
-                                        GiniVisionDocument>>> futures = new ArrayList<>();
-                                for (final GiniVisionDocument document
-                                        : multiPageDocument.getDocuments()) {
-                                    networkRequestsManager.cancel(document);
-                                    futures.add(networkRequestsManager.delete(document));
-                                }
-                                return CompletableFuture.allOf(
-                                        futures.toArray(new CompletableFuture[0]));
-                            }
-                        });
+        if (GiniVision.hasInstance()) {
+            final NetworkRequestsManager networkRequestsManager = GiniVision.getInstance()
+                    .internal().getNetworkRequestsManager();
+            if (networkRequestsManager != null) {
+                // The composite and the partial documents are deleted in the background
+                networkRequestsManager.deleteInBackground(multiPageDocument);
+            }
+        }
+        return CompletableFuture.completedFuture(null);
     }
 
     public CompletableFuture<NetworkRequestResult<GiniVisionDocument>> deleteDocument(
@@ -24,6 +24,7 @@ import net.gini.android.vision.internal.document.DocumentRenderer;
 import net.gini.android.vision.internal.document.DocumentRendererFactory;
 import net.gini.android.vision.internal.storage.ImageDiskStore;
 import net.gini.android.vision.internal.ui.ErrorSnackbar;
+import net.gini.android.vision.internal.ui.FirstPixelTimer;
 import net.gini.android.vision.internal.util.FileImportHelper;
 import net.gini.android.vision.internal.util.MimeType;
 import net.gini.android.vision.network.model.GiniVisionSpecificExtraction;
@@ -83,11 +84,13 @@ class AnalysisScreenPresenter extends AnalysisScreenContract.Presenter {
     private final String mDocumentAnalysisErrorMessage;
     private final AnalysisInteractor mAnalysisInteractor;
     private final List<AnalysisHint> mHints;
+    private final FirstPixelTimer mFirstPixelTimer = new FirstPixelTimer("Analysis Screen");
     @VisibleForTesting
     DocumentRenderer mDocumentRenderer;
     private AnalysisFragmentListener mListener;
     private boolean mStopped;
     private boolean mAnalysisCompleted;
+    private boolean mPreviewShown;
 
     AnalysisScreenPresenter(
             @NonNull final Activity activity,
@@ -209,6 +212,7 @@ class AnalysisScreenPresenter extends AnalysisScreenContract.Presenter {
     @Override
     public void start() {
         mStopped = false;
+        mFirstPixelTimer.start();
         createDocumentRenderer();
         clearParcelableMemoryCache();
         getView().showScanAnimation();
@@ -406,6 +410,7 @@ class AnalysisScreenPresenter extends AnalysisScreenContract.Presenter {
     private void onViewLayoutFinished() {
         LOG.debug("View layout finished");
         showPdfInfoForPdfDocument();
+        showPlaceholder();
         showDocument();
         analyzeDocument();
     }
@@ -459,6 +464,22 @@ class AnalysisScreenPresenter extends AnalysisScreenContract.Presenter {
         }
     }
 
+    private void showPlaceholder() {
+        mDocumentRenderer.toPlaceholderBitmap(getActivity(), new DocumentRenderer.Callback() {
+            @Override
+            public void onBitmapReady(@Nullable final Bitmap bitmap,
+                    final int rotationForDisplay) {
+                // The placeholder must not replace an already shown preview
+                if (bitmap == null || isStopped() || mPreviewShown) {
+                    return;
+                }
+                LOG.debug("Placeholder rendered");
+                getView().showBitmap(bitmap, rotationForDisplay);
+                mFirstPixelTimer.onPlaceholderShown();
+            }
+        });
+    }
+
     private void showDocument() {
         LOG.debug("Rendering the document");
         mDocumentRenderer.toBitmap(getActivity(), getView().getPdfPreviewSize(),
@@ -470,7 +491,9 @@ class AnalysisScreenPresenter extends AnalysisScreenContract.Presenter {
                         if (isStopped()) {
                             return;
                         }
+                        mPreviewShown = true;
                         getView().showBitmap(bitmap, rotationForDisplay);
+                        mFirstPixelTimer.onPreviewShown();
                     }
                 });
     }
@@ -7,10 +7,13 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
 import android.graphics.Point;
 import android.hardware.Camera;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.view.LayoutInflater;
 import android.view.SurfaceHolder;
 import android.view.View;
@@ -48,16 +51,22 @@ import net.gini.android.vision.document.GiniVisionMultiPageDocument;
 import net.gini.android.vision.document.ImageDocument;
 import net.gini.android.vision.document.ImageMultiPageDocument;
 import net.gini.android.vision.document.QRCodeDocument;
+import net.gini.android.vision.internal.camera.api.Camera2Controller;
 import net.gini.android.vision.internal.camera.api.CameraController;
 import net.gini.android.vision.internal.camera.api.CameraException;
 import net.gini.android.vision.internal.camera.api.CameraInterface;
 import net.gini.android.vision.internal.camera.api.UIExecutor;
+import net.gini.android.vision.internal.camera.edge.DocumentQuadrilateral;
+import net.gini.android.vision.internal.camera.edge.LiveDocumentEdgeDetector;
 import net.gini.android.vision.internal.camera.photo.Photo;
 import net.gini.android.vision.internal.camera.photo.PhotoEdit;
+import net.gini.android.vision.internal.camera.photo.ThumbnailDecoder;
 import net.gini.android.vision.internal.camera.view.CameraPreviewSurface;
+import net.gini.android.vision.internal.camera.view.DocumentEdgesView;
 import net.gini.android.vision.internal.camera.view.FlashButtonHelper.FlashButtonPosition;
 import net.gini.android.vision.internal.camera.view.HintPopup;
 import net.gini.android.vision.internal.camera.view.QRCodePopup;
+import net.gini.android.vision.internal.document.ImageMultiPageDocumentMemoryStore;
 import net.gini.android.vision.internal.fileimport.FileChooserActivity;
 import net.gini.android.vision.internal.network.AnalysisNetworkRequestResult;
 import net.gini.android.vision.internal.network.NetworkRequestResult;
@@ -107,6 +116,8 @@ import static net.gini.android.vision.internal.util.ActivityHelper.forcePortrait
 import static net.gini.android.vision.internal.util.AndroidHelper.isMarshmallowOrLater;
 import static net.gini.android.vision.internal.util.ContextHelper.isTablet;
 import static net.gini.android.vision.internal.util.FeatureConfiguration.getDocumentImportEnabledFileTypes;
+import static net.gini.android.vision.internal.util.FeatureConfiguration.isContinuousCaptureEnabled;
+import static net.gini.android.vision.internal.util.FeatureConfiguration.isEagerUploadEnabled;
 import static net.gini.android.vision.internal.util.FeatureConfiguration.isMultiPageEnabled;
 import static net.gini.android.vision.internal.util.FeatureConfiguration.isQRCodeScanningEnabled;
 import static net.gini.android.vision.tracking.EventTrackingHelper.trackCameraScreenEvent;
@@ -166,6 +177,7 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
     private QRCodePopup<String> mUnsupportedQRCodePopup;
 
     private View mImageCorners;
+    private DocumentEdgesView mDocumentEdgesView;
     private ImageStack mImageStack;
     private boolean mInterfaceHidden;
     private boolean mInMultiPageState;
@@ -174,7 +186,8 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
     private final UIExecutor mUIExecutor = new UIExecutor();
     private CameraInterface mCameraController;
     private ImageMultiPageDocument mMultiPageDocument;
-    private PaymentQRCodeReader mPaymentQRCodeReader;
+    private volatile PaymentQRCodeReader mPaymentQRCodeReader;
+    private volatile LiveDocumentEdgeDetector mDocumentEdgeDetector;
 
     private RelativeLayout mLayoutRoot;
     private CameraPreviewSurface mCameraPreview;
@@ -204,6 +217,10 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
 
     private CompletableFuture<SurfaceHolder> mSurfaceCreatedFuture = new CompletableFuture<>();
     private boolean mIsTakingPicture;
+    private long mTakePictureStartMs;
+    private CaptureProcessingQueue mCaptureProcessingQueue;
+    private boolean mCameraTriggerDisabledByQueue;
+    private boolean mProceedToMultiPageReviewWhenIdle;
 
     private boolean mImportDocumentButtonEnabled;
     private ImportImageDocumentUrisAsyncTask mImportUrisAsyncTask;
@@ -285,6 +302,9 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
             return;
         }
         forcePortraitOrientationOnPhones(activity);
+        if (GiniVision.hasInstance()) {
+            GiniVision.getInstance().internal().resumeBackgroundDeletions(activity);
+        }
         initFlashState();
         if (savedInstanceState != null) {
             restoreSavedState(savedInstanceState);
@@ -363,9 +383,6 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
         mProceededToMultiPageReview = false;
         initViews();
         initCameraController(activity);
-        if (isQRCodeScanningEnabled(mGiniVisionFeatureConfiguration)) {
-            initQRCodeReader(activity);
-        }
 
         if (isCameraPermissionGranted()) {
             final CompletableFuture<Void> openCameraCompletable = openCamera();
@@ -568,12 +585,49 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
                         if (throwable != null) {
                             handleError(GiniVisionError.ErrorCode.CAMERA_NO_PREVIEW,
                                     "Cannot start preview", throwable);
+                        } else {
+                            onPreviewStarted();
                         }
                         return null;
                     }
                 });
     }
 
+    private void onPreviewStarted() {
+        final Activity activity = mFragment.getActivity();
+        if (activity == null) {
+            return;
+        }
+        // The QRCode detector loads its dependencies from Google Play Services which would delay
+        // the first preview frame
+        if (isQRCodeScanningEnabled(mGiniVisionFeatureConfiguration)) {
+            initQRCodeReader(activity);
+        }
+        if (isDocumentEdgeDetectionEnabled()) {
+            initDocumentEdgeDetector();
+        }
+    }
+
+    private boolean isDocumentEdgeDetectionEnabled() {
+        return GiniVision.hasInstance()
+                && GiniVision.getInstance().isDocumentEdgeDetectionEnabled();
+    }
+
+    private void initDocumentEdgeDetector() {
+        if (mDocumentEdgeDetector != null) {
+            return;
+        }
+        mDocumentEdgeDetector = new LiveDocumentEdgeDetector();
+        mDocumentEdgeDetector.setListener(new LiveDocumentEdgeDetector.Listener() {
+            @Override
+            public void onDocumentEdgesChanged(
+                    @Nullable final DocumentQuadrilateral quadrilateral) {
+                mDocumentEdgesView.setDocumentEdges(quadrilateral);
+            }
+        });
+        mDocumentEdgesView.setVisibility(View.VISIBLE);
+    }
+
     private void enableTapToFocus() {
         mCameraController.enableTapToFocus(mCameraPreview,
                 new CameraInterface.TapToFocusListener() {
@@ -680,6 +734,10 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
         if (mImportUrisAsyncTask != null) {
             mImportUrisAsyncTask.cancel(true);
         }
+        if (mCaptureProcessingQueue != null) {
+            drainCaptureProcessingQueue(mCaptureProcessingQueue);
+            mCaptureProcessingQueue = null; // NOPMD
+        }
 
         if (!mInstanceStateSaved) {
             if (!mProceededToMultiPageReview) {
@@ -713,23 +771,7 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
             final NetworkRequestsManager networkRequestsManager = GiniVision.getInstance()
                     .internal().getNetworkRequestsManager();
             if (networkRequestsManager != null) {
-                networkRequestsManager.cancel(mMultiPageDocument);
-                networkRequestsManager.delete(mMultiPageDocument)
-                        .handle(new CompletableFuture.BiFun<NetworkRequestResult<
-                                GiniVisionDocument>, Throwable, Void>() {
-                            @Override
-                            public Void apply(
-                                    final NetworkRequestResult<GiniVisionDocument> requestResult,
-                                    final Throwable throwable) {
-                                for (final Object document : mMultiPageDocument.getDocuments()) {
-                                    final GiniVisionDocument giniVisionDocument =
-                                            (GiniVisionDocument) document;
-                                    networkRequestsManager.cancel(giniVisionDocument);
-                                    networkRequestsManager.delete(giniVisionDocument);
-                                }
-                                return null;
-                            }
-                        });
+                networkRequestsManager.deleteInBackground(mMultiPageDocument);
             }
         }
     }
@@ -758,6 +800,12 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
             mPaymentQRCodeReader.release();
             mPaymentQRCodeReader = null; // NOPMD
         }
+        if (mDocumentEdgeDetector != null) {
+            LOG.debug("Document edge detection: {}", mDocumentEdgeDetector.getLatencyStats());
+            mDocumentEdgeDetector.release();
+            mDocumentEdgeDetector = null; // NOPMD
+            mDocumentEdgesView.clear();
+        }
         mCameraController.disableTapToFocus(mCameraPreview);
         mCameraController.setPreviewCallback(null);
         mCameraController.stopPreview();
@@ -769,6 +817,7 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
         mLayoutRoot = view.findViewById(R.id.gv_root);
         mCameraPreview = view.findViewById(R.id.gv_camera_preview);
         mImageCorners = view.findViewById(R.id.gv_image_corners);
+        mDocumentEdgesView = view.findViewById(R.id.gv_document_edges);
         mCameraFocusIndicator = view.findViewById(R.id.gv_camera_focus_indicator);
         mButtonCameraTrigger = view.findViewById(R.id.gv_button_camera_trigger);
         bindFlashButtonView(view);
@@ -876,6 +925,13 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
         mImageStack.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(final View v) {
+                if (mCaptureProcessingQueue != null
+                        && mCaptureProcessingQueue.getPendingCount() > 0) {
+                    // Proceeds when all pictures were processed
+                    mProceedToMultiPageReviewWhenIdle = true;
+                    showActivityIndicatorAndDisableInteraction();
+                    return;
+                }
                 mProceededToMultiPageReview = true;
                 mListener.onProceedToMultiPageReviewScreen(mMultiPageDocument);
             }
@@ -898,6 +954,7 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
             return;
         }
         mIsTakingPicture = true;
+        mTakePictureStartMs = SystemClock.elapsedRealtime();
         mCameraController.takePicture()
                 .handle(new CompletableFuture.BiFun<Photo, Throwable, Void>() {
                     @Override
@@ -1349,8 +1406,10 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
     }
 
     private boolean exceedsMultiPageLimit() {
-        return mInMultiPageState && mMultiPageDocument.getDocuments().size()
-                >= FileImportValidator.DOCUMENT_PAGE_LIMIT;
+        final int pendingPages = mCaptureProcessingQueue != null
+                ? mCaptureProcessingQueue.getPendingCount() : 0;
+        final int pages = mInMultiPageState ? mMultiPageDocument.getDocuments().size() : 0;
+        return pages + pendingPages >= FileImportValidator.DOCUMENT_PAGE_LIMIT;
     }
 
     @Override
@@ -1434,36 +1493,39 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
         }
         final int imagesToLoadCount = documents.size();
         final AtomicInteger imagesLoadedCounter = new AtomicInteger();
+        final Size thumbnailSize = mImageStack.getThumbnailSize();
         for (int i = 0; i < documents.size(); i++) {
             final ImageDocument document = documents.get(i);
             final ImageStack.Position position = positions.get(i);
-            GiniVision.getInstance().internal().getPhotoMemoryCache()
-                    .get(activity, document, new AsyncCallback<Photo, Exception>() { // NOPMD
-                        @Override
-                        public void onSuccess(final Photo result) {
-                            mImageStack.setImage(
-                                    new ImageStack.StackBitmap(result.getBitmapPreview(),
+            GiniVision.getInstance().internal().getThumbnailMemoryCache()
+                    .get(activity, document, thumbnailSize,
+                            new AsyncCallback<Bitmap, Exception>() { // NOPMD
+                                @Override
+                                public void onSuccess(final Bitmap result) {
+                                    mImageStack.setImage(new ImageStack.StackBitmap(result,
                                             document.getRotationForDisplay()), position);
-                            imagesLoadedCounter.incrementAndGet();
-                            if (imagesToLoadCount == imagesLoadedCounter.get()) {
-                                mImageStack.setImageCount(mMultiPageDocument.getDocuments().size());
-                            }
-                        }
+                                    onImageLoaded();
+                                }
 
-                        @Override
-                        public void onError(final Exception exception) {
-                            mImageStack.setImage(null, position);
-                            imagesLoadedCounter.incrementAndGet();
-                            if (imagesToLoadCount == imagesLoadedCounter.get()) {
-                                mImageStack.setImageCount(mMultiPageDocument.getDocuments().size());
-                            }
-                        }
+                                @Override
+                                public void onError(final Exception exception) {
+                                    mImageStack.setImage(null, position);
+                                    onImageLoaded();
+                                }
 
-                        @Override
-                        public void onCancelled() {
-                            // Not used
-                        }
-                    });
+                                @Override
+                                public void onCancelled() {
+                                    // Not used
+                                }
+
+                                private void onImageLoaded() {
+                                    if (imagesToLoadCount
+                                            == imagesLoadedCounter.incrementAndGet()) {
+                                        mImageStack.setImageCount(
+                                                mMultiPageDocument.getDocuments().size());
+                                    }
+                                }
+                            });
         }
     }
 
@@ -1538,11 +1600,20 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
             mIsTakingPicture = false;
         } else {
             if (photo != null) {
-                LOG.info("Picture taken");
+                LOG.info("Picture taken in {}ms with {}",
+                        SystemClock.elapsedRealtime() - mTakePictureStartMs,
+                        mCameraController.getClass().getSimpleName());
+                if (isContinuousCaptureEnabled()) {
+                    processPictureInBackground(photo);
+                    return;
+                }
                 showActivityIndicatorAndDisableInteraction();
-                photo.edit().compressByDefault().applyAsync(new PhotoEdit.PhotoEditCallback() {
+                final long compressionStartMs = SystemClock.elapsedRealtime();
+                photo.edit().compressForUpload().applyAsync(new PhotoEdit.PhotoEditCallback() {
                     @Override
                     public void onDone(@NonNull final Photo result) {
+                        recordCaptureLatency(CaptureLatencyHistogram.Stage.COMPRESSION,
+                                compressionStartMs);
                         hideActivityIndicatorAndEnableInteraction();
                         if (mInMultiPageState) {
                             final ImageDocument document = createSavedDocument(result);
@@ -1554,9 +1625,14 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
                                 mIsTakingPicture = false;
                                 return;
                             }
+                            recordCaptureLatency(CaptureLatencyHistogram.Stage.TOTAL,
+                                    mTakePictureStartMs);
                             mMultiPageDocument.addDocument(document);
+                            if (isEagerUploadEnabled()) {
+                                uploadInBackground(document);
+                            }
                             mImageStack.addImage(
-                                    new ImageStack.StackBitmap(result.getBitmapPreview(),
+                                    createStackBitmap(result,
                                             document.getRotationForDisplay()),
                                     new TransitionListenerAdapter() {
                                         @Override
@@ -1577,6 +1653,8 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
                                     mIsTakingPicture = false;
                                     return;
                                 }
+                                recordCaptureLatency(CaptureLatencyHistogram.Stage.TOTAL,
+                                        mTakePictureStartMs);
                                 mInMultiPageState = true;
                                 mMultiPageDocument = new ImageMultiPageDocument(
                                         Document.Source.newCameraSource(), ImportMethod.NONE);
@@ -1584,8 +1662,11 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
                                         .getImageMultiPageDocumentMemoryStore()
                                         .setMultiPageDocument(mMultiPageDocument);
                                 mMultiPageDocument.addDocument(document);
+                                if (isEagerUploadEnabled()) {
+                                    uploadInBackground(document);
+                                }
                                 mImageStack.addImage(
-                                        new ImageStack.StackBitmap(result.getBitmapPreview(),
+                                        createStackBitmap(result,
                                                 document.getRotationForDisplay()),
                                         new TransitionListenerAdapter() {
                                             @Override
@@ -1600,6 +1681,8 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
                                 final ImageDocument document =
                                         DocumentFactory.newImageDocumentFromPhoto(
                                                 result);
+                                recordCaptureLatency(CaptureLatencyHistogram.Stage.TOTAL,
+                                        mTakePictureStartMs);
                                 mListener.onDocumentAvailable(document);
                                 mIsTakingPicture = false;
                             }
@@ -1625,6 +1708,182 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
         }
     }
 
+    private void processPictureInBackground(@NonNull final Photo photo) {
+        final CaptureProcessingQueue captureProcessingQueue = getCaptureProcessingQueue();
+        if (captureProcessingQueue == null || !captureProcessingQueue.enqueue(photo)) {
+            handleError(GiniVisionError.ErrorCode.CAMERA_SHOT_FAILED,
+                    "Failed to take picture: could not enqueue picture for processing", null);
+            mCameraController.startPreview();
+            mIsTakingPicture = false;
+            return;
+        }
+        mCameraController.startPreview();
+        mIsTakingPicture = false;
+        if (captureProcessingQueue.isFull() && mButtonCameraTrigger != null) {
+            LOG.debug("Camera trigger disabled until a picture was processed");
+            mCameraTriggerDisabledByQueue = true;
+            disableCameraTriggerButtonAnimated(0.5f);
+        }
+    }
+
+    /**
+     * The pictures still being processed were already taken and are saved to the disk anyway.
+     * They are added to the multi-page document, if the screen is recreated, otherwise their files
+     * are deleted.
+     */
+    private void drainCaptureProcessingQueue(@NonNull final CaptureProcessingQueue queue) {
+        final Activity activity = mFragment.getActivity();
+        final Context appContext = activity != null ? activity.getApplicationContext() : null;
+        final boolean keepPages = mInstanceStateSaved && appContext != null;
+        queue.drain(new CaptureProcessingQueue.DrainListener() {
+            @Override
+            public void onPageProcessed(@NonNull final ImageDocument document) {
+                if (!GiniVision.hasInstance()) {
+                    return;
+                }
+                if (keepPages) {
+                    LOG.debug("Picture processed after the camera screen was destroyed");
+                    addToRetainedMultiPageDocument(appContext, document);
+                } else if (document.getUri() != null) {
+                    LOG.debug("Deleting picture processed after the camera screen was closed");
+                    GiniVision.getInstance().internal().getImageDiskStore()
+                            .delete(document.getUri());
+                }
+            }
+        });
+    }
+
+    private static void addToRetainedMultiPageDocument(@NonNull final Context context,
+            @NonNull final ImageDocument document) {
+        final ImageMultiPageDocumentMemoryStore memoryStore = GiniVision.getInstance()
+                .internal().getImageMultiPageDocumentMemoryStore();
+        ImageMultiPageDocument multiPageDocument = memoryStore.getMultiPageDocument();
+        if (multiPageDocument == null) {
+            multiPageDocument = new ImageMultiPageDocument(
+                    Document.Source.newCameraSource(), ImportMethod.NONE);
+            memoryStore.setMultiPageDocument(multiPageDocument);
+        }
+        multiPageDocument.addDocument(document);
+        if (!isEagerUploadEnabled()) {
+            return;
+        }
+        final NetworkRequestsManager networkRequestsManager =
+                GiniVision.getInstance().internal().getNetworkRequestsManager();
+        if (networkRequestsManager != null) {
+            networkRequestsManager.upload(context, document);
+        }
+    }
+
+    @Nullable
+    private CaptureProcessingQueue getCaptureProcessingQueue() {
+        if (mCaptureProcessingQueue != null) {
+            return mCaptureProcessingQueue;
+        }
+        final Activity activity = mFragment.getActivity();
+        if (activity == null || !GiniVision.hasInstance()) {
+            return null;
+        }
+        mCaptureProcessingQueue = new CaptureProcessingQueue(activity,
+                GiniVision.getInstance().internal().getImageDiskStore(),
+                GiniVision.getInstance().getCaptureLatencyHistogram());
+        mCaptureProcessingQueue.setListener(new CaptureProcessingQueue.Listener() {
+            @Override
+            public void onPageProcessed(@NonNull final Photo photo,
+                    @NonNull final ImageDocument document) {
+                addProcessedPage(photo, document);
+                enableCameraTriggerIfDisabledByQueue();
+            }
+
+            @Override
+            public void onPageFailed() {
+                handleError(GiniVisionError.ErrorCode.CAMERA_SHOT_FAILED,
+                        "Failed to take picture: could not save picture to disk", null);
+                enableCameraTriggerIfDisabledByQueue();
+            }
+
+            @Override
+            public void onIdle() {
+                if (!mProceedToMultiPageReviewWhenIdle) {
+                    return;
+                }
+                mProceedToMultiPageReviewWhenIdle = false;
+                hideActivityIndicatorAndEnableInteraction();
+                if (mMultiPageDocument != null) {
+                    mProceededToMultiPageReview = true;
+                    mListener.onProceedToMultiPageReviewScreen(mMultiPageDocument);
+                }
+            }
+        });
+        return mCaptureProcessingQueue;
+    }
+
+    private void addProcessedPage(@NonNull final Photo photo,
+            @NonNull final ImageDocument document) {
+        if (!mInMultiPageState || mMultiPageDocument == null) {
+            mInMultiPageState = true;
+            final ImageMultiPageDocument retainedMultiPageDocument = GiniVision.getInstance()
+                    .internal().getImageMultiPageDocumentMemoryStore().getMultiPageDocument();
+            if (retainedMultiPageDocument != null
+                    && !retainedMultiPageDocument.getDocuments().isEmpty()) {
+                // Created for the pages drained before a configuration change
+                mMultiPageDocument = retainedMultiPageDocument;
+                mMultiPageDocument.addDocument(document);
+                if (mImageStack != null) {
+                    updateImageStack();
+                }
+                if (isEagerUploadEnabled()) {
+                    uploadInBackground(document);
+                }
+                return;
+            }
+            mMultiPageDocument = new ImageMultiPageDocument(
+                    Document.Source.newCameraSource(), ImportMethod.NONE);
+            GiniVision.getInstance().internal()
+                    .getImageMultiPageDocumentMemoryStore()
+                    .setMultiPageDocument(mMultiPageDocument);
+        }
+        mMultiPageDocument.addDocument(document);
+        if (mImageStack != null) {
+            mImageStack.addImage(createStackBitmap(photo,
+                    document.getRotationForDisplay()));
+        }
+        if (isEagerUploadEnabled()) {
+            uploadInBackground(document);
+        }
+    }
+
+    @NonNull
+    private ImageStack.StackBitmap createStackBitmap(@NonNull final Photo photo,
+            final int rotation) {
+        final Bitmap preview = photo.getBitmapPreview();
+        final Bitmap thumbnail = preview != null
+                ? ThumbnailDecoder.scaleDown(preview, mImageStack.getThumbnailSize()) : null;
+        return new ImageStack.StackBitmap(thumbnail, rotation);
+    }
+
+    private void uploadInBackground(@NonNull final ImageDocument document) {
+        final Activity activity = mFragment.getActivity();
+        if (activity == null || !GiniVision.hasInstance()) {
+            return;
+        }
+        final NetworkRequestsManager networkRequestsManager =
+                GiniVision.getInstance().internal().getNetworkRequestsManager();
+        if (networkRequestsManager != null) {
+            // The multi-page review screen reuses the running upload
+            networkRequestsManager.upload(activity, document);
+        }
+    }
+
+    private void enableCameraTriggerIfDisabledByQueue() {
+        if (!mCameraTriggerDisabledByQueue || mButtonCameraTrigger == null
+                || mCaptureProcessingQueue == null || mCaptureProcessingQueue.isFull()) {
+            return;
+        }
+        LOG.debug("Camera trigger enabled");
+        mCameraTriggerDisabledByQueue = false;
+        enableCameraTriggerButtonAnimated();
+    }
+
     private void showMultiPageLimitError() {
         final Activity activity = mFragment.getActivity();
         if (activity == null) {
@@ -1656,10 +1915,20 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
         }
         final ImageDiskStore imageDiskStore =
                 GiniVision.getInstance().internal().getImageDiskStore();
+        final long saveStartMs = SystemClock.elapsedRealtime();
         final Uri savedAtUri = imageDiskStore.save(activity, photo.getData());
+        recordCaptureLatency(CaptureLatencyHistogram.Stage.DISK_SAVE, saveStartMs);
         return DocumentFactory.newImageDocumentFromPhoto(photo, savedAtUri);
     }
 
+    private void recordCaptureLatency(@NonNull final CaptureLatencyHistogram.Stage stage,
+            final long startMs) {
+        if (GiniVision.hasInstance()) {
+            GiniVision.getInstance().getCaptureLatencyHistogram().record(stage,
+                    SystemClock.elapsedRealtime() - startMs);
+        }
+    }
+
     private void setSurfaceViewCallback() {
         mCameraPreview.getHolder().addCallback(new SurfaceHolder.Callback() {
             @Override
@@ -1932,17 +2201,48 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
         if (mCameraController == null) {
             LOG.debug("CameraController created");
             mCameraController = createCameraController(activity);
+            if (GiniVision.hasInstance()) {
+                mCameraController.setFastCaptureEnabled(
+                        GiniVision.getInstance().isFastCaptureEnabled());
+                mCameraController.setCaptureLatencyHistogram(
+                        GiniVision.getInstance().getCaptureLatencyHistogram());
+            }
         }
-        if (isQRCodeScanningEnabled(mGiniVisionFeatureConfiguration)) {
+        final boolean qrCodeScanningEnabled =
+                isQRCodeScanningEnabled(mGiniVisionFeatureConfiguration);
+        final boolean documentEdgeDetectionEnabled = isDocumentEdgeDetectionEnabled();
+        if (qrCodeScanningEnabled || documentEdgeDetectionEnabled) {
             final int rotation = mCameraController.getCameraRotation();
             mCameraController.setPreviewCallback(new Camera.PreviewCallback() {
                 @Override
                 public void onPreviewFrame(final byte[] data, final Camera camera) {
-                    if (mPaymentQRCodeReader == null) {
+                    final PaymentQRCodeReader qrCodeReader = mPaymentQRCodeReader;
+                    final LiveDocumentEdgeDetector edgeDetector = mDocumentEdgeDetector;
+                    // The frame is shared and the buffer is returned to the camera once every
+                    // consumer released it
+                    final AtomicInteger consumers = new AtomicInteger(
+                            (qrCodeReader != null ? 1 : 0) + (edgeDetector != null ? 1 : 0));
+                    if (consumers.get() == 0) {
+                        mCameraController.addPreviewCallbackBuffer(data);
                         return;
                     }
-                    mPaymentQRCodeReader.readFromImage(data, mCameraController.getPreviewSize(),
-                            rotation);
+                    final PaymentQRCodeReader.ImageReleaseListener releaseListener =
+                            new PaymentQRCodeReader.ImageReleaseListener() {
+                                @Override
+                                public void onImageReleased(@NonNull final byte[] image) {
+                                    if (consumers.decrementAndGet() == 0) {
+                                        mCameraController.addPreviewCallbackBuffer(image);
+                                    }
+                                }
+                            };
+                    final Size previewSize = mCameraController.getPreviewSize();
+                    if (edgeDetector != null) {
+                        edgeDetector.detect(data, previewSize, rotation, releaseListener);
+                    }
+                    if (qrCodeReader != null) {
+                        qrCodeReader.readFromImage(data, previewSize, rotation,
+                                releaseListener);
+                    }
                 }
             });
         }
@@ -1950,6 +2250,11 @@ class CameraFragmentImpl implements CameraFragmentInterface, PaymentQRCodeReader
 
     @NonNull
     protected CameraInterface createCameraController(final Activity activity) {
+        if (GiniVision.hasInstance() && GiniVision.getInstance().isCamera2Enabled()
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                && Camera2Controller.isSupported(activity)) {
+            return new Camera2Controller(activity);
+        }
         return new CameraController(activity);
     }
 
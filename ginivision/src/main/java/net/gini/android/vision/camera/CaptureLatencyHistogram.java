@@ -0,0 +1,196 @@
+package net.gini.android.vision.camera;
+
+import net.gini.android.vision.GiniVision;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Collects the durations of the stages of taking a picture in the Camera Screen.
+ *
+ * <p> Durations are counted in fixed millisecond buckets per {@link Stage}, so recording is cheap
+ * and thread-safe and the memory use does not grow with the number of pictures. You can read the
+ * histogram using {@link GiniVision#getCaptureLatencyHistogram()} to monitor the shutter lag on
+ * your users' devices.
+ */
+public final class CaptureLatencyHistogram {
+
+    /**
+     * The stages of taking a picture.
+     */
+    public enum Stage {
+        /**
+         * Auto-focus run before the picture is taken. Not recorded when the picture is taken
+         * without a focus run.
+         */
+        FOCUS,
+        /**
+         * From requesting the picture until the camera captured it (shutter).
+         */
+        CAPTURE,
+        /**
+         * From the shutter until the JPEG was received from the camera.
+         */
+        JPEG_CALLBACK,
+        /**
+         * Compression of the JPEG for upload.
+         */
+        COMPRESSION,
+        /**
+         * Saving the picture to the disk. Only recorded in multi-page mode.
+         */
+        DISK_SAVE,
+        /**
+         * From tapping the camera trigger until the picture was compressed and saved.
+         */
+        TOTAL
+    }
+
+    private static final long[] BUCKET_UPPER_BOUNDS_MS = {10, 25, 50, 75, 100, 150, 200, 300, 400,
+            500, 750, 1000, 1500, 2000, 3000, 5000, Long.MAX_VALUE};
+
+    private final AtomicLongArray mBucketCounts = new AtomicLongArray(
+            Stage.values().length * BUCKET_UPPER_BOUNDS_MS.length);
+    private final AtomicLongArray mSums = new AtomicLongArray(Stage.values().length);
+    private final AtomicLongArray mMaximums = new AtomicLongArray(Stage.values().length);
+
+    /**
+     * Internal use only.
+     *
+     * @suppress
+     */
+    public void record(@NonNull final Stage stage, final long durationMs) {
+        final long duration = Math.max(0, durationMs);
+        mBucketCounts.incrementAndGet(
+                stage.ordinal() * BUCKET_UPPER_BOUNDS_MS.length + bucketIndex(duration));
+        mSums.addAndGet(stage.ordinal(), duration);
+        long maximum;
+        do {
+            maximum = mMaximums.get(stage.ordinal());
+        } while (duration > maximum
+                && !mMaximums.compareAndSet(stage.ordinal(), maximum, duration));
+    }
+
+    /**
+     * @param stage a capture stage
+     * @return the number of recorded durations for the stage
+     */
+    public long getCount(@NonNull final Stage stage) {
+        long count = 0;
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++) {
+            count += mBucketCounts.get(stage.ordinal() * BUCKET_UPPER_BOUNDS_MS.length + i);
+        }
+        return count;
+    }
+
+    /**
+     * @param stage a capture stage
+     * @return the average duration of the stage in milliseconds or 0, if nothing was recorded
+     */
+    public long getMeanMs(@NonNull final Stage stage) {
+        final long count = getCount(stage);
+        return count == 0 ? 0 : mSums.get(stage.ordinal()) / count;
+    }
+
+    /**
+     * @param stage a capture stage
+     * @return the longest duration of the stage in milliseconds or 0, if nothing was recorded
+     */
+    public long getMaxMs(@NonNull final Stage stage) {
+        return mMaximums.get(stage.ordinal());
+    }
+
+    /**
+     * Returns an upper bound of the given percentile. It is the upper bound of the bucket which
+     * contains the percentile or the longest recorded duration, if that is shorter.
+     *
+     * @param stage      a capture stage
+     * @param percentile a percentile between 0 and 100
+     * @return the upper bound of the percentile in milliseconds or 0, if nothing was recorded
+     */
+    public long getPercentileMs(@NonNull final Stage stage, final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        final long[] bucketCounts = getBucketCounts(stage);
+        long count = 0;
+        for (final long bucketCount : bucketCounts) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long cumulativeCount = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            cumulativeCount += bucketCounts[i];
+            if (cumulativeCount >= rank) {
+                return Math.min(BUCKET_UPPER_BOUNDS_MS[i], getMaxMs(stage));
+            }
+        }
+        return getMaxMs(stage);
+    }
+
+    /**
+     * @param stage a capture stage
+     * @return the number of durations in each bucket. See {@link #getBucketUpperBoundsMs()}
+     */
+    @NonNull
+    public long[] getBucketCounts(@NonNull final Stage stage) {
+        final long[] bucketCounts = new long[BUCKET_UPPER_BOUNDS_MS.length];
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = mBucketCounts.get(
+                    stage.ordinal() * BUCKET_UPPER_BOUNDS_MS.length + i);
+        }
+        return bucketCounts;
+    }
+
+    /**
+     * @return the inclusive upper bounds of the buckets in milliseconds. The last bucket is
+     * unbounded and has {@link Long#MAX_VALUE} as upper bound
+     */
+    @NonNull
+    public long[] getBucketUpperBoundsMs() {
+        return BUCKET_UPPER_BOUNDS_MS.clone();
+    }
+
+    /**
+     * Removes all recorded durations.
+     */
+    public void reset() {
+        for (int i = 0; i < mBucketCounts.length(); i++) {
+            mBucketCounts.set(i, 0);
+        }
+        for (int i = 0; i < mSums.length(); i++) {
+            mSums.set(i, 0);
+            mMaximums.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("CaptureLatencyHistogram{");
+        for (final Stage stage : Stage.values()) {
+            if (stage.ordinal() > 0) {
+                builder.append(", ");
+            }
+            builder.append(stage)
+                    .append("={count=").append(getCount(stage))
+                    .append(", mean=").append(getMeanMs(stage))
+                    .append("ms, p90=").append(getPercentileMs(stage, 90))
+                    .append("ms, max=").append(getMaxMs(stage))
+                    .append("ms}");
+        }
+        return builder.append('}').toString();
+    }
+
+    private static int bucketIndex(final long durationMs) {
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++) {
+            if (durationMs <= BUCKET_UPPER_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_UPPER_BOUNDS_MS.length - 1;
+    }
+}
@@ -0,0 +1,248 @@
+package net.gini.android.vision.camera;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import net.gini.android.vision.document.DocumentFactory;
+import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.internal.async.SerialExecutor;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
+import net.gini.android.vision.internal.camera.api.UIExecutor;
+import net.gini.android.vision.internal.camera.photo.Photo;
+import net.gini.android.vision.internal.storage.ImageDiskStore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Processes the pictures taken in continuous capture mode one after the other on the CPU pool of
+ * the {@link net.gini.android.vision.internal.async.TaskRuntime}: the JPEG is compressed, the EXIF
+ * data is updated and the picture is saved to the disk.
+ *
+ * <p> The number of pictures waiting for or being processed is limited. When the queue is full,
+ * new pictures are rejected until a picture was processed. The listener is notified on the UI
+ * thread.
+ */
+class CaptureProcessingQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CaptureProcessingQueue.class);
+
+    static final int DEFAULT_CAPACITY = 3;
+
+    private final int mCapacity;
+    private final Executor mExecutor;
+    private final PageProcessor mPageProcessor;
+    private final UIExecutor mUIExecutor = new UIExecutor();
+    private Listener mListener;
+    private DrainListener mDrainListener;
+    private int mPendingCount;
+    private boolean mCancelled;
+
+    CaptureProcessingQueue(@NonNull final Context context,
+            @NonNull final ImageDiskStore imageDiskStore,
+            @Nullable final CaptureLatencyHistogram captureLatencyHistogram) {
+        this(DEFAULT_CAPACITY, new SerialExecutor(TaskPool.CPU, TaskPriority.NORMAL),
+                new DefaultPageProcessor(context.getApplicationContext(), imageDiskStore,
+                captureLatencyHistogram));
+    }
+
+    @VisibleForTesting
+    CaptureProcessingQueue(final int capacity, @NonNull final Executor executor,
+            @NonNull final PageProcessor pageProcessor) {
+        mCapacity = capacity;
+        mExecutor = executor;
+        mPageProcessor = pageProcessor;
+    }
+
+    @UiThread
+    void setListener(@Nullable final Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @return {@code true}, if no more pictures can be enqueued until a picture was processed
+     */
+    @UiThread
+    boolean isFull() {
+        return mPendingCount >= mCapacity;
+    }
+
+    /**
+     * @return the number of pictures waiting for or being processed
+     */
+    @UiThread
+    int getPendingCount() {
+        return mPendingCount;
+    }
+
+    /**
+     * Enqueues a picture for processing.
+     *
+     * @param photo a picture taken by the camera
+     * @return {@code false}, if the queue was full or cancelled and the picture was not enqueued
+     */
+    @UiThread
+    boolean enqueue(@NonNull final Photo photo) {
+        if (mCancelled) {
+            LOG.warn("Cannot enqueue picture: queue cancelled");
+            return false;
+        }
+        if (isFull()) {
+            LOG.warn("Cannot enqueue picture: queue full");
+            return false;
+        }
+        mPendingCount++;
+        LOG.debug("Picture enqueued ({} pending)", mPendingCount);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ImageDocument document = null;
+                try {
+                    document = mPageProcessor.process(photo);
+                } catch (final RuntimeException e) { // NOPMD
+                    LOG.error("Picture processing failed", e);
+                }
+                final ImageDocument processedDocument = document;
+                mUIExecutor.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        onProcessed(photo, processedDocument);
+                    }
+                });
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Stops notifying the listener and rejects new pictures. Pictures which are being processed
+     * are not interrupted.
+     */
+    @UiThread
+    void cancel() {
+        mCancelled = true;
+        mListener = null; // NOPMD
+    }
+
+    /**
+     * Like {@link #cancel()}, but the pictures which were already enqueued are still handed to
+     * the drain listener, because their files are saved to the disk anyway.
+     *
+     * @param drainListener notified about the pictures processed after the queue was cancelled
+     */
+    @UiThread
+    void drain(@NonNull final DrainListener drainListener) {
+        cancel();
+        mDrainListener = drainListener;
+    }
+
+    @UiThread
+    private void onProcessed(@NonNull final Photo photo, @Nullable final ImageDocument document) {
+        mPendingCount--;
+        LOG.debug("Picture processed ({} pending)", mPendingCount);
+        if (mCancelled) {
+            if (mDrainListener != null && document != null) {
+                mDrainListener.onPageProcessed(document);
+            }
+            return;
+        }
+        if (mListener == null) {
+            return;
+        }
+        if (document != null) {
+            mListener.onPageProcessed(photo, document);
+        } else {
+            mListener.onPageFailed();
+        }
+        if (mPendingCount == 0 && mListener != null) {
+            mListener.onIdle();
+        }
+    }
+
+    /**
+     * Notified on the UI thread about processed pictures.
+     */
+    interface Listener {
+
+        /**
+         * @param photo    the compressed picture
+         * @param document the document for the picture saved to the disk
+         */
+        void onPageProcessed(@NonNull Photo photo, @NonNull ImageDocument document);
+
+        void onPageFailed();
+
+        /**
+         * Called when all enqueued pictures were processed.
+         */
+        void onIdle();
+    }
+
+    /**
+     * Notified on the UI thread about pictures processed after the queue was cancelled.
+     */
+    interface DrainListener {
+
+        /**
+         * @param document the document for the picture saved to the disk
+         */
+        void onPageProcessed(@NonNull ImageDocument document);
+    }
+
+    @VisibleForTesting
+    interface PageProcessor {
+
+        @WorkerThread
+        @Nullable
+        ImageDocument process(@NonNull Photo photo);
+    }
+
+    private static class DefaultPageProcessor implements PageProcessor {
+
+        private final Context mContext;
+        private final ImageDiskStore mImageDiskStore;
+        private final CaptureLatencyHistogram mCaptureLatencyHistogram;
+
+        DefaultPageProcessor(@NonNull final Context context,
+                @NonNull final ImageDiskStore imageDiskStore,
+                @Nullable final CaptureLatencyHistogram captureLatencyHistogram) {
+            mContext = context;
+            mImageDiskStore = imageDiskStore;
+            mCaptureLatencyHistogram = captureLatencyHistogram;
+        }
+
+        @Nullable
+        @Override
+        public ImageDocument process(@NonNull final Photo photo) {
+            final long compressionStartMs = SystemClock.elapsedRealtime();
+            // Compression also updates the EXIF data
+            photo.edit().compressForUpload().apply();
+            record(CaptureLatencyHistogram.Stage.COMPRESSION, compressionStartMs);
+            final long saveStartMs = SystemClock.elapsedRealtime();
+            final Uri savedAtUri = mImageDiskStore.save(mContext, photo.getData());
+            record(CaptureLatencyHistogram.Stage.DISK_SAVE, saveStartMs);
+            if (savedAtUri == null) {
+                LOG.error("Could not save picture to disk");
+                return null;
+            }
+            return DocumentFactory.newImageDocumentFromPhoto(photo, savedAtUri);
+        }
+
+        private void record(@NonNull final CaptureLatencyHistogram.Stage stage,
+                final long startMs) {
+            if (mCaptureLatencyHistogram != null) {
+                mCaptureLatencyHistogram.record(stage, SystemClock.elapsedRealtime() - startMs);
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@ import android.widget.RelativeLayout;
 import android.widget.TextView;
 
 import net.gini.android.vision.R;
+import net.gini.android.vision.internal.util.Size;
 
 import java.util.List;
 
@@ -276,6 +277,16 @@ public class ImageStack extends RelativeLayout {
         }
     }
 
+    /**
+     * @return the size of the stack items in pixels, bitmaps larger than this are scaled down when
+     * shown
+     */
+    @NonNull
+    public Size getThumbnailSize() {
+        final ViewGroup.LayoutParams layoutParams = stackItem1.getLayoutParams();
+        return new Size(layoutParams.width, layoutParams.height);
+    }
+
     public void setImageCount(final int count) {
         imageCount = count;
         badge.setText(String.valueOf(count));
@@ -0,0 +1,126 @@
+package net.gini.android.vision.internal.async;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Internal use only.
+ *
+ * <p> A task executed by the {@link TaskRuntime} on a thread of its {@link TaskPool}. The result
+ * is delivered on the main thread to {@link #onPostExecute(Object)} or, if the task was cancelled,
+ * {@link #onCancelled()} is called instead.
+ *
+ * <p> A task can be executed only once.
+ *
+ * @suppress
+ */
+public abstract class BackgroundTask<Params, Result> {
+
+    private final TaskPool mPool;
+    private final TaskPriority mPriority;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean mCancelled = new AtomicBoolean();
+    private final AtomicBoolean mExecuted = new AtomicBoolean();
+    private volatile PrioritizedTask<Result> mTask;
+
+    protected BackgroundTask(@NonNull final TaskPool pool, @NonNull final TaskPriority priority) {
+        mPool = pool;
+        mPriority = priority;
+    }
+
+    @WorkerThread
+    protected abstract Result doInBackground(Params... params);
+
+    @MainThread
+    protected void onPostExecute(@Nullable final Result result) {
+    }
+
+    @MainThread
+    protected void onCancelled() {
+    }
+
+    @SafeVarargs
+    @NonNull
+    public final BackgroundTask<Params, Result> execute(final Params... params) {
+        if (!mExecuted.compareAndSet(false, true)) {
+            throw new IllegalStateException("Cannot execute task: it has already been executed");
+        }
+        final PrioritizedTask<Result> task = new PrioritizedTask<Result>(mPriority,
+                new Callable<Result>() {
+                    @Override
+                    public Result call() throws Exception {
+                        return doInBackground(params);
+                    }
+                }) {
+            @Override
+            protected void done() {
+                postResult(this);
+            }
+        };
+        mTask = task;
+        if (mCancelled.get()) {
+            task.cancel(false);
+        } else {
+            TaskRuntime.getInstance().execute(mPool, task);
+        }
+        return this;
+    }
+
+    /**
+     * Cancels the task. If it is waiting it won't be started, if it is running it should check
+     * {@link #isCancelled()} to stop early. {@link #onPostExecute(Object)} won't be called for a
+     * cancelled task.
+     *
+     * @return false, if the task could not be cancelled, because it has already completed
+     */
+    public final boolean cancel(final boolean mayInterruptIfRunning) {
+        mCancelled.set(true);
+        final PrioritizedTask<Result> task = mTask;
+        if (task == null) {
+            return true;
+        }
+        return TaskRuntime.getInstance().cancel(mPool, task, mayInterruptIfRunning);
+    }
+
+    public final boolean isCancelled() {
+        return mCancelled.get();
+    }
+
+    private void postResult(@NonNull final PrioritizedTask<Result> task) {
+        Result result = null;
+        Throwable error = null;
+        if (!task.isCancelled()) {
+            try {
+                result = task.get();
+            } catch (final ExecutionException e) {
+                error = e.getCause();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        final Result finalResult = result;
+        final Throwable finalError = error;
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (isCancelled()) {
+                    onCancelled();
+                } else if (finalError != null) {
+                    throw new RuntimeException( // NOPMD
+                            "An error occurred while executing doInBackground()", finalError);
+                } else {
+                    onPostExecute(finalResult);
+                }
+            }
+        });
+    }
+}
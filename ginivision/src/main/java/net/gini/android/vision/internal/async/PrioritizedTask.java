@@ -0,0 +1,55 @@
+package net.gini.android.vision.internal.async;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A task waiting in the queue of a {@link TaskPoolExecutor}. Ordered by its {@link TaskPriority}
+ * and then by the order it was submitted in.
+ */
+class PrioritizedTask<T> extends FutureTask<T> implements Comparable<PrioritizedTask<?>> {
+
+    private final TaskPriority mPriority;
+    private long mSequenceNumber;
+    private long mEnqueuedAtNs;
+    private long mStartedAtNs;
+
+    PrioritizedTask(@NonNull final TaskPriority priority, @NonNull final Callable<T> callable) {
+        super(callable);
+        mPriority = priority;
+    }
+
+    @NonNull
+    TaskPriority getPriority() {
+        return mPriority;
+    }
+
+    void markEnqueued(final long sequenceNumber, final long nowNs) {
+        mSequenceNumber = sequenceNumber;
+        mEnqueuedAtNs = nowNs;
+    }
+
+    void markStarted(final long nowNs) {
+        mStartedAtNs = nowNs;
+    }
+
+    long getEnqueuedAtNs() {
+        return mEnqueuedAtNs;
+    }
+
+    long getStartedAtNs() {
+        return mStartedAtNs;
+    }
+
+    @Override
+    public int compareTo(@NonNull final PrioritizedTask<?> other) {
+        final int priorityComparison = mPriority.compareTo(other.mPriority);
+        if (priorityComparison != 0) {
+            return priorityComparison;
+        }
+        return mSequenceNumber < other.mSequenceNumber ? -1
+                : (mSequenceNumber == other.mSequenceNumber ? 0 : 1);
+    }
+}
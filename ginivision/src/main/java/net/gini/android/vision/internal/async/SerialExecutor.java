@@ -0,0 +1,57 @@
+package net.gini.android.vision.internal.async;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> Executes the tasks one after another in the order they were submitted on a shared executor,
+ * usually a {@link TaskRuntime} pool. No thread is kept when there are no tasks, so the executor
+ * doesn't have to be shut down.
+ *
+ * @suppress
+ */
+public class SerialExecutor implements Executor {
+
+    private final Executor mExecutor;
+    private final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
+    private Runnable mActive;
+
+    /**
+     * Executes the tasks on a {@link TaskRuntime} pool.
+     */
+    public SerialExecutor(@NonNull final TaskPool pool, @NonNull final TaskPriority priority) {
+        this(TaskRuntime.getInstance().getExecutor(pool, priority));
+    }
+
+    public SerialExecutor(@NonNull final Executor executor) {
+        mExecutor = executor;
+    }
+
+    @Override
+    public synchronized void execute(@NonNull final Runnable runnable) {
+        mTasks.offer(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnable.run();
+                } finally {
+                    scheduleNext();
+                }
+            }
+        });
+        if (mActive == null) {
+            scheduleNext();
+        }
+    }
+
+    private synchronized void scheduleNext() {
+        mActive = mTasks.poll();
+        if (mActive != null) {
+            mExecutor.execute(mActive);
+        }
+    }
+}
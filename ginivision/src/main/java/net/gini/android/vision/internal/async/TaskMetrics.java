@@ -0,0 +1,108 @@
+package net.gini.android.vision.internal.async;
+
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> Collects per {@link TaskPool} how many tasks were waiting, how long the tasks waited in the
+ * queue until a thread was free and how long they ran.
+ *
+ * @suppress
+ */
+public class TaskMetrics {
+
+    private final long[] mCounts = new long[TaskPool.values().length];
+    private final long[] mTotalQueueTimesMs = new long[TaskPool.values().length];
+    private final long[] mMaxQueueTimesMs = new long[TaskPool.values().length];
+    private final long[] mTotalRunTimesMs = new long[TaskPool.values().length];
+    private final long[] mMaxRunTimesMs = new long[TaskPool.values().length];
+    private final int[] mQueueDepths = new int[TaskPool.values().length];
+    private final int[] mMaxQueueDepths = new int[TaskPool.values().length];
+
+    synchronized void record(@NonNull final TaskPool pool, final long queueTimeMs,
+            final long runTimeMs) {
+        final int index = pool.ordinal();
+        mCounts[index]++;
+        mTotalQueueTimesMs[index] += queueTimeMs;
+        mMaxQueueTimesMs[index] = Math.max(mMaxQueueTimesMs[index], queueTimeMs);
+        mTotalRunTimesMs[index] += runTimeMs;
+        mMaxRunTimesMs[index] = Math.max(mMaxRunTimesMs[index], runTimeMs);
+    }
+
+    synchronized void recordQueueDepth(@NonNull final TaskPool pool, final int queueDepth) {
+        final int index = pool.ordinal();
+        mQueueDepths[index] = queueDepth;
+        mMaxQueueDepths[index] = Math.max(mMaxQueueDepths[index], queueDepth);
+    }
+
+    /**
+     * @return the number of completed tasks of the pool
+     */
+    public synchronized long getCount(@NonNull final TaskPool pool) {
+        return mCounts[pool.ordinal()];
+    }
+
+    /**
+     * @return the number of tasks which were waiting for a thread of the pool when a task was
+     * last submitted or started
+     */
+    public synchronized int getQueueDepth(@NonNull final TaskPool pool) {
+        return mQueueDepths[pool.ordinal()];
+    }
+
+    public synchronized int getMaxQueueDepth(@NonNull final TaskPool pool) {
+        return mMaxQueueDepths[pool.ordinal()];
+    }
+
+    public synchronized long getMeanQueueTimeMs(@NonNull final TaskPool pool) {
+        return mean(mTotalQueueTimesMs, pool);
+    }
+
+    public synchronized long getMaxQueueTimeMs(@NonNull final TaskPool pool) {
+        return mMaxQueueTimesMs[pool.ordinal()];
+    }
+
+    public synchronized long getMeanRunTimeMs(@NonNull final TaskPool pool) {
+        return mean(mTotalRunTimesMs, pool);
+    }
+
+    public synchronized long getMaxRunTimeMs(@NonNull final TaskPool pool) {
+        return mMaxRunTimesMs[pool.ordinal()];
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < mCounts.length; i++) {
+            mCounts[i] = 0;
+            mTotalQueueTimesMs[i] = 0;
+            mMaxQueueTimesMs[i] = 0;
+            mTotalRunTimesMs[i] = 0;
+            mMaxRunTimesMs[i] = 0;
+            mMaxQueueDepths[i] = mQueueDepths[i];
+        }
+    }
+
+    private long mean(@NonNull final long[] totals, @NonNull final TaskPool pool) {
+        final long count = mCounts[pool.ordinal()];
+        return count == 0 ? 0 : totals[pool.ordinal()] / count;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder builder = new StringBuilder("TaskMetrics{");
+        for (final TaskPool pool : TaskPool.values()) {
+            if (pool.ordinal() > 0) {
+                builder.append(", ");
+            }
+            builder.append(String.format(Locale.US,
+                    "%s: count=%d, queue depth=%d max=%d, queue mean=%dms max=%dms, "
+                            + "run mean=%dms max=%dms",
+                    pool, getCount(pool), getQueueDepth(pool), getMaxQueueDepth(pool),
+                    getMeanQueueTimeMs(pool), getMaxQueueTimeMs(pool), getMeanRunTimeMs(pool),
+                    getMaxRunTimeMs(pool)));
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,24 @@
+package net.gini.android.vision.internal.async;
+
+/**
+ * Internal use only.
+ *
+ * <p> The thread pools of the {@link TaskRuntime}. Each pool has a bounded number of threads to
+ * keep a burst of one kind of work from starving the others.
+ *
+ * @suppress
+ */
+public enum TaskPool {
+    /**
+     * Decoding, encoding and editing of images and other CPU bound work.
+     */
+    CPU,
+    /**
+     * Reading and writing files and content resolver uris.
+     */
+    IO,
+    /**
+     * Previews and thumbnails the user is waiting to see.
+     */
+    LATENCY
+}
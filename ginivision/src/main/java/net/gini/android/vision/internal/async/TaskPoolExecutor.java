@@ -0,0 +1,75 @@
+package net.gini.android.vision.internal.async;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Runs the tasks of one {@link TaskPool} on a fixed number of threads. Waiting tasks are started
+ * ordered by their {@link TaskPriority}.
+ *
+ * <p> Idle threads are stopped after a while to not keep threads around when the SDK is not
+ * used.
+ */
+class TaskPoolExecutor extends ThreadPoolExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final TaskPool mPool;
+    private final TaskMetrics mMetrics;
+    private final AtomicLong mSequenceNumber = new AtomicLong();
+
+    TaskPoolExecutor(@NonNull final TaskPool pool, final int threadCount,
+            @NonNull final ThreadFactory threadFactory, @NonNull final TaskMetrics metrics) {
+        super(threadCount, threadCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), threadFactory);
+        allowCoreThreadTimeOut(true);
+        mPool = pool;
+        mMetrics = metrics;
+    }
+
+    void enqueue(@NonNull final PrioritizedTask<?> task) {
+        task.markEnqueued(mSequenceNumber.getAndIncrement(), System.nanoTime());
+        execute(task);
+        mMetrics.recordQueueDepth(mPool, getQueue().size());
+    }
+
+    /**
+     * Cancels the task and removes it from the queue, if it didn't start yet.
+     *
+     * @return false, if the task could not be cancelled, because it has already completed
+     */
+    boolean cancel(@NonNull final PrioritizedTask<?> task, final boolean mayInterruptIfRunning) {
+        final boolean cancelled = task.cancel(mayInterruptIfRunning);
+        if (remove(task)) {
+            mMetrics.recordQueueDepth(mPool, getQueue().size());
+        }
+        return cancelled;
+    }
+
+    @Override
+    protected void beforeExecute(final Thread thread, final Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+        if (runnable instanceof PrioritizedTask) {
+            ((PrioritizedTask<?>) runnable).markStarted(System.nanoTime());
+        }
+        mMetrics.recordQueueDepth(mPool, getQueue().size());
+    }
+
+    @Override
+    protected void afterExecute(final Runnable runnable, final Throwable throwable) {
+        super.afterExecute(runnable, throwable);
+        if (runnable instanceof PrioritizedTask) {
+            final PrioritizedTask<?> task = (PrioritizedTask<?>) runnable;
+            final long queueTimeMs = TimeUnit.NANOSECONDS.toMillis(
+                    task.getStartedAtNs() - task.getEnqueuedAtNs());
+            final long runTimeMs = TimeUnit.NANOSECONDS.toMillis(
+                    System.nanoTime() - task.getStartedAtNs());
+            mMetrics.record(mPool, queueTimeMs, runTimeMs);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package net.gini.android.vision.internal.async;
+
+/**
+ * Internal use only.
+ *
+ * <p> Priorities of the tasks executed by the {@link TaskRuntime}. Tasks with a higher priority
+ * are started first, tasks with the same priority in the order they were submitted.
+ *
+ * @suppress
+ */
+public enum TaskPriority {
+    /**
+     * Work for what is visible on the screen.
+     */
+    HIGH,
+    NORMAL,
+    /**
+     * Work requested ahead of time.
+     */
+    LOW
+}
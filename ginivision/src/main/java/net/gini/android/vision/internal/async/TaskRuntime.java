@@ -0,0 +1,134 @@
+package net.gini.android.vision.internal.async;
+
+import android.os.Process;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> Executes the background work of the SDK on separate bounded thread pools for CPU bound, I/O
+ * bound and latency sensitive tasks. Within a pool the waiting tasks are started ordered by their
+ * {@link TaskPriority}.
+ *
+ * <p> Use {@link BackgroundTask} to deliver the result on the main thread.
+ *
+ * @suppress
+ */
+public final class TaskRuntime {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TaskRuntime.class);
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+    // Leave one core for the main thread, but use at least two and at most four threads
+    private static final int CPU_THREAD_COUNT = Math.max(2, Math.min(CPU_COUNT - 1, 4));
+    private static final int IO_THREAD_COUNT = 4;
+    private static final int LATENCY_THREAD_COUNT = 2;
+
+    private static TaskRuntime sInstance;
+
+    private final Map<TaskPool, TaskPoolExecutor> mExecutors = new EnumMap<>(TaskPool.class);
+    private final TaskMetrics mMetrics = new TaskMetrics();
+
+    @NonNull
+    public static synchronized TaskRuntime getInstance() {
+        if (sInstance == null) {
+            sInstance = new TaskRuntime();
+        }
+        return sInstance;
+    }
+
+    private TaskRuntime() {
+        mExecutors.put(TaskPool.CPU, new TaskPoolExecutor(TaskPool.CPU, CPU_THREAD_COUNT,
+                new PoolThreadFactory(TaskPool.CPU, Process.THREAD_PRIORITY_BACKGROUND),
+                mMetrics));
+        mExecutors.put(TaskPool.IO, new TaskPoolExecutor(TaskPool.IO, IO_THREAD_COUNT,
+                new PoolThreadFactory(TaskPool.IO, Process.THREAD_PRIORITY_BACKGROUND),
+                mMetrics));
+        mExecutors.put(TaskPool.LATENCY, new TaskPoolExecutor(TaskPool.LATENCY,
+                LATENCY_THREAD_COUNT, new PoolThreadFactory(TaskPool.LATENCY,
+                Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE),
+                mMetrics));
+        LOG.debug("Created task runtime with {} cpu, {} io and {} latency threads",
+                CPU_THREAD_COUNT, IO_THREAD_COUNT, LATENCY_THREAD_COUNT);
+    }
+
+    /**
+     * Executes the callable on a thread of the pool.
+     *
+     * @return a future which completes with the result of the callable, cancelling it removes the
+     * task from the queue or interrupts it if requested
+     */
+    @NonNull
+    public <T> Future<T> submit(@NonNull final TaskPool pool,
+            @NonNull final TaskPriority priority, @NonNull final Callable<T> callable) {
+        final PrioritizedTask<T> task = new PrioritizedTask<>(priority, callable);
+        execute(pool, task);
+        return task;
+    }
+
+    /**
+     * @return an executor which submits the runnables to the pool with the priority
+     */
+    @NonNull
+    public Executor getExecutor(@NonNull final TaskPool pool,
+            @NonNull final TaskPriority priority) {
+        return new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable runnable) {
+                submit(pool, priority, Executors.callable(runnable));
+            }
+        };
+    }
+
+    @NonNull
+    public TaskMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    void execute(@NonNull final TaskPool pool, @NonNull final PrioritizedTask<?> task) {
+        mExecutors.get(pool).enqueue(task);
+    }
+
+    boolean cancel(@NonNull final TaskPool pool, @NonNull final PrioritizedTask<?> task,
+            final boolean mayInterruptIfRunning) {
+        return mExecutors.get(pool).cancel(task, mayInterruptIfRunning);
+    }
+
+    private static class PoolThreadFactory implements ThreadFactory {
+
+        private final TaskPool mPool;
+        private final int mThreadPriority;
+        private final AtomicInteger mThreadCount = new AtomicInteger();
+
+        PoolThreadFactory(@NonNull final TaskPool pool, final int threadPriority) {
+            mPool = pool;
+            mThreadPriority = threadPriority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(mThreadPriority);
+                    runnable.run();
+                }
+            }, String.format(Locale.US, "GiniVision-%s-%d", mPool.name().toLowerCase(Locale.US),
+                    mThreadCount.incrementAndGet()));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package net.gini.android.vision.internal.cache;
+
+import net.gini.android.vision.internal.async.TaskPriority;
+import net.gini.android.vision.util.CancellationToken;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> A request for a value of a {@link MemoryCache}. Cancelling it detaches its callback. The
+ * value is not loaded if no other request is waiting for it and loading didn't start yet.
+ *
+ * @suppress
+ */
+public interface LoadRequest extends CancellationToken {
+
+    /**
+     * Changes the priority of the request. A value is loaded with the highest priority of the
+     * requests waiting for it.
+     */
+    void setPriority(@NonNull TaskPriority priority);
+}
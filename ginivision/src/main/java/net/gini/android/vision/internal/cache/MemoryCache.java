@@ -4,6 +4,7 @@ import android.content.Context;
 import android.util.LruCache;
 
 import net.gini.android.vision.AsyncCallback;
+import net.gini.android.vision.internal.async.TaskPriority;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,9 +16,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Set;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 /**
  * Created by Alpar Szotyori on 21.03.2018.
@@ -33,12 +35,21 @@ import androidx.annotation.NonNull;
 public abstract class MemoryCache<K, V> {
 
     private static final boolean DEBUG = false;
+    private static final LoadRequest COMPLETED_REQUEST = new LoadRequest() {
+        @Override
+        public void setPriority(@NonNull final TaskPriority priority) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
     private final Logger mLog; // NOPMD
     private final LruCache<K, V> mCache;
-    private final Queue<Worker<K, V>> mWorkerQueue = new LinkedList<>();
+    private final List<Worker<K, V>> mWorkerQueue = new LinkedList<>();
     private final List<Worker<K, V>> mRunningWorkers;
     private final int mRunningWorkersLimit;
-    private final Map<K, List<AsyncCallback<V, Exception>>> mWaitingCallbacks = new HashMap<>();
+    private final Map<K, List<WaitingRequest>> mWaitingRequests = new HashMap<>();
 
     MemoryCache(final int runningWorkersLimit) {
         mRunningWorkersLimit = runningWorkersLimit;
@@ -53,14 +64,52 @@ public abstract class MemoryCache<K, V> {
 
     protected abstract LruCache<K, V> createCache();
 
-    public void get(@NonNull final Context context, @NonNull final K key,
+    @NonNull
+    public LoadRequest get(@NonNull final Context context, @NonNull final K key,
+            @NonNull final AsyncCallback<V, Exception> callback) {
+        return get(context, key, TaskPriority.NORMAL, callback);
+    }
+
+    /**
+     * Returns the cached value or loads it. Queued values are loaded ordered by the highest
+     * priority of the requests waiting for them.
+     *
+     * @return a request which can be cancelled to not receive the value
+     */
+    @NonNull
+    public LoadRequest get(@NonNull final Context context, @NonNull final K key,
+            @NonNull final TaskPriority priority,
             @NonNull final AsyncCallback<V, Exception> callback) {
         mLog.debug("Get for key {}", getNameForLog(key));
         if (mCache.get(key) != null) {
             final V value = mCache.get(key);
             mLog.debug("Return cached {}", getNameForLog(value));
             callback.onSuccess(value);
-            return;
+            return COMPLETED_REQUEST;
+        }
+
+        final WaitingRequest request = new WaitingRequest(key, priority, callback);
+        List<WaitingRequest> requests = mWaitingRequests.get(key);
+        if (requests == null) {
+            mLog.debug("First callback {} registered for key {}", getNameForLog(callback),
+                    getNameForLog(key));
+            requests = new ArrayList<>();
+            requests.add(request);
+            mWaitingRequests.put(key, requests);
+        } else {
+            mLog.debug("Additional callback {} registered for key {}", getNameForLog(callback),
+                    getNameForLog(key));
+            requests.add(request);
+        }
+
+        if (findWorker(mRunningWorkers, key) != null) {
+            mLog.debug("Worker already running for key {}", getNameForLog(key));
+            return request;
+        }
+        if (findWorker(mWorkerQueue, key) != null) {
+            mLog.debug("Worker already queued for key {}", getNameForLog(key));
+            updateQueuedWorkerPriority(key);
+            return request;
         }
 
         mLog.debug("Create worker");
@@ -71,8 +120,6 @@ public abstract class MemoryCache<K, V> {
                         mLog.debug("Worker finished with result {}", getNameForLog(result));
                         mCache.put(key, result);
                         callOnSuccessForWaitingCallbacks(key, result);
-                        mLog.debug("Remove callbacks for key {}", getNameForLog(key));
-                        mWaitingCallbacks.remove(key);
                         executeNextWorker(context);
                     }
 
@@ -80,8 +127,6 @@ public abstract class MemoryCache<K, V> {
                     public void onError(final Exception exception) {
                         mLog.error("Worker finished with error", exception);
                         callOnErrorForWaitingCallbacks(key, exception);
-                        mLog.debug("Remove callbacks for key {}", getNameForLog(key));
-                        mWaitingCallbacks.remove(key);
                         executeNextWorker(context);
                     }
 
@@ -89,71 +134,110 @@ public abstract class MemoryCache<K, V> {
                     public void onCancelled() {
                         mLog.error("Worker was cancelled");
                         callOnCancelledForWaitingCallbacks(key);
-                        mLog.debug("Remove callbacks for key {}", getNameForLog(key));
-                        mWaitingCallbacks.remove(key);
                         executeNextWorker(context);
                     }
                 });
-
-        List<AsyncCallback<V, Exception>> callbacks = mWaitingCallbacks.get(key);
-        if (callbacks == null) {
-            mLog.debug("First callback {} registered for key {}", getNameForLog(callback),
-                    getNameForLog(key));
-            callbacks = new ArrayList<>();
-            callbacks.add(callback);
-            mWaitingCallbacks.put(key, callbacks);
-        } else {
-            mLog.debug("Additional callback {} registered for key {}", getNameForLog(callback),
-                    getNameForLog(key));
-            callbacks.add(callback);
-        }
+        worker.setPriority(priority);
 
         mLog.debug("Schedule worker for key {}", getNameForLog(key));
-        if (!mRunningWorkers.contains(worker) && mRunningWorkers.size() < mRunningWorkersLimit) {
+        if (mRunningWorkers.size() < mRunningWorkersLimit) {
             mLog.debug("Execute worker for key {}", getNameForLog(key));
             mRunningWorkers.add(worker);
             worker.execute(context);
-        } else if (!mWorkerQueue.contains(worker)) {
+        } else {
             mLog.debug("Queue worker for key {}", getNameForLog(key));
             mWorkerQueue.add(worker);
-        } else {
-            mLog.debug("Worker already queued for key {}", getNameForLog(key));
         }
+        return request;
     }
 
     private void callOnSuccessForWaitingCallbacks(final K key, final V result) {
-        final List<AsyncCallback<V, Exception>> callbacks = mWaitingCallbacks.get(key);
-        if (callbacks != null) {
-            for (final AsyncCallback<V, Exception> waitingCallback : callbacks) {
+        mLog.debug("Remove callbacks for key {}", getNameForLog(key));
+        final List<WaitingRequest> requests = mWaitingRequests.remove(key);
+        if (requests != null) {
+            for (final WaitingRequest request : requests) {
                 mLog.debug("Invoke callback {} for key {}",
-                        getNameForLog(waitingCallback), getNameForLog(key));
-                waitingCallback.onSuccess(result);
+                        getNameForLog(request.mCallback), getNameForLog(key));
+                request.mDone = true;
+                request.mCallback.onSuccess(result);
             }
         }
     }
 
     private void callOnErrorForWaitingCallbacks(final K key, final Exception exception) {
-        final List<AsyncCallback<V, Exception>> callbacks = mWaitingCallbacks.get(key);
-        if (callbacks != null) {
-            for (final AsyncCallback<V, Exception> waitingCallback : callbacks) {
+        mLog.debug("Remove callbacks for key {}", getNameForLog(key));
+        final List<WaitingRequest> requests = mWaitingRequests.remove(key);
+        if (requests != null) {
+            for (final WaitingRequest request : requests) {
                 mLog.debug("Invoke callback {} for key {}",
-                        getNameForLog(waitingCallback), getNameForLog(key));
-                waitingCallback.onError(exception);
+                        getNameForLog(request.mCallback), getNameForLog(key));
+                request.mDone = true;
+                request.mCallback.onError(exception);
             }
         }
     }
 
     private void callOnCancelledForWaitingCallbacks(final K key) {
-        final List<AsyncCallback<V, Exception>> callbacks = mWaitingCallbacks.get(key);
-        if (callbacks != null) {
-            for (final AsyncCallback<V, Exception> waitingCallback : callbacks) {
+        mLog.debug("Remove callbacks for key {}", getNameForLog(key));
+        final List<WaitingRequest> requests = mWaitingRequests.remove(key);
+        if (requests != null) {
+            for (final WaitingRequest request : requests) {
                 mLog.debug("Invoke callback {} for key {}",
-                        getNameForLog(waitingCallback), getNameForLog(key));
-                waitingCallback.onCancelled();
+                        getNameForLog(request.mCallback), getNameForLog(key));
+                request.mDone = true;
+                request.mCallback.onCancelled();
             }
         }
     }
 
+    private void cancelRequest(@NonNull final WaitingRequest request) {
+        final List<WaitingRequest> requests = mWaitingRequests.get(request.mKey);
+        if (requests == null) {
+            return;
+        }
+        mLog.debug("Remove cancelled callback {} for key {}", getNameForLog(request.mCallback),
+                getNameForLog(request.mKey));
+        requests.remove(request);
+        if (!requests.isEmpty()) {
+            updateQueuedWorkerPriority(request.mKey);
+            return;
+        }
+        mWaitingRequests.remove(request.mKey);
+        final Worker<K, V> queuedWorker = findWorker(mWorkerQueue, request.mKey);
+        if (queuedWorker != null) {
+            // Running workers are left to finish to have the value cached if it is requested
+            // again
+            mLog.debug("Dequeue worker for key {}", getNameForLog(request.mKey));
+            mWorkerQueue.remove(queuedWorker);
+        }
+    }
+
+    private void updateQueuedWorkerPriority(@NonNull final K key) {
+        final Worker<K, V> queuedWorker = findWorker(mWorkerQueue, key);
+        final List<WaitingRequest> requests = mWaitingRequests.get(key);
+        if (queuedWorker == null || requests == null) {
+            return;
+        }
+        TaskPriority highestPriority = TaskPriority.LOW;
+        for (final WaitingRequest request : requests) {
+            if (request.mPriority.compareTo(highestPriority) < 0) {
+                highestPriority = request.mPriority;
+            }
+        }
+        queuedWorker.setPriority(highestPriority);
+    }
+
+    @Nullable
+    private Worker<K, V> findWorker(@NonNull final List<Worker<K, V>> workers,
+            @NonNull final K key) {
+        for (final Worker<K, V> worker : workers) {
+            if (worker.getSubject().equals(key)) {
+                return worker;
+            }
+        }
+        return null;
+    }
+
     private <T> String getNameForLog(final T object) {
         return String.format(Locale.US, "%s[%d]", object.getClass().getSimpleName(),
                 object.hashCode());
@@ -167,12 +251,11 @@ public abstract class MemoryCache<K, V> {
 
     private void executeNextWorker(@NonNull final Context context) {
         mLog.debug("Execute next worker");
-        final Worker worker = mWorkerQueue.peek();
+        final Worker<K, V> worker = peekHighestPriorityWorker();
         if (worker != null) {
-            if (!mRunningWorkers.contains(worker)
-                    && mRunningWorkers.size() < mRunningWorkersLimit) {
+            if (mRunningWorkers.size() < mRunningWorkersLimit) {
                 mRunningWorkers.add(worker);
-                mWorkerQueue.poll();
+                mWorkerQueue.remove(worker);
                 mLog.debug("Execute queued worker for key {}", getNameForLog(worker.getSubject()));
                 worker.execute(context);
             } else {
@@ -181,8 +264,8 @@ public abstract class MemoryCache<K, V> {
             }
         } else {
             mLog.debug("No queued workers");
-            if (mRunningWorkers.isEmpty() && !mWaitingCallbacks.isEmpty()) {
-                mLog.error("{} dangling callbacks", mWaitingCallbacks.size());
+            if (mRunningWorkers.isEmpty() && !mWaitingRequests.isEmpty()) {
+                mLog.error("{} dangling callbacks", mWaitingRequests.size());
                 if (DEBUG) {
                     logDanglingCallbacks();
                 }
@@ -190,16 +273,35 @@ public abstract class MemoryCache<K, V> {
         }
     }
 
+    @Nullable
+    private Worker<K, V> peekHighestPriorityWorker() {
+        Worker<K, V> highestPriorityWorker = null;
+        for (final Worker<K, V> worker : mWorkerQueue) {
+            if (highestPriorityWorker == null
+                    || worker.getPriority().compareTo(highestPriorityWorker.getPriority()) < 0) {
+                highestPriorityWorker = worker;
+            }
+        }
+        return highestPriorityWorker;
+    }
+
     private void logDanglingCallbacks() {
-        for (final Map.Entry<K, List<AsyncCallback<V, Exception>>> entry
-                : mWaitingCallbacks.entrySet()) {
-            for (final AsyncCallback<V, Exception> waitingCallback : entry.getValue()) {
-                mLog.error("Dangling callback {} for key {}", getNameForLog(waitingCallback),
-                        getNameForLog(entry.getKey()));
+        for (final Map.Entry<K, List<WaitingRequest>> entry : mWaitingRequests.entrySet()) {
+            for (final WaitingRequest waitingRequest : entry.getValue()) {
+                mLog.error("Dangling callback {} for key {}",
+                        getNameForLog(waitingRequest.mCallback), getNameForLog(entry.getKey()));
             }
         }
     }
 
+    /**
+     * @return true, if the value is cached and {@link #get(Context, Object, AsyncCallback)} will
+     * return it immediately
+     */
+    public boolean isCached(@NonNull final K key) {
+        return mCache.get(key) != null;
+    }
+
     public void invalidate(@NonNull final K key) {
         mCache.remove(key);
     }
@@ -208,12 +310,50 @@ public abstract class MemoryCache<K, V> {
         mCache.evictAll();
     }
 
+    @NonNull
+    protected Set<K> getCachedKeys() {
+        return mCache.snapshot().keySet();
+    }
+
+    private final class WaitingRequest implements LoadRequest {
+
+        private final K mKey;
+        private final AsyncCallback<V, Exception> mCallback;
+        private TaskPriority mPriority;
+        private boolean mDone;
+
+        WaitingRequest(@NonNull final K key, @NonNull final TaskPriority priority,
+                @NonNull final AsyncCallback<V, Exception> callback) {
+            mKey = key;
+            mPriority = priority;
+            mCallback = callback;
+        }
+
+        @Override
+        public void setPriority(@NonNull final TaskPriority priority) {
+            mPriority = priority;
+            if (!mDone) {
+                updateQueuedWorkerPriority(mKey);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (mDone) {
+                return;
+            }
+            mDone = true;
+            cancelRequest(this);
+        }
+    }
+
     protected abstract static class Worker<S, V> {
 
         private final Logger mLog; // NOPMD
         private final List<Worker<S, V>> mRunningWorkers;
         private final S mSubject;
         private final AsyncCallback<V, Exception> mCallback;
+        private TaskPriority mPriority = TaskPriority.NORMAL;
 
         Worker(@NonNull final List<Worker<S, V>> runningWorkers,
                 @NonNull final S subject,
@@ -232,6 +372,18 @@ public abstract class MemoryCache<K, V> {
             return mSubject;
         }
 
+        /**
+         * @return the highest priority of the requests waiting for the value
+         */
+        @NonNull
+        protected TaskPriority getPriority() {
+            return mPriority;
+        }
+
+        void setPriority(@NonNull final TaskPriority priority) {
+            mPriority = priority;
+        }
+
         @Override
         public int hashCode() {
             return mSubject.hashCode();
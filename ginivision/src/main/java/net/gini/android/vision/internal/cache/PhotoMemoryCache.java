@@ -92,40 +92,41 @@ public class PhotoMemoryCache extends MemoryCache<ImageDocument, Photo> {
         protected void doExecute(@NonNull final Context context,
                 @NonNull final ImageDocument subject,
                 @NonNull final AsyncCallback<Photo, Exception> callback) {
-            mDocumentDataMemoryCache.get(context, subject, new AsyncCallback<byte[], Exception>() {
-                @Override
-                public void onSuccess(final byte[] result) {
-                    final PhotoFactoryDocumentAsyncTask asyncTask =
-                            new PhotoFactoryDocumentAsyncTask(
-                                    new AsyncCallback<Photo, Exception>() {
-                                        @Override
-                                        public void onSuccess(final Photo result) {
-                                            callback.onSuccess(result);
-                                        }
-
-                                        @Override
-                                        public void onError(final Exception exception) {
-                                            callback.onError(exception);
-                                        }
-
-                                        @Override
-                                        public void onCancelled() {
-                                            callback.onCancelled();
-                                        }
-                                    });
-                    asyncTask.execute(subject);
-                }
-
-                @Override
-                public void onError(final Exception exception) {
-                    callback.onError(exception);
-                }
-
-                @Override
-                public void onCancelled() {
-                    callback.onCancelled();
-                }
-            });
+            mDocumentDataMemoryCache.get(context, subject, getPriority(),
+                    new AsyncCallback<byte[], Exception>() {
+                        @Override
+                        public void onSuccess(final byte[] result) {
+                            final PhotoFactoryDocumentAsyncTask asyncTask =
+                                    new PhotoFactoryDocumentAsyncTask(getPriority(),
+                                            new AsyncCallback<Photo, Exception>() {
+                                                @Override
+                                                public void onSuccess(final Photo result) {
+                                                    callback.onSuccess(result);
+                                                }
+
+                                                @Override
+                                                public void onError(final Exception exception) {
+                                                    callback.onError(exception);
+                                                }
+
+                                                @Override
+                                                public void onCancelled() {
+                                                    callback.onCancelled();
+                                                }
+                                            });
+                            asyncTask.execute(subject);
+                        }
+
+                        @Override
+                        public void onError(final Exception exception) {
+                            callback.onError(exception);
+                        }
+
+                        @Override
+                        public void onCancelled() {
+                            callback.onCancelled();
+                        }
+                    });
         }
     }
 }
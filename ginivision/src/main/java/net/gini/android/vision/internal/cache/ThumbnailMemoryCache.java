@@ -0,0 +1,200 @@
+package net.gini.android.vision.internal.cache;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import net.gini.android.vision.AsyncCallback;
+import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.internal.async.BackgroundTask;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
+import net.gini.android.vision.internal.camera.photo.ThumbnailDecoder;
+import net.gini.android.vision.internal.util.Size;
+
+import java.util.List;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> Caches thumbnails decoded to the size of the views showing them. Thumbnails are cached
+ * separately from the {@link PhotoMemoryCache} previews and need only a fraction of their memory.
+ *
+ * @suppress
+ */
+public class ThumbnailMemoryCache extends MemoryCache<ThumbnailMemoryCache.Key, Bitmap> {
+
+    private static final int RUNNING_WORKERS_LIMIT = 2;
+    private final DocumentDataMemoryCache mDocumentDataMemoryCache;
+
+    public ThumbnailMemoryCache(@NonNull final DocumentDataMemoryCache documentDataMemoryCache) {
+        super(RUNNING_WORKERS_LIMIT);
+        mDocumentDataMemoryCache = documentDataMemoryCache;
+    }
+
+    /**
+     * Loads the thumbnail of the document for a view of the target size. Thumbnails of documents
+     * displayed rotated by 90 or 270 degrees are decoded for the swapped target size.
+     */
+    @NonNull
+    public LoadRequest get(@NonNull final Context context, @NonNull final ImageDocument document,
+            @NonNull final Size targetSize,
+            @NonNull final AsyncCallback<Bitmap, Exception> callback) {
+        return get(context, document, targetSize, TaskPriority.NORMAL, callback);
+    }
+
+    @NonNull
+    public LoadRequest get(@NonNull final Context context, @NonNull final ImageDocument document,
+            @NonNull final Size targetSize, @NonNull final TaskPriority priority,
+            @NonNull final AsyncCallback<Bitmap, Exception> callback) {
+        return get(context, new Key(document, targetSize), priority, callback);
+    }
+
+    public void invalidate(@NonNull final ImageDocument document) {
+        for (final Key key : getCachedKeys()) {
+            if (key.document.equals(document)) {
+                invalidate(key);
+            }
+        }
+    }
+
+    @Override
+    protected LruCache<Key, Bitmap> createCache() {
+        final int maxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
+        // Use 1/32th of the available memory for this memory cache.
+        final int cacheSize = maxMemory / 32;
+        return new LruCache<Key, Bitmap>(cacheSize) {
+            @Override
+            protected int sizeOf(final Key key, final Bitmap value) {
+                return Math.max(1, value.getByteCount() / 1024);
+            }
+        };
+    }
+
+    @Override
+    protected Worker<Key, Bitmap> createWorker(
+            @NonNull final List<Worker<Key, Bitmap>> runningWorkers,
+            @NonNull final Key subject,
+            @NonNull final AsyncCallback<Bitmap, Exception> callback) {
+        return new ThumbnailWorker(runningWorkers, subject, mDocumentDataMemoryCache, callback);
+    }
+
+    /**
+     * Internal use only.
+     *
+     * @suppress
+     */
+    public static final class Key {
+
+        final ImageDocument document;
+        final Size targetSize;
+
+        Key(@NonNull final ImageDocument document, @NonNull final Size targetSize) {
+            this.document = document;
+            this.targetSize = targetSize;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            final Key key = (Key) o;
+
+            if (!document.equals(key.document)) {
+                return false;
+            }
+            return targetSize.equals(key.targetSize);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = document.hashCode();
+            result = 31 * result + targetSize.hashCode();
+            return result;
+        }
+    }
+
+    private static class ThumbnailWorker extends MemoryCache.Worker<Key, Bitmap> {
+
+        private final DocumentDataMemoryCache mDocumentDataMemoryCache;
+
+        private ThumbnailWorker(
+                @NonNull final List<Worker<Key, Bitmap>> runningWorkers,
+                @NonNull final Key subject,
+                @NonNull final DocumentDataMemoryCache documentDataMemoryCache,
+                @NonNull final AsyncCallback<Bitmap, Exception> callback) {
+            super(runningWorkers, subject, callback);
+            mDocumentDataMemoryCache = documentDataMemoryCache;
+        }
+
+        @Override
+        protected void doExecute(@NonNull final Context context, @NonNull final Key subject,
+                @NonNull final AsyncCallback<Bitmap, Exception> callback) {
+            mDocumentDataMemoryCache.get(context, subject.document, getPriority(),
+                    new AsyncCallback<byte[], Exception>() {
+                        @Override
+                        public void onSuccess(final byte[] result) {
+                            new ThumbnailDecodeTask(getDecodeSize(subject), getPriority(),
+                                    callback).execute(result);
+                        }
+
+                        @Override
+                        public void onError(final Exception exception) {
+                            callback.onError(exception);
+                        }
+
+                        @Override
+                        public void onCancelled() {
+                            callback.onCancelled();
+                        }
+                    });
+        }
+
+        @NonNull
+        private static Size getDecodeSize(@NonNull final Key subject) {
+            if (subject.document.getRotationForDisplay() % 180 != 0) {
+                return new Size(subject.targetSize.height, subject.targetSize.width);
+            }
+            return subject.targetSize;
+        }
+    }
+
+    private static class ThumbnailDecodeTask extends BackgroundTask<byte[], Bitmap> {
+
+        private final Size mTargetSize;
+        private final AsyncCallback<Bitmap, Exception> mCallback;
+
+        ThumbnailDecodeTask(@NonNull final Size targetSize, @NonNull final TaskPriority priority,
+                @NonNull final AsyncCallback<Bitmap, Exception> callback) {
+            super(TaskPool.LATENCY, priority);
+            mTargetSize = targetSize;
+            mCallback = callback;
+        }
+
+        @Override
+        protected Bitmap doInBackground(final byte[]... jpegs) {
+            return ThumbnailDecoder.decode(jpegs[0], mTargetSize);
+        }
+
+        @Override
+        protected void onPostExecute(final Bitmap bitmap) {
+            if (bitmap != null) {
+                mCallback.onSuccess(bitmap);
+            } else {
+                mCallback.onError(new IllegalStateException("Could not decode thumbnail"));
+            }
+        }
+
+        @Override
+        protected void onCancelled() {
+            mCallback.onCancelled();
+        }
+    }
+}
@@ -0,0 +1,1346 @@
+package net.gini.android.vision.internal.camera.api;
+
+import static net.gini.android.vision.internal.camera.api.SizeSelectionHelper.getBestSize;
+import static net.gini.android.vision.internal.util.DeviceHelper.getDeviceOrientation;
+import static net.gini.android.vision.internal.util.DeviceHelper.getDeviceType;
+
+import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.ImageFormat;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.hardware.Camera;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CaptureFailure;
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.CaptureResult;
+import android.hardware.camera2.TotalCaptureResult;
+import android.hardware.camera2.params.MeteringRectangle;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.core.util.Pair;
+
+import net.gini.android.vision.Document;
+import net.gini.android.vision.StartupTrace;
+import net.gini.android.vision.camera.CaptureLatencyHistogram;
+import net.gini.android.vision.internal.camera.photo.Photo;
+import net.gini.android.vision.internal.camera.photo.PhotoFactory;
+import net.gini.android.vision.internal.util.Size;
+import net.gini.android.vision.requirements.CameraResolutionRequirement;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Internal use only.
+ *
+ * <p> {@link CameraInterface} implementation using the Camera2 API.
+ *
+ * <p> Preview frames for QRCode detection come from a YUV {@link ImageReader}. Only the luminance
+ * plane is copied into a recycled NV21 sized buffer whose chroma part is neutral gray, so no
+ * YUV to NV21 conversion is done. Buffers are returned using {@link
+ * #addPreviewCallbackBuffer(byte[])} and frames are dropped while all buffers are in use.
+ *
+ * <p> Pictures are captured into a JPEG {@link ImageReader} and auto-focus, auto-exposure and
+ * flash are handled with the Camera2 3A controls.
+ *
+ * <p> All camera callbacks run on a dedicated background thread, while the returned futures are
+ * completed on the UI thread, like in {@link CameraController}.
+ *
+ * @suppress
+ */
+@RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+public class Camera2Controller implements CameraInterface {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Camera2Controller.class);
+
+    // Preview streams larger than 1080p are not guaranteed together with a JPEG stream
+    private static final int MAX_PREVIEW_AREA = 1920 * 1080;
+    private static final int MAX_PREVIEW_BUFFERS = 3;
+    private static final long RESET_FOCUS_DELAY_MS = 5000;
+    private static final float TAP_AREA_RATIO = 0.1f;
+    // With fast capture a successful focus is reused if it is not older than this
+    private static final long FOCUS_REUSE_TIMEOUT_MS = 3000;
+    // Some devices never report a locked focus or a converged exposure
+    private static final long WAIT_FOR_3A_TIMEOUT_MS = 1500;
+
+    private static final int STATE_PREVIEW = 0;
+    private static final int STATE_WAITING_FOCUS_LOCK = 1;
+    private static final int STATE_WAITING_PRECAPTURE = 2;
+    private static final int STATE_WAITING_NON_PRECAPTURE = 3;
+    private static final int STATE_CAPTURING = 4;
+
+    private final Activity mActivity;
+    private final CameraManager mCameraManager;
+    private final Handler mResetFocusHandler;
+    private final UIExecutor mUIExecutor = new UIExecutor();
+    private final CameraLifecycleTimings mLifecycleTimings = new CameraLifecycleTimings();
+
+    // One thread for all controllers, so a camera is opened only after the previous one was closed
+    private static Handler sCameraHandler;
+    private final Handler mCameraHandler;
+
+    private String mCameraId;
+    private volatile CameraCharacteristics mCharacteristics;
+    private volatile CameraDevice mCameraDevice;
+    private volatile CameraCaptureSession mCaptureSession;
+    private CaptureRequest.Builder mPreviewRequestBuilder;
+    private volatile ImageReader mJpegImageReader;
+    private volatile ImageReader mYuvImageReader;
+    private SurfaceHolder mSurfaceHolder;
+    private SurfaceHolder.Callback mSurfaceSizeCallback;
+
+    private volatile boolean mPreviewRunning;
+    private volatile int mState = STATE_PREVIEW;
+    // Incremented by every open and close to detect cameras opened after they were closed
+    private volatile int mOpenGeneration;
+    private volatile boolean mFlashAvailable;
+    private volatile boolean mFlashEnabled;
+    private boolean mAutoFocusSupported;
+    private boolean mContinuousFocusSupported;
+    private boolean mAfRegionsSupported;
+
+    private Size mPreviewSize = new Size(0, 0);
+    private Size mPictureSize = new Size(0, 0);
+
+    private volatile Camera.PreviewCallback mPreviewCallback;
+    private final Deque<byte[]> mPreviewBuffers = new ArrayDeque<>();
+    private int mAllocatedPreviewBuffers;
+
+    private final AtomicReference<CompletableFuture<Boolean>> mFocusingFuture =
+            new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Photo>> mTakingPictureFuture =
+            new AtomicReference<>();
+    private volatile TapToFocusListener mTapToFocusListener;
+
+    private volatile boolean mFastCaptureEnabled;
+    private volatile Integer mLastAfState;
+    private volatile long mLastFocusSuccessMs = -1;
+    private volatile long mFocusStartMs;
+    private volatile long mCaptureStartMs;
+    private volatile long mShutterMs = -1;
+    private volatile CaptureLatencyHistogram mCaptureLatencyHistogram;
+
+    /**
+     * Runs on the camera thread and stops waiting for the focus lock or the precapture metering.
+     * The focus counts as failed and the picture is taken with the current exposure.
+     */
+    private final Runnable mWaitFor3ATimeout = new Runnable() {
+        @Override
+        public void run() {
+            switch (mState) {
+                case STATE_WAITING_FOCUS_LOCK:
+                    LOG.warn("Timed out waiting for the focus lock");
+                    mState = STATE_PREVIEW;
+                    mLastFocusSuccessMs = -1;
+                    final CompletableFuture<Boolean> focusing = mFocusingFuture.getAndSet(null);
+                    if (focusing != null) {
+                        completeOnUiThread(focusing, false);
+                    }
+                    break;
+                case STATE_WAITING_PRECAPTURE:
+                case STATE_WAITING_NON_PRECAPTURE:
+                    LOG.warn("Timed out waiting for the precapture metering");
+                    captureStillPicture();
+                    break;
+                default:
+                    break;
+            }
+        }
+    };
+
+    private final Runnable mResetFocusMode = new Runnable() {
+        @Override
+        public void run() {
+            if (mPreviewRequestBuilder == null) {
+                return;
+            }
+            applyDefaultFocusMode(mPreviewRequestBuilder);
+            updateRepeatingRequest();
+        }
+    };
+
+    /**
+     * Checks whether the back-facing camera can be used with the Camera2 API. Devices with the
+     * legacy hardware level are excluded because they only emulate the Camera2 API on top of the
+     * deprecated Camera API.
+     *
+     * @param context Android context
+     * @return {@code true} if the {@link Camera2Controller} can be used
+     */
+    public static boolean isSupported(@NonNull final Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return false;
+        }
+        final CameraManager cameraManager =
+                (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
+        if (cameraManager == null) {
+            return false;
+        }
+        try {
+            final String cameraId = findBackFacingCameraId(cameraManager);
+            if (cameraId == null) {
+                return false;
+            }
+            final Integer hardwareLevel = cameraManager.getCameraCharacteristics(cameraId)
+                    .get(CameraCharacteristics.INFO_SUPPORTED_HARDWARE_LEVEL);
+            return hardwareLevel != null
+                    && hardwareLevel != CameraCharacteristics.INFO_SUPPORTED_HARDWARE_LEVEL_LEGACY;
+        } catch (final CameraAccessException | RuntimeException e) {
+            LOG.error("Could not check Camera2 support", e);
+            return false;
+        }
+    }
+
+    public Camera2Controller(@NonNull final Activity activity) {
+        mActivity = activity;
+        mCameraManager = (CameraManager) activity.getSystemService(Context.CAMERA_SERVICE);
+        mResetFocusHandler = new Handler(Looper.getMainLooper());
+        mCameraHandler = getCameraHandler();
+    }
+
+    @NonNull
+    @Override
+    public CompletableFuture<Void> open() {
+        LOG.info("Open camera");
+        if (mCameraDevice != null) {
+            LOG.debug("Camera already open");
+            LOG.info("Camera opened");
+            return CompletableFuture.completedFuture(null);
+        }
+        final int openGeneration = ++mOpenGeneration;
+        final CompletableFuture<Void> opened = new CompletableFuture<>();
+        // Reading the characteristics queries the camera service, which can take a while
+        mCameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                openOnCameraThread(openGeneration, opened);
+            }
+        });
+        return opened;
+    }
+
+    @SuppressLint("MissingPermission") // Camera permission is checked by the camera fragment
+    private void openOnCameraThread(final int openGeneration,
+            @NonNull final CompletableFuture<Void> opened) {
+        if (openGeneration != mOpenGeneration) {
+            failOnUiThread(opened, new CameraException("Camera closed before it was opened"));
+            return;
+        }
+        try {
+            if (!loadCharacteristics()) {
+                LOG.error("No back-facing camera");
+                failOnUiThread(opened, new CameraException("No back-facing camera"));
+                return;
+            }
+            final long configureStartMs = SystemClock.elapsedRealtime();
+            configureCamera();
+            mLifecycleTimings.setConfigureMs(SystemClock.elapsedRealtime() - configureStartMs,
+                    false);
+            closeImageReaders();
+            createImageReaders();
+            final long openStartMs = SystemClock.elapsedRealtime();
+            mCameraManager.openCamera(mCameraId, new CameraDevice.StateCallback() {
+                @Override
+                public void onOpened(@NonNull final CameraDevice camera) {
+                    if (openGeneration != mOpenGeneration) {
+                        LOG.debug("Camera closed while it was being opened");
+                        camera.close();
+                        failOnUiThread(opened,
+                                new CameraException("Camera closed while it was being opened"));
+                        return;
+                    }
+                    mCameraDevice = camera;
+                    mLifecycleTimings.setOpenMs(SystemClock.elapsedRealtime() - openStartMs);
+                    LOG.info("Camera opened");
+                    StartupTrace.mark(StartupTrace.Milestone.CAMERA_OPENED);
+                    completeOnUiThread(opened, null);
+                }
+
+                @Override
+                public void onDisconnected(@NonNull final CameraDevice camera) {
+                    LOG.error("Camera disconnected");
+                    camera.close();
+                    if (mCameraDevice == camera) {
+                        mCameraDevice = null; // NOPMD
+                    }
+                    failOnUiThread(opened, new CameraException("Camera disconnected"));
+                }
+
+                @Override
+                public void onError(@NonNull final CameraDevice camera, final int error) {
+                    LOG.error("Camera error: {}", error);
+                    camera.close();
+                    if (mCameraDevice == camera) {
+                        mCameraDevice = null; // NOPMD
+                    }
+                    failOnUiThread(opened, new CameraException("Camera error: " + error));
+                }
+            }, mCameraHandler);
+        } catch (final CameraAccessException | RuntimeException e) {
+            LOG.error("Cannot start camera", e);
+            failOnUiThread(opened, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        LOG.info("Closing camera");
+        mOpenGeneration++;
+        mResetFocusHandler.removeCallbacks(mResetFocusMode);
+        mCameraHandler.removeCallbacks(mWaitFor3ATimeout);
+        removeSurfaceSizeCallback();
+        mPreviewRunning = false;
+        mState = STATE_PREVIEW;
+        mLastAfState = null; // NOPMD
+        mLastFocusSuccessMs = -1;
+        final CameraCaptureSession captureSession = mCaptureSession;
+        final CameraDevice cameraDevice = mCameraDevice;
+        mCaptureSession = null; // NOPMD
+        mCameraDevice = null; // NOPMD
+        if (cameraDevice == null) {
+            LOG.debug("Camera already closed");
+        }
+        mCameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                closeOnCameraThread(captureSession, cameraDevice);
+            }
+        });
+        synchronized (mPreviewBuffers) {
+            mPreviewBuffers.clear();
+            mAllocatedPreviewBuffers = 0;
+        }
+        mSurfaceHolder = null; // NOPMD
+        LOG.info("Camera closed");
+    }
+
+    @NonNull
+    @Override
+    public CompletableFuture<Void> startPreview(@NonNull final SurfaceHolder surfaceHolder) {
+        LOG.info("Start preview for the given SurfaceHolder");
+        if (mCameraDevice == null) {
+            LOG.error("Cannot start preview: camera not open");
+            return failedFuture(new CameraException("Cannot start preview: camera not open"));
+        }
+        if (mPreviewRunning) {
+            LOG.info("Preview already running");
+            return CompletableFuture.completedFuture(null);
+        }
+        mSurfaceHolder = surfaceHolder;
+        final CompletableFuture<Void> previewStarted = new CompletableFuture<>();
+        // The surface must have the preview size before the capture session is created
+        surfaceHolder.setFixedSize(mPreviewSize.width, mPreviewSize.height);
+        if (hasPreviewSize(surfaceHolder.getSurfaceFrame())) {
+            createCaptureSession(surfaceHolder.getSurface(), previewStarted);
+        } else {
+            LOG.debug("Waiting for the surface to be resized to the preview size");
+            removeSurfaceSizeCallback();
+            mSurfaceSizeCallback = new SurfaceHolder.Callback() {
+                @Override
+                public void surfaceCreated(final SurfaceHolder holder) {
+                }
+
+                @Override
+                public void surfaceChanged(final SurfaceHolder holder, final int format,
+                        final int width, final int height) {
+                    if (hasPreviewSize(holder.getSurfaceFrame())) {
+                        removeSurfaceSizeCallback();
+                        createCaptureSession(holder.getSurface(), previewStarted);
+                    }
+                }
+
+                @Override
+                public void surfaceDestroyed(final SurfaceHolder holder) {
+                    removeSurfaceSizeCallback();
+                    previewStarted.completeExceptionally(
+                            new CameraException("Cannot start preview: surface destroyed"));
+                }
+            };
+            surfaceHolder.addCallback(mSurfaceSizeCallback);
+        }
+        return previewStarted;
+    }
+
+    @NonNull
+    @Override
+    public CompletableFuture<Void> startPreview() {
+        LOG.info("Start preview");
+        if (mCameraDevice == null) {
+            LOG.error("Cannot start preview: camera not open");
+            return failedFuture(new CameraException("Cannot start preview: camera not open"));
+        }
+        if (mPreviewRunning) {
+            LOG.info("Preview already running");
+            return CompletableFuture.completedFuture(null);
+        }
+        if (mCaptureSession == null) {
+            if (mSurfaceHolder == null) {
+                LOG.warn("Cannot start preview: no SurfaceHolder");
+                return CompletableFuture.completedFuture(null);
+            }
+            return startPreview(mSurfaceHolder);
+        }
+        try {
+            // Release a focus lock from a previous focus run or picture
+            mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AF_TRIGGER,
+                    CameraCharacteristics.CONTROL_AF_TRIGGER_CANCEL);
+            mCaptureSession.capture(mPreviewRequestBuilder.build(), mCaptureCallback,
+                    mCameraHandler);
+            mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AF_TRIGGER,
+                    CameraCharacteristics.CONTROL_AF_TRIGGER_IDLE);
+            mState = STATE_PREVIEW;
+            mCaptureSession.setRepeatingRequest(mPreviewRequestBuilder.build(), mCaptureCallback,
+                    mCameraHandler);
+            mPreviewRunning = true;
+            LOG.info("Preview started");
+            return CompletableFuture.completedFuture(null);
+        } catch (final CameraAccessException | RuntimeException e) {
+            LOG.error("Cannot start preview", e);
+            return failedFuture(e);
+        }
+    }
+
+    @Override
+    public void stopPreview() {
+        LOG.info("Stop preview");
+        if (mCaptureSession == null) {
+            LOG.info("Preview not running: no capture session");
+            mPreviewRunning = false;
+            return;
+        }
+        try {
+            mCaptureSession.stopRepeating();
+        } catch (final CameraAccessException | RuntimeException e) {
+            LOG.error("Cannot stop preview", e);
+        }
+        mPreviewRunning = false;
+        LOG.info("Preview stopped");
+    }
+
+    @Override
+    public boolean isPreviewRunning() {
+        return mPreviewRunning;
+    }
+
+    @Override
+    public void enableTapToFocus(@NonNull final View tapView,
+            @Nullable final TapToFocusListener listener) {
+        LOG.info("Tap to focus enabled");
+        tapView.setOnTouchListener(new View.OnTouchListener() {
+            @Override
+            public boolean onTouch(final View view, final MotionEvent event) {
+                if (event.getAction() != MotionEvent.ACTION_UP) {
+                    return true;
+                }
+                final float x = event.getX();
+                final float y = event.getY();
+                LOG.debug("Handling tap to focus touch at point ({}, {})", x, y);
+                if (mCaptureSession == null || !mAutoFocusSupported) {
+                    LOG.error("Cannot focus on tap: camera not open or auto-focus not supported");
+                    return false;
+                }
+                if (mAfRegionsSupported) {
+                    final MeteringRectangle focusArea = calculateTapArea(x, y, view.getWidth(),
+                            view.getHeight());
+                    LOG.debug("Focus area calculated ({})", focusArea);
+                    mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AF_REGIONS,
+                            new MeteringRectangle[]{focusArea});
+                } else {
+                    LOG.warn("Focus areas not supported");
+                }
+                mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AF_MODE,
+                        CameraCharacteristics.CONTROL_AF_MODE_AUTO);
+                if (listener != null) {
+                    listener.onFocusing(new Point(Math.round(x), Math.round(y)));
+                }
+                mTapToFocusListener = listener;
+                final CompletableFuture<Boolean> focused = focus();
+                focused.thenAccept(new CompletableFuture.Action<Boolean>() {
+                    @Override
+                    public void accept(final Boolean success) {
+                        final TapToFocusListener tapToFocusListener = mTapToFocusListener;
+                        if (tapToFocusListener != null) {
+                            tapToFocusListener.onFocused(success);
+                        }
+                        mResetFocusHandler.removeCallbacks(mResetFocusMode);
+                        mResetFocusHandler.postDelayed(mResetFocusMode, RESET_FOCUS_DELAY_MS);
+                    }
+                });
+                return true;
+            }
+        });
+    }
+
+    @Override
+    public void disableTapToFocus(@NonNull final View tapView) {
+        LOG.info("Tap to focus disabled");
+        mTapToFocusListener = null; // NOPMD
+        tapView.setOnTouchListener(null);
+    }
+
+    @NonNull
+    @Override
+    public CompletableFuture<Boolean> focus() {
+        LOG.info("Start focusing");
+        if (mCaptureSession == null) {
+            LOG.error("Cannot focus: camera not open");
+            return CompletableFuture.completedFuture(false);
+        }
+        if (!mAutoFocusSupported) {
+            LOG.error("Cannot focus: auto-focus not supported");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        final CompletableFuture<Boolean> completed = new CompletableFuture<>();
+        do {
+            // Checking whether a completable is already available in which case focusing is in
+            // progress
+            final CompletableFuture<Boolean> inProgress = mFocusingFuture.get();
+            if (inProgress != null) {
+                LOG.info("Already focusing");
+                return inProgress;
+            }
+            // We rerun the above in case a completable was set by another thread
+            // Otherwise we set the new completable and exit the loop
+        } while (!mFocusingFuture.compareAndSet(null, completed));
+
+        try {
+            mFocusStartMs = SystemClock.elapsedRealtime();
+            mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AF_TRIGGER,
+                    CameraCharacteristics.CONTROL_AF_TRIGGER_START);
+            mState = STATE_WAITING_FOCUS_LOCK;
+            mCaptureSession.capture(mPreviewRequestBuilder.build(), mCaptureCallback,
+                    mCameraHandler);
+            mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AF_TRIGGER,
+                    CameraCharacteristics.CONTROL_AF_TRIGGER_IDLE);
+            postWaitFor3ATimeout();
+        } catch (final CameraAccessException | RuntimeException e) {
+            LOG.error("Could not focus", e);
+            mState = STATE_PREVIEW;
+            mFocusingFuture.set(null);
+            completeOnUiThread(completed, false);
+        }
+        return completed;
+    }
+
+    @NonNull
+    @Override
+    public CompletableFuture<Photo> takePicture() {
+        LOG.info("Take picture");
+        if (mCaptureSession == null) {
+            LOG.error("Cannot take picture: camera not open");
+            return failedFuture(new CameraException("Cannot take picture: camera not open"));
+        }
+
+        final CompletableFuture<Photo> pictureTaken = new CompletableFuture<>();
+        do {
+            // Checking whether a completable is already available in which case taking the
+            // picture is in progress
+            final CompletableFuture<Photo> inProgress = mTakingPictureFuture.get();
+            if (inProgress != null) {
+                LOG.info("Already taking a picture");
+                return inProgress;
+            }
+            // We rerun the above in case a completable was set by another thread
+            // Otherwise we set the new completable and exit the loop
+        } while (!mTakingPictureFuture.compareAndSet(null, pictureTaken));
+
+        // Preview is stopped after the picture was taken, but it's sufficient to declare
+        // preview as being stopped before it is really stopped
+        mPreviewRunning = false;
+
+        CompletableFuture<Boolean> focusFuture = new CompletableFuture<>();
+        final Integer afState = mLastAfState;
+        if (mFastCaptureEnabled && isUsingContinuousFocus() && afState != null
+                && afState == CaptureResult.CONTROL_AF_STATE_PASSIVE_SCAN) {
+            // The continuous focus is scanning: the trigger locks the focus when the scan
+            // finished and the picture is taken right after that
+            focusFuture = focus();
+        } else if (isUsingContinuousFocus()) {
+            // When continuous focus mode is used no auto-focus run is needed
+            focusFuture.complete(true);
+        } else if (mFastCaptureEnabled && hasRecentFocusSuccess()
+                && mFocusingFuture.get() == null) {
+            // Reusing the recent successful auto-focus run
+            LOG.info("Reusing recent focus");
+            focusFuture.complete(true);
+        } else {
+            focusFuture = focus();
+        }
+        focusFuture.handle(new CompletableFuture.BiFun<Boolean, Throwable, Void>() {
+            @Override
+            public Void apply(final Boolean focused, final Throwable throwable) {
+                if (mFlashEnabled) {
+                    runPrecaptureSequence();
+                } else {
+                    captureStillPicture();
+                }
+                return null;
+            }
+        });
+        return pictureTaken;
+    }
+
+    @NonNull
+    @Override
+    public Size getPreviewSize() {
+        return mPreviewSize;
+    }
+
+    @NonNull
+    @Override
+    public Size getPreviewSizeForDisplay() {
+        final int rotation = getCameraRotation();
+        if (rotation == 90 || rotation == 270) {
+            return new Size(mPreviewSize.height, mPreviewSize.width);
+        }
+        return mPreviewSize;
+    }
+
+    @NonNull
+    @Override
+    public Size getPictureSize() {
+        return mPictureSize;
+    }
+
+    @Override
+    public void setPreviewCallback(@Nullable final Camera.PreviewCallback previewCallback) {
+        mPreviewCallback = previewCallback;
+    }
+
+    @Override
+    public void addPreviewCallbackBuffer(@NonNull final byte[] buffer) {
+        synchronized (mPreviewBuffers) {
+            if (buffer.length == getPreviewBufferLength()
+                    && mPreviewBuffers.size() < mAllocatedPreviewBuffers) {
+                mPreviewBuffers.push(buffer);
+            }
+        }
+    }
+
+    @Override
+    public int getCameraRotation() {
+        if (mCharacteristics == null) {
+            try {
+                if (!loadCharacteristics()) {
+                    LOG.error("Could not get back facing camera characteristics");
+                    return 0;
+                }
+            } catch (final CameraAccessException | RuntimeException e) {
+                LOG.error("Could not get back facing camera characteristics", e);
+                return 0;
+            }
+        }
+        final Integer sensorOrientation =
+                mCharacteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
+        final int orientation = sensorOrientation != null ? sensorOrientation : 0;
+        final int degrees;
+        switch (mActivity.getWindowManager().getDefaultDisplay().getRotation()) {
+            case Surface.ROTATION_90:
+                degrees = 90;
+                break;
+            case Surface.ROTATION_180:
+                degrees = 180;
+                break;
+            case Surface.ROTATION_270:
+                degrees = 270;
+                break;
+            default:
+                degrees = 0;
+                break;
+        }
+        return (orientation - degrees + 360) % 360;
+    }
+
+    @Override
+    public boolean isFlashAvailable() {
+        return mFlashAvailable;
+    }
+
+    @Override
+    public boolean isFlashEnabled() {
+        return mFlashEnabled;
+    }
+
+    @Override
+    public void setFlashEnabled(final boolean enabled) {
+        if (enabled && !mFlashAvailable) {
+            LOG.warn("Flash not supported");
+            return;
+        }
+        mFlashEnabled = enabled;
+        LOG.debug("Flash set to: {}", enabled);
+        if (mPreviewRequestBuilder != null) {
+            applyAutoExposureMode(mPreviewRequestBuilder);
+            updateRepeatingRequest();
+        }
+    }
+
+    @Override
+    public void setFastCaptureEnabled(final boolean enabled) {
+        mFastCaptureEnabled = enabled;
+    }
+
+    @Override
+    public void setCaptureLatencyHistogram(@Nullable final CaptureLatencyHistogram histogram) {
+        mCaptureLatencyHistogram = histogram;
+    }
+
+    @NonNull
+    @Override
+    public CameraLifecycleTimings getLifecycleTimings() {
+        return mLifecycleTimings;
+    }
+
+    private synchronized boolean loadCharacteristics() throws CameraAccessException {
+        if (mCharacteristics != null) {
+            return true;
+        }
+        mCameraId = findBackFacingCameraId(mCameraManager);
+        if (mCameraId == null) {
+            return false;
+        }
+        mCharacteristics = mCameraManager.getCameraCharacteristics(mCameraId);
+        return true;
+    }
+
+    @Nullable
+    private static String findBackFacingCameraId(@NonNull final CameraManager cameraManager)
+            throws CameraAccessException {
+        for (final String cameraId : cameraManager.getCameraIdList()) {
+            final Integer facing = cameraManager.getCameraCharacteristics(cameraId)
+                    .get(CameraCharacteristics.LENS_FACING);
+            if (facing != null && facing == CameraCharacteristics.LENS_FACING_BACK) {
+                return cameraId;
+            }
+        }
+        return null;
+    }
+
+    private void configureCamera() {
+        LOG.debug("Configuring camera");
+        selectPictureAndPreviewSize();
+
+        final int[] afModes = mCharacteristics.get(
+                CameraCharacteristics.CONTROL_AF_AVAILABLE_MODES);
+        mAutoFocusSupported = contains(afModes, CameraCharacteristics.CONTROL_AF_MODE_AUTO);
+        mContinuousFocusSupported = contains(afModes,
+                CameraCharacteristics.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
+        if (!mContinuousFocusSupported) {
+            LOG.warn("Focus mode continuous picture not supported");
+        }
+        final Integer maxAfRegions = mCharacteristics.get(
+                CameraCharacteristics.CONTROL_MAX_REGIONS_AF);
+        mAfRegionsSupported = maxAfRegions != null && maxAfRegions > 0;
+
+        final Boolean flashAvailable = mCharacteristics.get(
+                CameraCharacteristics.FLASH_INFO_AVAILABLE);
+        mFlashAvailable = flashAvailable != null && flashAvailable;
+        // Flash is on by default like in the CameraController
+        mFlashEnabled = mFlashAvailable;
+        if (!mFlashAvailable) {
+            LOG.warn("Flash not supported");
+        }
+    }
+
+    private void selectPictureAndPreviewSize() {
+        final StreamConfigurationMap configurationMap = mCharacteristics.get(
+                CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+        if (configurationMap == null) {
+            LOG.warn("No stream configuration map");
+            return;
+        }
+        final Size[] pictureSizes = toSizes(configurationMap.getOutputSizes(ImageFormat.JPEG));
+        final Size[] previewSizes = getPreviewSizes(configurationMap);
+        final Pair<Size, Size> sizes = getBestSize(pictureSizes, previewSizes,
+                CameraResolutionRequirement.MAX_PICTURE_AREA,
+                CameraResolutionRequirement.MIN_PICTURE_AREA,
+                CameraResolutionRequirement.MIN_ASPECT_RATIO);
+        if (sizes != null) {
+            mPictureSize = sizes.first;
+            LOG.debug("Picture size ({}, {})", mPictureSize.width, mPictureSize.height);
+            mPreviewSize = sizes.second;
+            LOG.debug("Preview size ({}, {})", mPreviewSize.width, mPreviewSize.height);
+        } else {
+            LOG.warn("No suitable picture and preview size found");
+        }
+    }
+
+    /**
+     * Returns the preview sizes which can also be used for the YUV stream and are not larger than
+     * 1080p.
+     */
+    @NonNull
+    private static Size[] getPreviewSizes(@NonNull final StreamConfigurationMap configurationMap) {
+        final List<android.util.Size> yuvSizes = Arrays.asList(
+                configurationMap.getOutputSizes(ImageFormat.YUV_420_888));
+        final List<Size> previewSizes = new ArrayList<>();
+        for (final android.util.Size size : configurationMap.getOutputSizes(SurfaceHolder.class)) {
+            if (size.getWidth() * size.getHeight() <= MAX_PREVIEW_AREA
+                    && yuvSizes.contains(size)) {
+                previewSizes.add(new Size(size.getWidth(), size.getHeight()));
+            }
+        }
+        return previewSizes.toArray(new Size[0]);
+    }
+
+    @NonNull
+    private static Size[] toSizes(@Nullable final android.util.Size[] cameraSizes) {
+        if (cameraSizes == null) {
+            return new Size[0];
+        }
+        final Size[] sizes = new Size[cameraSizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = new Size(cameraSizes[i].getWidth(), cameraSizes[i].getHeight());
+        }
+        return sizes;
+    }
+
+    private void closeOnCameraThread(@Nullable final CameraCaptureSession captureSession,
+            @Nullable final CameraDevice cameraDevice) {
+        if (captureSession != null) {
+            captureSession.close();
+        }
+        if (cameraDevice != null) {
+            cameraDevice.close();
+        }
+        // The image callbacks also run on this thread, so none of them holds an image anymore
+        closeImageReaders();
+    }
+
+    private void closeImageReaders() {
+        if (mJpegImageReader != null) {
+            mJpegImageReader.close();
+            mJpegImageReader = null; // NOPMD
+        }
+        if (mYuvImageReader != null) {
+            mYuvImageReader.close();
+            mYuvImageReader = null; // NOPMD
+        }
+    }
+
+    @NonNull
+    private static synchronized Handler getCameraHandler() {
+        if (sCameraHandler == null) {
+            final HandlerThread cameraThread = new HandlerThread("Camera2Thread",
+                    Process.THREAD_PRIORITY_DISPLAY);
+            cameraThread.start();
+            sCameraHandler = new Handler(cameraThread.getLooper());
+        }
+        return sCameraHandler;
+    }
+
+    private void createImageReaders() {
+        mJpegImageReader = ImageReader.newInstance(mPictureSize.width, mPictureSize.height,
+                ImageFormat.JPEG, 2);
+        mJpegImageReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
+            @Override
+            public void onImageAvailable(final ImageReader reader) {
+                onJpegImageAvailable(reader);
+            }
+        }, mCameraHandler);
+        mYuvImageReader = ImageReader.newInstance(mPreviewSize.width, mPreviewSize.height,
+                ImageFormat.YUV_420_888, 2);
+        mYuvImageReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
+            @Override
+            public void onImageAvailable(final ImageReader reader) {
+                onPreviewImageAvailable(reader);
+            }
+        }, mCameraHandler);
+    }
+
+    private void createCaptureSession(@NonNull final Surface previewSurface,
+            @NonNull final CompletableFuture<Void> previewStarted) {
+        if (mCameraDevice == null) {
+            failOnUiThread(previewStarted,
+                    new CameraException("Cannot start preview: camera not open"));
+            return;
+        }
+        try {
+            final boolean deliverPreviewFrames = mPreviewCallback != null;
+            final List<Surface> outputs = new ArrayList<>(3);
+            outputs.add(previewSurface);
+            outputs.add(mJpegImageReader.getSurface());
+            if (deliverPreviewFrames) {
+                outputs.add(mYuvImageReader.getSurface());
+            }
+
+            mPreviewRequestBuilder = mCameraDevice.createCaptureRequest(
+                    CameraDevice.TEMPLATE_PREVIEW);
+            mPreviewRequestBuilder.addTarget(previewSurface);
+            if (deliverPreviewFrames) {
+                mPreviewRequestBuilder.addTarget(mYuvImageReader.getSurface());
+            }
+            mPreviewRequestBuilder.set(CaptureRequest.CONTROL_MODE,
+                    CameraCharacteristics.CONTROL_MODE_AUTO);
+            applyDefaultFocusMode(mPreviewRequestBuilder);
+            applyAutoExposureMode(mPreviewRequestBuilder);
+
+            final long startPreviewStartMs = SystemClock.elapsedRealtime();
+            mCameraDevice.createCaptureSession(outputs, new CameraCaptureSession.StateCallback() {
+                @Override
+                public void onConfigured(@NonNull final CameraCaptureSession session) {
+                    if (mCameraDevice == null) {
+                        failOnUiThread(previewStarted,
+                                new CameraException("Cannot start preview: camera closed"));
+                        return;
+                    }
+                    mCaptureSession = session;
+                    try {
+                        mState = STATE_PREVIEW;
+                        session.setRepeatingRequest(mPreviewRequestBuilder.build(),
+                                mCaptureCallback, mCameraHandler);
+                        mPreviewRunning = true;
+                        mLifecycleTimings.setStartPreviewMs(
+                                SystemClock.elapsedRealtime() - startPreviewStartMs);
+                        LOG.info("Preview started: {}", mLifecycleTimings);
+                        completeOnUiThread(previewStarted, null);
+                    } catch (final CameraAccessException | RuntimeException e) {
+                        LOG.error("Cannot start preview", e);
+                        failOnUiThread(previewStarted, e);
+                    }
+                }
+
+                @Override
+                public void onConfigureFailed(@NonNull final CameraCaptureSession session) {
+                    LOG.error("Cannot start preview: capture session configuration failed");
+                    failOnUiThread(previewStarted, new CameraException(
+                            "Cannot start preview: capture session configuration failed"));
+                }
+            }, mCameraHandler);
+        } catch (final CameraAccessException | RuntimeException e) {
+            LOG.error("Cannot start preview", e);
+            failOnUiThread(previewStarted, e);
+        }
+    }
+
+    private final CameraCaptureSession.CaptureCallback mCaptureCallback =
+            new CameraCaptureSession.CaptureCallback() {
+                @Override
+                public void onCaptureCompleted(@NonNull final CameraCaptureSession session,
+                        @NonNull final CaptureRequest request,
+                        @NonNull final TotalCaptureResult result) {
+                    // Only the first call is recorded
+                    StartupTrace.mark(StartupTrace.Milestone.FIRST_PREVIEW_FRAME);
+                    process(result);
+                }
+
+                private void process(@NonNull final CaptureResult result) {
+                    mLastAfState = result.get(CaptureResult.CONTROL_AF_STATE);
+                    switch (mState) {
+                        case STATE_WAITING_FOCUS_LOCK:
+                            final Integer afState = result.get(CaptureResult.CONTROL_AF_STATE);
+                            if (afState == null
+                                    || afState == CaptureResult.CONTROL_AF_STATE_FOCUSED_LOCKED
+                                    || afState
+                                    == CaptureResult.CONTROL_AF_STATE_NOT_FOCUSED_LOCKED) {
+                                mState = STATE_PREVIEW;
+                                mCameraHandler.removeCallbacks(mWaitFor3ATimeout);
+                                final boolean success = afState == null
+                                        || afState == CaptureResult.CONTROL_AF_STATE_FOCUSED_LOCKED;
+                                LOG.info("Focusing finished with result: {}", success);
+                                recordLatency(CaptureLatencyHistogram.Stage.FOCUS,
+                                        mFocusStartMs);
+                                mLastFocusSuccessMs = success ? SystemClock.elapsedRealtime()
+                                        : -1;
+                                final CompletableFuture<Boolean> focusing =
+                                        mFocusingFuture.getAndSet(null);
+                                if (focusing != null) {
+                                    completeOnUiThread(focusing, success);
+                                }
+                            }
+                            break;
+                        case STATE_WAITING_PRECAPTURE:
+                            final Integer aeState = result.get(CaptureResult.CONTROL_AE_STATE);
+                            if (aeState == null
+                                    || aeState == CaptureResult.CONTROL_AE_STATE_PRECAPTURE
+                                    || aeState == CaptureResult.CONTROL_AE_STATE_FLASH_REQUIRED
+                                    || aeState == CaptureResult.CONTROL_AE_STATE_CONVERGED) {
+                                mState = STATE_WAITING_NON_PRECAPTURE;
+                            }
+                            break;
+                        case STATE_WAITING_NON_PRECAPTURE:
+                            final Integer currentAeState = result.get(
+                                    CaptureResult.CONTROL_AE_STATE);
+                            if (currentAeState == null
+                                    || currentAeState != CaptureResult.CONTROL_AE_STATE_PRECAPTURE) {
+                                captureStillPicture();
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            };
+
+    private void runPrecaptureSequence() {
+        try {
+            mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER,
+                    CameraCharacteristics.CONTROL_AE_PRECAPTURE_TRIGGER_START);
+            mState = STATE_WAITING_PRECAPTURE;
+            mCaptureSession.capture(mPreviewRequestBuilder.build(), mCaptureCallback,
+                    mCameraHandler);
+            mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER,
+                    CameraCharacteristics.CONTROL_AE_PRECAPTURE_TRIGGER_IDLE);
+            postWaitFor3ATimeout();
+        } catch (final CameraAccessException | RuntimeException e) {
+            LOG.error("Precapture metering failed", e);
+            captureStillPicture();
+        }
+    }
+
+    private void postWaitFor3ATimeout() {
+        mCameraHandler.removeCallbacks(mWaitFor3ATimeout);
+        mCameraHandler.postDelayed(mWaitFor3ATimeout, WAIT_FOR_3A_TIMEOUT_MS);
+    }
+
+    private void captureStillPicture() {
+        mState = STATE_CAPTURING;
+        mCameraHandler.removeCallbacks(mWaitFor3ATimeout);
+        if (mCameraDevice == null || mCaptureSession == null) {
+            failPictureCapture(new CameraException("Cannot take picture: camera not open"));
+            return;
+        }
+        try {
+            final CaptureRequest.Builder captureBuilder = mCameraDevice.createCaptureRequest(
+                    CameraDevice.TEMPLATE_STILL_CAPTURE);
+            captureBuilder.addTarget(mJpegImageReader.getSurface());
+            captureBuilder.set(CaptureRequest.CONTROL_MODE,
+                    CameraCharacteristics.CONTROL_MODE_AUTO);
+            captureBuilder.set(CaptureRequest.CONTROL_AF_MODE,
+                    mPreviewRequestBuilder.get(CaptureRequest.CONTROL_AF_MODE));
+            applyAutoExposureMode(captureBuilder);
+            // The JPEG is not rotated, the rotation is stored in the Photo like with the
+            // CameraController
+            mCaptureSession.stopRepeating();
+            mCaptureStartMs = SystemClock.elapsedRealtime();
+            mShutterMs = -1;
+            mCaptureSession.capture(captureBuilder.build(),
+                    new CameraCaptureSession.CaptureCallback() {
+                        @Override
+                        public void onCaptureStarted(@NonNull final CameraCaptureSession session,
+                                @NonNull final CaptureRequest request, final long timestamp,
+                                final long frameNumber) {
+                            mShutterMs = SystemClock.elapsedRealtime();
+                            recordLatency(CaptureLatencyHistogram.Stage.CAPTURE,
+                                    mCaptureStartMs);
+                        }
+
+                        @Override
+                        public void onCaptureFailed(@NonNull final CameraCaptureSession session,
+                                @NonNull final CaptureRequest request,
+                                @NonNull final CaptureFailure failure) {
+                            LOG.error("Cannot take picture: capture failed with reason {}",
+                                    failure.getReason());
+                            unlockFocus();
+                            failPictureCapture(new CameraException(
+                                    "Cannot take picture: capture failed"));
+                        }
+                    }, mCameraHandler);
+        } catch (final CameraAccessException | RuntimeException e) {
+            LOG.error("Cannot take picture", e);
+            failPictureCapture(e);
+        }
+    }
+
+    /**
+     * Releases the focus locked for the picture. The preview is restarted by the caller of {@link
+     * #takePicture()}.
+     */
+    private void unlockFocus() {
+        final CameraCaptureSession captureSession = mCaptureSession;
+        if (captureSession == null) {
+            return;
+        }
+        try {
+            mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AF_TRIGGER,
+                    CameraCharacteristics.CONTROL_AF_TRIGGER_CANCEL);
+            captureSession.capture(mPreviewRequestBuilder.build(), null, mCameraHandler);
+        } catch (final CameraAccessException | RuntimeException e) {
+            LOG.error("Could not unlock the focus", e);
+        } finally {
+            mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AF_TRIGGER,
+                    CameraCharacteristics.CONTROL_AF_TRIGGER_IDLE);
+        }
+    }
+
+    private void onJpegImageAvailable(@NonNull final ImageReader reader) {
+        final Image image = reader.acquireNextImage();
+        if (image == null) {
+            return;
+        }
+        final byte[] jpeg;
+        try {
+            final ByteBuffer buffer = image.getPlanes()[0].getBuffer();
+            jpeg = new byte[buffer.remaining()];
+            buffer.get(jpeg);
+        } finally {
+            image.close();
+        }
+        if (mShutterMs >= 0) {
+            recordLatency(CaptureLatencyHistogram.Stage.JPEG_CALLBACK, mShutterMs);
+        }
+        mState = STATE_PREVIEW;
+        final CompletableFuture<Photo> pictureTaken = mTakingPictureFuture.getAndSet(null);
+        if (pictureTaken == null) {
+            return;
+        }
+        final Photo photo = PhotoFactory.newPhotoFromJpeg(jpeg,
+                getCameraRotation(),
+                getDeviceOrientation(mActivity),
+                getDeviceType(mActivity),
+                Document.Source.newCameraSource());
+        LOG.info("Picture taken");
+        completeOnUiThread(pictureTaken, photo);
+    }
+
+    private void failPictureCapture(@NonNull final Throwable throwable) {
+        mState = STATE_PREVIEW;
+        final CompletableFuture<Photo> pictureTaken = mTakingPictureFuture.getAndSet(null);
+        if (pictureTaken != null) {
+            failOnUiThread(pictureTaken, throwable);
+        }
+    }
+
+    private void onPreviewImageAvailable(@NonNull final ImageReader reader) {
+        final Image image = reader.acquireLatestImage();
+        if (image == null) {
+            return;
+        }
+        try {
+            final Camera.PreviewCallback previewCallback = mPreviewCallback;
+            if (previewCallback == null) {
+                return;
+            }
+            final byte[] buffer = obtainPreviewBuffer();
+            if (buffer == null) {
+                // All buffers are still used for detection: drop the frame
+                return;
+            }
+            copyLuminancePlane(image, buffer);
+            previewCallback.onPreviewFrame(buffer, null);
+        } finally {
+            image.close();
+        }
+    }
+
+    @Nullable
+    private byte[] obtainPreviewBuffer() {
+        synchronized (mPreviewBuffers) {
+            final byte[] buffer = mPreviewBuffers.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+            if (mAllocatedPreviewBuffers == MAX_PREVIEW_BUFFERS) {
+                return null;
+            }
+            mAllocatedPreviewBuffers++;
+        }
+        // NV21 with neutral chroma: only the luminance is needed for QRCode detection
+        final int lumaLength = mPreviewSize.width * mPreviewSize.height;
+        final byte[] buffer = new byte[getPreviewBufferLength()];
+        Arrays.fill(buffer, lumaLength, buffer.length, (byte) 128);
+        return buffer;
+    }
+
+    private int getPreviewBufferLength() {
+        final int lumaLength = mPreviewSize.width * mPreviewSize.height;
+        return lumaLength + lumaLength / 2;
+    }
+
+    private void copyLuminancePlane(@NonNull final Image image, @NonNull final byte[] buffer) {
+        final Image.Plane lumaPlane = image.getPlanes()[0];
+        final ByteBuffer luma = lumaPlane.getBuffer();
+        final int rowStride = lumaPlane.getRowStride();
+        final int width = mPreviewSize.width;
+        final int height = mPreviewSize.height;
+        if (rowStride == width) {
+            luma.position(0);
+            luma.get(buffer, 0, width * height);
+            return;
+        }
+        for (int row = 0; row < height; row++) {
+            luma.position(row * rowStride);
+            luma.get(buffer, row * width, width);
+        }
+    }
+
+    private void applyDefaultFocusMode(@NonNull final CaptureRequest.Builder builder) {
+        builder.set(CaptureRequest.CONTROL_AF_REGIONS, null);
+        if (mContinuousFocusSupported) {
+            builder.set(CaptureRequest.CONTROL_AF_MODE,
+                    CameraCharacteristics.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
+        } else if (mAutoFocusSupported) {
+            builder.set(CaptureRequest.CONTROL_AF_MODE,
+                    CameraCharacteristics.CONTROL_AF_MODE_AUTO);
+        }
+    }
+
+    private void applyAutoExposureMode(@NonNull final CaptureRequest.Builder builder) {
+        builder.set(CaptureRequest.CONTROL_AE_MODE, mFlashEnabled
+                ? CameraCharacteristics.CONTROL_AE_MODE_ON_ALWAYS_FLASH
+                : CameraCharacteristics.CONTROL_AE_MODE_ON);
+    }
+
+    private boolean hasRecentFocusSuccess() {
+        final long lastFocusSuccessMs = mLastFocusSuccessMs;
+        return lastFocusSuccessMs >= 0
+                && SystemClock.elapsedRealtime() - lastFocusSuccessMs <= FOCUS_REUSE_TIMEOUT_MS;
+    }
+
+    private void recordLatency(@NonNull final CaptureLatencyHistogram.Stage stage,
+            final long startMs) {
+        final CaptureLatencyHistogram histogram = mCaptureLatencyHistogram;
+        if (histogram != null) {
+            histogram.record(stage, SystemClock.elapsedRealtime() - startMs);
+        }
+    }
+
+    private boolean isUsingContinuousFocus() {
+        final Integer afMode = mPreviewRequestBuilder.get(CaptureRequest.CONTROL_AF_MODE);
+        return afMode != null && afMode == CameraCharacteristics.CONTROL_AF_MODE_CONTINUOUS_PICTURE;
+    }
+
+    private void updateRepeatingRequest() {
+        if (mCaptureSession == null || !mPreviewRunning) {
+            return;
+        }
+        try {
+            mCaptureSession.setRepeatingRequest(mPreviewRequestBuilder.build(), mCaptureCallback,
+                    mCameraHandler);
+        } catch (final CameraAccessException | RuntimeException e) {
+            LOG.error("Could not update the preview request", e);
+        }
+    }
+
+    /**
+     * Converts the tap's coordinates in the view to a metering rectangle in the sensor's active
+     * array coordinates. The view shows the sensor image rotated clockwise by the camera rotation,
+     * so the tap is rotated back before scaling it to the active array.
+     */
+    @NonNull
+    private MeteringRectangle calculateTapArea(final float x, final float y,
+            final int tapViewWidth, final int tapViewHeight) {
+        final float viewX = x / tapViewWidth;
+        final float viewY = y / tapViewHeight;
+        final float sensorX;
+        final float sensorY;
+        switch (getCameraRotation()) {
+            case 90:
+                sensorX = viewY;
+                sensorY = 1 - viewX;
+                break;
+            case 180:
+                sensorX = 1 - viewX;
+                sensorY = 1 - viewY;
+                break;
+            case 270:
+                sensorX = 1 - viewY;
+                sensorY = viewX;
+                break;
+            default:
+                sensorX = viewX;
+                sensorY = viewY;
+                break;
+        }
+        final Rect activeArray = mCharacteristics.get(
+                CameraCharacteristics.SENSOR_INFO_ACTIVE_ARRAY_SIZE);
+        final Rect sensorArea = activeArray != null ? activeArray
+                : new Rect(0, 0, mPictureSize.width, mPictureSize.height);
+        final int halfSize = Math.round(
+                Math.min(sensorArea.width(), sensorArea.height()) * TAP_AREA_RATIO / 2);
+        final int centerX = sensorArea.left + Math.round(sensorX * sensorArea.width());
+        final int centerY = sensorArea.top + Math.round(sensorY * sensorArea.height());
+        final int left = clamp(centerX - halfSize, sensorArea.left,
+                sensorArea.right - 2 * halfSize);
+        final int top = clamp(centerY - halfSize, sensorArea.top,
+                sensorArea.bottom - 2 * halfSize);
+        return new MeteringRectangle(left, top, 2 * halfSize, 2 * halfSize,
+                MeteringRectangle.METERING_WEIGHT_MAX - 1);
+    }
+
+    private boolean hasPreviewSize(@NonNull final Rect surfaceFrame) {
+        return surfaceFrame.width() == mPreviewSize.width
+                && surfaceFrame.height() == mPreviewSize.height;
+    }
+
+    private void removeSurfaceSizeCallback() {
+        if (mSurfaceHolder != null && mSurfaceSizeCallback != null) {
+            mSurfaceHolder.removeCallback(mSurfaceSizeCallback);
+        }
+        mSurfaceSizeCallback = null; // NOPMD
+    }
+
+    private <T> void completeOnUiThread(@NonNull final CompletableFuture<T> future,
+            @Nullable final T value) {
+        mUIExecutor.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                future.complete(value);
+            }
+        });
+    }
+
+    private <T> void failOnUiThread(@NonNull final CompletableFuture<T> future,
+            @NonNull final Throwable throwable) {
+        mUIExecutor.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                future.completeExceptionally(throwable);
+            }
+        });
+    }
+
+    private static int clamp(final int value, final int min, final int max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    private static boolean contains(@Nullable final int[] values, final int value) {
+        if (values == null) {
+            return false;
+        }
+        for (final int item : values) {
+            if (item == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(final Throwable throwable) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+}
@@ -0,0 +1,173 @@
+package net.gini.android.vision.internal.camera.api;
+
+import android.hardware.Camera;
+
+import net.gini.android.vision.internal.util.Size;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Internal use only.
+ *
+ * <p> The back-facing camera's supported picture and preview sizes, focus modes, flash modes and
+ * sensor orientation. Reading them requires opening the camera, so they are read once and kept in
+ * the {@link CameraCapabilitiesStore}.
+ *
+ * @suppress
+ */
+public class CameraCapabilities {
+
+    private static final String KEY_PICTURE_SIZES = "pictureSizes";
+    private static final String KEY_PREVIEW_SIZES = "previewSizes";
+    private static final String KEY_FOCUS_MODES = "focusModes";
+    private static final String KEY_FLASH_MODES = "flashModes";
+    private static final String KEY_ORIENTATION = "orientation";
+
+    private final Size[] mPictureSizes;
+    private final Size[] mPreviewSizes;
+    private final List<String> mFocusModes;
+    private final List<String> mFlashModes;
+    private final int mOrientation;
+
+    /**
+     * @param parameters  the parameters of the opened back-facing camera
+     * @param orientation the back-facing camera's sensor orientation in degrees
+     *
+     * @return the capabilities of the camera
+     */
+    @NonNull
+    public static CameraCapabilities create(@NonNull final Camera.Parameters parameters,
+            final int orientation) {
+        return new CameraCapabilities(toSizes(parameters.getSupportedPictureSizes()),
+                toSizes(parameters.getSupportedPreviewSizes()),
+                copyOf(parameters.getSupportedFocusModes()),
+                copyOf(parameters.getSupportedFlashModes()),
+                orientation);
+    }
+
+    CameraCapabilities(@NonNull final Size[] pictureSizes, @NonNull final Size[] previewSizes,
+            @NonNull final List<String> focusModes, @NonNull final List<String> flashModes,
+            final int orientation) {
+        mPictureSizes = pictureSizes;
+        mPreviewSizes = previewSizes;
+        mFocusModes = focusModes;
+        mFlashModes = flashModes;
+        mOrientation = orientation;
+    }
+
+    @NonNull
+    public Size[] getPictureSizes() {
+        return mPictureSizes;
+    }
+
+    @NonNull
+    public Size[] getPreviewSizes() {
+        return mPreviewSizes;
+    }
+
+    public boolean isFocusModeSupported(@NonNull final String focusMode) {
+        return mFocusModes.contains(focusMode);
+    }
+
+    public boolean isFlashModeSupported(@NonNull final String flashMode) {
+        return mFlashModes.contains(flashMode);
+    }
+
+    /**
+     * @return the back-facing camera's sensor orientation in degrees
+     */
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    @NonNull
+    JSONObject toJson() throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put(KEY_PICTURE_SIZES, sizesToJson(mPictureSizes));
+        json.put(KEY_PREVIEW_SIZES, sizesToJson(mPreviewSizes));
+        json.put(KEY_FOCUS_MODES, new JSONArray(mFocusModes));
+        json.put(KEY_FLASH_MODES, new JSONArray(mFlashModes));
+        json.put(KEY_ORIENTATION, mOrientation);
+        return json;
+    }
+
+    @NonNull
+    static CameraCapabilities fromJson(@NonNull final JSONObject json) throws JSONException {
+        return new CameraCapabilities(sizesFromJson(json.getJSONArray(KEY_PICTURE_SIZES)),
+                sizesFromJson(json.getJSONArray(KEY_PREVIEW_SIZES)),
+                stringsFromJson(json.getJSONArray(KEY_FOCUS_MODES)),
+                stringsFromJson(json.getJSONArray(KEY_FLASH_MODES)),
+                json.getInt(KEY_ORIENTATION));
+    }
+
+    @NonNull
+    private static JSONArray sizesToJson(@NonNull final Size[] sizes) {
+        final JSONArray json = new JSONArray();
+        for (final Size size : sizes) {
+            json.put(size.width);
+            json.put(size.height);
+        }
+        return json;
+    }
+
+    @NonNull
+    private static Size[] sizesFromJson(@NonNull final JSONArray json) throws JSONException {
+        final Size[] sizes = new Size[json.length() / 2];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = new Size(json.getInt(2 * i), json.getInt(2 * i + 1));
+        }
+        return sizes;
+    }
+
+    @NonNull
+    private static List<String> stringsFromJson(@NonNull final JSONArray json)
+            throws JSONException {
+        final List<String> strings = new ArrayList<>(json.length());
+        for (int i = 0; i < json.length(); i++) {
+            strings.add(json.getString(i));
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    @NonNull
+    private static Size[] toSizes(@Nullable final List<Camera.Size> cameraSizes) {
+        if (cameraSizes == null) {
+            return new Size[0];
+        }
+        final Size[] sizes = new Size[cameraSizes.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            final Camera.Size cameraSize = cameraSizes.get(i);
+            sizes[i] = new Size(cameraSize.width, cameraSize.height);
+        }
+        return sizes;
+    }
+
+    @NonNull
+    private static List<String> copyOf(@Nullable final List<String> strings) {
+        if (strings == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(strings));
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "CameraCapabilities{"
+                + "pictureSizes=" + mPictureSizes.length
+                + ", previewSizes=" + mPreviewSizes.length
+                + ", focusModes=" + mFocusModes
+                + ", flashModes=" + mFlashModes
+                + ", orientation=" + mOrientation
+                + '}';
+    }
+}
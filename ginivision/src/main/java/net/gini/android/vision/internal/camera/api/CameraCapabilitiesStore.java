@@ -0,0 +1,176 @@
+package net.gini.android.vision.internal.camera.api;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import net.gini.android.vision.internal.util.Size;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Internal use only.
+ *
+ * <p> Persists the {@link CameraCapabilities} shared by the requirements checks and the {@link
+ * CameraController}'s parameter negotiation together with the {@link CameraConfiguration}
+ * negotiated from them. Both are only returned on the device and OS build they were read on, so an
+ * OS update causes them to be read again.
+ *
+ * <p> The shared preferences are read on first use and not when the store is created, so the
+ * {@link CameraController} can be created on the main thread and read them on its camera thread.
+ *
+ * @suppress
+ */
+public class CameraCapabilitiesStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CameraCapabilitiesStore.class);
+
+    private static final String CAMERA_CAPABILITIES_PREFS = "GV_CAMERA_CAPABILITIES";
+    private static final String KEY_FINGERPRINT = "FINGERPRINT";
+    private static final String KEY_CAPABILITIES = "CAPABILITIES";
+    private static final String KEY_PICTURE_WIDTH = "PICTURE_WIDTH";
+    private static final String KEY_PICTURE_HEIGHT = "PICTURE_HEIGHT";
+    private static final String KEY_PREVIEW_WIDTH = "PREVIEW_WIDTH";
+    private static final String KEY_PREVIEW_HEIGHT = "PREVIEW_HEIGHT";
+    private static final String KEY_FOCUS_MODE = "FOCUS_MODE";
+    private static final String KEY_FLASH_MODE = "FLASH_MODE";
+
+    private final Context mContext;
+    private final String mFingerprint;
+    private SharedPreferences mSharedPreferences;
+
+    public CameraCapabilitiesStore(@NonNull final Context context) {
+        this(context, Build.FINGERPRINT);
+    }
+
+    @VisibleForTesting
+    CameraCapabilitiesStore(@NonNull final Context context, @NonNull final String fingerprint) {
+        mContext = context.getApplicationContext();
+        mFingerprint = fingerprint;
+    }
+
+    /**
+     * @return the stored capabilities or null, if there are none for this device and OS build
+     */
+    @Nullable
+    public synchronized CameraCapabilities load() {
+        final SharedPreferences sharedPreferences = getSharedPreferences();
+        if (!isStoredForThisBuild(sharedPreferences)) {
+            return null;
+        }
+        final String capabilitiesJson = sharedPreferences.getString(KEY_CAPABILITIES, null);
+        if (capabilitiesJson == null) {
+            return null;
+        }
+        try {
+            return CameraCapabilities.fromJson(new JSONObject(capabilitiesJson));
+        } catch (final JSONException e) {
+            LOG.error("Could not read the stored camera capabilities", e);
+            clear();
+            return null;
+        }
+    }
+
+    public synchronized void save(@NonNull final CameraCapabilities capabilities) {
+        try {
+            edit()
+                    .putString(KEY_CAPABILITIES, capabilities.toJson().toString())
+                    .apply();
+            LOG.debug("Saved {}", capabilities);
+        } catch (final JSONException e) {
+            LOG.error("Could not store the camera capabilities", e);
+        }
+    }
+
+    /**
+     * Clears the capabilities and the configuration which was negotiated from them.
+     */
+    public synchronized void clear() {
+        getSharedPreferences().edit()
+                .clear()
+                .apply();
+        LOG.debug("Cleared camera capabilities");
+    }
+
+    /**
+     * @return the stored configuration or null, if there is none for this device and OS build
+     */
+    @Nullable
+    synchronized CameraConfiguration loadConfiguration() {
+        final SharedPreferences sharedPreferences = getSharedPreferences();
+        if (!isStoredForThisBuild(sharedPreferences)) {
+            return null;
+        }
+        final Size pictureSize = new Size(sharedPreferences.getInt(KEY_PICTURE_WIDTH, 0),
+                sharedPreferences.getInt(KEY_PICTURE_HEIGHT, 0));
+        final Size previewSize = new Size(sharedPreferences.getInt(KEY_PREVIEW_WIDTH, 0),
+                sharedPreferences.getInt(KEY_PREVIEW_HEIGHT, 0));
+        if (pictureSize.width <= 0 || pictureSize.height <= 0
+                || previewSize.width <= 0 || previewSize.height <= 0) {
+            return null;
+        }
+        return new CameraConfiguration(pictureSize, previewSize,
+                sharedPreferences.getString(KEY_FOCUS_MODE, null),
+                sharedPreferences.getString(KEY_FLASH_MODE, null));
+    }
+
+    synchronized void saveConfiguration(@NonNull final CameraConfiguration configuration) {
+        edit()
+                .putInt(KEY_PICTURE_WIDTH, configuration.pictureSize.width)
+                .putInt(KEY_PICTURE_HEIGHT, configuration.pictureSize.height)
+                .putInt(KEY_PREVIEW_WIDTH, configuration.previewSize.width)
+                .putInt(KEY_PREVIEW_HEIGHT, configuration.previewSize.height)
+                .putString(KEY_FOCUS_MODE, configuration.focusMode)
+                .putString(KEY_FLASH_MODE, configuration.flashMode)
+                .apply();
+        LOG.debug("Saved camera configuration {}", configuration);
+    }
+
+    /**
+     * Clears only the configuration and keeps the capabilities.
+     */
+    synchronized void clearConfiguration() {
+        getSharedPreferences().edit()
+                .remove(KEY_PICTURE_WIDTH)
+                .remove(KEY_PICTURE_HEIGHT)
+                .remove(KEY_PREVIEW_WIDTH)
+                .remove(KEY_PREVIEW_HEIGHT)
+                .remove(KEY_FOCUS_MODE)
+                .remove(KEY_FLASH_MODE)
+                .apply();
+        LOG.debug("Cleared camera configuration");
+    }
+
+    @NonNull
+    private SharedPreferences getSharedPreferences() {
+        if (mSharedPreferences == null) {
+            mSharedPreferences = mContext.getSharedPreferences(CAMERA_CAPABILITIES_PREFS,
+                    Context.MODE_PRIVATE);
+        }
+        return mSharedPreferences;
+    }
+
+    private boolean isStoredForThisBuild(@NonNull final SharedPreferences sharedPreferences) {
+        return mFingerprint.equals(sharedPreferences.getString(KEY_FINGERPRINT, null));
+    }
+
+    /**
+     * Entries of another device or OS build are removed, so they can't be mixed with the new ones.
+     */
+    @NonNull
+    private SharedPreferences.Editor edit() {
+        final SharedPreferences sharedPreferences = getSharedPreferences();
+        final SharedPreferences.Editor editor = sharedPreferences.edit();
+        if (!isStoredForThisBuild(sharedPreferences)) {
+            editor.clear();
+        }
+        return editor.putString(KEY_FINGERPRINT, mFingerprint);
+    }
+}
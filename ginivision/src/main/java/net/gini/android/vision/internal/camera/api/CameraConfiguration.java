@@ -0,0 +1,42 @@
+package net.gini.android.vision.internal.camera.api;
+
+import net.gini.android.vision.internal.util.Size;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Internal use only.
+ *
+ * <p> The camera parameters selected by the {@link CameraController}.
+ *
+ * @suppress
+ */
+class CameraConfiguration {
+
+    final Size pictureSize;
+    final Size previewSize;
+    @Nullable
+    final String focusMode;
+    @Nullable
+    final String flashMode;
+
+    CameraConfiguration(@NonNull final Size pictureSize, @NonNull final Size previewSize,
+            @Nullable final String focusMode, @Nullable final String flashMode) {
+        this.pictureSize = pictureSize;
+        this.previewSize = previewSize;
+        this.focusMode = focusMode;
+        this.flashMode = flashMode;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "CameraConfiguration{"
+                + "pictureSize=" + pictureSize
+                + ", previewSize=" + previewSize
+                + ", focusMode=" + focusMode
+                + ", flashMode=" + flashMode
+                + '}';
+    }
+}
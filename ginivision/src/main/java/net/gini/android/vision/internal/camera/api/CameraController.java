@@ -7,6 +7,9 @@ import android.graphics.Rect;
 import android.graphics.RectF;
 import android.hardware.Camera;
 import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
 import android.view.MotionEvent;
 import android.view.Surface;
 import android.view.SurfaceHolder;
@@ -18,6 +21,8 @@ import androidx.annotation.VisibleForTesting;
 import androidx.core.util.Pair;
 
 import net.gini.android.vision.Document;
+import net.gini.android.vision.StartupTrace;
+import net.gini.android.vision.camera.CaptureLatencyHistogram;
 import net.gini.android.vision.internal.camera.photo.Photo;
 import net.gini.android.vision.internal.camera.photo.PhotoFactory;
 import net.gini.android.vision.internal.util.Size;
@@ -33,9 +38,6 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import jersey.repackaged.jsr166e.CompletableFuture;
 
-import static net.gini.android.vision.internal.camera.api.CameraParametersHelper.isFlashModeSupported;
-import static net.gini.android.vision.internal.camera.api.CameraParametersHelper.isFocusModeSupported;
-import static net.gini.android.vision.internal.camera.api.CameraParametersHelper.isUsingFocusMode;
 import static net.gini.android.vision.internal.camera.api.SizeSelectionHelper.getBestSize;
 import static net.gini.android.vision.internal.util.DeviceHelper.getDeviceOrientation;
 import static net.gini.android.vision.internal.util.DeviceHelper.getDeviceType;
@@ -49,7 +51,22 @@ public class CameraController implements CameraInterface {
 
     private static final Logger LOG = LoggerFactory.getLogger(CameraController.class);
 
-    private Camera mCamera;
+    // With fast capture a successful focus is reused if it is not older than this
+    private static final long FOCUS_REUSE_TIMEOUT_MS = 3000;
+
+    // Set and cleared on the main thread. Every call to the camera is posted to the camera thread
+    // with the camera instance the call was posted for.
+    private volatile Camera mCamera;
+    private CompletableFuture<Void> mOpenFuture;
+    private boolean mCloseWhileOpening;
+    private CompletableFuture<Void> mPreviewStartFuture;
+    private boolean mStopPreviewWhileStarting;
+    private volatile boolean mFirstPreviewFrameReceived;
+    // Opening, configuring, starting the preview and releasing the camera happens on this thread.
+    // It is shared by all instances, so a camera released by a closed instance (e.g. before a
+    // configuration change) is always released before the next instance opens it.
+    private static Handler sCameraHandler;
+    private final Handler mCameraHandler;
 
     private boolean mPreviewRunning;
     private final AtomicReference<CompletableFuture<Boolean>> mFocusingFuture =
@@ -61,28 +78,48 @@ public class CameraController implements CameraInterface {
     private Size mPictureSize = new Size(0, 0);
 
     private final Activity mActivity;
-    private final Handler mResetFocusHandler;
+    private final UIExecutor mUIExecutor = new UIExecutor();
+    private final CameraCapabilitiesStore mCapabilitiesStore;
+    private volatile CameraCapabilities mCapabilities;
+    // The focus and flash modes set on the camera thread, to be read without querying the camera
+    private volatile String mFocusMode;
+    private volatile String mFlashMode;
+    private final CameraLifecycleTimings mLifecycleTimings = new CameraLifecycleTimings();
     private Camera.PreviewCallback mPreviewCallback;
 
+    private boolean mFastCaptureEnabled;
+    private volatile boolean mContinuousFocusMoving;
+    private boolean mReleaseFocusLock;
+    private long mLastFocusSuccessMs = -1;
+    private CaptureLatencyHistogram mCaptureLatencyHistogram;
+
+    // Posted to the camera thread
     private final Runnable mResetFocusMode = new Runnable() {
         @Override
         public void run() {
-            if (mCamera == null) {
+            final Camera camera = mCamera;
+            if (camera == null) {
+                return;
+            }
+            if (isUsingFocusMode(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE)
+                    || !supportsFocusMode(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE)) {
                 return;
             }
-            final Camera.Parameters parameters = mCamera.getParameters();
-            if (!isUsingFocusMode(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE, mCamera)
-                    && isFocusModeSupported(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE,
-                    mCamera)) {
+            try {
+                final Camera.Parameters parameters = camera.getParameters();
                 parameters.setFocusMode(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE);
+                camera.setParameters(parameters);
+                mFocusMode = Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE;
+            } catch (final RuntimeException e) {
+                LOG.error("Could not reset the focus mode", e);
             }
-            mCamera.setParameters(parameters);
         }
     };
 
     public CameraController(@NonNull final Activity activity) {
         mActivity = activity;
-        mResetFocusHandler = new Handler();
+        mCameraHandler = getCameraHandler();
+        mCapabilitiesStore = new CameraCapabilitiesStore(activity);
     }
 
     @Nullable
@@ -100,20 +137,109 @@ public class CameraController implements CameraInterface {
             LOG.info("Camera opened");
             return CompletableFuture.completedFuture(null);
         }
+        if (mOpenFuture != null) {
+            LOG.debug("Camera is being opened");
+            if (mCloseWhileOpening) {
+                // The previous caller's future was failed when the camera was closed
+                mCloseWhileOpening = false;
+                mOpenFuture = new CompletableFuture<>();
+            }
+            return mOpenFuture;
+        }
+        // Opening and configuring the camera can take hundreds of milliseconds
+        final CompletableFuture<Void> opened = new CompletableFuture<>();
+        mOpenFuture = opened;
+        mCameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                openOnCameraThread();
+            }
+        });
+        return opened;
+    }
+
+    private void openOnCameraThread() {
+        Camera camera = null;
         try {
-            mCamera = openCamera();
-            if (mCamera != null) {
-                configureCamera(mActivity);
-                LOG.info("Camera opened");
-                return CompletableFuture.completedFuture(null);
-            } else {
-                LOG.error("No back-facing camera");
-                return failedFuture(new CameraException("No back-facing camera"));
+            final long openStartMs = SystemClock.elapsedRealtime();
+            camera = openCamera();
+            if (camera == null) {
+                failOpenOnUiThread(new CameraException("No back-facing camera"));
+                return;
             }
+            mLifecycleTimings.setOpenMs(SystemClock.elapsedRealtime() - openStartMs);
+            configureCamera(mActivity, camera);
+            final Camera openedCamera = camera;
+            mUIExecutor.runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    onCameraOpened(openedCamera);
+                }
+            });
         } catch (final RuntimeException e) {
-            LOG.error("Cannot start camera", e);
-            return failedFuture(e);
+            if (camera != null) {
+                camera.release();
+            }
+            failOpenOnUiThread(e);
+        }
+    }
+
+    private void failOpenOnUiThread(@NonNull final Exception exception) {
+        mUIExecutor.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                onCameraOpenFailed(exception);
+            }
+        });
+    }
+
+    /**
+     * Completes the future returned to the latest {@link #open()} call, which was replaced if the
+     * camera was closed and opened again while it was being opened.
+     */
+    private void onCameraOpened(@NonNull final Camera camera) {
+        final CompletableFuture<Void> opened = mOpenFuture;
+        mOpenFuture = null; // NOPMD
+        if (mCloseWhileOpening) {
+            // The future was already failed by close()
+            LOG.info("Camera closed while opening");
+            mCloseWhileOpening = false;
+            releaseOnCameraThread(camera);
+            return;
+        }
+        mCamera = camera;
+        LOG.info("Camera opened: {}", mLifecycleTimings);
+        StartupTrace.mark(StartupTrace.Milestone.CAMERA_OPENED);
+        opened.complete(null);
+    }
+
+    private void onCameraOpenFailed(@NonNull final Exception exception) {
+        final CompletableFuture<Void> opened = mOpenFuture;
+        mOpenFuture = null; // NOPMD
+        mCloseWhileOpening = false;
+        LOG.error("Cannot start camera", exception);
+        opened.completeExceptionally(exception);
+    }
+
+    private void releaseOnCameraThread(@NonNull final Camera camera) {
+        // Messages are handled in order, so an open posted afterwards waits for the release
+        mCameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                camera.release();
+            }
+        });
+    }
+
+    @NonNull
+    private static synchronized Handler getCameraHandler() {
+        if (sCameraHandler == null) {
+            final HandlerThread cameraThread = new HandlerThread("CameraThread",
+                    Process.THREAD_PRIORITY_DISPLAY);
+            cameraThread.start();
+            sCameraHandler = new Handler(cameraThread.getLooper());
         }
+        return sCameraHandler;
     }
 
     @VisibleForTesting
@@ -125,13 +251,25 @@ public class CameraController implements CameraInterface {
     @Override
     public void close() {
         LOG.info("Closing camera");
+        if (mOpenFuture != null && !mCloseWhileOpening) {
+            // The camera is released once it was opened
+            mCloseWhileOpening = true;
+            mOpenFuture.completeExceptionally(
+                    new CameraException("Camera closed while it was being opened"));
+        }
         if (mCamera == null) {
             LOG.debug("Camera already closed");
             LOG.info("Camera closed");
             return;
         }
-        mCamera.release();
+        mCameraHandler.removeCallbacks(mResetFocusMode);
+        releaseOnCameraThread(mCamera);
         mCamera = null; // NOPMD
+        mPreviewStartFuture = null; // NOPMD
+        mStopPreviewWhileStarting = false;
+        mContinuousFocusMoving = false;
+        mReleaseFocusLock = false;
+        mLastFocusSuccessMs = -1;
         LOG.info("Camera closed");
     }
 
@@ -147,17 +285,90 @@ public class CameraController implements CameraInterface {
             LOG.info("Preview already running");
             return CompletableFuture.completedFuture(null);
         }
-        try {
-            mCamera.setPreviewCallback(mPreviewCallback);
-            mCamera.setPreviewDisplay(surfaceHolder);
-            mCamera.startPreview();
-            mPreviewRunning = true;
-            LOG.info("Preview started");
-        } catch (final IOException e) {
-            LOG.error("Cannot start preview", e);
-            return failedFuture(e);
+        if (mPreviewStartFuture != null) {
+            LOG.info("Preview is being started");
+            return mPreviewStartFuture;
+        }
+        return startPreviewOnCameraThread(surfaceHolder);
+    }
+
+    /**
+     * @param surfaceHolder the surface to show the preview on or null to restart the preview on
+     *                      the previously set surface
+     */
+    @NonNull
+    private CompletableFuture<Void> startPreviewOnCameraThread(
+            @Nullable final SurfaceHolder surfaceHolder) {
+        final Camera camera = mCamera;
+        final CompletableFuture<Void> previewStarted = new CompletableFuture<>();
+        mPreviewStartFuture = previewStarted;
+        final Camera.PreviewCallback previewCallback = onUiThread(mPreviewCallback);
+        final boolean releaseFocusLock = mReleaseFocusLock;
+        mReleaseFocusLock = false;
+        mCameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final long startPreviewStartMs = SystemClock.elapsedRealtime();
+                    setPreviewCallbacks(camera, previewCallback);
+                    if (surfaceHolder != null) {
+                        camera.setPreviewDisplay(surfaceHolder);
+                    }
+                    camera.startPreview();
+                    if (releaseFocusLock) {
+                        // Resumes the continuous focus
+                        safeCancelAutoFocus(camera);
+                    }
+                    if (surfaceHolder != null) {
+                        mLifecycleTimings.setStartPreviewMs(
+                                SystemClock.elapsedRealtime() - startPreviewStartMs);
+                    }
+                    mUIExecutor.runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            onPreviewStarted(previewStarted, camera);
+                        }
+                    });
+                } catch (final IOException | RuntimeException e) {
+                    mUIExecutor.runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            onPreviewStartFailed(previewStarted, e);
+                        }
+                    });
+                }
+            }
+        });
+        return previewStarted;
+    }
+
+    private void onPreviewStarted(@NonNull final CompletableFuture<Void> previewStarted,
+            @NonNull final Camera camera) {
+        if (previewStarted != mPreviewStartFuture || camera != mCamera) {
+            // The camera was closed meanwhile and the future is left incomplete
+            LOG.info("Camera closed while starting the preview");
+            return;
+        }
+        mPreviewStartFuture = null; // NOPMD
+        if (mStopPreviewWhileStarting) {
+            // The future is left incomplete as the caller is not interested in the preview anymore
+            LOG.info("Preview stopped while starting");
+            mStopPreviewWhileStarting = false;
+            return;
+        }
+        mPreviewRunning = true;
+        LOG.info("Preview started: {}", mLifecycleTimings);
+        previewStarted.complete(null);
+    }
+
+    private void onPreviewStartFailed(@NonNull final CompletableFuture<Void> previewStarted,
+            @NonNull final Exception exception) {
+        if (previewStarted == mPreviewStartFuture) {
+            mPreviewStartFuture = null; // NOPMD
+            mStopPreviewWhileStarting = false;
         }
-        return CompletableFuture.completedFuture(null);
+        LOG.error("Cannot start preview", exception);
+        previewStarted.completeExceptionally(exception);
     }
 
     @NonNull
@@ -172,11 +383,59 @@ public class CameraController implements CameraInterface {
             LOG.info("Preview already running");
             return CompletableFuture.completedFuture(null);
         }
-        mCamera.setPreviewCallback(mPreviewCallback);
-        mCamera.startPreview();
-        mPreviewRunning = true;
-        LOG.info("Preview started");
-        return CompletableFuture.completedFuture(null);
+        if (mPreviewStartFuture != null) {
+            LOG.info("Preview is being started");
+            return mPreviewStartFuture;
+        }
+        return startPreviewOnCameraThread(null);
+    }
+
+    /**
+     * Called on the camera thread. The camera was opened there and delivers its callbacks there.
+     * The preview callback is invoked on the main thread like the other callbacks.
+     */
+    private void setPreviewCallbacks(@NonNull final Camera camera,
+            @Nullable final Camera.PreviewCallback previewCallback) {
+        if (mFirstPreviewFrameReceived) {
+            camera.setPreviewCallback(previewCallback);
+            return;
+        }
+        final Camera.PreviewCallback firstFrameCallback = new Camera.PreviewCallback() {
+            @Override
+            public void onPreviewFrame(final byte[] data, final Camera camera) {
+                mFirstPreviewFrameReceived = true;
+                StartupTrace.mark(StartupTrace.Milestone.FIRST_PREVIEW_FRAME);
+                if (previewCallback != null) {
+                    // Replaces this callback for the following frames
+                    camera.setPreviewCallback(previewCallback);
+                    previewCallback.onPreviewFrame(data, camera);
+                }
+            }
+        };
+        if (previewCallback != null) {
+            camera.setPreviewCallback(firstFrameCallback);
+        } else {
+            // Without a preview callback the camera doesn't have to copy every frame
+            camera.setOneShotPreviewCallback(firstFrameCallback);
+        }
+    }
+
+    @Nullable
+    private Camera.PreviewCallback onUiThread(@Nullable final Camera.PreviewCallback callback) {
+        if (callback == null) {
+            return null;
+        }
+        return new Camera.PreviewCallback() {
+            @Override
+            public void onPreviewFrame(final byte[] data, final Camera camera) {
+                mUIExecutor.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onPreviewFrame(data, camera);
+                    }
+                });
+            }
+        };
     }
 
     @Override
@@ -186,8 +445,22 @@ public class CameraController implements CameraInterface {
             LOG.info("Preview not running: camera is stopped");
             return;
         }
-        mCamera.setPreviewCallback(null);
-        mCamera.stopPreview();
+        if (mPreviewStartFuture != null) {
+            // The preview is stopped after it was started on the camera thread
+            mStopPreviewWhileStarting = true;
+        }
+        final Camera camera = mCamera;
+        mCameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    camera.setPreviewCallback(null);
+                    camera.stopPreview();
+                } catch (final RuntimeException e) {
+                    LOG.error("Could not stop the preview", e);
+                }
+            }
+        });
         mPreviewRunning = false;
         LOG.info("Preview stopped");
     }
@@ -225,59 +498,83 @@ public class CameraController implements CameraInterface {
                         // Otherwise we set the new completable and exit the loop
                     } while (!mFocusingFuture.compareAndSet(null, focused));
 
-                    safeCancelAutoFocus(mCamera);
                     final Rect focusRect = calculateTapArea(x, y, getBackFacingCameraOrientation(),
                             view.getWidth(), view.getHeight());
                     LOG.debug("Focus rect calculated (l:{}, t:{}, r:{}, b:{})", focusRect.left,
                             focusRect.top, focusRect.right, focusRect.bottom);
-
-                    final Camera.Parameters parameters = mCamera.getParameters();
-                    if (!isUsingFocusMode(Camera.Parameters.FOCUS_MODE_AUTO, mCamera)
-                            && isFocusModeSupported(Camera.Parameters.FOCUS_MODE_AUTO, mCamera)) {
-                        parameters.setFocusMode(Camera.Parameters.FOCUS_MODE_AUTO);
-                    }
-                    if (parameters.getMaxNumFocusAreas() > 0) {
-                        final List<Camera.Area> mylist = new ArrayList<>();
-                        mylist.add(new Camera.Area(focusRect, 1000));
-                        parameters.setFocusAreas(mylist);
-                        LOG.debug("Focus area set");
-                    } else {
-                        LOG.warn("Focus areas not supported");
+                    if (listener != null) {
+                        listener.onFocusing(new Point(Math.round(x), Math.round(y)));
                     }
-
-                    try {
-                        if (listener != null) {
-                            listener.onFocusing(new Point(Math.round(x), Math.round(y)));
+                    final Camera camera = mCamera;
+                    mCameraHandler.removeCallbacks(mResetFocusMode);
+                    mCameraHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            focusOnArea(camera, focusRect, focused, listener);
                         }
-                        mCamera.setParameters(parameters);
-                        LOG.info("Focusing started");
-                        mCamera.autoFocus(new Camera.AutoFocusCallback() {
-                            @Override
-                            public void onAutoFocus(final boolean success, final Camera camera) {
-                                LOG.info("Focusing finished with result: {}", success);
-                                mFocusingFuture.set(null);
-                                focused.complete(success);
-                                if (listener != null) {
-                                    listener.onFocused(success);
-                                }
-                                mResetFocusHandler.removeCallbacks(mResetFocusMode);
-                                mResetFocusHandler.postDelayed(mResetFocusMode, 5000);
-                            }
-                        });
-                    } catch (final Exception e) {
-                        mFocusingFuture.set(null);
-                        LOG.error("Could not focus", e);
-                    }
+                    });
                 }
                 return true;
             }
         });
     }
 
-    private void safeCancelAutoFocus(Camera mCamera) {
-        if (isFocusModeSupported(Camera.Parameters.FOCUS_MODE_AUTO, mCamera)) {
+    private void focusOnArea(@NonNull final Camera camera, @NonNull final Rect focusRect,
+            @NonNull final CompletableFuture<Boolean> focused,
+            @Nullable final TapToFocusListener listener) {
+        safeCancelAutoFocus(camera);
+        try {
+            final Camera.Parameters parameters = camera.getParameters();
+            if (!isUsingFocusMode(Camera.Parameters.FOCUS_MODE_AUTO)
+                    && supportsFocusMode(Camera.Parameters.FOCUS_MODE_AUTO)) {
+                parameters.setFocusMode(Camera.Parameters.FOCUS_MODE_AUTO);
+            }
+            if (parameters.getMaxNumFocusAreas() > 0) {
+                final List<Camera.Area> mylist = new ArrayList<>();
+                mylist.add(new Camera.Area(focusRect, 1000));
+                parameters.setFocusAreas(mylist);
+                LOG.debug("Focus area set");
+            } else {
+                LOG.warn("Focus areas not supported");
+            }
+            camera.setParameters(parameters);
+            mFocusMode = parameters.getFocusMode();
+            LOG.info("Focusing started");
+            camera.autoFocus(new Camera.AutoFocusCallback() {
+                @Override
+                public void onAutoFocus(final boolean success, final Camera camera) {
+                    mUIExecutor.runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            onTapToFocusFinished(success, focused, listener);
+                        }
+                    });
+                }
+            });
+        } catch (final RuntimeException e) {
+            mFocusingFuture.set(null);
+            LOG.error("Could not focus", e);
+        }
+    }
+
+    private void onTapToFocusFinished(final boolean success,
+            @NonNull final CompletableFuture<Boolean> focused,
+            @Nullable final TapToFocusListener listener) {
+        LOG.info("Focusing finished with result: {}", success);
+        updateLastFocusSuccess(success);
+        mFocusingFuture.set(null);
+        focused.complete(success);
+        if (listener != null) {
+            listener.onFocused(success);
+        }
+        mCameraHandler.removeCallbacks(mResetFocusMode);
+        mCameraHandler.postDelayed(mResetFocusMode, 5000);
+    }
+
+    private void safeCancelAutoFocus(final Camera camera) {
+        if (supportsFocusMode(Camera.Parameters.FOCUS_MODE_AUTO)) {
             try {
-                mCamera.cancelAutoFocus();
+                camera.cancelAutoFocus();
             } catch (RuntimeException exception) {
                 LOG.error("Failed to cancel autofocus");
             }
@@ -300,8 +597,7 @@ public class CameraController implements CameraInterface {
             return CompletableFuture.completedFuture(false);
         }
 
-        if (!isFocusModeSupported(Camera.Parameters.FOCUS_MODE_AUTO,
-                mCamera)) {
+        if (!supportsFocusMode(Camera.Parameters.FOCUS_MODE_AUTO)) {
             LOG.error("Cannot focus: auto-focus mode not supported");
             return CompletableFuture.completedFuture(false);
         }
@@ -319,19 +615,97 @@ public class CameraController implements CameraInterface {
             // Otherwise we set the new completable and exit the loop
         } while (!mFocusingFuture.compareAndSet(null, completed));
 
-        safeCancelAutoFocus(mCamera);
-        mCamera.autoFocus(new Camera.AutoFocusCallback() {
+        final Camera camera = mCamera;
+        final long focusStartMs = SystemClock.elapsedRealtime();
+        mCameraHandler.post(new Runnable() {
             @Override
-            public void onAutoFocus(final boolean success, final Camera camera) {
-                LOG.info("Focusing finished with result: {}", success);
-                mFocusingFuture.set(null);
-                completed.complete(success);
+            public void run() {
+                safeCancelAutoFocus(camera);
+                try {
+                    camera.autoFocus(new Camera.AutoFocusCallback() {
+                        @Override
+                        public void onAutoFocus(final boolean success, final Camera camera) {
+                            mUIExecutor.runOnUiThread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    LOG.info("Focusing finished with result: {}", success);
+                                    recordLatency(CaptureLatencyHistogram.Stage.FOCUS,
+                                            focusStartMs);
+                                    updateLastFocusSuccess(success);
+                                    mFocusingFuture.set(null);
+                                    completed.complete(success);
+                                }
+                            });
+                        }
+                    });
+                } catch (final RuntimeException e) {
+                    LOG.error("Could not focus", e);
+                    mUIExecutor.runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            mFocusingFuture.set(null);
+                            completed.complete(false);
+                        }
+                    });
+                }
             }
         });
 
         return completed;
     }
 
+    /**
+     * Locks the focus of the continuous picture focus mode. The auto-focus callback is called
+     * when the running focus scan finished, so the picture can be taken right after the lock.
+     */
+    @NonNull
+    private CompletableFuture<Boolean> lockContinuousFocus() {
+        LOG.info("Locking continuous focus");
+        final CompletableFuture<Boolean> locked = new CompletableFuture<>();
+        final long focusStartMs = SystemClock.elapsedRealtime();
+        final Camera camera = mCamera;
+        mCameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    camera.autoFocus(new Camera.AutoFocusCallback() {
+                        @Override
+                        public void onAutoFocus(final boolean success, final Camera camera) {
+                            mUIExecutor.runOnUiThread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    LOG.info("Continuous focus locked with result: {}",
+                                            success);
+                                    recordLatency(CaptureLatencyHistogram.Stage.FOCUS,
+                                            focusStartMs);
+                                    locked.complete(success);
+                                }
+                            });
+                        }
+                    });
+                } catch (final RuntimeException e) {
+                    LOG.error("Could not lock continuous focus", e);
+                    mUIExecutor.runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            locked.complete(false);
+                        }
+                    });
+                }
+            }
+        });
+        return locked;
+    }
+
+    private void updateLastFocusSuccess(final boolean success) {
+        mLastFocusSuccessMs = success ? SystemClock.elapsedRealtime() : -1;
+    }
+
+    private boolean hasRecentFocusSuccess() {
+        return mLastFocusSuccessMs >= 0
+                && SystemClock.elapsedRealtime() - mLastFocusSuccessMs <= FOCUS_REUSE_TIMEOUT_MS;
+    }
+
     @NonNull
     @Override
     public CompletableFuture<Photo> takePicture() {
@@ -360,29 +734,54 @@ public class CameraController implements CameraInterface {
         // as being stopped before it is really stopped
         mPreviewRunning = false;
 
+        final boolean continuousFocus = isUsingFocusMode(
+                Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE);
+        final boolean focusLocked;
         CompletableFuture<Boolean> focusFuture = new CompletableFuture<>();
-        if (isUsingFocusMode(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE, mCamera)) {
+        if (mFastCaptureEnabled && continuousFocus && mContinuousFocusMoving) {
+            // The continuous focus is scanning: take the picture as soon as it is locked
+            focusLocked = true;
+            focusFuture = lockContinuousFocus();
+        } else if (continuousFocus) {
             // When continuous focus mode is used no auto-focus run is needed
+            focusLocked = false;
+            focusFuture.complete(true);
+        } else if (mFastCaptureEnabled && hasRecentFocusSuccess()
+                && mFocusingFuture.get() == null) {
+            // Reusing the recent successful auto-focus run
+            LOG.info("Reusing recent focus");
+            focusLocked = false;
             focusFuture.complete(true);
         } else {
             // Continuous focus mode is not used and we need to do an auto-focus run
+            focusLocked = false;
             focusFuture = focus();
         }
 
         focusFuture.handle(new CompletableFuture.BiFun<Boolean, Throwable, Void>() {
             @Override
             public Void apply(final Boolean aBoolean, final Throwable throwable) {
-                takePicture(new Camera.PictureCallback() {
+                final long captureStartMs = SystemClock.elapsedRealtime();
+                final long[] shutterMs = {-1};
+                takePicture(pictureTaken, new Camera.ShutterCallback() {
+                    @Override
+                    public void onShutter() {
+                        shutterMs[0] = SystemClock.elapsedRealtime();
+                        recordLatency(CaptureLatencyHistogram.Stage.CAPTURE, captureStartMs);
+                    }
+                }, new Camera.PictureCallback() {
                     @Override
                     public void onPictureTaken(final byte[] bytes, final Camera camera) {
-                        mTakingPictureFuture.set(null);
-                        final Photo photo = PhotoFactory.newPhotoFromJpeg(bytes,
-                                getDisplayOrientationForCamera(mActivity),
-                                getDeviceOrientation(mActivity),
-                                getDeviceType(mActivity),
-                                Document.Source.newCameraSource());
-                        LOG.info("Picture taken");
-                        pictureTaken.complete(photo);
+                        if (shutterMs[0] >= 0) {
+                            recordLatency(CaptureLatencyHistogram.Stage.JPEG_CALLBACK,
+                                    shutterMs[0]);
+                        }
+                        mUIExecutor.runOnUiThread(new Runnable() {
+                            @Override
+                            public void run() {
+                                onPictureTaken(bytes, focusLocked, pictureTaken);
+                            }
+                        });
                     }
                 });
                 return null;
@@ -392,12 +791,60 @@ public class CameraController implements CameraInterface {
         return pictureTaken;
     }
 
+    private void onPictureTaken(@NonNull final byte[] bytes, final boolean focusLocked,
+            @NonNull final CompletableFuture<Photo> pictureTaken) {
+        // The continuous focus lock is released when the preview is restarted
+        mReleaseFocusLock = focusLocked;
+        mTakingPictureFuture.set(null);
+        final Photo photo = PhotoFactory.newPhotoFromJpeg(bytes,
+                getDisplayOrientationForCamera(mActivity),
+                getDeviceOrientation(mActivity),
+                getDeviceType(mActivity),
+                Document.Source.newCameraSource());
+        LOG.info("Picture taken");
+        pictureTaken.complete(photo);
+    }
+
+    private void onTakePictureFailed(@NonNull final Exception exception,
+            @NonNull final CompletableFuture<Photo> pictureTaken) {
+        LOG.error("Could not take picture", exception);
+        mTakingPictureFuture.set(null);
+        pictureTaken.completeExceptionally(exception);
+    }
+
     @VisibleForTesting
-    protected void takePicture(final Camera.PictureCallback callback) {
-        if (mCamera == null) {
+    protected void takePicture(@NonNull final CompletableFuture<Photo> pictureTaken,
+            @Nullable final Camera.ShutterCallback shutterCallback,
+            final Camera.PictureCallback callback) {
+        final Camera camera = mCamera;
+        if (camera == null) {
+            onTakePictureFailed(new CameraException("Cannot take picture: camera not open"),
+                    pictureTaken);
             return;
         }
-        mCamera.takePicture(null, null, callback);
+        mCameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    camera.takePicture(shutterCallback, null, callback);
+                } catch (final RuntimeException e) {
+                    mUIExecutor.runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            onTakePictureFailed(e, pictureTaken);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private void recordLatency(@NonNull final CaptureLatencyHistogram.Stage stage,
+            final long startMs) {
+        final CaptureLatencyHistogram histogram = mCaptureLatencyHistogram;
+        if (histogram != null) {
+            histogram.record(stage, SystemClock.elapsedRealtime() - startMs);
+        }
     }
 
     @NonNull
@@ -427,6 +874,11 @@ public class CameraController implements CameraInterface {
         mPreviewCallback = previewCallback;
     }
 
+    @Override
+    public void addPreviewCallbackBuffer(@NonNull final byte[] buffer) {
+        // Preview images are allocated by the camera for each frame
+    }
+
     @Override
     public int getCameraRotation() {
         return getDisplayOrientationForCamera(mActivity);
@@ -434,50 +886,163 @@ public class CameraController implements CameraInterface {
 
     @Override
     public boolean isFlashAvailable() {
-        return isFlashModeSupported(Camera.Parameters.FLASH_MODE_ON, mCamera);
+        return supportsFlashMode(Camera.Parameters.FLASH_MODE_ON);
+    }
+
+    /**
+     * The capabilities are available once the camera was opened.
+     */
+    private boolean supportsFocusMode(@NonNull final String focusMode) {
+        final CameraCapabilities capabilities = mCapabilities;
+        return capabilities != null && capabilities.isFocusModeSupported(focusMode);
+    }
+
+    private boolean supportsFlashMode(@NonNull final String flashMode) {
+        final CameraCapabilities capabilities = mCapabilities;
+        return capabilities != null && capabilities.isFlashModeSupported(flashMode);
+    }
+
+    private boolean isUsingFocusMode(@NonNull final String focusMode) {
+        return focusMode.equals(mFocusMode);
     }
 
     @Override
     public boolean isFlashEnabled() {
-        final Camera.Parameters params = mCamera.getParameters();
-        return Camera.Parameters.FLASH_MODE_ON.equals(params.getFlashMode());
+        return Camera.Parameters.FLASH_MODE_ON.equals(mFlashMode);
     }
 
     @Override
     public void setFlashEnabled(final boolean enabled) {
-        final Camera.Parameters params = mCamera.getParameters();
+        final Camera camera = mCamera;
+        if (camera == null) {
+            LOG.error("Cannot set flash: camera not open");
+            return;
+        }
         final String flashMode = enabled ? Camera.Parameters.FLASH_MODE_ON
                 : Camera.Parameters.FLASH_MODE_OFF;
-        if (isFlashModeSupported(flashMode, mCamera)) {
-            params.setFlashMode(flashMode);
-            LOG.debug("Flash set to: {}", flashMode);
-        } else {
+        if (!supportsFlashMode(flashMode)) {
             LOG.warn("Flash mode not supported: {}", flashMode);
+            return;
         }
-        mCamera.setParameters(params);
+        mFlashMode = flashMode;
+        mCameraHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final Camera.Parameters params = camera.getParameters();
+                    params.setFlashMode(flashMode);
+                    camera.setParameters(params);
+                    LOG.debug("Flash set to: {}", flashMode);
+                } catch (final RuntimeException e) {
+                    LOG.error("Could not set flash mode", e);
+                }
+            }
+        });
     }
 
-    private void configureCamera(final Activity activity) {
+    @Override
+    public void setFastCaptureEnabled(final boolean enabled) {
+        mFastCaptureEnabled = enabled;
+    }
+
+    @Override
+    public void setCaptureLatencyHistogram(@Nullable final CaptureLatencyHistogram histogram) {
+        mCaptureLatencyHistogram = histogram;
+    }
+
+    @NonNull
+    @Override
+    public CameraLifecycleTimings getLifecycleTimings() {
+        return mLifecycleTimings;
+    }
+
+    /**
+     * Applies the configuration negotiated the last time the camera was opened or negotiates and
+     * stores a new one. Negotiation uses the stored {@link CameraCapabilities} which are only read
+     * from the camera parameters the first time the camera is opened on this OS build.
+     */
+    private void configureCamera(final Activity activity, final Camera camera) {
         LOG.debug("Configuring camera");
-        if (mCamera == null) {
-            LOG.error("Cannot configure camera: camera not open");
-            return;
+        final long configureStartMs = SystemClock.elapsedRealtime();
+        final Camera.Parameters params = camera.getParameters();
+        mCapabilities = loadCapabilities(params);
+        final boolean cached = applyStoredConfiguration(camera, params);
+        if (!cached) {
+            // The parameters might contain a rejected stored configuration
+            negotiateConfiguration(camera, camera.getParameters(), mCapabilities);
         }
+        setCameraDisplayOrientation(activity, camera);
+        final Camera.Parameters configuredParams = camera.getParameters();
+        mFocusMode = configuredParams.getFocusMode();
+        mFlashMode = configuredParams.getFlashMode();
+        mLifecycleTimings.setConfigureMs(SystemClock.elapsedRealtime() - configureStartMs,
+                cached);
+    }
 
-        final Camera.Parameters params = mCamera.getParameters();
-        selectPictureAndPreviewSize(params);
-        selectFocusMode(params);
-        selectFlashMode(params);
-        mCamera.setParameters(params);
+    @NonNull
+    private CameraCapabilities loadCapabilities(final Camera.Parameters params) {
+        final CameraCapabilities storedCapabilities = mCapabilitiesStore.load();
+        if (storedCapabilities != null) {
+            return storedCapabilities;
+        }
+        final CameraCapabilities capabilities = CameraCapabilities.create(params,
+                getBackFacingCameraInfoOrientation());
+        mCapabilitiesStore.save(capabilities);
+        return capabilities;
+    }
 
-        setCameraDisplayOrientation(activity, mCamera);
+    private boolean applyStoredConfiguration(final Camera camera,
+            final Camera.Parameters params) {
+        final CameraConfiguration configuration = mCapabilitiesStore.loadConfiguration();
+        if (configuration == null) {
+            return false;
+        }
+        LOG.debug("Applying stored {}", configuration);
+        params.setPictureSize(configuration.pictureSize.width, configuration.pictureSize.height);
+        params.setPreviewSize(configuration.previewSize.width, configuration.previewSize.height);
+        if (configuration.focusMode != null) {
+            params.setFocusMode(configuration.focusMode);
+        }
+        if (configuration.flashMode != null) {
+            params.setFlashMode(configuration.flashMode);
+        }
+        try {
+            camera.setParameters(params);
+        } catch (final RuntimeException e) {
+            LOG.warn("Stored camera configuration rejected, negotiating a new one", e);
+            mCapabilitiesStore.clearConfiguration();
+            return false;
+        }
+        mPictureSize = configuration.pictureSize;
+        mPreviewSize = configuration.previewSize;
+        if (Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE.equals(configuration.focusMode)) {
+            setAutoFocusMoveCallback(camera);
+        }
+        return true;
     }
 
-    private void selectPictureAndPreviewSize(final Camera.Parameters params) {
-        final List<Camera.Size> pictureSizes = params.getSupportedPictureSizes();
-        final List<Camera.Size> previewSizes = params.getSupportedPreviewSizes();
+    private void negotiateConfiguration(final Camera camera, final Camera.Parameters params,
+            final CameraCapabilities capabilities) {
+        final boolean sizesSelected = selectPictureAndPreviewSize(params, capabilities);
+        final String focusMode = selectFocusMode(params, camera, capabilities);
+        final String flashMode = selectFlashMode(params, capabilities);
+        try {
+            camera.setParameters(params);
+        } catch (final RuntimeException e) {
+            // The capabilities are read again from the camera the next time it is opened
+            mCapabilitiesStore.clear();
+            throw e;
+        }
+        if (sizesSelected) {
+            mCapabilitiesStore.saveConfiguration(new CameraConfiguration(mPictureSize,
+                    mPreviewSize, focusMode, flashMode));
+        }
+    }
 
-        final Pair<Size, Size> sizes = getBestSize(pictureSizes, previewSizes,
+    private boolean selectPictureAndPreviewSize(final Camera.Parameters params,
+            final CameraCapabilities capabilities) {
+        final Pair<Size, Size> sizes = getBestSize(capabilities.getPictureSizes(),
+                capabilities.getPreviewSizes(),
                 CameraResolutionRequirement.MAX_PICTURE_AREA,
                 CameraResolutionRequirement.MIN_PICTURE_AREA,
                 CameraResolutionRequirement.MIN_ASPECT_RATIO);
@@ -489,26 +1054,46 @@ public class CameraController implements CameraInterface {
             mPreviewSize = sizes.second;
             params.setPreviewSize(mPreviewSize.width, mPreviewSize.height);
             LOG.debug("Preview size ({}, {})", mPreviewSize.width, mPreviewSize.height);
+            return true;
         } else {
             LOG.warn("No suitable picture and preview size found");
+            return false;
         }
     }
 
-    private void selectFocusMode(final Camera.Parameters params) {
-        if (isFocusModeSupported(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE, mCamera)) {
+    @Nullable
+    private String selectFocusMode(final Camera.Parameters params, final Camera camera,
+            final CameraCapabilities capabilities) {
+        if (capabilities.isFocusModeSupported(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE)) {
             params.setFocusMode(Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE);
             LOG.debug("Focus mode continuous picture");
+            setAutoFocusMoveCallback(camera);
+            return Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE;
         } else {
             LOG.warn("Focus mode continuous picture not supported");
+            return null;
         }
     }
 
-    private void selectFlashMode(final Camera.Parameters params) {
-        if (isFlashModeSupported(Camera.Parameters.FLASH_MODE_ON, mCamera)) {
+    private void setAutoFocusMoveCallback(final Camera camera) {
+        camera.setAutoFocusMoveCallback(new Camera.AutoFocusMoveCallback() {
+            @Override
+            public void onAutoFocusMoving(final boolean start, final Camera camera) {
+                mContinuousFocusMoving = start;
+            }
+        });
+    }
+
+    @Nullable
+    private String selectFlashMode(final Camera.Parameters params,
+            final CameraCapabilities capabilities) {
+        if (capabilities.isFlashModeSupported(Camera.Parameters.FLASH_MODE_ON)) {
             params.setFlashMode(Camera.Parameters.FLASH_MODE_ON);
             LOG.debug("Flash on");
+            return Camera.Parameters.FLASH_MODE_ON;
         } else {
             LOG.warn("Flash not supported");
+            return null;
         }
     }
 
@@ -521,10 +1106,17 @@ public class CameraController implements CameraInterface {
     }
 
     private int getDisplayOrientationForCamera(final Activity activity) {
-        final Camera.CameraInfo info = getBackFacingCameraInfo();
-        if (info == null) {
-            LOG.error("Could not get back facing camera info");
-            return 0;
+        final int cameraOrientation;
+        final CameraCapabilities capabilities = mCapabilities;
+        if (capabilities != null) {
+            cameraOrientation = capabilities.getOrientation();
+        } else {
+            final Camera.CameraInfo info = getBackFacingCameraInfo();
+            if (info == null) {
+                LOG.error("Could not get back facing camera info");
+                return 0;
+            }
+            cameraOrientation = info.orientation;
         }
         final int rotation = activity.getWindowManager().getDefaultDisplay()
                 .getRotation();
@@ -547,15 +1139,8 @@ public class CameraController implements CameraInterface {
         }
         LOG.debug("Default display rotation is {}", degrees);
 
-        int result;
-        if (info.facing == Camera.CameraInfo.CAMERA_FACING_FRONT) {
-            result = (info.orientation + degrees) % 360;
-            result = (360 - result) % 360;  // compensate the mirror
-        } else {  // back-facing
-            result = (info.orientation - degrees + 360) % 360;
-        }
-
-        return result;
+        // Only the back-facing camera is used
+        return (cameraOrientation - degrees + 360) % 360;
     }
 
     @Nullable
@@ -575,6 +1160,14 @@ public class CameraController implements CameraInterface {
     }
 
     private int getBackFacingCameraOrientation() {
+        final CameraCapabilities capabilities = mCapabilities;
+        if (capabilities != null) {
+            return capabilities.getOrientation();
+        }
+        return getBackFacingCameraInfoOrientation();
+    }
+
+    private int getBackFacingCameraInfoOrientation() {
         LOG.debug("Getting back facing camera orientation");
         final Camera.CameraInfo cameraInfo = getBackFacingCameraInfo();
         if (cameraInfo != null) {
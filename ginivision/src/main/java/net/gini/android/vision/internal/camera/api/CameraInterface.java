@@ -5,6 +5,7 @@ import android.hardware.Camera;
 import android.view.SurfaceHolder;
 import android.view.View;
 
+import net.gini.android.vision.camera.CaptureLatencyHistogram;
 import net.gini.android.vision.internal.camera.photo.Photo;
 import net.gini.android.vision.internal.util.Size;
 
@@ -155,6 +156,15 @@ public interface CameraInterface {
      */
     void setPreviewCallback(@NonNull Camera.PreviewCallback previewCallback);
 
+    /**
+     * <p>
+     *     Returns a preview image received in the {@link Camera.PreviewCallback} when it is not
+     *     needed anymore. Implementations may reuse it for upcoming preview images.
+     * </p>
+     * @param buffer a preview image received in the {@link Camera.PreviewCallback}
+     */
+    void addPreviewCallbackBuffer(@NonNull byte[] buffer);
+
     /**
      * <p>
      *     The rotation in degrees of the camera. Derived from the camera sensor orientation
@@ -170,6 +180,34 @@ public interface CameraInterface {
 
     void setFlashEnabled(final boolean enabled);
 
+    /**
+     * <p>
+     *     Enables or disables fast capture. With fast capture a recent successful focus is reused
+     *     instead of running auto-focus before taking a picture and if the camera is focusing
+     *     the picture is taken as soon as the focus is locked.
+     * </p>
+     * @param enabled {@code true} to enable fast capture
+     */
+    void setFastCaptureEnabled(final boolean enabled);
+
+    /**
+     * <p>
+     *     Set a histogram to record the durations of the focus, capture and JPEG callback stages
+     *     when taking pictures.
+     * </p>
+     * @param histogram the histogram or {@code null} to stop recording
+     */
+    void setCaptureLatencyHistogram(@Nullable CaptureLatencyHistogram histogram);
+
+    /**
+     * <p>
+     *     The durations of opening and configuring the camera and of starting the preview.
+     * </p>
+     * @return the timings of the last camera open
+     */
+    @NonNull
+    CameraLifecycleTimings getLifecycleTimings();
+
     /**
      * Listener for tap to focus.
      */
@@ -0,0 +1,74 @@
+package net.gini.android.vision.internal.camera.api;
+
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> The durations of the last camera open, configuration and preview start in milliseconds. A
+ * duration is -1 until it was measured.
+ *
+ * <p> Written on the camera thread and read on any thread.
+ *
+ * @suppress
+ */
+public class CameraLifecycleTimings {
+
+    private volatile long mOpenMs = -1;
+    private volatile long mConfigureMs = -1;
+    private volatile long mStartPreviewMs = -1;
+    private volatile boolean mConfigurationCached;
+
+    /**
+     * @return the duration of opening the camera device
+     */
+    public long getOpenMs() {
+        return mOpenMs;
+    }
+
+    /**
+     * @return the duration of selecting and applying the camera parameters
+     */
+    public long getConfigureMs() {
+        return mConfigureMs;
+    }
+
+    /**
+     * @return the duration from requesting the preview until it was started
+     */
+    public long getStartPreviewMs() {
+        return mStartPreviewMs;
+    }
+
+    /**
+     * @return {@code true}, if the camera was configured with a previously negotiated
+     * configuration
+     */
+    public boolean isConfigurationCached() {
+        return mConfigurationCached;
+    }
+
+    void setOpenMs(final long openMs) {
+        mOpenMs = openMs;
+    }
+
+    void setConfigureMs(final long configureMs, final boolean configurationCached) {
+        mConfigureMs = configureMs;
+        mConfigurationCached = configurationCached;
+    }
+
+    void setStartPreviewMs(final long startPreviewMs) {
+        mStartPreviewMs = startPreviewMs;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "CameraLifecycleTimings{open=%dms, configure=%dms (cached: %b), "
+                        + "startPreview=%dms}", mOpenMs, mConfigureMs, mConfigurationCached,
+                mStartPreviewMs);
+    }
+}
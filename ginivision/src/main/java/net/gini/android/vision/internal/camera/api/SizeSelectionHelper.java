@@ -28,9 +28,25 @@ public final class SizeSelectionHelper {
             final int minArea,
             final float minAspectRatio
     ) {
-        Camera.Size bestPicture = null;
+        return getBestSize(toSizes(pictureSizes), toSizes(previewSizes), maxArea, minArea,
+                minAspectRatio);
+    }
+
+    /**
+     * Same as {@link #getBestSize(List, List, int, int, float)} but for sizes which don't come
+     * from the deprecated {@link Camera} API (e.g. from the Camera2 API).
+     */
+    @Nullable
+    public static Pair<Size, Size> getBestSize(
+            @NonNull final Size[] pictureSizes,
+            @NonNull final Size[] previewSizes,
+            final int maxArea,
+            final int minArea,
+            final float minAspectRatio
+    ) {
+        Size bestPicture = null;
         Size bestPreview = null;
-        for (final Camera.Size size : pictureSizes) {
+        for (final Size size : pictureSizes) {
             final long area = getArea(size);
             final boolean isAreaInBounds = minArea < area && area < maxArea;
             final boolean isNewAreaLarger = bestPicture == null || getArea(bestPicture) < area;
@@ -38,7 +54,7 @@ public final class SizeSelectionHelper {
                     (float) size.width / size.height >= minAspectRatio :
                     (float) size.height / size.width >= minAspectRatio;
             if (isAreaInBounds && isNewAreaLarger && isAspectRatioLargeEnough) {
-                final Size preview = getClosestSizeWithSimilarAspectRatio(previewSizes, new Size(size.width, size.height), maxArea);
+                final Size preview = getClosestSizeWithSimilarAspectRatio(previewSizes, size, maxArea);
                 if (preview != null) {
                     bestPicture = size;
                     bestPreview = preview;
@@ -46,12 +62,12 @@ public final class SizeSelectionHelper {
             }
         }
         if (bestPicture != null && bestPreview != null) {
-            return new Pair<>(new Size(bestPicture.width, bestPicture.height), bestPreview);
+            return new Pair<>(bestPicture, bestPreview);
         }
-        for (final Camera.Size size : pictureSizes) {
+        for (final Size size : pictureSizes) {
             final long area = getArea(size);
             if (maxArea < area && (bestPicture == null || area < getArea(bestPicture))) {
-                final Size preview = getClosestSizeWithSimilarAspectRatio(previewSizes, new Size(size.width, size.height), maxArea);
+                final Size preview = getClosestSizeWithSimilarAspectRatio(previewSizes, size, maxArea);
                 if (preview != null) {
                     bestPicture = size;
                     bestPreview = preview;
@@ -59,59 +75,70 @@ public final class SizeSelectionHelper {
             }
         }
         if (bestPicture != null && bestPreview != null) {
-            return new Pair<>(new Size(bestPicture.width, bestPicture.height), bestPreview);
+            return new Pair<>(bestPicture, bestPreview);
         }
         return null;
     }
 
     @Nullable
     public static Size getLargestAllowedSize(@NonNull final List<Camera.Size> sizes, final int maxArea) {
-        Camera.Size largest = null;
-        for (final Camera.Size size : sizes) {
+        return getLargestAllowedSize(toSizes(sizes), maxArea);
+    }
+
+    @Nullable
+    public static Size getLargestAllowedSize(@NonNull final Size[] sizes, final int maxArea) {
+        Size largest = null;
+        for (final Size size : sizes) {
             if ((largest == null || getArea(largest) < getArea(size)) && getArea(size) <= maxArea) {
                 largest = size;
             }
         }
-        return largest != null ? new Size(largest.width, largest.height) : null;
+        return largest;
     }
 
     @Nullable
     public static Size getLargestAllowedSizeWithSimilarAspectRatio(
             @NonNull final List<Camera.Size> sizes, @NonNull final Size referenceSize, final int maxArea) {
-        final List<Camera.Size> sameAspectSizes = getSameAspectRatioSizes(sizes, referenceSize);
+        final Size[] sameAspectSizes = getSameAspectRatioSizes(toSizes(sizes), referenceSize);
         return getLargestAllowedSize(sameAspectSizes, maxArea);
     }
 
     @Nullable
     public static Size getClosestSizeWithSimilarAspectRatio(
             @NonNull final List<Camera.Size> sizes, @NonNull final Size referenceSize, final int maxArea) {
-        final List<Camera.Size> sameAspectSizes = getSameAspectRatioSizes(sizes, referenceSize);
+        return getClosestSizeWithSimilarAspectRatio(toSizes(sizes), referenceSize, maxArea);
+    }
+
+    @Nullable
+    public static Size getClosestSizeWithSimilarAspectRatio(
+            @NonNull final Size[] sizes, @NonNull final Size referenceSize, final int maxArea) {
+        final Size[] sameAspectSizes = getSameAspectRatioSizes(sizes, referenceSize);
         return getClosestSize(sameAspectSizes, maxArea);
     }
 
-    private static Size getClosestSize(List<Camera.Size> sizes, int maxArea) {
-        Camera.Size closest = null;
-        for (final Camera.Size size : sizes) {
+    private static Size getClosestSize(final Size[] sizes, final int maxArea) {
+        Size closest = null;
+        for (final Size size : sizes) {
             if (closest == null || abs(getArea(closest) - maxArea) > abs(getArea(size) - maxArea)) {
                 closest = size;
             }
         }
-        return closest != null ? new Size(closest.width, closest.height) : null;
+        return closest;
     }
 
     @NonNull
-    private static List<Camera.Size> getSameAspectRatioSizes(@NonNull final List<Camera.Size> sizes,
+    private static Size[] getSameAspectRatioSizes(@NonNull final Size[] sizes,
             @NonNull final Size referenceSize) {
         final float referenceAspectRatio =
                 (float) referenceSize.width / (float) referenceSize.height;
-        final List<Camera.Size> sameAspectSizes = new ArrayList<>();
-        for (final Camera.Size size : sizes) {
+        final List<Size> sameAspectSizes = new ArrayList<>();
+        for (final Size size : sizes) {
             final float aspectRatio = (float) size.width / (float) size.height;
             if (isSimilarAspectRatio(aspectRatio, referenceAspectRatio)) {
                 sameAspectSizes.add(size);
             }
         }
-        return sameAspectSizes;
+        return sameAspectSizes.toArray(new Size[0]);
     }
 
     private static boolean isSimilarAspectRatio(final float aspectRatio,
@@ -119,10 +146,20 @@ public final class SizeSelectionHelper {
         return abs(aspectRatio - referenceAspectRatio) < 0.1f;
     }
 
-    private static long getArea(final Camera.Size size) {
+    private static long getArea(final Size size) {
         return size.width * size.height;
     }
 
+    @NonNull
+    private static Size[] toSizes(@NonNull final List<Camera.Size> cameraSizes) {
+        final Size[] sizes = new Size[cameraSizes.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            final Camera.Size cameraSize = cameraSizes.get(i);
+            sizes[i] = new Size(cameraSize.width, cameraSize.height);
+        }
+        return sizes;
+    }
+
     private SizeSelectionHelper() {
     }
 }
\ No newline at end of file
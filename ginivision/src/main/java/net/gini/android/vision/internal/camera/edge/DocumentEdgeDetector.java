@@ -0,0 +1,417 @@
+package net.gini.android.vision.internal.camera.edge;
+
+import net.gini.android.vision.internal.util.Size;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Internal use only.
+ *
+ * <p> Detects the edges of a document in NV21 preview frames using only the luminance plane.
+ *
+ * <p> The luminance plane is downsampled to at most {@link #MAX_DOWNSAMPLED_SIDE} pixels, blurred
+ * and the horizontal and vertical Sobel gradients are computed. Each side of the document is
+ * found by scanning from the frame's border towards the center for the first strong gradient
+ * across the side. A line is fitted to the scanned points of each side with a simple RANSAC
+ * and the corners are the intersections of the lines.
+ *
+ * <p> All buffers are allocated for the first frame and reused as long as the frame size doesn't
+ * change. Instances are not thread-safe.
+ *
+ * @suppress
+ */
+public class DocumentEdgeDetector {
+
+    static final int MAX_DOWNSAMPLED_SIDE = 160;
+
+    // Gradients are computed on the blurred luminance, a Sobel gradient is at most 4 * 255
+    private static final int MAX_GRADIENT = 4 * 255;
+    private static final int MIN_GRADIENT = 48;
+    // The gradient threshold is a fraction of a high percentile to adapt to the contrast
+    private static final float GRADIENT_PERCENTILE = 0.98f;
+    private static final float GRADIENT_THRESHOLD_FRACTION = 0.35f;
+    // Sides are searched for from the border until this fraction of the frame
+    private static final float SCAN_EXTENT = 0.66f;
+    private static final float INLIER_DISTANCE = 1.5f;
+    private static final int RANSAC_CANDIDATES = 32;
+    // Fraction of the scanned rows or columns which have to lie on a side
+    private static final float MIN_SIDE_COVERAGE = 0.2f;
+    private static final float MIN_AREA = 0.15f;
+    // Corners may lie a little outside of the frame
+    private static final float MAX_CORNER_OUTSIDE = 0.05f;
+
+    private static final int LEFT = 0;
+    private static final int TOP = 1;
+    private static final int RIGHT = 2;
+    private static final int BOTTOM = 3;
+
+    private int mWidth;
+    private int mHeight;
+    private int[] mLuminance;
+    private int[] mBlurred;
+    private int[] mGradientX;
+    private int[] mGradientY;
+    private final int[] mGradientHistogram = new int[2 * MAX_GRADIENT + 1];
+    // Scanned points of a side: the position along the side and across it
+    private float[] mSamplesAlong;
+    private float[] mSamplesAcross;
+    private boolean[] mInliers;
+    // Slope and intercept of the sides, left and right as x = a * y + b, top and bottom as
+    // y = a * x + b
+    private final float[] mLines = new float[8];
+
+    /**
+     * Detects the document in the NV21 frame.
+     *
+     * @param image     an NV21 image
+     * @param imageSize the size of the image
+     * @param rotation  the clockwise rotation in degrees to get the image's display orientation
+     *
+     * @return the document's corners in the display orientation or null, if no document was found
+     */
+    @Nullable
+    public DocumentQuadrilateral detect(@NonNull final byte[] image,
+            @NonNull final Size imageSize, final int rotation) {
+        loadFrame(image, imageSize);
+        return detect(rotation);
+    }
+
+    /**
+     * Downsamples the luminance plane of the NV21 image. The image is not needed anymore
+     * afterwards and can be reused while {@link #detect(int)} runs.
+     *
+     * @param image     an NV21 image
+     * @param imageSize the size of the image
+     */
+    public void loadFrame(@NonNull final byte[] image, @NonNull final Size imageSize) {
+        if (image.length < imageSize.width * imageSize.height) {
+            throw new IllegalArgumentException("Image is smaller than its size");
+        }
+        final int factor = Math.max(1,
+                (Math.max(imageSize.width, imageSize.height) + MAX_DOWNSAMPLED_SIDE - 1)
+                        / MAX_DOWNSAMPLED_SIDE);
+        allocateBuffers(imageSize.width / factor, imageSize.height / factor);
+        // Large blocks are sampled sparsely, averaging 16 pixels is enough to suppress noise
+        final int step = Math.max(1, factor / 4);
+        for (int y = 0; y < mHeight; y++) {
+            for (int x = 0; x < mWidth; x++) {
+                int sum = 0;
+                int count = 0;
+                for (int dy = 0; dy < factor; dy += step) {
+                    final int row = (y * factor + dy) * imageSize.width + x * factor;
+                    for (int dx = 0; dx < factor; dx += step) {
+                        sum += image[row + dx] & 0xFF;
+                        count++;
+                    }
+                }
+                mLuminance[y * mWidth + x] = sum / count;
+            }
+        }
+    }
+
+    /**
+     * Detects the document in the frame loaded with {@link #loadFrame(byte[], Size)}.
+     *
+     * @param rotation the clockwise rotation in degrees to get the image's display orientation
+     *
+     * @return the document's corners in the display orientation or null, if no document was found
+     */
+    @Nullable
+    public DocumentQuadrilateral detect(final int rotation) {
+        if (mLuminance == null || mWidth < 8 || mHeight < 8) {
+            return null;
+        }
+        blur();
+        computeGradients();
+        final int threshold = getGradientThreshold();
+        if (!findSide(LEFT, threshold) || !findSide(RIGHT, threshold)
+                || !findSide(TOP, threshold) || !findSide(BOTTOM, threshold)) {
+            return null;
+        }
+        final float[] corners = new float[8];
+        if (!intersect(TOP, LEFT, corners, 0) || !intersect(TOP, RIGHT, corners, 2)
+                || !intersect(BOTTOM, RIGHT, corners, 4) || !intersect(BOTTOM, LEFT, corners, 6)) {
+            return null;
+        }
+        if (!isPlausibleDocument(corners)) {
+            return null;
+        }
+        normalizeAndRotate(corners, rotation);
+        return DocumentQuadrilateral.fromCorners(corners);
+    }
+
+    private void allocateBuffers(final int width, final int height) {
+        if (mLuminance != null && width == mWidth && height == mHeight) {
+            return;
+        }
+        mWidth = width;
+        mHeight = height;
+        final int pixels = width * height;
+        mLuminance = new int[pixels];
+        mBlurred = new int[pixels];
+        mGradientX = new int[pixels];
+        mGradientY = new int[pixels];
+        final int maxSamples = Math.max(width, height);
+        mSamplesAlong = new float[maxSamples];
+        mSamplesAcross = new float[maxSamples];
+        mInliers = new boolean[maxSamples];
+    }
+
+    private void blur() {
+        // Separable [1 2 1] kernel, the horizontal pass is stored in the gradient buffer
+        final int[] horizontal = mGradientX;
+        for (int y = 0; y < mHeight; y++) {
+            final int row = y * mWidth;
+            for (int x = 0; x < mWidth; x++) {
+                final int left = mLuminance[row + Math.max(0, x - 1)];
+                final int right = mLuminance[row + Math.min(mWidth - 1, x + 1)];
+                horizontal[row + x] = left + 2 * mLuminance[row + x] + right;
+            }
+        }
+        for (int y = 0; y < mHeight; y++) {
+            final int above = Math.max(0, y - 1) * mWidth;
+            final int row = y * mWidth;
+            final int below = Math.min(mHeight - 1, y + 1) * mWidth;
+            for (int x = 0; x < mWidth; x++) {
+                mBlurred[row + x] = (horizontal[above + x] + 2 * horizontal[row + x]
+                        + horizontal[below + x]) / 16;
+            }
+        }
+    }
+
+    private void computeGradients() {
+        final int[] p = mBlurred;
+        final int w = mWidth;
+        for (int y = 0; y < mHeight; y++) {
+            for (int x = 0; x < w; x++) {
+                final int i = y * w + x;
+                if (x == 0 || y == 0 || x == w - 1 || y == mHeight - 1) {
+                    mGradientX[i] = 0;
+                    mGradientY[i] = 0;
+                    continue;
+                }
+                final int gx = p[i - w + 1] + 2 * p[i + 1] + p[i + w + 1]
+                        - p[i - w - 1] - 2 * p[i - 1] - p[i + w - 1];
+                final int gy = p[i + w - 1] + 2 * p[i + w] + p[i + w + 1]
+                        - p[i - w - 1] - 2 * p[i - w] - p[i - w + 1];
+                mGradientX[i] = Math.abs(gx);
+                mGradientY[i] = Math.abs(gy);
+            }
+        }
+    }
+
+    private int getGradientThreshold() {
+        final int[] histogram = mGradientHistogram;
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = 0;
+        }
+        final int pixels = mWidth * mHeight;
+        for (int i = 0; i < pixels; i++) {
+            histogram[Math.min(histogram.length - 1, mGradientX[i] + mGradientY[i])]++;
+        }
+        final int percentileCount = (int) (pixels * GRADIENT_PERCENTILE);
+        int count = 0;
+        int percentile = 0;
+        while (percentile < histogram.length - 1
+                && count + histogram[percentile] < percentileCount) {
+            count += histogram[percentile];
+            percentile++;
+        }
+        return Math.max(MIN_GRADIENT, (int) (percentile * GRADIENT_THRESHOLD_FRACTION));
+    }
+
+    /**
+     * Scans for the side and fits a line to the scanned points.
+     *
+     * @return true, if enough points lie on the fitted line
+     */
+    private boolean findSide(final int side, final int threshold) {
+        final boolean vertical = side == LEFT || side == RIGHT;
+        final int lines = vertical ? mHeight : mWidth;
+        final int length = vertical ? mWidth : mHeight;
+        final int extent = (int) (length * SCAN_EXTENT);
+        final boolean fromStart = side == LEFT || side == TOP;
+        final int[] across = vertical ? mGradientX : mGradientY;
+        final int[] along = vertical ? mGradientY : mGradientX;
+        int samples = 0;
+        for (int line = 1; line < lines - 1; line++) {
+            int position = -1;
+            for (int step = 1; step < extent; step++) {
+                final int p = fromStart ? step : length - 1 - step;
+                final int i = vertical ? line * mWidth + p : p * mWidth + line;
+                if (across[i] >= threshold && across[i] > along[i]) {
+                    position = peak(across, line, p, fromStart ? 1 : -1, vertical);
+                    break;
+                }
+            }
+            if (position >= 0) {
+                mSamplesAlong[samples] = line;
+                mSamplesAcross[samples] = position;
+                samples++;
+            }
+        }
+        final int minInliers = Math.max(8, (int) (lines * MIN_SIDE_COVERAGE));
+        return samples >= minInliers && fitLine(samples, side, minInliers);
+    }
+
+    /**
+     * @return the position of the gradient's maximum when following it inwards
+     */
+    private int peak(final int[] gradient, final int line, final int start, final int direction,
+            final boolean vertical) {
+        final int length = vertical ? mWidth : mHeight;
+        int position = start;
+        while (position + direction > 0 && position + direction < length - 1) {
+            final int current = vertical ? line * mWidth + position : position * mWidth + line;
+            final int next = vertical ? current + direction : current + direction * mWidth;
+            if (gradient[next] < gradient[current]) {
+                break;
+            }
+            position += direction;
+        }
+        return position;
+    }
+
+    private boolean fitLine(final int samples, final int side, final int minInliers) {
+        // RANSAC with deterministic candidates: lines through points half the samples apart
+        final int half = samples / 2;
+        final int stride = Math.max(1, half / RANSAC_CANDIDATES);
+        int bestInliers = 0;
+        float bestSlope = 0;
+        float bestIntercept = 0;
+        for (int i = 0; i < half; i += stride) {
+            final int j = i + half;
+            final float slope = (mSamplesAcross[j] - mSamplesAcross[i])
+                    / (mSamplesAlong[j] - mSamplesAlong[i]);
+            final float intercept = mSamplesAcross[i] - slope * mSamplesAlong[i];
+            final int inliers = countInliers(samples, slope, intercept, false);
+            if (inliers > bestInliers) {
+                bestInliers = inliers;
+                bestSlope = slope;
+                bestIntercept = intercept;
+            }
+        }
+        if (bestInliers < minInliers) {
+            return false;
+        }
+        countInliers(samples, bestSlope, bestIntercept, true);
+        // Least squares refinement on the inliers
+        double sumAlong = 0;
+        double sumAcross = 0;
+        double sumAlongSquared = 0;
+        double sumProducts = 0;
+        int count = 0;
+        for (int i = 0; i < samples; i++) {
+            if (!mInliers[i]) {
+                continue;
+            }
+            sumAlong += mSamplesAlong[i];
+            sumAcross += mSamplesAcross[i];
+            sumAlongSquared += mSamplesAlong[i] * mSamplesAlong[i];
+            sumProducts += mSamplesAlong[i] * mSamplesAcross[i];
+            count++;
+        }
+        final double denominator = count * sumAlongSquared - sumAlong * sumAlong;
+        if (denominator != 0) {
+            bestSlope = (float) ((count * sumProducts - sumAlong * sumAcross) / denominator);
+            bestIntercept = (float) ((sumAcross - bestSlope * sumAlong) / count);
+        }
+        mLines[2 * side] = bestSlope;
+        mLines[2 * side + 1] = bestIntercept;
+        return true;
+    }
+
+    private int countInliers(final int samples, final float slope, final float intercept,
+            final boolean mark) {
+        int inliers = 0;
+        for (int i = 0; i < samples; i++) {
+            final float distance = Math.abs(
+                    mSamplesAcross[i] - (slope * mSamplesAlong[i] + intercept));
+            final boolean inlier = distance <= INLIER_DISTANCE;
+            if (inlier) {
+                inliers++;
+            }
+            if (mark) {
+                mInliers[i] = inlier;
+            }
+        }
+        return inliers;
+    }
+
+    /**
+     * Intersects a horizontal side (y = a * x + b) with a vertical side (x = c * y + d).
+     */
+    private boolean intersect(final int horizontalSide, final int verticalSide,
+            @NonNull final float[] corners, final int offset) {
+        final float a = mLines[2 * horizontalSide];
+        final float b = mLines[2 * horizontalSide + 1];
+        final float c = mLines[2 * verticalSide];
+        final float d = mLines[2 * verticalSide + 1];
+        final float denominator = 1 - a * c;
+        if (Math.abs(denominator) < 1e-3f) {
+            return false;
+        }
+        final float x = (c * b + d) / denominator;
+        corners[offset] = x;
+        corners[offset + 1] = a * x + b;
+        return true;
+    }
+
+    private boolean isPlausibleDocument(@NonNull final float[] corners) {
+        final float marginX = mWidth * MAX_CORNER_OUTSIDE;
+        final float marginY = mHeight * MAX_CORNER_OUTSIDE;
+        for (int i = 0; i < 4; i++) {
+            final float x = corners[2 * i];
+            final float y = corners[2 * i + 1];
+            if (x < -marginX || x > mWidth + marginX || y < -marginY || y > mHeight + marginY) {
+                return false;
+            }
+        }
+        // The corners are in clockwise order (y points down), which a convex quadrilateral keeps
+        // at every corner
+        float area = 0;
+        for (int i = 0; i < 4; i++) {
+            final int next = (i + 1) % 4;
+            final int afterNext = (i + 2) % 4;
+            final float cross = (corners[2 * next] - corners[2 * i])
+                    * (corners[2 * afterNext + 1] - corners[2 * next + 1])
+                    - (corners[2 * next + 1] - corners[2 * i + 1])
+                    * (corners[2 * afterNext] - corners[2 * next]);
+            if (cross <= 0) {
+                return false;
+            }
+            area += corners[2 * i] * corners[2 * next + 1] - corners[2 * next] * corners[2 * i + 1];
+        }
+        return area / 2 >= MIN_AREA * mWidth * mHeight;
+    }
+
+    private void normalizeAndRotate(@NonNull final float[] corners, final int rotation) {
+        for (int i = 0; i < 4; i++) {
+            final float x = clamp((corners[2 * i] + 0.5f) / mWidth);
+            final float y = clamp((corners[2 * i + 1] + 0.5f) / mHeight);
+            switch ((rotation % 360 + 360) % 360) {
+                case 90:
+                    corners[2 * i] = 1 - y;
+                    corners[2 * i + 1] = x;
+                    break;
+                case 180:
+                    corners[2 * i] = 1 - x;
+                    corners[2 * i + 1] = 1 - y;
+                    break;
+                case 270:
+                    corners[2 * i] = y;
+                    corners[2 * i + 1] = 1 - x;
+                    break;
+                default:
+                    corners[2 * i] = x;
+                    corners[2 * i + 1] = y;
+                    break;
+            }
+        }
+    }
+
+    private static float clamp(final float value) {
+        return Math.max(0, Math.min(1, value));
+    }
+}
@@ -0,0 +1,52 @@
+package net.gini.android.vision.internal.camera.edge;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Internal use only.
+ *
+ * <p> Smooths the detected document corners over consecutive frames to keep the overlay from
+ * jittering. Single frames without a detection don't hide the document and large movements are
+ * followed immediately.
+ *
+ * @suppress
+ */
+public class DocumentEdgeSmoother {
+
+    // Weight of the newly detected corners
+    static final float SMOOTHING_FACTOR = 0.5f;
+    // Movements larger than this fraction of the frame are not smoothed
+    static final float JUMP_DISTANCE = 0.15f;
+    static final int MAX_MISSED_FRAMES = 3;
+
+    private DocumentQuadrilateral mSmoothed;
+    private int mMissedFrames;
+
+    /**
+     * @param detected the corners detected in the latest frame or null, if none were detected
+     *
+     * @return the smoothed corners or null, if the document is not shown anymore
+     */
+    @Nullable
+    public DocumentQuadrilateral update(@Nullable final DocumentQuadrilateral detected) {
+        if (detected == null) {
+            mMissedFrames++;
+            if (mMissedFrames > MAX_MISSED_FRAMES) {
+                mSmoothed = null; // NOPMD
+            }
+            return mSmoothed;
+        }
+        mMissedFrames = 0;
+        if (mSmoothed == null || mSmoothed.getMaxCornerDistance(detected) > JUMP_DISTANCE) {
+            mSmoothed = detected;
+        } else {
+            mSmoothed = mSmoothed.interpolate(detected, SMOOTHING_FACTOR);
+        }
+        return mSmoothed;
+    }
+
+    public void reset() {
+        mSmoothed = null; // NOPMD
+        mMissedFrames = 0;
+    }
+}
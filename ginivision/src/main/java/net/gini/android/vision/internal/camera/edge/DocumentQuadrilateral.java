@@ -0,0 +1,150 @@
+package net.gini.android.vision.internal.camera.edge;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> The corners of a document in a preview frame. The coordinates are normalized to the frame's
+ * width and height and are already rotated to the display orientation, so (0,0) is the top left
+ * and (1,1) the bottom right of the preview shown on the screen.
+ *
+ * @suppress
+ */
+public final class DocumentQuadrilateral {
+
+    public static final int TOP_LEFT = 0;
+    public static final int TOP_RIGHT = 1;
+    public static final int BOTTOM_RIGHT = 2;
+    public static final int BOTTOM_LEFT = 3;
+
+    // x and y of the corners in the order: top left, top right, bottom right, bottom left
+    private final float[] mCorners;
+
+    /**
+     * @param corners x and y of four corners in clockwise or counter-clockwise order, starting
+     *                with any corner
+     *
+     * @return a quadrilateral with the corners ordered starting at the top left
+     */
+    @NonNull
+    public static DocumentQuadrilateral fromCorners(@NonNull final float[] corners) {
+        if (corners.length != 8) {
+            throw new IllegalArgumentException("Four corners are required");
+        }
+        final float[] ordered = new float[8];
+        // Make the order clockwise on the screen (y points down)
+        final boolean clockwise = crossProduct(corners, 0, 1, 2) > 0;
+        // Start with the corner closest to the top left
+        int first = 0;
+        for (int i = 1; i < 4; i++) {
+            if (corners[2 * i] + corners[2 * i + 1]
+                    < corners[2 * first] + corners[2 * first + 1]) {
+                first = i;
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            final int corner = clockwise ? (first + i) % 4 : (first - i + 4) % 4;
+            ordered[2 * i] = corners[2 * corner];
+            ordered[2 * i + 1] = corners[2 * corner + 1];
+        }
+        return new DocumentQuadrilateral(ordered);
+    }
+
+    private DocumentQuadrilateral(@NonNull final float[] corners) {
+        mCorners = corners;
+    }
+
+    /**
+     * @param corner one of {@link #TOP_LEFT}, {@link #TOP_RIGHT}, {@link #BOTTOM_RIGHT} or {@link
+     *               #BOTTOM_LEFT}
+     */
+    public float getX(final int corner) {
+        return mCorners[2 * corner];
+    }
+
+    /**
+     * @param corner one of {@link #TOP_LEFT}, {@link #TOP_RIGHT}, {@link #BOTTOM_RIGHT} or {@link
+     *               #BOTTOM_LEFT}
+     */
+    public float getY(final int corner) {
+        return mCorners[2 * corner + 1];
+    }
+
+    /**
+     * @return the area as a fraction of the frame's area
+     */
+    public float getArea() {
+        // Shoelace formula
+        float area = 0;
+        for (int i = 0; i < 4; i++) {
+            final int next = (i + 1) % 4;
+            area += mCorners[2 * i] * mCorners[2 * next + 1]
+                    - mCorners[2 * next] * mCorners[2 * i + 1];
+        }
+        return Math.abs(area) / 2;
+    }
+
+    /**
+     * @return the largest distance between corresponding corners
+     */
+    public float getMaxCornerDistance(@NonNull final DocumentQuadrilateral other) {
+        float maxDistance = 0;
+        for (int i = 0; i < 4; i++) {
+            final float dx = mCorners[2 * i] - other.mCorners[2 * i];
+            final float dy = mCorners[2 * i + 1] - other.mCorners[2 * i + 1];
+            maxDistance = Math.max(maxDistance, (float) Math.sqrt(dx * dx + dy * dy));
+        }
+        return maxDistance;
+    }
+
+    /**
+     * @param target   the quadrilateral to move towards
+     * @param fraction 0 returns this quadrilateral's corners and 1 the target's corners
+     *
+     * @return a quadrilateral with corners between this one's and the target's
+     */
+    @NonNull
+    public DocumentQuadrilateral interpolate(@NonNull final DocumentQuadrilateral target,
+            final float fraction) {
+        final float[] corners = new float[8];
+        for (int i = 0; i < 8; i++) {
+            corners[i] = mCorners[i] + (target.mCorners[i] - mCorners[i]) * fraction;
+        }
+        return new DocumentQuadrilateral(corners);
+    }
+
+    private static float crossProduct(@NonNull final float[] corners, final int a, final int b,
+            final int c) {
+        return (corners[2 * b] - corners[2 * a]) * (corners[2 * c + 1] - corners[2 * b + 1])
+                - (corners[2 * b + 1] - corners[2 * a + 1]) * (corners[2 * c] - corners[2 * b]);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(mCorners, ((DocumentQuadrilateral) o).mCorners);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(mCorners);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "DocumentQuadrilateral{(%.3f, %.3f), (%.3f, %.3f), (%.3f, %.3f), (%.3f, %.3f)}",
+                mCorners[0], mCorners[1], mCorners[2], mCorners[3],
+                mCorners[4], mCorners[5], mCorners[6], mCorners[7]);
+    }
+}
@@ -0,0 +1,68 @@
+package net.gini.android.vision.internal.camera.edge;
+
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> Per-frame processing durations of the live document edge detection. Recorded on the
+ * detection thread and read on any thread.
+ *
+ * @suppress
+ */
+public class FrameLatencyStats {
+
+    private long mFrameCount;
+    private long mSkippedFrameCount;
+    private long mTotalNanos;
+    private long mMaxNanos;
+    private long mLastNanos;
+
+    synchronized void record(final long durationNanos) {
+        mFrameCount++;
+        mTotalNanos += durationNanos;
+        mMaxNanos = Math.max(mMaxNanos, durationNanos);
+        mLastNanos = durationNanos;
+    }
+
+    synchronized void recordSkipped() {
+        mSkippedFrameCount++;
+    }
+
+    /**
+     * @return the number of frames in which a document was searched for
+     */
+    public synchronized long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return the number of frames dropped by the frame scheduling
+     */
+    public synchronized long getSkippedFrameCount() {
+        return mSkippedFrameCount;
+    }
+
+    public synchronized float getAverageMs() {
+        return mFrameCount > 0 ? mTotalNanos / (float) mFrameCount / 1_000_000f : 0;
+    }
+
+    public synchronized float getMaxMs() {
+        return mMaxNanos / 1_000_000f;
+    }
+
+    public synchronized float getLastMs() {
+        return mLastNanos / 1_000_000f;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "FrameLatencyStats{frames=%d, skipped=%d, average=%.2fms, max=%.2fms, "
+                        + "last=%.2fms}", mFrameCount, mSkippedFrameCount, getAverageMs(),
+                getMaxMs(), getLastMs());
+    }
+}
@@ -0,0 +1,195 @@
+package net.gini.android.vision.internal.camera.edge;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Message;
+import android.os.Process;
+import android.os.SystemClock;
+
+import net.gini.android.vision.internal.camera.api.UIExecutor;
+import net.gini.android.vision.internal.qrcode.PaymentQRCodeReader;
+import net.gini.android.vision.internal.util.Size;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Internal use only.
+ *
+ * <p> Detects the document's edges in preview frames on a background thread. Only the latest frame
+ * is kept and frames arriving faster than the detection interval are released without detection.
+ * Frames are released as soon as their luminance plane was downsampled, so the camera can reuse
+ * the buffers while the edges are searched.
+ *
+ * @suppress
+ */
+public class LiveDocumentEdgeDetector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LiveDocumentEdgeDetector.class);
+
+    private static final int DETECT_EDGES = 1;
+    // About 15 detections per second are enough for a smooth overlay
+    private static final long MIN_FRAME_INTERVAL_MS = 66;
+    private static final int LOG_STATS_INTERVAL = 100;
+
+    private final HandlerThread mHandlerThread;
+    private final Handler mHandler;
+    private final UIExecutor mUIExecutor = new UIExecutor();
+    private final DocumentEdgeDetector mDetector = new DocumentEdgeDetector();
+    private final DocumentEdgeSmoother mSmoother = new DocumentEdgeSmoother();
+    private final FrameLatencyStats mLatencyStats = new FrameLatencyStats();
+    // Only the latest frame is kept, older ones are released without detection
+    private final AtomicReference<Frame> mPendingFrame = new AtomicReference<>();
+    private volatile long mLastFrameMs;
+    private volatile Listener mListener;
+
+    public LiveDocumentEdgeDetector() {
+        mHandlerThread = new HandlerThread("DocumentEdgeDetectorThread",
+                Process.THREAD_PRIORITY_BACKGROUND);
+        mHandlerThread.start();
+        mHandler = new Handler(mHandlerThread.getLooper()) {
+            @Override
+            public void handleMessage(final Message msg) {
+                if (msg.what == DETECT_EDGES) {
+                    detectPendingFrame();
+                } else {
+                    super.handleMessage(msg);
+                }
+            }
+        };
+    }
+
+    /**
+     * Detects the document's edges in the image. The release listener is called when the image is
+     * not needed anymore.
+     *
+     * @param image           an NV21 preview frame
+     * @param imageSize       the size of the frame
+     * @param rotation        clockwise rotation in degrees to display the frame upright
+     * @param releaseListener called when the image byte array is not used anymore
+     */
+    public void detect(@NonNull final byte[] image, @NonNull final Size imageSize,
+            final int rotation,
+            @Nullable final PaymentQRCodeReader.ImageReleaseListener releaseListener) {
+        final Frame frame = new Frame(image, imageSize, rotation, releaseListener);
+        // If there is no listener, we don't process the image to avoid unnecessary computation
+        if (mListener == null) {
+            frame.release();
+            return;
+        }
+        final long now = SystemClock.elapsedRealtime();
+        if (now - mLastFrameMs < MIN_FRAME_INTERVAL_MS) {
+            mLatencyStats.recordSkipped();
+            frame.release();
+            return;
+        }
+        mLastFrameMs = now;
+        final Frame skippedFrame = mPendingFrame.getAndSet(frame);
+        if (skippedFrame != null) {
+            mLatencyStats.recordSkipped();
+            skippedFrame.release();
+        }
+        mHandler.removeMessages(DETECT_EDGES);
+        mHandler.sendMessageAtFrontOfQueue(mHandler.obtainMessage(DETECT_EDGES));
+    }
+
+    private void detectPendingFrame() {
+        final Frame frame = mPendingFrame.getAndSet(null);
+        if (frame == null) {
+            return;
+        }
+        if (mListener == null) {
+            frame.release();
+            return;
+        }
+        final long startNanos = System.nanoTime();
+        try {
+            mDetector.loadFrame(frame.image, frame.imageSize);
+        } finally {
+            frame.release();
+        }
+        final DocumentQuadrilateral quadrilateral =
+                mSmoother.update(mDetector.detect(frame.rotation));
+        mLatencyStats.record(System.nanoTime() - startNanos);
+        if (mLatencyStats.getFrameCount() % LOG_STATS_INTERVAL == 0) {
+            LOG.debug("Document edge detection: {}", mLatencyStats);
+        }
+        mUIExecutor.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                final Listener listener = mListener;
+                if (listener != null) {
+                    listener.onDocumentEdgesChanged(quadrilateral);
+                }
+            }
+        });
+    }
+
+    public void release() {
+        mListener = null; // NOPMD
+        mHandler.removeMessages(DETECT_EDGES);
+        final Frame pendingFrame = mPendingFrame.getAndSet(null);
+        if (pendingFrame != null) {
+            pendingFrame.release();
+        }
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mSmoother.reset();
+            }
+        });
+        mHandlerThread.quitSafely();
+    }
+
+    public void setListener(@Nullable final Listener listener) {
+        mListener = listener;
+    }
+
+    @NonNull
+    public FrameLatencyStats getLatencyStats() {
+        return mLatencyStats;
+    }
+
+    /**
+     * Internal use only.
+     *
+     * @suppress
+     */
+    public interface Listener {
+
+        /**
+         * Called on the UI thread after each detection.
+         *
+         * @param quadrilateral the smoothed document corners normalized to the displayed preview
+         *                      or null, if no document is visible
+         */
+        void onDocumentEdgesChanged(@Nullable DocumentQuadrilateral quadrilateral);
+    }
+
+    private static class Frame {
+
+        final byte[] image;
+        final Size imageSize;
+        final int rotation;
+        private final PaymentQRCodeReader.ImageReleaseListener mReleaseListener;
+
+        Frame(final byte[] image, final Size imageSize, final int rotation,
+                @Nullable final PaymentQRCodeReader.ImageReleaseListener releaseListener) {
+            this.image = image;
+            this.imageSize = imageSize;
+            this.rotation = rotation;
+            mReleaseListener = releaseListener;
+        }
+
+        void release() {
+            if (mReleaseListener != null) {
+                mReleaseListener.onImageReleased(image);
+            }
+        }
+    }
+}
@@ -51,6 +51,7 @@ class Exif {
     static final String USER_COMMENT_DEVICE_TYPE = "DeviceType";
     static final String USER_COMMENT_SOURCE = "Source";
     static final String USER_COMMENT_IMPORT_METHOD = "ImportMethod";
+    static final String USER_COMMENT_UPLOAD_PAYLOAD = "UploadPayload";
 
     private final TiffOutputSet mTiffOutputSet;
 
@@ -370,6 +371,7 @@ class Exif {
         private String mDeviceType;
         private String mSource;
         private String mImportMethod;
+        private String mUploadPayload;
 
         private UserCommentBuilder() {
 
@@ -415,6 +417,11 @@ class Exif {
             return this;
         }
 
+        UserCommentBuilder setUploadPayload(final String uploadPayload) {
+            mUploadPayload = uploadPayload;
+            return this;
+        }
+
         @NonNull
         public String build() {
             if (mContentId == null) {
@@ -460,6 +467,10 @@ class Exif {
             if (mImportMethod != null) {
                 map.put(USER_COMMENT_IMPORT_METHOD, mImportMethod);
             }
+            // Upload Payload
+            if (mUploadPayload != null) {
+                map.put(USER_COMMENT_UPLOAD_PAYLOAD, mUploadPayload);
+            }
             return map;
         }
 
@@ -87,6 +87,18 @@ final class ExifReader {
         return 0;
     }
 
+    /**
+     * @return the jpeg thumbnail embedded in the EXIF data or null, if there is none
+     */
+    @Nullable
+    byte[] getThumbnailData() {
+        try {
+            return mJpegMetadata.getEXIFThumbnailData();
+        } catch (final ImageReadException | IOException e) {
+            return null;
+        }
+    }
+
     private int exifOrientationToRotation(final int exifOrientation) {
         final int degrees;
         switch (exifOrientation) {
@@ -34,6 +34,7 @@ class MutablePhoto extends ImmutablePhoto implements Parcelable {
     private String mDeviceType;
     private Document.Source mSource;
     private Document.ImportMethod mImportMethod;
+    private String mUploadPayload;
 
     MutablePhoto(@NonNull final byte[] data, final int orientation,
             @NonNull final String deviceOrientation,
@@ -82,6 +83,7 @@ class MutablePhoto extends ImmutablePhoto implements Parcelable {
         initDeviceType(userComment, document);
         initSource(userComment, document);
         initImportMethod(userComment, document);
+        initUploadPayload(userComment);
         initRotationForDisplay(exifReader, document);
     }
 
@@ -150,6 +152,11 @@ class MutablePhoto extends ImmutablePhoto implements Parcelable {
         }
     }
 
+    private void initUploadPayload(@NonNull final String userComment) {
+        mUploadPayload = ExifReader.getValueForKeyFromUserComment(
+                Exif.USER_COMMENT_UPLOAD_PAYLOAD, userComment);
+    }
+
     private void initRotationForDisplay(@Nullable final ExifReader exifReader,
             @NonNull final ImageDocument document) {
         // Rotation is unknown only for imported images
@@ -210,6 +217,24 @@ class MutablePhoto extends ImmutablePhoto implements Parcelable {
         return mImportMethod;
     }
 
+    /**
+     * @param uploadPayload the compression parameters chosen by the {@link
+     *                      UploadPayloadOptimizer}, stored in the EXIF User Comment on the next
+     *                      {@link #updateExif()}
+     */
+    synchronized void setUploadPayload(@Nullable final String uploadPayload) {
+        mUploadPayload = uploadPayload;
+    }
+
+    /**
+     * @return the compression parameters the photo was optimized with or null, if it was not
+     * optimized for upload
+     */
+    @Nullable
+    synchronized String getUploadPayload() {
+        return mUploadPayload;
+    }
+
     @VisibleForTesting
     @NonNull
     synchronized String getContentId() {
@@ -257,6 +282,7 @@ class MutablePhoto extends ImmutablePhoto implements Parcelable {
             if (mImportMethod != Document.ImportMethod.NONE) {
                 builder.setImportMethod(mImportMethod.asString());
             }
+            builder.setUploadPayload(mUploadPayload);
 
             final String userComment = builder.build();
             exifBuilder.setUserComment(userComment)
@@ -289,6 +315,7 @@ class MutablePhoto extends ImmutablePhoto implements Parcelable {
         dest.writeString(mDeviceType);
         dest.writeString(mSource.getName());
         dest.writeString(mImportMethod.asString());
+        dest.writeString(mUploadPayload);
     }
 
     public static final Creator<MutablePhoto> CREATOR = new Creator<MutablePhoto>() {
@@ -311,6 +338,7 @@ class MutablePhoto extends ImmutablePhoto implements Parcelable {
         mDeviceType = in.readString();
         mSource = Document.Source.newSource(in.readString());
         mImportMethod = Document.ImportMethod.forName(in.readString());
+        mUploadPayload = in.readString();
 
         readRequiredTags();
     }
@@ -350,8 +378,12 @@ class MutablePhoto extends ImmutablePhoto implements Parcelable {
         if (mSource != null ? !mSource.equals(that.mSource) : that.mSource != null) {
             return false;
         }
-        return mImportMethod != null ? mImportMethod.equals(that.mImportMethod)
-                : that.mImportMethod == null;
+        if (mImportMethod != null ? !mImportMethod.equals(that.mImportMethod)
+                : that.mImportMethod != null) {
+            return false;
+        }
+        return mUploadPayload != null ? mUploadPayload.equals(that.mUploadPayload)
+                : that.mUploadPayload == null;
 
     }
 
@@ -365,6 +397,7 @@ class MutablePhoto extends ImmutablePhoto implements Parcelable {
         result = 31 * result + (mDeviceType != null ? mDeviceType.hashCode() : 0);
         result = 31 * result + (mSource != null ? mSource.hashCode() : 0);
         result = 31 * result + (mImportMethod != null ? mImportMethod.hashCode() : 0);
+        result = 31 * result + (mUploadPayload != null ? mUploadPayload.hashCode() : 0);
         return result;
     }
 }
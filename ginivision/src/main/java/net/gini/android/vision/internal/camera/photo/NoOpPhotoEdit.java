@@ -31,4 +31,10 @@ class NoOpPhotoEdit extends PhotoEdit {
     public PhotoEdit compressByDefault() {
         return this;
     }
+
+    @NonNull
+    @Override
+    public PhotoEdit compressForUpload() {
+        return this;
+    }
 }
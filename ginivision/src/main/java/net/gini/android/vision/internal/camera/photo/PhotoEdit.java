@@ -1,6 +1,9 @@
 package net.gini.android.vision.internal.camera.photo;
 
-import android.os.AsyncTask;
+import net.gini.android.vision.GiniVision;
+import net.gini.android.vision.internal.async.BackgroundTask;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -63,10 +66,27 @@ public class PhotoEdit {
         return this;
     }
 
+    /**
+     * Compresses with the parameters chosen by the {@link UploadPayloadOptimizer}, if upload
+     * payload optimization was enabled, otherwise with the default quality.
+     */
+    @NonNull
+    public PhotoEdit compressForUpload() {
+        final UploadPayloadOptimizer optimizer = GiniVision.hasInstance()
+                ? GiniVision.getInstance().internal().getUploadPayloadOptimizer() : null;
+        if (optimizer == null) {
+            return compressByDefault();
+        }
+        removeCompressionModifier();
+        getPhotoModifiers().add(new PhotoPayloadOptimizationModifier(optimizer, mPhoto));
+        return this;
+    }
+
     private void removeCompressionModifier() {
         final List<PhotoModifier> photoModifiers = getPhotoModifiers();
         for (final PhotoModifier photoModifier : photoModifiers) {
-            if (photoModifier.getClass() == PhotoCompressionModifier.class) {
+            if (photoModifier.getClass() == PhotoCompressionModifier.class
+                    || photoModifier.getClass() == PhotoPayloadOptimizationModifier.class) {
                 photoModifiers.remove(photoModifier);
                 return;
             }
@@ -82,7 +102,7 @@ public class PhotoEdit {
         final EditAsync async = new EditAsync(mPhoto, mPhotoModifiers);
         mPhotoModifiers = null; // NOPMD
         async.setCallback(callback);
-        async.execute((Void[]) null);
+        async.execute();
     }
 
     private static void applyChanges(@Nullable final List<PhotoModifier> modifiers) {
@@ -94,7 +114,7 @@ public class PhotoEdit {
         }
     }
 
-    private static class EditAsync extends AsyncTask<Void, Void, Photo> {
+    private static class EditAsync extends BackgroundTask<Void, Photo> {
 
         private static final PhotoEditCallback NO_OP_CALLBACK = new PhotoEditCallback() {
             @Override
@@ -111,6 +131,7 @@ public class PhotoEdit {
         private PhotoEditCallback mCallback = NO_OP_CALLBACK;
 
         EditAsync(@NonNull final Photo photo, @Nullable final List<PhotoModifier> photoModifiers) {
+            super(TaskPool.CPU, TaskPriority.NORMAL);
             mPhoto = photo;
             mPhotoModifiers = photoModifiers;
         }
@@ -1,9 +1,10 @@
 package net.gini.android.vision.internal.camera.photo;
 
-import android.os.AsyncTask;
-
 import net.gini.android.vision.AsyncCallback;
 import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.internal.async.BackgroundTask;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
 
 import androidx.annotation.NonNull;
 
@@ -12,12 +13,14 @@ import androidx.annotation.NonNull;
  *
  * @suppress
  */
-public class PhotoFactoryDocumentAsyncTask extends AsyncTask<ImageDocument, Void, Photo> {
+public class PhotoFactoryDocumentAsyncTask extends BackgroundTask<ImageDocument, Photo> {
 
     private final AsyncCallback<Photo, Exception> mListener;
     private Exception mException;
 
-    public PhotoFactoryDocumentAsyncTask(@NonNull final AsyncCallback<Photo, Exception> listener) {
+    public PhotoFactoryDocumentAsyncTask(@NonNull final TaskPriority priority,
+            @NonNull final AsyncCallback<Photo, Exception> listener) {
+        super(TaskPool.LATENCY, priority);
         mListener = listener;
     }
 
@@ -40,4 +43,9 @@ public class PhotoFactoryDocumentAsyncTask extends AsyncTask<ImageDocument, Void
         mListener.onSuccess(photo);
     }
 
+    @Override
+    protected void onCancelled() {
+        mListener.onCancelled();
+    }
+
 }
@@ -0,0 +1,128 @@
+package net.gini.android.vision.internal.camera.photo;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Internal use only.
+ *
+ * <p> Compresses the photo with the parameters chosen by the {@link UploadPayloadOptimizer} and
+ * records them in the EXIF User Comment. Photos which already carry these parameters are left
+ * unchanged.
+ *
+ * @suppress
+ */
+class PhotoPayloadOptimizationModifier implements PhotoModifier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(
+            PhotoPayloadOptimizationModifier.class);
+
+    private static final int MAX_COMPRESSIONS = 3;
+    // Used when the preview is not available
+    private static final double DEFAULT_TEXT_DENSITY = 0.5;
+
+    private final Photo mPhoto;
+    private final UploadPayloadOptimizer mOptimizer;
+
+    PhotoPayloadOptimizationModifier(@NonNull final UploadPayloadOptimizer optimizer,
+            @NonNull final Photo photo) {
+        mOptimizer = optimizer;
+        mPhoto = photo;
+    }
+
+    @Override
+    public void modify() {
+        if (mPhoto.getData() == null) {
+            return;
+        }
+        synchronized (mPhoto) {
+            if (isOptimized(mPhoto)) {
+                // Compressing again only adds generation loss and the page was already recorded
+                LOG.debug("Page already optimized for upload");
+                return;
+            }
+            final byte[] originalJpeg = mPhoto.getData();
+            final Bitmap originalImage = BitmapFactory.decodeByteArray(originalJpeg, 0,
+                    originalJpeg.length);
+            if (originalImage == null) {
+                return;
+            }
+            final long pixelCount = (long) originalImage.getWidth() * originalImage.getHeight();
+
+            UploadPayloadOptimizer.Parameters parameters = mOptimizer.getInitialParameters(
+                    estimateTextDensity(mPhoto.getBitmapPreview()));
+            byte[] jpeg = compress(originalImage, parameters);
+            for (int i = 1; i < MAX_COMPRESSIONS; i++) {
+                final UploadPayloadOptimizer.Parameters adjustedParameters =
+                        mOptimizer.adjust(parameters, jpeg.length, pixelCount);
+                if (adjustedParameters == null) {
+                    break;
+                }
+                parameters = adjustedParameters;
+                jpeg = compress(originalImage, parameters);
+            }
+            LOG.debug("Page compressed from {} to {} bytes with {} (budget {} bytes)",
+                    originalJpeg.length, jpeg.length, parameters,
+                    mOptimizer.getPageByteBudget());
+            mOptimizer.recordResult(originalJpeg.length, jpeg.length, parameters);
+
+            mPhoto.setData(jpeg);
+            mPhoto.updateBitmapPreview();
+            if (mPhoto instanceof MutablePhoto) {
+                ((MutablePhoto) mPhoto).setUploadPayload(parameters.toUserCommentValue());
+            }
+
+            mPhoto.updateExif();
+        }
+    }
+
+    private static boolean isOptimized(@NonNull final Photo photo) {
+        return photo instanceof MutablePhoto
+                && ((MutablePhoto) photo).getUploadPayload() != null;
+    }
+
+    @NonNull
+    private static byte[] compress(@NonNull final Bitmap image,
+            @NonNull final UploadPayloadOptimizer.Parameters parameters) {
+        Bitmap scaledImage = image;
+        if (parameters.getScale() < 1) {
+            scaledImage = Bitmap.createScaledBitmap(image,
+                    Math.max(1, (int) Math.round(image.getWidth() * parameters.getScale())),
+                    Math.max(1, (int) Math.round(image.getHeight() * parameters.getScale())),
+                    true);
+        }
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        scaledImage.compress(Bitmap.CompressFormat.JPEG, parameters.getJpegQuality(),
+                byteArrayOutputStream);
+        if (scaledImage != image) {
+            scaledImage.recycle();
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static double estimateTextDensity(@Nullable final Bitmap preview) {
+        if (preview == null) {
+            return DEFAULT_TEXT_DENSITY;
+        }
+        final int width = preview.getWidth();
+        final int height = preview.getHeight();
+        final int[] pixels = new int[width * height];
+        preview.getPixels(pixels, 0, width, 0, 0, width, height);
+        for (int i = 0; i < pixels.length; i++) {
+            final int pixel = pixels[i];
+            // Rec. 601 luma
+            pixels[i] = (299 * Color.red(pixel) + 587 * Color.green(pixel)
+                    + 114 * Color.blue(pixel)) / 1000;
+        }
+        return UploadPayloadOptimizer.estimateTextDensity(pixels, width, height);
+    }
+}
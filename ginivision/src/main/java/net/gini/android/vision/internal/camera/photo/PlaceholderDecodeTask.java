@@ -0,0 +1,61 @@
+package net.gini.android.vision.internal.camera.photo;
+
+import android.graphics.Bitmap;
+
+import net.gini.android.vision.AsyncCallback;
+import net.gini.android.vision.internal.async.BackgroundTask;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
+import net.gini.android.vision.internal.util.Size;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> Decodes a low resolution placeholder of a jpeg which can be shown until the full preview
+ * is ready. See {@link ThumbnailDecoder#decodePlaceholder(byte[], Size)}.
+ *
+ * @suppress
+ */
+public class PlaceholderDecodeTask extends BackgroundTask<byte[], Bitmap> {
+
+    private static final Size PLACEHOLDER_MINIMUM_SIZE = new Size(160, 160);
+
+    private final AsyncCallback<Bitmap, Exception> mListener;
+    private Exception mException;
+
+    public PlaceholderDecodeTask(@NonNull final AsyncCallback<Bitmap, Exception> listener) {
+        super(TaskPool.LATENCY, TaskPriority.HIGH);
+        mListener = listener;
+    }
+
+    @Override
+    protected Bitmap doInBackground(final byte[]... jpegs) {
+        try {
+            final Bitmap placeholder = ThumbnailDecoder.decodePlaceholder(jpegs[0],
+                    PLACEHOLDER_MINIMUM_SIZE);
+            if (placeholder == null) {
+                mException = new IllegalStateException("Could not decode a placeholder");
+            }
+            return placeholder;
+        } catch (final Exception e) {
+            mException = e;
+            return null;
+        }
+    }
+
+    @Override
+    protected void onPostExecute(final Bitmap placeholder) {
+        if (mException != null) {
+            mListener.onError(mException);
+            return;
+        }
+        mListener.onSuccess(placeholder);
+    }
+
+    @Override
+    protected void onCancelled() {
+        mListener.onCancelled();
+    }
+}
@@ -0,0 +1,182 @@
+package net.gini.android.vision.internal.camera.photo;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import net.gini.android.vision.internal.util.Size;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Internal use only.
+ *
+ * <p> Decodes jpegs to thumbnails which are only as large as the views showing them. The jpeg
+ * thumbnail embedded in the EXIF data is used if it is large enough, otherwise the jpeg is decoded
+ * with the largest sample size which still covers the target size and then scaled down.
+ *
+ * @suppress
+ */
+public final class ThumbnailDecoder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ThumbnailDecoder.class);
+
+    /**
+     * Decodes a thumbnail which covers the target size while keeping the aspect ratio of the
+     * image.
+     *
+     * @return the thumbnail or null, if the jpeg could not be decoded
+     */
+    @WorkerThread
+    @Nullable
+    public static Bitmap decode(@NonNull final byte[] jpeg, @NonNull final Size targetSize) {
+        final Size imageSize = decodeSize(jpeg);
+        if (imageSize == null) {
+            return null;
+        }
+        final Size thumbnailSize = calculateScaledSize(imageSize, targetSize);
+        final Bitmap exifThumbnail = decodeExifThumbnail(jpeg, imageSize, thumbnailSize);
+        if (exifThumbnail != null) {
+            return scale(exifThumbnail, thumbnailSize, true);
+        }
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = calculateInSampleSize(imageSize, thumbnailSize);
+        final Bitmap sampled = BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+        if (sampled == null) {
+            return null;
+        }
+        return scale(sampled, thumbnailSize, true);
+    }
+
+    /**
+     * Decodes a low resolution placeholder as cheaply as possible. The EXIF thumbnail is used, if
+     * the jpeg has one, otherwise the jpeg is decoded with the largest sample size which keeps it
+     * at least as large as the minimum size. The placeholder is not scaled any further.
+     *
+     * @return the placeholder or null, if the jpeg could not be decoded
+     */
+    @WorkerThread
+    @Nullable
+    public static Bitmap decodePlaceholder(@NonNull final byte[] jpeg,
+            @NonNull final Size minimumSize) {
+        final Size imageSize = decodeSize(jpeg);
+        if (imageSize == null) {
+            return null;
+        }
+        final Bitmap exifThumbnail = decodeExifThumbnail(jpeg, imageSize, new Size(1, 1));
+        if (exifThumbnail != null) {
+            return exifThumbnail;
+        }
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = calculateInSampleSize(imageSize,
+                calculateScaledSize(imageSize, minimumSize));
+        return BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+    }
+
+    /**
+     * Scales down an already decoded bitmap to a thumbnail which covers the target size while
+     * keeping its aspect ratio. The bitmap is not recycled.
+     */
+    @NonNull
+    public static Bitmap scaleDown(@NonNull final Bitmap bitmap, @NonNull final Size targetSize) {
+        return scale(bitmap, calculateScaledSize(
+                new Size(bitmap.getWidth(), bitmap.getHeight()), targetSize), false);
+    }
+
+    @Nullable
+    private static Size decodeSize(@NonNull final byte[] jpeg) {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        return new Size(options.outWidth, options.outHeight);
+    }
+
+    /**
+     * @return the EXIF thumbnail, if it covers the minimum size, without scaling it
+     */
+    @Nullable
+    private static Bitmap decodeExifThumbnail(@NonNull final byte[] jpeg,
+            @NonNull final Size imageSize, @NonNull final Size minimumSize) {
+        final byte[] exifThumbnail;
+        try {
+            exifThumbnail = ExifReader.forJpeg(jpeg).getThumbnailData();
+        } catch (final ExifReaderException e) {
+            return null;
+        }
+        if (exifThumbnail == null) {
+            return null;
+        }
+        final Size exifThumbnailSize = decodeSize(exifThumbnail);
+        // The embedded thumbnail may be letterboxed or stale, only use it if it has the same
+        // orientation and covers the minimum size
+        if (exifThumbnailSize == null
+                || exifThumbnailSize.width < minimumSize.width
+                || exifThumbnailSize.height < minimumSize.height
+                || (exifThumbnailSize.width > exifThumbnailSize.height)
+                != (imageSize.width > imageSize.height)) {
+            return null;
+        }
+        final Bitmap bitmap = BitmapFactory.decodeByteArray(exifThumbnail, 0,
+                exifThumbnail.length);
+        if (bitmap == null) {
+            return null;
+        }
+        LOG.debug("Using EXIF thumbnail of size {}", exifThumbnailSize);
+        return bitmap;
+    }
+
+    @NonNull
+    private static Bitmap scale(@NonNull final Bitmap bitmap, @NonNull final Size size,
+            final boolean recycleSource) {
+        if (bitmap.getWidth() <= size.width && bitmap.getHeight() <= size.height) {
+            return bitmap;
+        }
+        final Bitmap scaled = Bitmap.createScaledBitmap(bitmap, size.width, size.height, true);
+        if (recycleSource && scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    /**
+     * @return the size of the image scaled down to cover the target size
+     */
+    @VisibleForTesting
+    @NonNull
+    static Size calculateScaledSize(@NonNull final Size imageSize,
+            @NonNull final Size targetSize) {
+        final float scale = Math.max((float) targetSize.width / imageSize.width,
+                (float) targetSize.height / imageSize.height);
+        if (scale >= 1) {
+            return imageSize;
+        }
+        return new Size(Math.max(1, Math.round(imageSize.width * scale)),
+                Math.max(1, Math.round(imageSize.height * scale)));
+    }
+
+    /**
+     * @return the largest power of two sample size which keeps the decoded image at least as
+     * large as the thumbnail size
+     */
+    @VisibleForTesting
+    static int calculateInSampleSize(@NonNull final Size imageSize,
+            @NonNull final Size thumbnailSize) {
+        int inSampleSize = 1;
+        while (imageSize.width / (inSampleSize * 2) >= thumbnailSize.width
+                && imageSize.height / (inSampleSize * 2) >= thumbnailSize.height) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    private ThumbnailDecoder() {
+    }
+}
@@ -0,0 +1,220 @@
+package net.gini.android.vision.internal.camera.photo;
+
+import net.gini.android.vision.network.UploadPayloadStatistics;
+
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Internal use only.
+ *
+ * <p> Chooses the JPEG quality and the downscale factor of the page images before they are
+ * uploaded. Pages with a lot of small text keep a higher quality and resolution than pages with
+ * little text. The byte budget of a page is lowered on slow links to keep the upload time short.
+ *
+ * <p> The initial parameters are only an estimate. After compressing with them the actual size is
+ * compared to the budget and the parameters are adjusted with {@link #adjust(Parameters, long,
+ * long)}.
+ *
+ * @suppress
+ */
+public class UploadPayloadOptimizer {
+
+    public static final int DEFAULT_PAGE_BYTE_BUDGET = 400 * 1024;
+
+    @VisibleForTesting
+    static final int MIN_PAGE_BYTE_BUDGET = 150 * 1024;
+    @VisibleForTesting
+    static final int MIN_JPEG_QUALITY = 40;
+    @VisibleForTesting
+    static final int MAX_JPEG_QUALITY = 85;
+    // Below this pixel count small print is not readable anymore
+    @VisibleForTesting
+    static final long MIN_PIXEL_COUNT = 2000000;
+    // A page should be uploaded in this time on the measured link
+    private static final double TARGET_UPLOAD_TIME_S = 4;
+    // Luminance difference to a neighbour pixel which counts as an edge
+    private static final int EDGE_THRESHOLD = 32;
+    // Fraction of edge pixels of a page densely covered with text
+    private static final double DENSE_TEXT_EDGE_FRACTION = 0.2;
+    private static final double SCALE_SAFETY_FACTOR = 0.95;
+
+    private final int mPageByteBudget;
+    private final ThroughputSource mThroughputSource;
+    private final UploadPayloadStatistics mStatistics;
+
+    public UploadPayloadOptimizer(final int pageByteBudget,
+            @Nullable final ThroughputSource throughputSource,
+            @NonNull final UploadPayloadStatistics statistics) {
+        mPageByteBudget = Math.max(MIN_PAGE_BYTE_BUDGET, pageByteBudget);
+        mThroughputSource = throughputSource;
+        mStatistics = statistics;
+    }
+
+    /**
+     * @return the maximum size of a page in bytes on the current link
+     */
+    long getPageByteBudget() {
+        final double throughput = mThroughputSource != null
+                ? mThroughputSource.getUploadThroughputBytesPerSecond() : -1;
+        if (throughput <= 0) {
+            return mPageByteBudget;
+        }
+        final long linkBudget = (long) (throughput * TARGET_UPLOAD_TIME_S);
+        return Math.max(MIN_PAGE_BYTE_BUDGET, Math.min(mPageByteBudget, linkBudget));
+    }
+
+    /**
+     * @param textDensity the text density of the page between 0 and 1
+     * @return the parameters to compress the page with first
+     */
+    @NonNull
+    Parameters getInitialParameters(final double textDensity) {
+        final double density = clamp(textDensity, 0, 1);
+        final int quality = (int) Math.round(
+                MIN_JPEG_QUALITY + (MAX_JPEG_QUALITY - MIN_JPEG_QUALITY) * density);
+        return new Parameters(quality, 1, density);
+    }
+
+    /**
+     * Lowers the quality first and downscales only when the lowest acceptable quality for the
+     * text density is reached.
+     *
+     * @param parameters      the parameters the page was compressed with
+     * @param compressedBytes the size of the compressed page
+     * @param pixelCount      the number of pixels of the original page
+     * @return the parameters to compress the page with again or {@code null}, if the page fits
+     * the budget or it can't be made smaller
+     */
+    @Nullable
+    Parameters adjust(@NonNull final Parameters parameters, final long compressedBytes,
+            final long pixelCount) {
+        final long budget = getPageByteBudget();
+        if (compressedBytes <= budget) {
+            return null;
+        }
+        final double ratio = (double) budget / compressedBytes;
+        final int minQuality = getMinQuality(parameters.getTextDensity());
+        if (parameters.getJpegQuality() > minQuality) {
+            // The size falls roughly linearly with the quality in the used range
+            final int quality = Math.max(minQuality,
+                    (int) Math.floor(parameters.getJpegQuality() * ratio));
+            return new Parameters(quality, parameters.getScale(), parameters.getTextDensity());
+        }
+        final double minScale = pixelCount <= MIN_PIXEL_COUNT ? 1
+                : Math.sqrt((double) MIN_PIXEL_COUNT / pixelCount);
+        if (parameters.getScale() <= minScale) {
+            return null;
+        }
+        // The size falls with the pixel count
+        final double scale = Math.max(minScale,
+                parameters.getScale() * Math.sqrt(ratio) * SCALE_SAFETY_FACTOR);
+        return new Parameters(parameters.getJpegQuality(), scale, parameters.getTextDensity());
+    }
+
+    void recordResult(final long inputBytes, final long outputBytes,
+            @NonNull final Parameters parameters) {
+        mStatistics.record(inputBytes, outputBytes, parameters.getJpegQuality(),
+                parameters.getScale());
+    }
+
+    private static int getMinQuality(final double textDensity) {
+        // Dense text needs a higher quality to keep the glyphs sharp
+        return (int) Math.round(MIN_JPEG_QUALITY + (MAX_JPEG_QUALITY - MIN_JPEG_QUALITY) / 3.0
+                * textDensity);
+    }
+
+    /**
+     * Estimates how much of the image is covered with text from the fraction of pixels which
+     * differ strongly from their right or bottom neighbour.
+     *
+     * @param luminance the luminance of the pixels in row-major order
+     * @param width     the width of the image
+     * @param height    the height of the image
+     * @return the text density between 0 and 1
+     */
+    static double estimateTextDensity(@NonNull final int[] luminance, final int width,
+            final int height) {
+        if (width < 2 || height < 2 || luminance.length < width * height) {
+            return 0;
+        }
+        long edgeCount = 0;
+        for (int y = 0; y < height - 1; y++) {
+            final int row = y * width;
+            for (int x = 0; x < width - 1; x++) {
+                final int value = luminance[row + x];
+                if (Math.abs(value - luminance[row + x + 1]) > EDGE_THRESHOLD
+                        || Math.abs(value - luminance[row + width + x]) > EDGE_THRESHOLD) {
+                    edgeCount++;
+                }
+            }
+        }
+        final double edgeFraction = (double) edgeCount / ((width - 1) * (height - 1));
+        return clamp(edgeFraction / DENSE_TEXT_EDGE_FRACTION, 0, 1);
+    }
+
+    private static double clamp(final double value, final double min, final double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Provides the measured upload throughput.
+     */
+    public interface ThroughputSource {
+
+        /**
+         * @return the upload throughput in bytes per second or a negative value, if unknown
+         */
+        double getUploadThroughputBytesPerSecond();
+    }
+
+    /**
+     * Compression parameters of a page.
+     */
+    static final class Parameters {
+
+        private final int mJpegQuality;
+        private final double mScale;
+        private final double mTextDensity;
+
+        Parameters(final int jpegQuality, final double scale, final double textDensity) {
+            mJpegQuality = jpegQuality;
+            mScale = scale;
+            mTextDensity = textDensity;
+        }
+
+        int getJpegQuality() {
+            return mJpegQuality;
+        }
+
+        double getScale() {
+            return mScale;
+        }
+
+        double getTextDensity() {
+            return mTextDensity;
+        }
+
+        /**
+         * @return the parameters in a format without commas and equal signs to be stored in the
+         * EXIF User Comment, for example {@code q62s0.80t0.35}
+         */
+        @NonNull
+        String toUserCommentValue() {
+            return String.format(Locale.US, "q%ds%.2ft%.2f", mJpegQuality, mScale,
+                    mTextDensity);
+        }
+
+        @Override
+        public String toString() {
+            return "Parameters{"
+                    + "jpegQuality=" + mJpegQuality
+                    + ", scale=" + mScale
+                    + ", textDensity=" + mTextDensity
+                    + '}';
+        }
+    }
+}
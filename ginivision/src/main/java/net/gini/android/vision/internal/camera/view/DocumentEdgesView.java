@@ -0,0 +1,145 @@
+package net.gini.android.vision.internal.camera.view;
+
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.View;
+
+import net.gini.android.vision.R;
+import net.gini.android.vision.internal.camera.edge.DocumentQuadrilateral;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+/**
+ * Internal use only.
+ *
+ * <p> Outlines the document detected in the camera preview. The corners are normalized to the
+ * preview, so the view has to be aligned to the preview surface.
+ *
+ * @suppress
+ */
+public class DocumentEdgesView extends View {
+
+    private static final int LINE_WIDTH = 2;
+    // Roughly the detection interval to move the outline continuously between detections
+    private static final long MOVE_DURATION_MS = 80;
+    private static final long FADE_DURATION_MS = 200;
+
+    private final Paint mLinePaint;
+    private final Paint mFillPaint;
+    private final Path mPath = new Path();
+    private final ValueAnimator mMoveAnimator;
+    private DocumentQuadrilateral mStart;
+    private DocumentQuadrilateral mTarget;
+    private DocumentQuadrilateral mDrawn;
+
+    public DocumentEdgesView(final Context context) {
+        this(context, null);
+    }
+
+    public DocumentEdgesView(final Context context, @Nullable final AttributeSet attrs) {
+        super(context, attrs);
+
+        mLinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mLinePaint.setColor(ContextCompat.getColor(context, R.color.gv_camera_document_edges));
+        mLinePaint.setStyle(Paint.Style.STROKE);
+        mLinePaint.setStrokeJoin(Paint.Join.ROUND);
+        mLinePaint.setStrokeWidth(LINE_WIDTH * getResources().getDisplayMetrics().density);
+
+        mFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mFillPaint.setColor(
+                ContextCompat.getColor(context, R.color.gv_camera_document_edges_fill));
+        mFillPaint.setStyle(Paint.Style.FILL);
+
+        mMoveAnimator = ValueAnimator.ofFloat(0, 1);
+        mMoveAnimator.setDuration(MOVE_DURATION_MS);
+        mMoveAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(final ValueAnimator animation) {
+                if (mStart == null || mTarget == null) {
+                    return;
+                }
+                mDrawn = mStart.interpolate(mTarget, animation.getAnimatedFraction());
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * Moves the outline to the document's new corners or fades it out, if no document is visible.
+     *
+     * @param quadrilateral the document corners normalized to the preview or null
+     */
+    public void setDocumentEdges(@Nullable final DocumentQuadrilateral quadrilateral) {
+        if (quadrilateral == null) {
+            if (mTarget != null) {
+                mTarget = null; // NOPMD
+                mMoveAnimator.cancel();
+                animate().alpha(0).setDuration(FADE_DURATION_MS);
+            }
+            return;
+        }
+        if (quadrilateral.equals(mTarget)) {
+            return;
+        }
+        mMoveAnimator.cancel();
+        if (mTarget == null) {
+            // Appear at the detected position instead of moving from where it disappeared
+            mDrawn = quadrilateral;
+            mTarget = quadrilateral;
+            animate().alpha(1).setDuration(FADE_DURATION_MS);
+            invalidate();
+            return;
+        }
+        mStart = mDrawn;
+        mTarget = quadrilateral;
+        mMoveAnimator.start();
+    }
+
+    public void clear() {
+        mMoveAnimator.cancel();
+        animate().cancel();
+        mStart = null; // NOPMD
+        mTarget = null; // NOPMD
+        mDrawn = null; // NOPMD
+        setAlpha(0);
+        invalidate();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mMoveAnimator.cancel();
+    }
+
+    @Override
+    protected void onDraw(final Canvas canvas) {
+        super.onDraw(canvas);
+        if (mDrawn == null) {
+            return;
+        }
+        updatePath(mDrawn);
+        canvas.drawPath(mPath, mFillPaint);
+        canvas.drawPath(mPath, mLinePaint);
+    }
+
+    private void updatePath(@NonNull final DocumentQuadrilateral quadrilateral) {
+        final int width = getWidth();
+        final int height = getHeight();
+        mPath.reset();
+        mPath.moveTo(quadrilateral.getX(DocumentQuadrilateral.TOP_LEFT) * width,
+                quadrilateral.getY(DocumentQuadrilateral.TOP_LEFT) * height);
+        mPath.lineTo(quadrilateral.getX(DocumentQuadrilateral.TOP_RIGHT) * width,
+                quadrilateral.getY(DocumentQuadrilateral.TOP_RIGHT) * height);
+        mPath.lineTo(quadrilateral.getX(DocumentQuadrilateral.BOTTOM_RIGHT) * width,
+                quadrilateral.getY(DocumentQuadrilateral.BOTTOM_RIGHT) * height);
+        mPath.lineTo(quadrilateral.getX(DocumentQuadrilateral.BOTTOM_LEFT) * width,
+                quadrilateral.getY(DocumentQuadrilateral.BOTTOM_LEFT) * height);
+        mPath.close();
+    }
+}
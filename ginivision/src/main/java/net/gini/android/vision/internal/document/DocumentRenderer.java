@@ -19,6 +19,13 @@ public interface DocumentRenderer {
     void toBitmap(@NonNull final Context context,
             @NonNull final Size targetSize, @NonNull final Callback callback);
 
+    /**
+     * Creates a low resolution placeholder which is much cheaper than the bitmap from {@link
+     * #toBitmap(Context, Size, Callback)}. The document's data has to be loaded. The callback
+     * receives a null bitmap, if there is no placeholder.
+     */
+    void toPlaceholderBitmap(@NonNull final Context context, @NonNull final Callback callback);
+
     void getPageCount(@NonNull final Context context,
             @NonNull final AsyncCallback<Integer, Exception> asyncCallback);
 
@@ -1,13 +1,16 @@
 package net.gini.android.vision.internal.document;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 
 import net.gini.android.vision.AsyncCallback;
 import net.gini.android.vision.GiniVision;
 import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.internal.async.TaskPriority;
 import net.gini.android.vision.internal.cache.PhotoMemoryCache;
 import net.gini.android.vision.internal.camera.photo.Photo;
 import net.gini.android.vision.internal.camera.photo.PhotoFactoryDocumentAsyncTask;
+import net.gini.android.vision.internal.camera.photo.PlaceholderDecodeTask;
 import net.gini.android.vision.internal.util.Size;
 
 import androidx.annotation.NonNull;
@@ -39,9 +42,45 @@ class ImageDocumentRenderer implements DocumentRenderer {
         }
     }
 
+    @Override
+    public void toPlaceholderBitmap(@NonNull final Context context,
+            @NonNull final Callback callback) {
+        final byte[] data = mImageDocument.getData();
+        if (data == null || isPreviewAvailable()) {
+            callback.onBitmapReady(null, 0);
+            return;
+        }
+        final PlaceholderDecodeTask task = new PlaceholderDecodeTask(
+                new AsyncCallback<Bitmap, Exception>() {
+                    @Override
+                    public void onSuccess(final Bitmap result) {
+                        callback.onBitmapReady(result, mImageDocument.getRotationForDisplay());
+                    }
+
+                    @Override
+                    public void onError(final Exception exception) {
+                        callback.onBitmapReady(null, 0);
+                    }
+
+                    @Override
+                    public void onCancelled() {
+                        callback.onBitmapReady(null, 0);
+                    }
+                });
+        task.execute(data);
+    }
+
+    private boolean isPreviewAvailable() {
+        if (GiniVision.hasInstance()) {
+            return GiniVision.getInstance().internal().getPhotoMemoryCache()
+                    .isCached(mImageDocument);
+        }
+        return mPhoto != null;
+    }
+
     private void createWithAsyncTask(@NonNull final Callback callback) {
         final PhotoFactoryDocumentAsyncTask asyncTask = new PhotoFactoryDocumentAsyncTask(
-                new AsyncCallback<Photo, Exception>() {
+                TaskPriority.HIGH, new AsyncCallback<Photo, Exception>() {
                     @Override
                     public void onSuccess(final Photo result) {
                         mPhoto = result;
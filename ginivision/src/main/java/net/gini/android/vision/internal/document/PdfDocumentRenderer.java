@@ -53,6 +53,13 @@ class PdfDocumentRenderer implements DocumentRenderer {
         }
     }
 
+    @Override
+    public void toPlaceholderBitmap(@NonNull final Context context,
+            @NonNull final Callback callback) {
+        // Rendering a pdf page has no cheaper variant
+        callback.onBitmapReady(null, 0);
+    }
+
     private Pdf getPdf() {
         if (mPdf != null) {
             return mPdf;
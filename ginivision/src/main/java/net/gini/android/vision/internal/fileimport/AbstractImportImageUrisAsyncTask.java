@@ -4,7 +4,6 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
-import android.os.AsyncTask;
 
 import net.gini.android.vision.AsyncCallback;
 import net.gini.android.vision.Document;
@@ -13,6 +12,9 @@ import net.gini.android.vision.ImportedFileValidationException;
 import net.gini.android.vision.document.DocumentFactory;
 import net.gini.android.vision.document.ImageDocument;
 import net.gini.android.vision.document.ImageMultiPageDocument;
+import net.gini.android.vision.internal.async.BackgroundTask;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
 import net.gini.android.vision.internal.camera.photo.Photo;
 import net.gini.android.vision.internal.camera.photo.PhotoFactory;
 import net.gini.android.vision.internal.util.DeviceHelper;
@@ -40,7 +42,7 @@ import androidx.annotation.NonNull;
  * @suppress
  */
 public abstract class AbstractImportImageUrisAsyncTask extends
-        AsyncTask<Uri, Integer, ImageMultiPageDocument> {
+        BackgroundTask<Uri, ImageMultiPageDocument> {
 
     private static final Logger LOG = LoggerFactory.getLogger(
             AbstractImportImageUrisAsyncTask.class);
@@ -60,6 +62,7 @@ public abstract class AbstractImportImageUrisAsyncTask extends
             @NonNull final Document.ImportMethod importMethod,
             @NonNull final AsyncCallback<ImageMultiPageDocument, ImportedFileValidationException>
                     callback) {
+        super(TaskPool.IO, TaskPriority.NORMAL);
         mContext = context;
         mIntent = intent;
         mGiniVision = giniVision;
@@ -132,6 +135,11 @@ public abstract class AbstractImportImageUrisAsyncTask extends
         return multiPageDocument;
     }
 
+    @Override
+    protected void onCancelled() {
+        mCallback.onCancelled();
+    }
+
     private ImageDocument processImageUri(@NonNull final Uri uri,
             @NonNull final ImageMultiPageDocument multiPageDocument) {
         final ImageDocument document = createDocument(uri);
@@ -164,7 +172,7 @@ public abstract class AbstractImportImageUrisAsyncTask extends
         }
         // Compress Photo
         LOG.debug("Compress Photo created from uri {}", uri);
-        photo.edit().compressByDefault().apply();
+        photo.edit().compressForUpload().apply();
         if (isCancelled()) {
             LOG.debug("Import cancelled for uri {}", uri);
             return null;
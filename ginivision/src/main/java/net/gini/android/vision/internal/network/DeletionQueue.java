@@ -0,0 +1,368 @@
+package net.gini.android.vision.internal.network;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import net.gini.android.vision.internal.async.SerialExecutor;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Internal use only.
+ *
+ * <p> Deletes documents from the Gini API in the background. The Gini API document ids are
+ * written to a file to delete them even if the app process was killed before all deletions
+ * finished.
+ *
+ * <p> Composite documents are deleted before their partial documents because the Gini API
+ * doesn't delete partial documents which are still referenced by a composite document. Failed
+ * deletions are retried with an exponential backoff and dropped after the maximum number of
+ * attempts.
+ *
+ * <p> The file is read and written in order on the I/O pool of the {@link
+ * net.gini.android.vision.internal.async.TaskRuntime}.
+ *
+ * @suppress
+ */
+public class DeletionQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeletionQueue.class);
+
+    @VisibleForTesting
+    static final String QUEUE_FILE = "gv-deletion-queue.json";
+    @VisibleForTesting
+    static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_BASE_DELAY_MS = 2000;
+    private static final long RETRY_MAX_DELAY_MS = 60000;
+
+    private static final String KEY_API_DOCUMENT_ID = "apiDocumentId";
+    private static final String KEY_COMPOSITE = "composite";
+    private static final String KEY_ATTEMPTS = "attempts";
+
+    /**
+     * Sends the deletion requests.
+     */
+    public interface Sender {
+
+        /**
+         * @param apiDocumentId the id of the document in the Gini API
+         * @param future        to be completed when the document was deleted or completed
+         *                      exceptionally when the deletion failed
+         */
+        void delete(@NonNull String apiDocumentId, @NonNull CompletableFuture<Void> future);
+    }
+
+    private final File mFile;
+    private final Executor mFileExecutor;
+    private final Handler mRetryHandler;
+    private final ExponentialBackoff mBackoff;
+    private final Sender mSender;
+    private final Map<String, Entry> mEntries = new LinkedHashMap<>();
+    private boolean mLoaded;
+
+    public DeletionQueue(@NonNull final Context context, @NonNull final Sender sender) {
+        this(new File(context.getFilesDir(), QUEUE_FILE),
+                new SerialExecutor(TaskPool.IO, TaskPriority.LOW),
+                new Handler(Looper.getMainLooper()), sender);
+    }
+
+    /**
+     * @param fileExecutor has to execute the tasks one after another in the submission order
+     */
+    @VisibleForTesting
+    DeletionQueue(@NonNull final File file, @NonNull final Executor fileExecutor,
+            @NonNull final Handler retryHandler, @NonNull final Sender sender) {
+        mFile = file;
+        mFileExecutor = fileExecutor;
+        mRetryHandler = retryHandler;
+        mBackoff = new ExponentialBackoff(RETRY_BASE_DELAY_MS, RETRY_MAX_DELAY_MS);
+        mSender = sender;
+    }
+
+    /**
+     * Adds the documents to the queue and starts deleting them. Documents which are already in
+     * the queue are not added again.
+     *
+     * @param compositeApiDocumentIds the ids of composite documents
+     * @param partialApiDocumentIds   the ids of partial documents
+     */
+    public void enqueue(@NonNull final Collection<String> compositeApiDocumentIds,
+            @NonNull final Collection<String> partialApiDocumentIds) {
+        final List<String> compositeIds = new ArrayList<>(compositeApiDocumentIds);
+        final List<String> partialIds = new ArrayList<>(partialApiDocumentIds);
+        mFileExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (DeletionQueue.this) {
+                    load();
+                    boolean added = false;
+                    for (final String apiDocumentId : compositeIds) {
+                        added |= add(apiDocumentId, true);
+                    }
+                    for (final String apiDocumentId : partialIds) {
+                        added |= add(apiDocumentId, false);
+                    }
+                    if (!added) {
+                        return;
+                    }
+                    LOG.debug("Deletion queued for {} composite and {} partial documents",
+                            compositeIds.size(), partialIds.size());
+                    persist();
+                }
+                drain();
+            }
+        });
+    }
+
+    /**
+     * Loads the queue file in the background and starts deleting the documents which were left in
+     * the queue by a previous app process.
+     */
+    public void resume() {
+        mFileExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (DeletionQueue.this) {
+                    load();
+                }
+                drain();
+            }
+        });
+    }
+
+    /**
+     * Loads the queue file on the calling thread, if it wasn't loaded yet.
+     */
+    @VisibleForTesting
+    synchronized int size() {
+        load();
+        return mEntries.size();
+    }
+
+    private boolean add(@NonNull final String apiDocumentId, final boolean composite) {
+        if (mEntries.containsKey(apiDocumentId)) {
+            return false;
+        }
+        mEntries.put(apiDocumentId, new Entry(apiDocumentId, composite));
+        return true;
+    }
+
+    private void drain() {
+        final List<String> apiDocumentIds = collectReadyEntries();
+        for (final String apiDocumentId : apiDocumentIds) {
+            final CompletableFuture<Void> future = new CompletableFuture<>();
+            future.handle(new CompletableFuture.BiFun<Void, Throwable, Void>() {
+                @Override
+                public Void apply(final Void aVoid, final Throwable throwable) {
+                    onDeletionFinished(apiDocumentId, throwable);
+                    return null;
+                }
+            });
+            mSender.delete(apiDocumentId, future);
+        }
+    }
+
+    @NonNull
+    private synchronized List<String> collectReadyEntries() {
+        final List<String> apiDocumentIds = new ArrayList<>();
+        // Partial documents wait until all composite documents were deleted or dropped
+        boolean hasComposites = false;
+        for (final Entry entry : mEntries.values()) {
+            hasComposites |= entry.mComposite;
+        }
+        for (final Entry entry : mEntries.values()) {
+            if (entry.mComposite == hasComposites && !entry.mInFlight && !entry.mWaiting) {
+                entry.mInFlight = true;
+                apiDocumentIds.add(entry.mApiDocumentId);
+            }
+        }
+        return apiDocumentIds;
+    }
+
+    private void onDeletionFinished(@NonNull final String apiDocumentId,
+            @Nullable final Throwable throwable) {
+        synchronized (this) {
+            final Entry entry = mEntries.get(apiDocumentId);
+            if (entry == null) {
+                return;
+            }
+            entry.mInFlight = false;
+            if (throwable == null) {
+                LOG.debug("Deleted {}", apiDocumentId);
+                mEntries.remove(apiDocumentId);
+            } else if (NetworkRequestsManager.isCancellation(throwable)) {
+                // Sent again when the queue is resumed in the next app process
+                return;
+            } else {
+                entry.mAttempts++;
+                if (entry.mAttempts >= MAX_ATTEMPTS) {
+                    LOG.error("Deletion of {} failed {} times, giving up", apiDocumentId,
+                            entry.mAttempts);
+                    mEntries.remove(apiDocumentId);
+                } else {
+                    scheduleRetry(entry);
+                }
+            }
+            persist();
+        }
+        drain();
+    }
+
+    private void scheduleRetry(@NonNull final Entry entry) {
+        final long delayMs = mBackoff.getDelayMs(entry.mAttempts);
+        LOG.warn("Deletion attempt {} failed for {}, retrying in {}ms", entry.mAttempts,
+                entry.mApiDocumentId, delayMs);
+        entry.mWaiting = true;
+        mRetryHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (DeletionQueue.this) {
+                    entry.mWaiting = false;
+                }
+                drain();
+            }
+        }, delayMs);
+    }
+
+    private void load() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if (!mFile.isFile()) {
+            return;
+        }
+        try {
+            final JSONArray entries = new JSONArray(readFile(mFile));
+            for (int i = 0; i < entries.length(); i++) {
+                final Entry entry = Entry.fromJson(entries.getJSONObject(i));
+                mEntries.put(entry.mApiDocumentId, entry);
+            }
+            LOG.debug("Deletion queue loaded with {} entries", mEntries.size());
+        } catch (final IOException | JSONException e) {
+            LOG.error("Failed to load the deletion queue", e);
+        }
+    }
+
+    private void persist() {
+        final JSONArray entries = new JSONArray();
+        try {
+            for (final Entry entry : mEntries.values()) {
+                entries.put(entry.toJson());
+            }
+        } catch (final JSONException e) {
+            LOG.error("Failed to serialize the deletion queue", e);
+            return;
+        }
+        final String content = entries.toString();
+        mFileExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                writeFile(content);
+            }
+        });
+    }
+
+    private void writeFile(@NonNull final String content) {
+        // Write to a temporary file first to not corrupt the queue if the process is killed
+        final File tmpFile = new File(mFile.getPath() + ".tmp");
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(tmpFile);
+            outputStream.write(content.getBytes("UTF-8"));
+            outputStream.flush();
+        } catch (final IOException e) {
+            LOG.error("Failed to write the deletion queue", e);
+            return;
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (final IOException ignore) {
+                }
+            }
+        }
+        if (!tmpFile.renameTo(mFile)) {
+            LOG.error("Failed to replace the deletion queue");
+        }
+    }
+
+    @NonNull
+    private static String readFile(@NonNull final File file) throws IOException {
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toString("UTF-8");
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (final IOException ignore) {
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final String mApiDocumentId;
+        private final boolean mComposite;
+        private int mAttempts;
+        private boolean mInFlight;
+        private boolean mWaiting;
+
+        Entry(@NonNull final String apiDocumentId, final boolean composite) {
+            mApiDocumentId = apiDocumentId;
+            mComposite = composite;
+        }
+
+        @NonNull
+        JSONObject toJson() throws JSONException {
+            final JSONObject json = new JSONObject();
+            json.put(KEY_API_DOCUMENT_ID, mApiDocumentId);
+            json.put(KEY_COMPOSITE, mComposite);
+            json.put(KEY_ATTEMPTS, mAttempts);
+            return json;
+        }
+
+        @NonNull
+        static Entry fromJson(@NonNull final JSONObject json) throws JSONException {
+            final Entry entry = new Entry(json.getString(KEY_API_DOCUMENT_ID),
+                    json.optBoolean(KEY_COMPOSITE));
+            entry.mAttempts = json.optInt(KEY_ATTEMPTS);
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package net.gini.android.vision.internal.network;
+
+import java.util.Random;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Calculates the delays between retries. The delay doubles with each failed attempt up to a
+ * maximum and a random jitter of up to half the delay is subtracted to prevent clients from
+ * retrying at the same time.
+ */
+class ExponentialBackoff {
+
+    private final long mBaseDelayMs;
+    private final long mMaxDelayMs;
+    private final Random mRandom;
+
+    ExponentialBackoff(final long baseDelayMs, final long maxDelayMs) {
+        this(baseDelayMs, maxDelayMs, new Random());
+    }
+
+    @VisibleForTesting
+    ExponentialBackoff(final long baseDelayMs, final long maxDelayMs,
+            @NonNull final Random random) {
+        if (baseDelayMs <= 0 || maxDelayMs < baseDelayMs) {
+            throw new IllegalArgumentException(
+                    "Base delay must be positive and not larger than the max delay");
+        }
+        mBaseDelayMs = baseDelayMs;
+        mMaxDelayMs = maxDelayMs;
+        mRandom = random;
+    }
+
+    /**
+     * @param failedAttempts the number of failed attempts, at least 1
+     * @return the delay in milliseconds before the next attempt
+     */
+    long getDelayMs(final int failedAttempts) {
+        long delayMs = mBaseDelayMs;
+        for (int i = 1; i < failedAttempts && delayMs < mMaxDelayMs; i++) {
+            delayMs *= 2;
+        }
+        delayMs = Math.min(delayMs, mMaxDelayMs);
+        final long halfDelayMs = delayMs / 2;
+        return delayMs - (long) (mRandom.nextDouble() * halfDelayMs);
+    }
+}
@@ -0,0 +1,443 @@
+package net.gini.android.vision.internal.network;
+
+import android.content.Context;
+
+import net.gini.android.vision.internal.async.SerialExecutor;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
+import net.gini.android.vision.network.AnalysisResult;
+import net.gini.android.vision.network.model.GiniVisionBox;
+import net.gini.android.vision.network.model.GiniVisionExtraction;
+import net.gini.android.vision.network.model.GiniVisionSpecificExtraction;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Internal use only.
+ *
+ * <p> Keeps the analysis results of multi-page documents keyed by the content hashes and rotation
+ * deltas of their pages. Analyzing the same pages again returns the cached result without a
+ * request to the Gini API.
+ *
+ * <p> The number of entries is bounded and the least recently used entry is dropped first.
+ * Entries expire after a time to live because the analyzed documents might have been removed from
+ * the Gini API. Results are stored as JSON and a new copy is returned on every hit, so changes to
+ * the returned extractions don't alter the cache.
+ *
+ * <p> If a file is given the entries are also written to disk and survive the app process.
+ *
+ * @suppress
+ */
+public class ExtractionCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExtractionCache.class);
+
+    @VisibleForTesting
+    static final String CACHE_FILE = "gv-extraction-cache.json";
+    public static final int DEFAULT_MAX_ENTRIES = 16;
+    public static final long DEFAULT_TIME_TO_LIVE_MS = TimeUnit.MINUTES.toMillis(30);
+
+    private static final String KEY_KEY = "key";
+    private static final String KEY_CREATED_AT = "createdAt";
+    private static final String KEY_RESULT = "result";
+    private static final String KEY_API_DOCUMENT_ID = "apiDocumentId";
+    private static final String KEY_EXTRACTIONS = "extractions";
+    private static final String KEY_NAME = "name";
+    private static final String KEY_VALUE = "value";
+    private static final String KEY_ENTITY = "entity";
+    private static final String KEY_BOX = "box";
+    private static final String KEY_CANDIDATES = "candidates";
+    private static final String KEY_PAGE_NUMBER = "pageNumber";
+    private static final String KEY_LEFT = "left";
+    private static final String KEY_TOP = "top";
+    private static final String KEY_WIDTH = "width";
+    private static final String KEY_HEIGHT = "height";
+
+    private final int mMaxEntries;
+    private final long mTimeToLiveMs;
+    private final File mFile;
+    private final Executor mWriteExecutor;
+    // Access order for the least recently used eviction
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean mLoaded;
+
+    /**
+     * Creates a cache which is kept only in memory.
+     */
+    public ExtractionCache(final int maxEntries, final long timeToLiveMs) {
+        this(maxEntries, timeToLiveMs, null, null);
+    }
+
+    /**
+     * Creates a cache which is also written to a file in the app's files directory.
+     */
+    public ExtractionCache(@NonNull final Context context, final int maxEntries,
+            final long timeToLiveMs) {
+        this(maxEntries, timeToLiveMs, new File(context.getFilesDir(), CACHE_FILE),
+                new SerialExecutor(TaskPool.IO, TaskPriority.LOW));
+    }
+
+    @VisibleForTesting
+    ExtractionCache(final int maxEntries, final long timeToLiveMs, @Nullable final File file,
+            @Nullable final Executor writeExecutor) {
+        if (maxEntries < 1 || timeToLiveMs <= 0) {
+            throw new IllegalArgumentException(
+                    "Max entries and time to live must be positive");
+        }
+        mMaxEntries = maxEntries;
+        mTimeToLiveMs = timeToLiveMs;
+        mFile = file;
+        mWriteExecutor = writeExecutor;
+        mLoaded = file == null;
+    }
+
+    /**
+     * Creates the key for the pages of a multi-page document.
+     *
+     * @param pageContentHashes the content hashes of the pages in page order
+     * @param rotationDeltas    the rotation deltas of the pages in page order
+     * @return the cache key
+     */
+    @NonNull
+    public static String createKey(@NonNull final List<String> pageContentHashes,
+            @NonNull final List<Integer> rotationDeltas) {
+        if (pageContentHashes.size() != rotationDeltas.size()) {
+            throw new IllegalArgumentException(
+                    "A rotation delta is needed for every page content hash");
+        }
+        final StringBuilder key = new StringBuilder();
+        for (int i = 0; i < pageContentHashes.size(); i++) {
+            if (i > 0) {
+                key.append(',');
+            }
+            // Rotation deltas are normalized, 90 and -270 rotate the page the same way
+            key.append(pageContentHashes.get(i))
+                    .append(':')
+                    .append(((rotationDeltas.get(i) % 360) + 360) % 360);
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return a copy of the cached analysis result or {@code null}, if there is none or it
+     * expired
+     */
+    @Nullable
+    public synchronized AnalysisResult get(@NonNull final String key) {
+        load();
+        final Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            mEntries.remove(key);
+            persist();
+            return null;
+        }
+        try {
+            return analysisResultFromJson(new JSONObject(entry.mResultJson));
+        } catch (final JSONException e) {
+            LOG.error("Failed to read the cached analysis result", e);
+            mEntries.remove(key);
+            persist();
+            return null;
+        }
+    }
+
+    public synchronized void put(@NonNull final String key,
+            @NonNull final AnalysisResult analysisResult) {
+        load();
+        final String resultJson;
+        try {
+            resultJson = analysisResultToJson(analysisResult).toString();
+        } catch (final JSONException e) {
+            LOG.error("Failed to serialize the analysis result", e);
+            return;
+        }
+        mEntries.put(key, new Entry(key, analysisResult.getGiniApiDocumentId(), resultJson,
+                System.currentTimeMillis()));
+        trim();
+        persist();
+    }
+
+    /**
+     * Removes the entries of a Gini API document. Used when the document was deleted.
+     */
+    public synchronized void removeByApiDocumentId(@NonNull final String apiDocumentId) {
+        load();
+        boolean removed = false;
+        final Iterator<Entry> iterator = mEntries.values().iterator();
+        while (iterator.hasNext()) {
+            if (apiDocumentId.equals(iterator.next().mApiDocumentId)) {
+                iterator.remove();
+                removed = true;
+            }
+        }
+        if (removed) {
+            persist();
+        }
+    }
+
+    public synchronized int size() {
+        load();
+        return mEntries.size();
+    }
+
+    /**
+     * Removes all entries. The file is deleted after the pending writes finished.
+     */
+    public synchronized void clear() {
+        mLoaded = true;
+        mEntries.clear();
+        if (mFile == null || mWriteExecutor == null) {
+            return;
+        }
+        mWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                //noinspection ResultOfMethodCallIgnored
+                mFile.delete();
+            }
+        });
+    }
+
+    private boolean isExpired(@NonNull final Entry entry, final long now) {
+        // Entries from the future were written with a different clock and are not trusted
+        return now - entry.mCreatedAtMs > mTimeToLiveMs || entry.mCreatedAtMs > now;
+    }
+
+    private void trim() {
+        final long now = System.currentTimeMillis();
+        final Iterator<Entry> iterator = mEntries.values().iterator();
+        while (iterator.hasNext()) {
+            if (isExpired(iterator.next(), now)) {
+                iterator.remove();
+            }
+        }
+        // The iteration order starts with the least recently used entry
+        final Iterator<String> keys = mEntries.keySet().iterator();
+        while (mEntries.size() > mMaxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private void load() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if (!mFile.isFile()) {
+            return;
+        }
+        try {
+            final JSONArray entries = new JSONArray(readFile(mFile));
+            for (int i = 0; i < entries.length(); i++) {
+                final Entry entry = Entry.fromJson(entries.getJSONObject(i));
+                mEntries.put(entry.mKey, entry);
+            }
+            trim();
+            LOG.debug("Extraction cache loaded with {} entries", mEntries.size());
+        } catch (final IOException | JSONException e) {
+            LOG.error("Failed to load the extraction cache", e);
+        }
+    }
+
+    private void persist() {
+        if (mFile == null || mWriteExecutor == null) {
+            return;
+        }
+        final JSONArray entries = new JSONArray();
+        try {
+            for (final Entry entry : mEntries.values()) {
+                entries.put(entry.toJson());
+            }
+        } catch (final JSONException e) {
+            LOG.error("Failed to serialize the extraction cache", e);
+            return;
+        }
+        final String content = entries.toString();
+        mWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                writeFile(content);
+            }
+        });
+    }
+
+    private void writeFile(@NonNull final String content) {
+        // Write to a temporary file first to not corrupt the cache if the process is killed
+        final File tmpFile = new File(mFile.getPath() + ".tmp");
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(tmpFile);
+            outputStream.write(content.getBytes("UTF-8"));
+            outputStream.flush();
+        } catch (final IOException e) {
+            LOG.error("Failed to write the extraction cache", e);
+            return;
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (final IOException ignore) {
+                }
+            }
+        }
+        if (!tmpFile.renameTo(mFile)) {
+            LOG.error("Failed to replace the extraction cache");
+        }
+    }
+
+    @NonNull
+    private static String readFile(@NonNull final File file) throws IOException {
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toString("UTF-8");
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (final IOException ignore) {
+                }
+            }
+        }
+    }
+
+    @NonNull
+    private static JSONObject analysisResultToJson(@NonNull final AnalysisResult analysisResult)
+            throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put(KEY_API_DOCUMENT_ID, analysisResult.getGiniApiDocumentId());
+        final JSONArray extractions = new JSONArray();
+        for (final GiniVisionSpecificExtraction extraction
+                : analysisResult.getExtractions().values()) {
+            final JSONObject extractionJson = extractionToJson(extraction);
+            extractionJson.put(KEY_NAME, extraction.getName());
+            final JSONArray candidates = new JSONArray();
+            for (final GiniVisionExtraction candidate : extraction.getCandidates()) {
+                candidates.put(extractionToJson(candidate));
+            }
+            extractionJson.put(KEY_CANDIDATES, candidates);
+            extractions.put(extractionJson);
+        }
+        json.put(KEY_EXTRACTIONS, extractions);
+        return json;
+    }
+
+    @NonNull
+    private static JSONObject extractionToJson(@NonNull final GiniVisionExtraction extraction)
+            throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put(KEY_VALUE, extraction.getValue());
+        json.put(KEY_ENTITY, extraction.getEntity());
+        final GiniVisionBox box = extraction.getBox();
+        if (box != null) {
+            final JSONObject boxJson = new JSONObject();
+            boxJson.put(KEY_PAGE_NUMBER, box.getPageNumber());
+            boxJson.put(KEY_LEFT, box.getLeft());
+            boxJson.put(KEY_TOP, box.getTop());
+            boxJson.put(KEY_WIDTH, box.getWidth());
+            boxJson.put(KEY_HEIGHT, box.getHeight());
+            json.put(KEY_BOX, boxJson);
+        }
+        return json;
+    }
+
+    @NonNull
+    private static AnalysisResult analysisResultFromJson(@NonNull final JSONObject json)
+            throws JSONException {
+        final Map<String, GiniVisionSpecificExtraction> extractions = new HashMap<>();
+        final JSONArray extractionsJson = json.getJSONArray(KEY_EXTRACTIONS);
+        for (int i = 0; i < extractionsJson.length(); i++) {
+            final JSONObject extractionJson = extractionsJson.getJSONObject(i);
+            final List<GiniVisionExtraction> candidates = new ArrayList<>();
+            final JSONArray candidatesJson = extractionJson.getJSONArray(KEY_CANDIDATES);
+            for (int j = 0; j < candidatesJson.length(); j++) {
+                final JSONObject candidateJson = candidatesJson.getJSONObject(j);
+                candidates.add(new GiniVisionExtraction(candidateJson.getString(KEY_VALUE),
+                        candidateJson.getString(KEY_ENTITY), boxFromJson(candidateJson)));
+            }
+            final String name = extractionJson.getString(KEY_NAME);
+            extractions.put(name, new GiniVisionSpecificExtraction(name,
+                    extractionJson.getString(KEY_VALUE), extractionJson.getString(KEY_ENTITY),
+                    boxFromJson(extractionJson), candidates));
+        }
+        return new AnalysisResult(json.getString(KEY_API_DOCUMENT_ID), extractions);
+    }
+
+    @Nullable
+    private static GiniVisionBox boxFromJson(@NonNull final JSONObject extractionJson)
+            throws JSONException {
+        final JSONObject boxJson = extractionJson.optJSONObject(KEY_BOX);
+        if (boxJson == null) {
+            return null;
+        }
+        return new GiniVisionBox(boxJson.getInt(KEY_PAGE_NUMBER), boxJson.getDouble(KEY_LEFT),
+                boxJson.getDouble(KEY_TOP), boxJson.getDouble(KEY_WIDTH),
+                boxJson.getDouble(KEY_HEIGHT));
+    }
+
+    private static class Entry {
+
+        private final String mKey;
+        private final String mApiDocumentId;
+        private final String mResultJson;
+        private final long mCreatedAtMs;
+
+        Entry(@NonNull final String key, @NonNull final String apiDocumentId,
+                @NonNull final String resultJson, final long createdAtMs) {
+            mKey = key;
+            mApiDocumentId = apiDocumentId;
+            mResultJson = resultJson;
+            mCreatedAtMs = createdAtMs;
+        }
+
+        @NonNull
+        JSONObject toJson() throws JSONException {
+            final JSONObject json = new JSONObject();
+            json.put(KEY_KEY, mKey);
+            json.put(KEY_API_DOCUMENT_ID, mApiDocumentId);
+            json.put(KEY_RESULT, new JSONObject(mResultJson));
+            json.put(KEY_CREATED_AT, mCreatedAtMs);
+            return json;
+        }
+
+        @NonNull
+        static Entry fromJson(@NonNull final JSONObject json) throws JSONException {
+            return new Entry(json.getString(KEY_KEY), json.getString(KEY_API_DOCUMENT_ID),
+                    json.getJSONObject(KEY_RESULT).toString(), json.getLong(KEY_CREATED_AT));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package net.gini.android.vision.internal.network;
+
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> Collects how long the requests of the {@link NetworkRequestsManager} waited in the queue
+ * until a slot was free and how long they were in flight until they completed.
+ *
+ * @suppress
+ */
+public class NetworkRequestMetrics {
+
+    /**
+     * The kinds of requests sent by the {@link NetworkRequestsManager}.
+     */
+    public enum RequestType {
+        UPLOAD,
+        ANALYSIS,
+        DELETE
+    }
+
+    private final long[] mCounts = new long[RequestType.values().length];
+    private final long[] mTotalQueueTimesMs = new long[RequestType.values().length];
+    private final long[] mMaxQueueTimesMs = new long[RequestType.values().length];
+    private final long[] mTotalFlightTimesMs = new long[RequestType.values().length];
+    private final long[] mMaxFlightTimesMs = new long[RequestType.values().length];
+    private double mUploadThroughputBytesPerSecond = -1;
+
+    synchronized void record(@NonNull final RequestType type, final long queueTimeMs,
+            final long flightTimeMs) {
+        final int index = type.ordinal();
+        mCounts[index]++;
+        mTotalQueueTimesMs[index] += queueTimeMs;
+        mMaxQueueTimesMs[index] = Math.max(mMaxQueueTimesMs[index], queueTimeMs);
+        mTotalFlightTimesMs[index] += flightTimeMs;
+        mMaxFlightTimesMs[index] = Math.max(mMaxFlightTimesMs[index], flightTimeMs);
+    }
+
+    synchronized void setUploadThroughput(final double bytesPerSecond) {
+        mUploadThroughputBytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @return the smoothed throughput of the completed uploads in bytes per second or -1, if no
+     * upload completed yet
+     */
+    public synchronized double getUploadThroughputBytesPerSecond() {
+        return mUploadThroughputBytesPerSecond;
+    }
+
+    /**
+     * @return the number of completed requests of the type
+     */
+    public synchronized long getCount(@NonNull final RequestType type) {
+        return mCounts[type.ordinal()];
+    }
+
+    public synchronized long getMeanQueueTimeMs(@NonNull final RequestType type) {
+        return mean(mTotalQueueTimesMs, type);
+    }
+
+    public synchronized long getMaxQueueTimeMs(@NonNull final RequestType type) {
+        return mMaxQueueTimesMs[type.ordinal()];
+    }
+
+    public synchronized long getMeanFlightTimeMs(@NonNull final RequestType type) {
+        return mean(mTotalFlightTimesMs, type);
+    }
+
+    public synchronized long getMaxFlightTimeMs(@NonNull final RequestType type) {
+        return mMaxFlightTimesMs[type.ordinal()];
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < mCounts.length; i++) {
+            mCounts[i] = 0;
+            mTotalQueueTimesMs[i] = 0;
+            mMaxQueueTimesMs[i] = 0;
+            mTotalFlightTimesMs[i] = 0;
+            mMaxFlightTimesMs[i] = 0;
+        }
+        mUploadThroughputBytesPerSecond = -1;
+    }
+
+    private long mean(@NonNull final long[] totals, @NonNull final RequestType type) {
+        final long count = mCounts[type.ordinal()];
+        return count == 0 ? 0 : totals[type.ordinal()] / count;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder builder = new StringBuilder("NetworkRequestMetrics{");
+        for (final RequestType type : RequestType.values()) {
+            if (type.ordinal() > 0) {
+                builder.append(", ");
+            }
+            builder.append(String.format(Locale.US,
+                    "%s: count=%d, queue mean=%dms max=%dms, flight mean=%dms max=%dms",
+                    type, getCount(type), getMeanQueueTimeMs(type), getMaxQueueTimeMs(type),
+                    getMeanFlightTimeMs(type), getMaxFlightTimeMs(type)));
+        }
+        return builder.append('}').toString();
+    }
+}
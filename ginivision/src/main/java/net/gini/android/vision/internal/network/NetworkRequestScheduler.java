@@ -0,0 +1,294 @@
+package net.gini.android.vision.internal.network;
+
+import android.os.SystemClock;
+
+import net.gini.android.vision.internal.network.NetworkRequestMetrics.RequestType;
+import net.gini.android.vision.util.CancellationToken;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Limits the number of requests sent at the same time and starts the waiting requests ordered by
+ * their {@link RequestPriority}.
+ *
+ * <p> The in-flight limit follows the link quality: the throughput of the completed uploads is
+ * measured and the limit is lowered on slow links to let the most important upload finish first
+ * and raised on fast links to hide the latency of the requests.
+ *
+ * <p> A request is finished when its future completes. Cancelling the future of a waiting request
+ * removes it from the queue and cancelling the future of a running request cancels the network
+ * call.
+ */
+class NetworkRequestScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NetworkRequestScheduler.class);
+
+    static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    static final int MAX_IN_FLIGHT_LIMIT = 4;
+    // The in-flight limit is 1 below the first, 2 below the second, 3 below the third and 4 above
+    // the last throughput (bytes per second)
+    private static final long[] THROUGHPUT_THRESHOLDS = {32 * 1024, 256 * 1024, 1024 * 1024};
+    private static final double THROUGHPUT_SMOOTHING_FACTOR = 0.3;
+
+    private final PriorityQueue<ScheduledRequest> mQueue = new PriorityQueue<>();
+    private final Map<String, ScheduledRequest> mQueuedRequests = new HashMap<>();
+    private final NetworkRequestMetrics mMetrics;
+    private int mInFlightCount;
+    private int mMaxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private boolean mAdaptiveMaxInFlight = true;
+    private double mThroughputBytesPerSecond = -1;
+    private long mSequenceNumber;
+
+    NetworkRequestScheduler(@NonNull final NetworkRequestMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * Queues a request. The starter is invoked once a slot is free and no request with a higher
+     * priority is waiting.
+     *
+     * @param type       the kind of request
+     * @param documentId the id of the document the request is for
+     * @param priority   the priority of the request
+     * @param sizeBytes  the number of bytes sent by the request, used to measure the throughput
+     * @param future     the future which completes when the request finished
+     * @param starter    sends the request
+     */
+    <T> void schedule(@NonNull final RequestType type, @NonNull final String documentId,
+            @NonNull final RequestPriority priority, final long sizeBytes,
+            @NonNull final CompletableFuture<T> future, @NonNull final RequestStarter starter) {
+        final ScheduledRequest request;
+        synchronized (this) {
+            request = new ScheduledRequest(type, documentId, priority, mSequenceNumber++,
+                    sizeBytes, starter);
+            mQueue.add(request);
+            mQueuedRequests.put(key(type, documentId), request);
+            LOG.debug("{} request for {} queued with priority {} ({} queued, {} in flight)",
+                    type, documentId, priority, mQueue.size(), mInFlightCount);
+        }
+        future.handle(new CompletableFuture.BiFun<T, Throwable, T>() {
+            @Override
+            public T apply(final T result, final Throwable throwable) {
+                onRequestCompleted(request, throwable);
+                return result;
+            }
+        });
+        dispatch();
+    }
+
+    /**
+     * Changes the priority of a waiting request.
+     *
+     * @param onlyRaise if {@code true}, the priority is not lowered
+     * @return {@code false}, if the request is not waiting
+     */
+    synchronized boolean setPriority(@NonNull final RequestType type,
+            @NonNull final String documentId, @NonNull final RequestPriority priority,
+            final boolean onlyRaise) {
+        final ScheduledRequest request = mQueuedRequests.get(key(type, documentId));
+        if (request == null) {
+            return false;
+        }
+        if (request.mPriority == priority
+                || (onlyRaise && priority.compareTo(request.mPriority) > 0)) {
+            return true;
+        }
+        LOG.debug("{} request for {} priority changed from {} to {}", type, documentId,
+                request.mPriority, priority);
+        mQueue.remove(request);
+        request.mPriority = priority;
+        mQueue.add(request);
+        return true;
+    }
+
+    /**
+     * Uses a fixed in-flight limit instead of the limit derived from the measured throughput.
+     */
+    @VisibleForTesting
+    void setMaxInFlight(final int maxInFlight) {
+        synchronized (this) {
+            mAdaptiveMaxInFlight = false;
+            mMaxInFlight = Math.max(1, maxInFlight);
+        }
+        dispatch();
+    }
+
+    synchronized int getMaxInFlight() {
+        return mMaxInFlight;
+    }
+
+    synchronized int getInFlightCount() {
+        return mInFlightCount;
+    }
+
+    synchronized int getQueuedCount() {
+        return mQueue.size();
+    }
+
+    private void dispatch() {
+        while (true) {
+            final ScheduledRequest request;
+            synchronized (this) {
+                if (mInFlightCount >= mMaxInFlight || mQueue.isEmpty()) {
+                    return;
+                }
+                request = mQueue.poll();
+                mQueuedRequests.remove(key(request.mType, request.mDocumentId));
+                mInFlightCount++;
+                request.mState = ScheduledRequest.State.IN_FLIGHT;
+                request.mInFlightCountAtStart = mInFlightCount;
+                request.mStartedAtMs = SystemClock.elapsedRealtime();
+                LOG.debug("{} request for {} started after {}ms in queue ({} in flight)",
+                        request.mType, request.mDocumentId,
+                        request.mStartedAtMs - request.mQueuedAtMs, mInFlightCount);
+            }
+            final CancellationToken cancellationToken = request.mStarter.start();
+            final boolean cancel;
+            synchronized (this) {
+                request.mCancellationToken = cancellationToken;
+                cancel = request.mCancelled;
+            }
+            if (cancel) {
+                cancellationToken.cancel();
+            }
+        }
+    }
+
+    private void onRequestCompleted(@NonNull final ScheduledRequest request,
+            @Nullable final Throwable throwable) {
+        CancellationToken cancellationToken = null;
+        synchronized (this) {
+            final boolean cancelled = throwable != null
+                    && NetworkRequestsManager.isCancellation(throwable);
+            if (request.mState == ScheduledRequest.State.QUEUED) {
+                mQueue.remove(request);
+                final String key = key(request.mType, request.mDocumentId);
+                if (mQueuedRequests.get(key) == request) {
+                    mQueuedRequests.remove(key);
+                }
+                LOG.debug("{} request for {} completed before it was started", request.mType,
+                        request.mDocumentId);
+            } else if (request.mState == ScheduledRequest.State.IN_FLIGHT) {
+                mInFlightCount--;
+                final long queueTimeMs = request.mStartedAtMs - request.mQueuedAtMs;
+                final long flightTimeMs = SystemClock.elapsedRealtime() - request.mStartedAtMs;
+                mMetrics.record(request.mType, queueTimeMs, flightTimeMs);
+                LOG.debug("{} request for {} completed after {}ms in flight", request.mType,
+                        request.mDocumentId, flightTimeMs);
+                if (throwable == null && request.mType == RequestType.UPLOAD) {
+                    updateThroughput(request, flightTimeMs);
+                }
+                request.mCancelled = cancelled;
+                cancellationToken = cancelled ? request.mCancellationToken : null;
+            }
+            request.mState = ScheduledRequest.State.COMPLETED;
+        }
+        if (cancellationToken != null) {
+            cancellationToken.cancel();
+        }
+        dispatch();
+    }
+
+    private void updateThroughput(@NonNull final ScheduledRequest request,
+            final long flightTimeMs) {
+        if (request.mSizeBytes <= 0 || flightTimeMs <= 0) {
+            return;
+        }
+        // The requests in flight share the link
+        final double throughput = request.mSizeBytes * 1000.0 / flightTimeMs
+                * request.mInFlightCountAtStart;
+        if (mThroughputBytesPerSecond < 0) {
+            mThroughputBytesPerSecond = throughput;
+        } else {
+            mThroughputBytesPerSecond += THROUGHPUT_SMOOTHING_FACTOR
+                    * (throughput - mThroughputBytesPerSecond);
+        }
+        mMetrics.setUploadThroughput(mThroughputBytesPerSecond);
+        if (!mAdaptiveMaxInFlight) {
+            return;
+        }
+        int maxInFlight = 1;
+        for (final long threshold : THROUGHPUT_THRESHOLDS) {
+            if (mThroughputBytesPerSecond >= threshold) {
+                maxInFlight++;
+            }
+        }
+        maxInFlight = Math.min(maxInFlight, MAX_IN_FLIGHT_LIMIT);
+        if (maxInFlight != mMaxInFlight) {
+            LOG.debug("In-flight limit changed from {} to {} (throughput {} bytes/s)",
+                    mMaxInFlight, maxInFlight, (long) mThroughputBytesPerSecond);
+            mMaxInFlight = maxInFlight;
+        }
+    }
+
+    @NonNull
+    private static String key(@NonNull final RequestType type, @NonNull final String documentId) {
+        return type + ":" + documentId;
+    }
+
+    /**
+     * Sends a scheduled request.
+     */
+    interface RequestStarter {
+
+        /**
+         * @return a token to cancel the request
+         */
+        @NonNull
+        CancellationToken start();
+    }
+
+    private static class ScheduledRequest implements Comparable<ScheduledRequest> {
+
+        private enum State {
+            QUEUED,
+            IN_FLIGHT,
+            COMPLETED
+        }
+
+        private final RequestType mType;
+        private final String mDocumentId;
+        private final long mSequenceNumber;
+        private final long mSizeBytes;
+        private final RequestStarter mStarter;
+        private final long mQueuedAtMs;
+        private RequestPriority mPriority;
+        private State mState = State.QUEUED;
+        private long mStartedAtMs;
+        private int mInFlightCountAtStart;
+        private CancellationToken mCancellationToken;
+        private boolean mCancelled;
+
+        ScheduledRequest(@NonNull final RequestType type, @NonNull final String documentId,
+                @NonNull final RequestPriority priority, final long sequenceNumber,
+                final long sizeBytes, @NonNull final RequestStarter starter) {
+            mType = type;
+            mDocumentId = documentId;
+            mPriority = priority;
+            mSequenceNumber = sequenceNumber;
+            mSizeBytes = sizeBytes;
+            mStarter = starter;
+            mQueuedAtMs = SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public int compareTo(@NonNull final ScheduledRequest other) {
+            final int priorityComparison = mPriority.compareTo(other.mPriority);
+            if (priorityComparison != 0) {
+                return priorityComparison;
+            }
+            return mSequenceNumber < other.mSequenceNumber ? -1
+                    : (mSequenceNumber == other.mSequenceNumber ? 0 : 1);
+        }
+    }
+}
@@ -7,13 +7,19 @@ package net.gini.android.vision.internal.network;
  */
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
 import net.gini.android.vision.AsyncCallback;
 import net.gini.android.vision.GiniVisionDebug;
 import net.gini.android.vision.document.GiniVisionDocument;
 import net.gini.android.vision.document.GiniVisionMultiPageDocument;
 import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
+import net.gini.android.vision.internal.async.TaskRuntime;
 import net.gini.android.vision.internal.cache.DocumentDataMemoryCache;
+import net.gini.android.vision.internal.network.NetworkRequestMetrics.RequestType;
 import net.gini.android.vision.network.AnalysisResult;
 import net.gini.android.vision.network.Error;
 import net.gini.android.vision.network.GiniVisionNetworkCallback;
@@ -25,115 +31,280 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import jersey.repackaged.jsr166e.CompletableFuture;
 
 /**
  * Internal use only.
  *
+ * <p> Requests are sent through a scheduler which limits the number of requests in flight and
+ * starts the visible page and the pages needed for analysis first. Network callbacks may arrive
+ * on any thread.
+ *
+ * <p> Failed uploads are retried with an exponential backoff. Uploaded pages are recorded in an
+ * {@link UploadJournal} to not upload them again after the app process was restarted.
+ *
+ * <p> Documents which are not needed anymore are deleted in the background by the {@link
+ * DeletionQueue}, which also deletes the documents left over by a previous app process.
+ *
+ * <p> If the {@link ExtractionCache} is enabled, analyzing pages with the same content and
+ * rotation again returns the cached result instead of sending an analysis request.
+ *
  * @suppress
  */
 public class NetworkRequestsManager {
 
     private static final Logger LOG = LoggerFactory.getLogger(NetworkRequestsManager.class);
 
+    @VisibleForTesting
+    static final int DEFAULT_MAX_UPLOAD_ATTEMPTS = 4;
+    private static final long UPLOAD_RETRY_BASE_DELAY_MS = 1000;
+    private static final long UPLOAD_RETRY_MAX_DELAY_MS = 16000;
+
     private final Map<String, String> mApiDocumentIds;
-    private final Map<String, CompletableFuture<NetworkRequestResult<GiniVisionDocument>>>
-            mDocumentUploadFutures;
-    private final Map<String, CompletableFuture<NetworkRequestResult<GiniVisionDocument>>>
-            mDocumentDeleteFutures;
-    private final Map<String, CompletableFuture<
-            AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>> mDocumentAnalyzeFutures;
+    private final ConcurrentMap<String,
+            CompletableFuture<NetworkRequestResult<GiniVisionDocument>>> mDocumentUploadFutures;
+    private final ConcurrentMap<String,
+            CompletableFuture<NetworkRequestResult<GiniVisionDocument>>> mDocumentDeleteFutures;
+    // Analyses are shared by all callers from the start of the page uploads until the result
+    private final ConcurrentMap<String, SharedRequest<
+            AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>> mDocumentAnalyzeRequests;
+    // Pages and rotations of the multi-page documents when their analysis was requested
+    private final Map<String, String> mDocumentAnalysisSignatures;
+    // Priorities set for uploads which were not queued yet
+    private final Map<String, RequestPriority> mUploadPriorities;
+    // Content hashes of the uploaded pages for the extraction cache keys
+    private final Map<String, CompletableFuture<String>> mPageContentHashes;
 
     private final GiniVisionNetworkService mGiniVisionNetworkService;
     private final DocumentDataMemoryCache mDocumentDataMemoryCache;
+    private final NetworkRequestMetrics mRequestMetrics;
+    private final NetworkRequestScheduler mRequestScheduler;
+    private final ExponentialBackoff mUploadBackoff;
+    private final Handler mRetryHandler;
+    private volatile UploadJournal mUploadJournal;
+    private volatile DeletionQueue mDeletionQueue;
+    // Deletions requested before the deletion queue was created
+    private final List<String> mPendingCompositeDeletions = new ArrayList<>();
+    private final List<String> mPendingPartialDeletions = new ArrayList<>();
+    private volatile int mMaxUploadAttempts = DEFAULT_MAX_UPLOAD_ATTEMPTS;
+    private final Executor mHashExecutor;
+    private volatile boolean mExtractionCacheEnabled;
+    private volatile boolean mExtractionCachePersisted;
+    private volatile ExtractionCache mExtractionCache;
 
     public NetworkRequestsManager(@NonNull final GiniVisionNetworkService giniVisionNetworkService,
             @NonNull final DocumentDataMemoryCache documentDataMemoryCache) {
         mGiniVisionNetworkService = giniVisionNetworkService;
         mDocumentDataMemoryCache = documentDataMemoryCache;
-        mApiDocumentIds = new HashMap<>();
-        mDocumentUploadFutures = new HashMap<>();
-        mDocumentDeleteFutures = new HashMap<>();
-        mDocumentAnalyzeFutures = new HashMap<>();
+        mApiDocumentIds = new ConcurrentHashMap<>();
+        mDocumentUploadFutures = new ConcurrentHashMap<>();
+        mDocumentDeleteFutures = new ConcurrentHashMap<>();
+        mDocumentAnalyzeRequests = new ConcurrentHashMap<>();
+        mDocumentAnalysisSignatures = new ConcurrentHashMap<>();
+        mUploadPriorities = new ConcurrentHashMap<>();
+        mPageContentHashes = new ConcurrentHashMap<>();
+        mRequestMetrics = new NetworkRequestMetrics();
+        mRequestScheduler = new NetworkRequestScheduler(mRequestMetrics);
+        mUploadBackoff = new ExponentialBackoff(UPLOAD_RETRY_BASE_DELAY_MS,
+                UPLOAD_RETRY_MAX_DELAY_MS);
+        mRetryHandler = new Handler(Looper.getMainLooper());
+        mHashExecutor = TaskRuntime.getInstance().getExecutor(TaskPool.CPU, TaskPriority.LOW);
+    }
+
+    /**
+     * Enables the {@link ExtractionCache}. Has to be called before the first upload.
+     *
+     * @param enabled   {@code true} to return cached results for pages which were already
+     *                  analyzed
+     * @param persisted {@code true} to keep the cached results in a file
+     */
+    public void setExtractionCacheEnabled(final boolean enabled, final boolean persisted) {
+        mExtractionCacheEnabled = enabled;
+        mExtractionCachePersisted = persisted;
+    }
+
+    /**
+     * @param maxUploadAttempts the number of attempts before an upload fails, at least 1
+     */
+    @VisibleForTesting
+    void setMaxUploadAttempts(final int maxUploadAttempts) {
+        mMaxUploadAttempts = Math.max(1, maxUploadAttempts);
+    }
+
+    /**
+     * @return the queue and flight times of the completed requests
+     */
+    @NonNull
+    public NetworkRequestMetrics getRequestMetrics() {
+        return mRequestMetrics;
     }
 
     public CompletableFuture<NetworkRequestResult<GiniVisionDocument>> upload(
             @NonNull final Context context,
             @NonNull final GiniVisionDocument document) {
+        return upload(context, document, RequestPriority.UPLOAD);
+    }
+
+    public CompletableFuture<NetworkRequestResult<GiniVisionDocument>> upload(
+            @NonNull final Context context,
+            @NonNull final GiniVisionDocument document,
+            @NonNull final RequestPriority priority) {
         LOG.debug("Upload document {}", document.getId());
+        final CompletableFuture<NetworkRequestResult<GiniVisionDocument>> future =
+                new CompletableFuture<>();
         final CompletableFuture<NetworkRequestResult<GiniVisionDocument>> documentUploadFuture =
-                mDocumentUploadFutures.get(document.getId());
+                mDocumentUploadFutures.putIfAbsent(document.getId(), future);
         if (documentUploadFuture != null) {
             LOG.debug("Document upload already requested for {}", document.getId());
+            setUploadPriority(document, priority, true);
             return documentUploadFuture;
         }
 
-        final CompletableFuture<NetworkRequestResult<GiniVisionDocument>> future =
-                new CompletableFuture<>();
-        mDocumentUploadFutures.put(document.getId(), future);
+        if (mExtractionCacheEnabled) {
+            getExtractionCache(context);
+        }
+        getDeletionQueue(context);
+        final UploadJournal uploadJournal = getUploadJournal(context);
+        final String journaledApiDocumentId = uploadJournal.getUploadedApiDocumentId(document);
+        if (journaledApiDocumentId != null) {
+            LOG.debug("Document {} was already uploaded with api id {}", document.getId(),
+                    journaledApiDocumentId);
+            mUploadPriorities.remove(document.getId());
+            mApiDocumentIds.put(document.getId(), journaledApiDocumentId);
+            if (mExtractionCacheEnabled && !mPageContentHashes.containsKey(document.getId())) {
+                loadDataAndHashPageContent(context, document);
+            }
+            future.complete(new NetworkRequestResult<>(document, journaledApiDocumentId));
+            return future;
+        }
+
+        final AtomicReference<CompletableFuture<Result>> attemptFuture = new AtomicReference<>();
+        future.handle(
+                new CompletableFuture.BiFun<NetworkRequestResult<GiniVisionDocument>,
+                        Throwable, NetworkRequestResult<GiniVisionDocument>>() {
+                    @Override
+                    public NetworkRequestResult<GiniVisionDocument> apply(
+                            final NetworkRequestResult<GiniVisionDocument>
+                                    networkRequestResult,
+                            final Throwable throwable) {
+                        mUploadPriorities.remove(document.getId());
+                        if (throwable != null) {
+                            mDocumentUploadFutures.remove(document.getId(), future);
+                            if (isCancellation(throwable)) {
+                                cancelFuture(attemptFuture.get());
+                            }
+                        }
+                        if (document.getUri() == null) {
+                            // Documents without a uri can't be restored
+                            return networkRequestResult;
+                        }
+                        if (throwable == null) {
+                            uploadJournal.markUploaded(document,
+                                    networkRequestResult.getApiDocumentId());
+                        } else if (isCancellation(throwable)) {
+                            uploadJournal.remove(document.getId());
+                        } else {
+                            uploadJournal.markFailed(document);
+                        }
+                        return networkRequestResult;
+                    }
+                });
+
+        uploadAttempt(context, document, priority, future, attemptFuture, 1);
+        return future;
+    }
+
+    private void uploadAttempt(@NonNull final Context context,
+            @NonNull final GiniVisionDocument document,
+            @NonNull final RequestPriority priority,
+            @NonNull final CompletableFuture<NetworkRequestResult<GiniVisionDocument>> future,
+            @NonNull final AtomicReference<CompletableFuture<Result>> attemptFuture,
+            final int attempt) {
+        if (future.isDone()) {
+            return;
+        }
+        if (document.getUri() != null) {
+            getUploadJournal(context).markPending(document);
+        }
+        final CompletableFuture<Result> currentAttemptFuture = new CompletableFuture<>();
+        attemptFuture.set(currentAttemptFuture);
+        final RequestPriority uploadPriority = mUploadPriorities.remove(document.getId());
+        mRequestScheduler.schedule(RequestType.UPLOAD, document.getId(),
+                uploadPriority != null && uploadPriority.compareTo(priority) < 0
+                        ? uploadPriority : priority,
+                UploadJournal.getDataLength(document), currentAttemptFuture,
+                new NetworkRequestScheduler.RequestStarter() {
+                    @NonNull
+                    @Override
+                    public CancellationToken start() {
+                        return loadDataAndSendUpload(context, document, currentAttemptFuture);
+                    }
+                });
+        currentAttemptFuture.handle(new CompletableFuture.BiFun<Result, Throwable, Void>() {
+            @Override
+            public Void apply(final Result result, final Throwable throwable) {
+                if (throwable == null) {
+                    mApiDocumentIds.put(document.getId(), result.getGiniApiDocumentId());
+                    future.complete(new NetworkRequestResult<>(document,
+                            result.getGiniApiDocumentId()));
+                } else if (isCancellation(throwable)) {
+                    future.cancel(false);
+                } else if (attempt < mMaxUploadAttempts && !future.isDone()) {
+                    final long delayMs = mUploadBackoff.getDelayMs(attempt);
+                    LOG.warn("Document upload attempt {} failed for {}, retrying in {}ms",
+                            attempt, document.getId(), delayMs);
+                    mRetryHandler.postDelayed(new Runnable() {
+                        @Override
+                        public void run() {
+                            uploadAttempt(context, document, priority, future, attemptFuture,
+                                    attempt + 1);
+                        }
+                    }, delayMs);
+                } else {
+                    future.completeExceptionally(throwable);
+                }
+                return null;
+            }
+        });
+    }
 
+    /**
+     * Loads the document data only when the upload starts to keep the data of the waiting
+     * uploads out of the memory.
+     */
+    @NonNull
+    private CancellationToken loadDataAndSendUpload(@NonNull final Context context,
+            @NonNull final GiniVisionDocument document,
+            @NonNull final CompletableFuture<Result> future) {
+        final AtomicReference<CancellationToken> uploadCancellationToken =
+                new AtomicReference<>();
         LOG.debug("Load document data for {}", document.getId());
         mDocumentDataMemoryCache.get(context, document, new AsyncCallback<byte[], Exception>() {
             @Override
             public void onSuccess(final byte[] result) {
+                if (future.isDone()) {
+                    return;
+                }
                 LOG.debug("Document data loaded for {}", document.getId());
                 GiniVisionDebug.writeDocumentToFile(context, document, "-upload");
-                final CancellationToken cancellationToken =
-                        mGiniVisionNetworkService.upload(document,
-                                new GiniVisionNetworkCallback<Result, Error>() {
-                                    @Override
-                                    public void failure(final Error error) {
-                                        LOG.error("Document upload failed for {}: {}",
-                                                document.getId(),
-                                                error.getMessage());
-                                        future.completeExceptionally(
-                                                new RuntimeException(error.getMessage(), error.getCause()));
-                                    }
-
-                                    @Override
-                                    public void success(final Result result) {
-                                        LOG.debug("Document upload success for {}: {}",
-                                                document.getId(),
-                                                result);
-                                        mApiDocumentIds.put(document.getId(),
-                                                result.getGiniApiDocumentId());
-                                        future.complete(new NetworkRequestResult<>(document,
-                                                result.getGiniApiDocumentId()));
-                                    }
-
-                                    @Override
-                                    public void cancelled() {
-                                        LOG.debug("Document upload cancelled for {}",
-                                                document.getId());
-                                        future.cancel(false);
-                                    }
-                                });
-
-                future.handle(
-                        new CompletableFuture.BiFun<NetworkRequestResult<GiniVisionDocument>,
-                                Throwable, NetworkRequestResult<GiniVisionDocument>>() {
-                            @Override
-                            public NetworkRequestResult<GiniVisionDocument> apply(
-                                    final NetworkRequestResult<GiniVisionDocument>
-                                            networkRequestResult,
-                                    final Throwable throwable) {
-                                if (throwable != null) {
-                                    if (isCancellation(throwable)) {
-                                        cancellationToken.cancel();
-                                    }
-                                    mDocumentUploadFutures.remove(document.getId());
-                                }
-                                return networkRequestResult;
-                            }
-                        });
+                uploadCancellationToken.set(sendUpload(document, future));
+                if (mExtractionCacheEnabled) {
+                    hashPageContent(document, result);
+                }
             }
 
             @Override
@@ -148,8 +319,186 @@ public class NetworkRequestsManager {
                 // Not used
             }
         });
+        return new CancellationToken() {
+            @Override
+            public void cancel() {
+                final CancellationToken cancellationToken = uploadCancellationToken.get();
+                if (cancellationToken != null) {
+                    cancellationToken.cancel();
+                }
+            }
+        };
+    }
 
-        return future;
+    @NonNull
+    private CancellationToken sendUpload(@NonNull final GiniVisionDocument document,
+            @NonNull final CompletableFuture<Result> future) {
+        return mGiniVisionNetworkService.upload(document,
+                new GiniVisionNetworkCallback<Result, Error>() {
+                    @Override
+                    public void failure(final Error error) {
+                        LOG.error("Document upload failed for {}: {}",
+                                document.getId(),
+                                error.getMessage());
+                        future.completeExceptionally(
+                                new RuntimeException(error.getMessage(), error.getCause()));
+                    }
+
+                    @Override
+                    public void success(final Result result) {
+                        if (future.isDone()) {
+                            LOG.debug("Document upload finished after it was cancelled for {}",
+                                    document.getId());
+                            enqueueDeletion(Collections.<String>emptyList(),
+                                    Collections.singletonList(result.getGiniApiDocumentId()));
+                            return;
+                        }
+                        LOG.debug("Document upload success for {}: {}",
+                                document.getId(),
+                                result);
+                        future.complete(result);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        LOG.debug("Document upload cancelled for {}",
+                                document.getId());
+                        future.cancel(false);
+                    }
+                });
+    }
+
+    private void hashPageContent(@NonNull final GiniVisionDocument document,
+            @NonNull final byte[] data) {
+        final CompletableFuture<String> hashFuture = new CompletableFuture<>();
+        mPageContentHashes.put(document.getId(), hashFuture);
+        hashPageContent(data, hashFuture);
+    }
+
+    private void hashPageContent(@NonNull final byte[] data,
+            @NonNull final CompletableFuture<String> hashFuture) {
+        mHashExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    hashFuture.complete(PageContentHasher.hash(data));
+                } catch (final RuntimeException e) { // NOPMD
+                    hashFuture.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Hashes the pages restored from the {@link UploadJournal}, which were uploaded by a previous
+     * app process.
+     */
+    private void loadDataAndHashPageContent(@NonNull final Context context,
+            @NonNull final GiniVisionDocument document) {
+        final CompletableFuture<String> hashFuture = new CompletableFuture<>();
+        mPageContentHashes.put(document.getId(), hashFuture);
+        mDocumentDataMemoryCache.get(context, document, new AsyncCallback<byte[], Exception>() {
+            @Override
+            public void onSuccess(final byte[] result) {
+                hashPageContent(result, hashFuture);
+            }
+
+            @Override
+            public void onError(final Exception exception) {
+                hashFuture.completeExceptionally(exception);
+            }
+
+            @Override
+            public void onCancelled() {
+                hashFuture.cancel(false);
+            }
+        });
+    }
+
+    @NonNull
+    private synchronized ExtractionCache getExtractionCache(@NonNull final Context context) {
+        if (mExtractionCache == null) {
+            mExtractionCache = mExtractionCachePersisted
+                    ? new ExtractionCache(context.getApplicationContext(),
+                    ExtractionCache.DEFAULT_MAX_ENTRIES, ExtractionCache.DEFAULT_TIME_TO_LIVE_MS)
+                    : new ExtractionCache(ExtractionCache.DEFAULT_MAX_ENTRIES,
+                            ExtractionCache.DEFAULT_TIME_TO_LIVE_MS);
+        }
+        return mExtractionCache;
+    }
+
+    /**
+     * Creates the deletion queue and continues the deletions left by a previous app process. The
+     * queue file is loaded in the background. Deletions requested before are kept until then.
+     *
+     * @param context Android context
+     */
+    public void resumeDeletions(@NonNull final Context context) {
+        getDeletionQueue(context);
+    }
+
+    @NonNull
+    private synchronized DeletionQueue getDeletionQueue(@NonNull final Context context) {
+        if (mDeletionQueue == null) {
+            mDeletionQueue = new DeletionQueue(context.getApplicationContext(),
+                    new DeletionQueue.Sender() {
+                        @Override
+                        public void delete(@NonNull final String apiDocumentId,
+                                @NonNull final CompletableFuture<Void> future) {
+                            sendApiDocumentDelete(apiDocumentId, future);
+                        }
+                    });
+            mDeletionQueue.resume();
+            if (!mPendingCompositeDeletions.isEmpty() || !mPendingPartialDeletions.isEmpty()) {
+                mDeletionQueue.enqueue(mPendingCompositeDeletions, mPendingPartialDeletions);
+                mPendingCompositeDeletions.clear();
+                mPendingPartialDeletions.clear();
+            }
+        }
+        return mDeletionQueue;
+    }
+
+    @NonNull
+    private synchronized UploadJournal getUploadJournal(@NonNull final Context context) {
+        if (mUploadJournal == null) {
+            mUploadJournal = new UploadJournal(context.getApplicationContext());
+        }
+        return mUploadJournal;
+    }
+
+    /**
+     * Changes the priority of an upload which was requested but not sent yet. Uploads which were
+     * not requested yet will use the priority when they are requested.
+     *
+     * @param document the document to be uploaded
+     * @param priority the new priority
+     */
+    public void setUploadPriority(@NonNull final GiniVisionDocument document,
+            @NonNull final RequestPriority priority) {
+        setUploadPriority(document, priority, false);
+    }
+
+    private void setUploadPriority(@NonNull final GiniVisionDocument document,
+            @NonNull final RequestPriority priority, final boolean onlyRaise) {
+        if (mRequestScheduler.setPriority(RequestType.UPLOAD, document.getId(), priority,
+                onlyRaise)) {
+            return;
+        }
+        final CompletableFuture<NetworkRequestResult<GiniVisionDocument>> uploadFuture =
+                mDocumentUploadFutures.get(document.getId());
+        if (uploadFuture != null && uploadFuture.isDone()) {
+            return;
+        }
+        if (!onlyRaise && priority == RequestPriority.UPLOAD) {
+            // Default priority of uploads
+            mUploadPriorities.remove(document.getId());
+            return;
+        }
+        final RequestPriority previousPriority = mUploadPriorities.get(document.getId());
+        if (onlyRaise && previousPriority != null && previousPriority.compareTo(priority) <= 0) {
+            return;
+        }
+        mUploadPriorities.put(document.getId(), priority);
     }
 
     public static boolean isCancellation(@NonNull final Throwable throwable) {
@@ -190,14 +539,76 @@ public class NetworkRequestsManager {
                         });
     }
 
+    /**
+     * Cancels the requests of the document and deletes it from the Gini API in the background
+     * without waiting for the requests to finish. For multi-page documents the composite
+     * document and all partial documents are deleted in one batch.
+     *
+     * <p> Deletions are retried when they fail and continue after the app process was
+     * restarted.
+     *
+     * @param document the document to be deleted
+     */
+    public void deleteInBackground(@NonNull final GiniVisionDocument document) {
+        LOG.debug("Delete document {} in the background", document.getId());
+        final List<String> compositeApiDocumentIds = new ArrayList<>();
+        final List<String> partialApiDocumentIds = new ArrayList<>();
+        if (document instanceof GiniVisionMultiPageDocument) {
+            discardDocument(document, compositeApiDocumentIds);
+            for (final Object partialDocument
+                    : ((GiniVisionMultiPageDocument) document).getDocuments()) {
+                discardDocument((GiniVisionDocument) partialDocument, partialApiDocumentIds);
+            }
+        } else {
+            discardDocument(document, partialApiDocumentIds);
+        }
+        enqueueDeletion(compositeApiDocumentIds, partialApiDocumentIds);
+    }
+
+    private void discardDocument(@NonNull final GiniVisionDocument document,
+            @NonNull final List<String> apiDocumentIds) {
+        cancelFuture(mDocumentUploadFutures.remove(document.getId()));
+        cancelRequest(mDocumentAnalyzeRequests.remove(document.getId()));
+        mDocumentAnalysisSignatures.remove(document.getId());
+        mUploadPriorities.remove(document.getId());
+        mPageContentHashes.remove(document.getId());
+        final UploadJournal uploadJournal = mUploadJournal;
+        if (uploadJournal != null) {
+            uploadJournal.remove(document.getId());
+        }
+        final String apiDocumentId = mApiDocumentIds.remove(document.getId());
+        if (apiDocumentId != null) {
+            removeFromExtractionCache(apiDocumentId);
+            apiDocumentIds.add(apiDocumentId);
+        }
+    }
+
+    private void enqueueDeletion(@NonNull final List<String> compositeApiDocumentIds,
+            @NonNull final List<String> partialApiDocumentIds) {
+        if (compositeApiDocumentIds.isEmpty() && partialApiDocumentIds.isEmpty()) {
+            return;
+        }
+        final DeletionQueue deletionQueue;
+        synchronized (this) {
+            deletionQueue = mDeletionQueue;
+            if (deletionQueue == null) {
+                LOG.debug("Deletion queue not created yet, keeping the deletions until then");
+                mPendingCompositeDeletions.addAll(compositeApiDocumentIds);
+                mPendingPartialDeletions.addAll(partialApiDocumentIds);
+                return;
+            }
+        }
+        deletionQueue.enqueue(compositeApiDocumentIds, partialApiDocumentIds);
+    }
+
     @NonNull
     private List<CompletableFuture> collectRelatedFutures(
             @NonNull final GiniVisionDocument document) {
         final List<CompletableFuture> documentFutures = new ArrayList<>();
-        final CompletableFuture<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>
-                analyzeFuture = mDocumentAnalyzeFutures.get(document.getId());
-        if (analyzeFuture != null) {
-            documentFutures.add(analyzeFuture);
+        final SharedRequest<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>
+                analyzeRequest = mDocumentAnalyzeRequests.get(document.getId());
+        if (analyzeRequest != null) {
+            documentFutures.add(analyzeRequest.getFuture());
         }
         if (document instanceof GiniVisionMultiPageDocument) {
             final GiniVisionMultiPageDocument multiPageDocument =
@@ -252,40 +663,23 @@ public class NetworkRequestsManager {
             return future;
         }
 
-        mDocumentDeleteFutures.put(document.getId(), future);
-
-        final CancellationToken cancellationToken =
-                mGiniVisionNetworkService.delete(apiDocumentId,
-                        new GiniVisionNetworkCallback<Result, Error>() {
-                            @Override
-                            public void failure(final Error error) {
-                                LOG.error(
-                                        "Document deletion failed for {}: {}",
-                                        document.getId(),
-                                        error.getMessage());
-                                future.completeExceptionally(
-                                        new RuntimeException(
-                                                error.getMessage(), error.getCause()));
-                            }
-
-                            @Override
-                            public void success(final Result result) {
-                                LOG.debug(
-                                        "Document deletion success for {}",
-                                        document.getId());
-                                future.complete(
-                                        new NetworkRequestResult<>(document,
-                                                result.getGiniApiDocumentId()));
-                            }
+        final CompletableFuture<NetworkRequestResult<GiniVisionDocument>>
+                previousDocumentDeleteFuture =
+                mDocumentDeleteFutures.putIfAbsent(document.getId(), future);
+        if (previousDocumentDeleteFuture != null) {
+            LOG.debug("Document deletion already requested for {}",
+                    document.getId());
+            return previousDocumentDeleteFuture;
+        }
 
-                            @Override
-                            public void cancelled() {
-                                LOG.debug(
-                                        "Document deletion cancelled for {}",
-                                        document.getId());
-                                future.cancel(false);
-                            }
-                        });
+        mRequestScheduler.schedule(RequestType.DELETE, document.getId(), RequestPriority.DELETE,
+                0, future, new NetworkRequestScheduler.RequestStarter() {
+                    @NonNull
+                    @Override
+                    public CancellationToken start() {
+                        return sendDelete(document, apiDocumentId, future);
+                    }
+                });
 
         future.handle(
                 new CompletableFuture.BiFun<NetworkRequestResult<GiniVisionDocument>,
@@ -294,17 +688,19 @@ public class NetworkRequestsManager {
                     public NetworkRequestResult<GiniVisionDocument> apply(
                             final NetworkRequestResult<GiniVisionDocument> requestResult,
                             final Throwable throwable) {
-                        if (throwable != null) {
-                            if (isCancellation(throwable)) {
-                                cancellationToken.cancel();
-                            }
-                        } else if (requestResult != null) {
+                        if (throwable == null && requestResult != null) {
+                            removeFromExtractionCache(apiDocumentId);
+                            mPageContentHashes.remove(document.getId());
                             mDocumentUploadFutures.remove(document.getId());
-                            mDocumentAnalyzeFutures.remove(
-                                    document.getId());
+                            mDocumentAnalyzeRequests.remove(document.getId());
+                            mDocumentAnalysisSignatures.remove(document.getId());
                             mApiDocumentIds.remove(document.getId());
+                            final UploadJournal uploadJournal = mUploadJournal;
+                            if (uploadJournal != null) {
+                                uploadJournal.remove(document.getId());
+                            }
                         }
-                        mDocumentDeleteFutures.remove(document.getId());
+                        mDocumentDeleteFutures.remove(document.getId(), future);
                         return requestResult;
                     }
                 });
@@ -312,48 +708,132 @@ public class NetworkRequestsManager {
         return future;
     }
 
+    @NonNull
+    private CancellationToken sendDelete(@NonNull final GiniVisionDocument document,
+            @NonNull final String apiDocumentId,
+            @NonNull final CompletableFuture<NetworkRequestResult<GiniVisionDocument>> future) {
+        return mGiniVisionNetworkService.delete(apiDocumentId,
+                new GiniVisionNetworkCallback<Result, Error>() {
+                    @Override
+                    public void failure(final Error error) {
+                        LOG.error(
+                                "Document deletion failed for {}: {}",
+                                document.getId(),
+                                error.getMessage());
+                        future.completeExceptionally(
+                                new RuntimeException(
+                                        error.getMessage(), error.getCause()));
+                    }
+
+                    @Override
+                    public void success(final Result result) {
+                        LOG.debug(
+                                "Document deletion success for {}",
+                                document.getId());
+                        future.complete(
+                                new NetworkRequestResult<>(document,
+                                        result.getGiniApiDocumentId()));
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        LOG.debug(
+                                "Document deletion cancelled for {}",
+                                document.getId());
+                        future.cancel(false);
+                    }
+                });
+    }
+
+    /**
+     * Analyzes the multi-page document after its pages were uploaded.
+     *
+     * <p> Concurrent calls share one analysis from the start of the page uploads until the
+     * result is available. Each call receives its own future: cancelling it detaches the caller
+     * and the analysis is only cancelled when the last caller detached.
+     *
+     * @param multiPageDocument the multi-page document to analyze
+     * @return a future for the analysis result
+     */
     public CompletableFuture<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>> analyze(
             @NonNull final GiniVisionMultiPageDocument multiPageDocument) {
         LOG.debug("Analyze document {}", multiPageDocument.getId());
-        final CompletableFuture<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>
-                documentAnalyzeFuture =
-                mDocumentAnalyzeFutures.get(multiPageDocument.getId());
-        if (documentAnalyzeFuture != null) {
+        final SharedRequest<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>
+                documentAnalyzeRequest =
+                mDocumentAnalyzeRequests.get(multiPageDocument.getId());
+        if (documentAnalyzeRequest != null) {
+            if (getAnalysisSignature(multiPageDocument).equals(
+                    mDocumentAnalysisSignatures.get(multiPageDocument.getId()))) {
+                LOG.debug("Document analysis already requested for {}",
+                        multiPageDocument.getId());
+                return documentAnalyzeRequest.subscribe();
+            }
+            LOG.debug("Document {} changed since its analysis was requested",
+                    multiPageDocument.getId());
+            discardAnalysis(multiPageDocument);
+        }
+
+        final CompletableFuture<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>> future =
+                new CompletableFuture<>();
+        final SharedRequest<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>
+                analyzeRequest = new SharedRequest<>(future);
+        final SharedRequest<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>
+                previousDocumentAnalyzeRequest =
+                mDocumentAnalyzeRequests.putIfAbsent(multiPageDocument.getId(), analyzeRequest);
+        if (previousDocumentAnalyzeRequest != null) {
             LOG.debug("Document analysis already requested for {}", multiPageDocument.getId());
-            return documentAnalyzeFuture;
+            return previousDocumentAnalyzeRequest.subscribe();
+        }
+        mDocumentAnalysisSignatures.put(multiPageDocument.getId(),
+                getAnalysisSignature(multiPageDocument));
+        future.handle(
+                new CompletableFuture.BiFun<AnalysisNetworkRequestResult<
+                        GiniVisionMultiPageDocument>, Throwable, Void>() {
+                    @Override
+                    public Void apply(
+                            final AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>
+                                    requestResult,
+                            final Throwable throwable) {
+                        if (throwable != null
+                                && mDocumentAnalyzeRequests.remove(multiPageDocument.getId(),
+                                analyzeRequest)) {
+                            mDocumentAnalysisSignatures.remove(multiPageDocument.getId());
+                        }
+                        return null;
+                    }
+                });
+
+        // The pages have to be uploaded before the analysis can start
+        for (final Object document : multiPageDocument.getDocuments()) {
+            setUploadPriority((GiniVisionDocument) document, RequestPriority.ANALYSIS, true);
         }
 
         final List<CompletableFuture> documentFutures = collectRelatedUploadFutures(
                 multiPageDocument);
 
-        return CompletableFuture
+        CompletableFuture
                 .allOf(documentFutures.toArray(new CompletableFuture[documentFutures.size()]))
-                .thenCompose(
-                        new CompletableFuture.Fun<Void, CompletableFuture<
-                                AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>>() {
-                            @Override
-                            public CompletableFuture<AnalysisNetworkRequestResult<
-                                    GiniVisionMultiPageDocument>> apply(
-                                    final Void aVoid) {
-                                return analyzeDocument(multiPageDocument);
-                            }
-                        });
+                .handle(new CompletableFuture.BiFun<Void, Throwable, Void>() {
+                    @Override
+                    public Void apply(final Void aVoid, final Throwable throwable) {
+                        if (future.isDone()) {
+                            LOG.debug("Document analysis cancelled during upload for {}",
+                                    multiPageDocument.getId());
+                        } else if (throwable != null) {
+                            future.completeExceptionally(throwable);
+                        } else {
+                            analyzeDocument(multiPageDocument, future);
+                        }
+                        return null;
+                    }
+                });
+        return analyzeRequest.subscribe();
     }
 
-    @NonNull
-    private CompletableFuture<AnalysisNetworkRequestResult<
-            GiniVisionMultiPageDocument>> analyzeDocument(
-            @NonNull final GiniVisionMultiPageDocument multiPageDocument) {
-        final CompletableFuture<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>
-                documentAnalyzeFuture = mDocumentAnalyzeFutures.get(multiPageDocument.getId());
-        if (documentAnalyzeFuture != null) {
-            LOG.debug("Document analysis already requested for {}", multiPageDocument.getId());
-            return documentAnalyzeFuture;
-        }
-
-        final CompletableFuture<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>> future =
-                new CompletableFuture<>();
-
+    private void analyzeDocument(
+            @NonNull final GiniVisionMultiPageDocument multiPageDocument,
+            @NonNull final CompletableFuture<AnalysisNetworkRequestResult<
+                    GiniVisionMultiPageDocument>> future) {
         final LinkedHashMap<String, Integer>
                 giniApiDocumentIdRotationDeltas =
                 new LinkedHashMap<>();
@@ -363,62 +843,248 @@ public class NetworkRequestsManager {
             future.completeExceptionally(new IllegalStateException(
                     "Missing partial document id. All page documents of a multi-page document "
                             + "have to be uploaded before analysis."));
-            return future;
+            return;
         }
 
-        mDocumentAnalyzeFutures.put(multiPageDocument.getId(), future);
+        final ExtractionCache extractionCache = mExtractionCache;
+        final CompletableFuture<String> extractionCacheKeyFuture = extractionCache != null
+                ? getExtractionCacheKey(multiPageDocument) : null;
+        if (extractionCacheKeyFuture == null) {
+            analyzeDocument(multiPageDocument, giniApiDocumentIdRotationDeltas, null, null,
+                    future);
+            return;
+        }
+        // The pages are hashed in the background and may not be hashed yet
+        extractionCacheKeyFuture.handle(new CompletableFuture.BiFun<String, Throwable, Void>() {
+            @Override
+            public Void apply(final String extractionCacheKey, final Throwable throwable) {
+                if (future.isDone()) {
+                    return null;
+                }
+                if (throwable != null) {
+                    LOG.warn("Page content hashing failed for {}: {}",
+                            multiPageDocument.getId(), throwable.getMessage());
+                }
+                analyzeDocument(multiPageDocument, giniApiDocumentIdRotationDeltas,
+                        extractionCache, extractionCacheKey, future);
+                return null;
+            }
+        });
+    }
 
-        final CancellationToken cancellationToken =
-                mGiniVisionNetworkService.analyze(
-                        giniApiDocumentIdRotationDeltas,
-                        new GiniVisionNetworkCallback<AnalysisResult, Error>() {
-                            @Override
-                            public void failure(final Error error) {
-                                LOG.error("Document analysis failed for {}: {}",
-                                        multiPageDocument.getId(), error.getMessage());
-                                future.completeExceptionally(
-                                        new RuntimeException(error.getMessage(), error.getCause()));
-                            }
+    private void analyzeDocument(
+            @NonNull final GiniVisionMultiPageDocument multiPageDocument,
+            @NonNull final LinkedHashMap<String, Integer> giniApiDocumentIdRotationDeltas, // NOPMD
+            @Nullable final ExtractionCache extractionCache,
+            @Nullable final String extractionCacheKey,
+            @NonNull final CompletableFuture<AnalysisNetworkRequestResult<
+                    GiniVisionMultiPageDocument>> future) {
+        if (extractionCache != null && extractionCacheKey != null) {
+            final AnalysisResult cachedResult = extractionCache.get(extractionCacheKey);
+            if (cachedResult != null) {
+                LOG.debug("Document analysis result found in the extraction cache for {}",
+                        multiPageDocument.getId());
+                mApiDocumentIds.put(multiPageDocument.getId(),
+                        cachedResult.getGiniApiDocumentId());
+                future.complete(new AnalysisNetworkRequestResult<>(multiPageDocument,
+                        cachedResult.getGiniApiDocumentId(), cachedResult));
+                return;
+            }
+        }
 
-                            @Override
-                            public void success(
-                                    final AnalysisResult result) {
-                                LOG.debug("Document analysis success for {}: {}",
-                                        multiPageDocument.getId(), result);
-                                mApiDocumentIds.put(multiPageDocument.getId(),
-                                        result.getGiniApiDocumentId());
-                                future.complete(
-                                        new AnalysisNetworkRequestResult<>(multiPageDocument,
-                                                result.getGiniApiDocumentId(), result));
-                            }
+        mRequestScheduler.schedule(RequestType.ANALYSIS, multiPageDocument.getId(),
+                RequestPriority.ANALYSIS, 0, future,
+                new NetworkRequestScheduler.RequestStarter() {
+                    @NonNull
+                    @Override
+                    public CancellationToken start() {
+                        return sendAnalyze(multiPageDocument, giniApiDocumentIdRotationDeltas,
+                                future);
+                    }
+                });
 
-                            @Override
-                            public void cancelled() {
-                                LOG.debug("Document analysis canceleld for {}",
-                                        multiPageDocument.getId());
-                                future.cancel(false);
-                            }
-                        });
+        if (extractionCache != null && extractionCacheKey != null) {
+            future.thenAccept(
+                    new CompletableFuture.Action<AnalysisNetworkRequestResult<
+                            GiniVisionMultiPageDocument>>() {
+                        @Override
+                        public void accept(
+                                final AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>
+                                        requestResult) {
+                            extractionCache.put(extractionCacheKey,
+                                    requestResult.getAnalysisResult());
+                        }
+                    });
+        }
+    }
 
-        future.handle(
-                new CompletableFuture.BiFun<NetworkRequestResult<GiniVisionMultiPageDocument>,
-                        Throwable, NetworkRequestResult<GiniVisionMultiPageDocument>>() {
+    @NonNull
+    private CancellationToken sendAnalyze(
+            @NonNull final GiniVisionMultiPageDocument multiPageDocument,
+            @NonNull final LinkedHashMap<String, Integer> giniApiDocumentIdRotationDeltas, // NOPMD
+            @NonNull final CompletableFuture<AnalysisNetworkRequestResult<
+                    GiniVisionMultiPageDocument>> future) {
+        return mGiniVisionNetworkService.analyze(
+                giniApiDocumentIdRotationDeltas,
+                new GiniVisionNetworkCallback<AnalysisResult, Error>() {
                     @Override
-                    public NetworkRequestResult<GiniVisionMultiPageDocument> apply(
-                            final NetworkRequestResult<GiniVisionMultiPageDocument>
-                                    networkRequestResult,
-                            final Throwable throwable) {
-                        if (throwable != null) {
-                            if (isCancellation(throwable)) {
-                                cancellationToken.cancel();
-                            }
-                            mDocumentAnalyzeFutures.remove(
+                    public void failure(final Error error) {
+                        LOG.error("Document analysis failed for {}: {}",
+                                multiPageDocument.getId(), error.getMessage());
+                        future.completeExceptionally(
+                                new RuntimeException(error.getMessage(), error.getCause()));
+                    }
+
+                    @Override
+                    public void success(
+                            final AnalysisResult result) {
+                        if (future.isDone()) {
+                            LOG.debug("Document analysis finished after it was discarded for {}",
                                     multiPageDocument.getId());
+                            deleteApiDocument(result.getGiniApiDocumentId());
+                            return;
                         }
-                        return networkRequestResult;
+                        LOG.debug("Document analysis success for {}: {}",
+                                multiPageDocument.getId(), result);
+                        mApiDocumentIds.put(multiPageDocument.getId(),
+                                result.getGiniApiDocumentId());
+                        future.complete(
+                                new AnalysisNetworkRequestResult<>(multiPageDocument,
+                                        result.getGiniApiDocumentId(), result));
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        LOG.debug("Document analysis canceleld for {}",
+                                multiPageDocument.getId());
+                        future.cancel(false);
                     }
                 });
-        return future;
+    }
+
+    /**
+     * Cancels the analysis of the multi-page document and deletes the analyzed document from the
+     * Gini API. The next analysis request will analyze the document again.
+     *
+     * <p> Used when the document was changed after its analysis was requested.
+     *
+     * @param multiPageDocument the analyzed multi-page document
+     */
+    public void discardAnalysis(@NonNull final GiniVisionMultiPageDocument multiPageDocument) {
+        final SharedRequest<AnalysisNetworkRequestResult<GiniVisionMultiPageDocument>>
+                documentAnalyzeRequest =
+                mDocumentAnalyzeRequests.remove(multiPageDocument.getId());
+        mDocumentAnalysisSignatures.remove(multiPageDocument.getId());
+        if (documentAnalyzeRequest == null) {
+            return;
+        }
+        LOG.debug("Discard analysis of {}", multiPageDocument.getId());
+        documentAnalyzeRequest.cancel();
+        final String apiDocumentId = mApiDocumentIds.remove(multiPageDocument.getId());
+        if (apiDocumentId != null) {
+            deleteApiDocument(apiDocumentId);
+        }
+    }
+
+    private void deleteApiDocument(@NonNull final String apiDocumentId) {
+        removeFromExtractionCache(apiDocumentId);
+        // Only analyses create composite documents
+        enqueueDeletion(Collections.singletonList(apiDocumentId),
+                Collections.<String>emptyList());
+    }
+
+    private void sendApiDocumentDelete(@NonNull final String apiDocumentId,
+            @NonNull final CompletableFuture<Void> future) {
+        mRequestScheduler.schedule(RequestType.DELETE, apiDocumentId, RequestPriority.DELETE, 0,
+                future, new NetworkRequestScheduler.RequestStarter() {
+                    @NonNull
+                    @Override
+                    public CancellationToken start() {
+                        return mGiniVisionNetworkService.delete(apiDocumentId,
+                                new GiniVisionNetworkCallback<Result, Error>() {
+                                    @Override
+                                    public void failure(final Error error) {
+                                        LOG.error("Api document deletion failed for {}: {}",
+                                                apiDocumentId, error.getMessage());
+                                        future.completeExceptionally(new RuntimeException(
+                                                error.getMessage(), error.getCause()));
+                                    }
+
+                                    @Override
+                                    public void success(final Result result) {
+                                        LOG.debug("Api document deletion success for {}",
+                                                apiDocumentId);
+                                        future.complete(null);
+                                    }
+
+                                    @Override
+                                    public void cancelled() {
+                                        future.cancel(false);
+                                    }
+                                });
+                    }
+                });
+    }
+
+    private void removeFromExtractionCache(@NonNull final String apiDocumentId) {
+        final ExtractionCache extractionCache = mExtractionCache;
+        if (extractionCache != null) {
+            extractionCache.removeByApiDocumentId(apiDocumentId);
+        }
+    }
+
+    /**
+     * @return a future for the key of the pages in the {@link ExtractionCache}, which completes
+     * when all pages were hashed, or {@code null}, if a page isn't being hashed
+     */
+    @Nullable
+    private CompletableFuture<String> getExtractionCacheKey(
+            @NonNull final GiniVisionMultiPageDocument multiPageDocument) {
+        final List<CompletableFuture<String>> pageContentHashes = new ArrayList<>();
+        final List<Integer> rotationDeltas = new ArrayList<>();
+        for (final Object document : multiPageDocument.getDocuments()) {
+            final GiniVisionDocument giniVisionDocument = (GiniVisionDocument) document;
+            final CompletableFuture<String> pageContentHash =
+                    mPageContentHashes.get(giniVisionDocument.getId());
+            if (pageContentHash == null) {
+                return null;
+            }
+            pageContentHashes.add(pageContentHash);
+            rotationDeltas.add(giniVisionDocument instanceof ImageDocument
+                    ? ((ImageDocument) giniVisionDocument).getRotationDelta() : 0);
+        }
+        if (pageContentHashes.isEmpty()) {
+            return null;
+        }
+        return CompletableFuture.allOf(
+                pageContentHashes.toArray(new CompletableFuture[pageContentHashes.size()]))
+                .thenApply(new CompletableFuture.Fun<Void, String>() {
+                    @Override
+                    public String apply(final Void aVoid) {
+                        final List<String> hashes = new ArrayList<>();
+                        for (final CompletableFuture<String> pageContentHash
+                                : pageContentHashes) {
+                            hashes.add(pageContentHash.join());
+                        }
+                        return ExtractionCache.createKey(hashes, rotationDeltas);
+                    }
+                });
+    }
+
+    @NonNull
+    private static String getAnalysisSignature(
+            @NonNull final GiniVisionMultiPageDocument multiPageDocument) {
+        final StringBuilder signature = new StringBuilder();
+        for (final Object document : multiPageDocument.getDocuments()) {
+            final GiniVisionDocument giniVisionDocument = (GiniVisionDocument) document;
+            signature.append(giniVisionDocument.getId());
+            if (giniVisionDocument instanceof ImageDocument) {
+                signature.append(':')
+                        .append(((ImageDocument) giniVisionDocument).getRotationDelta());
+            }
+            signature.append(',');
+        }
+        return signature.toString();
     }
 
     private boolean collectGiniApiDocumentIds(
@@ -464,7 +1130,7 @@ public class NetworkRequestsManager {
 
     public void cancel(@NonNull final GiniVisionDocument document) {
         cancelFuture(mDocumentUploadFutures.get(document.getId()));
-        cancelFuture(mDocumentAnalyzeFutures.get(document.getId()));
+        cancelRequest(mDocumentAnalyzeRequests.get(document.getId()));
         cancelFuture(mDocumentDeleteFutures.get(document.getId()));
     }
 
@@ -474,18 +1140,33 @@ public class NetworkRequestsManager {
         }
     }
 
+    private void cancelRequest(@Nullable final SharedRequest request) {
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
     public void cleanup() {
         cancelAll();
+        final UploadJournal uploadJournal = mUploadJournal;
+        if (uploadJournal != null) {
+            uploadJournal.clear();
+        }
+        mUploadPriorities.clear();
+        mPageContentHashes.clear();
+        mDocumentAnalysisSignatures.clear();
         mApiDocumentIds.clear();
         mDocumentUploadFutures.clear();
-        mDocumentAnalyzeFutures.clear();
+        mDocumentAnalyzeRequests.clear();
         mDocumentDeleteFutures.clear();
         mGiniVisionNetworkService.cleanup();
     }
 
     public void cancelAll() {
         cancelFutures(mDocumentUploadFutures);
-        cancelFutures(mDocumentAnalyzeFutures);
+        for (final SharedRequest request : new ArrayList<>(mDocumentAnalyzeRequests.values())) {
+            request.cancel();
+        }
         cancelFutures(mDocumentDeleteFutures);
     }
 
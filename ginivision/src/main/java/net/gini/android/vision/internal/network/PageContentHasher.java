@@ -0,0 +1,90 @@
+package net.gini.android.vision.internal.network;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Hashes the content of the pages to recognize pages which were already analyzed.
+ *
+ * <p> The APPn and COM segments of JPEGs are not hashed because they contain the EXIF metadata
+ * with the content id, which differs for every capture and import of the same image.
+ */
+final class PageContentHasher {
+
+    private static final int MARKER_PREFIX = 0xFF;
+    private static final int MARKER_SOI = 0xD8;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_APP0 = 0xE0;
+    private static final int MARKER_APP15 = 0xEF;
+    private static final int MARKER_COM = 0xFE;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * @param data the page data as uploaded
+     * @return the SHA-256 hash of the content as a hex string
+     */
+    @NonNull
+    static String hash(@NonNull final byte[] data) {
+        final MessageDigest digest = newDigest();
+        if (isJpeg(data)) {
+            updateWithJpegContent(digest, data);
+        } else {
+            digest.update(data);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static boolean isJpeg(@NonNull final byte[] data) {
+        return data.length >= 4 && (data[0] & 0xFF) == MARKER_PREFIX
+                && (data[1] & 0xFF) == MARKER_SOI;
+    }
+
+    private static void updateWithJpegContent(@NonNull final MessageDigest digest,
+            @NonNull final byte[] data) {
+        int offset = 2;
+        while (offset + 4 <= data.length && (data[offset] & 0xFF) == MARKER_PREFIX) {
+            final int marker = data[offset + 1] & 0xFF;
+            if (marker == MARKER_SOS) {
+                break;
+            }
+            final int segmentLength = ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+            if (segmentLength < 2 || offset + 2 + segmentLength > data.length) {
+                // Malformed, hash the remaining bytes as they are
+                break;
+            }
+            final boolean isMetadata = (marker >= MARKER_APP0 && marker <= MARKER_APP15)
+                    || marker == MARKER_COM;
+            if (!isMetadata) {
+                digest.update(data, offset, 2 + segmentLength);
+            }
+            offset += 2 + segmentLength;
+        }
+        // The scan data (or the unparsed rest) is always hashed
+        digest.update(data, offset, data.length - offset);
+    }
+
+    @NonNull
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            // Every Java and Android platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NonNull
+    private static String toHex(@NonNull final byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    private PageContentHasher() {
+    }
+}
@@ -0,0 +1,29 @@
+package net.gini.android.vision.internal.network;
+
+/**
+ * Internal use only.
+ *
+ * <p> Priorities of the requests scheduled by the {@link NetworkRequestsManager}. Requests with
+ * a higher priority are started first, requests with the same priority in the order they were
+ * scheduled.
+ *
+ * @suppress
+ */
+public enum RequestPriority {
+    /**
+     * Upload of the page the user is looking at.
+     */
+    VISIBLE_PAGE,
+    /**
+     * Analysis and uploads of the pages needed for a requested analysis.
+     */
+    ANALYSIS,
+    /**
+     * Uploads requested ahead of time.
+     */
+    UPLOAD,
+    /**
+     * Deletions, they don't block the user.
+     */
+    DELETE
+}
@@ -0,0 +1,82 @@
+package net.gini.android.vision.internal.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+/**
+ * Shares one request between subscribers. Each subscriber receives its own future which
+ * completes with the result of the request.
+ *
+ * <p> Cancelling a subscriber's future only detaches that subscriber. The request is cancelled
+ * when the last subscriber detached. {@link #cancel()} cancels the request for all subscribers.
+ */
+final class SharedRequest<T> {
+
+    private final CompletableFuture<T> mFuture;
+    private int mSubscriberCount;
+
+    SharedRequest(@NonNull final CompletableFuture<T> future) {
+        mFuture = future;
+    }
+
+    /**
+     * @return the future of the request, cancelling it cancels the request for all subscribers
+     */
+    @NonNull
+    CompletableFuture<T> getFuture() {
+        return mFuture;
+    }
+
+    @NonNull
+    CompletableFuture<T> subscribe() {
+        synchronized (this) {
+            mSubscriberCount++;
+        }
+        final CompletableFuture<T> subscriber = new CompletableFuture<>();
+        mFuture.handle(new CompletableFuture.BiFun<T, Throwable, Void>() {
+            @Override
+            public Void apply(final T result, final Throwable throwable) {
+                if (mFuture.isCancelled()) {
+                    subscriber.cancel(false);
+                } else if (throwable != null) {
+                    subscriber.completeExceptionally(throwable);
+                } else {
+                    subscriber.complete(result);
+                }
+                return null;
+            }
+        });
+        subscriber.handle(new CompletableFuture.BiFun<T, Throwable, Void>() {
+            @Override
+            public Void apply(final T result, final Throwable throwable) {
+                if (subscriber.isCancelled()) {
+                    detach();
+                }
+                return null;
+            }
+        });
+        return subscriber;
+    }
+
+    void cancel() {
+        mFuture.cancel(false);
+    }
+
+    @VisibleForTesting
+    synchronized int getSubscriberCount() {
+        return mSubscriberCount;
+    }
+
+    private void detach() {
+        final boolean lastSubscriber;
+        synchronized (this) {
+            mSubscriberCount--;
+            lastSubscriber = mSubscriberCount == 0;
+        }
+        if (lastSubscriber) {
+            mFuture.cancel(false);
+        }
+    }
+}
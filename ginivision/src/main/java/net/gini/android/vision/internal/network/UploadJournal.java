@@ -0,0 +1,362 @@
+package net.gini.android.vision.internal.network;
+
+import android.content.Context;
+import android.net.Uri;
+
+import net.gini.android.vision.document.GiniVisionDocument;
+import net.gini.android.vision.internal.async.SerialExecutor;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Internal use only.
+ *
+ * <p> Records the upload state and the Gini API document id of the page documents in a file next
+ * to the image disk store. Pages which were uploaded before the app process was killed are not
+ * uploaded again when the multi-page document is restored.
+ *
+ * <p> A page is only considered uploaded if its file in the disk store still has the same size and
+ * modification time as when it was uploaded. Entries older than a day are dropped because the
+ * partial documents might have been removed from the Gini API.
+ *
+ * <p> Pending uploads are not resumed after the app process was restarted. The pages which were
+ * not uploaded are uploaded again only when the restored multi-page document is uploaded.
+ *
+ * <p> The file is written in the background on the I/O pool of the {@link
+ * net.gini.android.vision.internal.async.TaskRuntime}.
+ *
+ * @suppress
+ */
+public class UploadJournal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UploadJournal.class);
+
+    @VisibleForTesting
+    static final String JOURNAL_FILE = "gv-upload-journal.json";
+    @VisibleForTesting
+    static final long MAX_ENTRY_AGE_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String KEY_DOCUMENT_ID = "documentId";
+    private static final String KEY_STATE = "state";
+    private static final String KEY_API_DOCUMENT_ID = "apiDocumentId";
+    private static final String KEY_ATTEMPTS = "attempts";
+    private static final String KEY_DATA_URI = "dataUri";
+    private static final String KEY_DATA_LENGTH = "dataLength";
+    private static final String KEY_DATA_LAST_MODIFIED = "dataLastModified";
+    private static final String KEY_UPDATED_AT = "updatedAt";
+
+    /**
+     * Upload states of the pages.
+     */
+    public enum State {
+        PENDING,
+        UPLOADED,
+        FAILED
+    }
+
+    private final File mFile;
+    private final Executor mWriteExecutor;
+    private final Map<String, Entry> mEntries = new LinkedHashMap<>();
+    private boolean mLoaded;
+
+    public UploadJournal(@NonNull final Context context) {
+        this(new File(context.getFilesDir(), JOURNAL_FILE),
+                new SerialExecutor(TaskPool.IO, TaskPriority.LOW));
+    }
+
+    /**
+     * @param writeExecutor has to execute the tasks one after another in the submission order
+     */
+    @VisibleForTesting
+    UploadJournal(@NonNull final File file, @NonNull final Executor writeExecutor) {
+        mFile = file;
+        mWriteExecutor = writeExecutor;
+    }
+
+    /**
+     * @return the Gini API document id, if the page was uploaded and its data didn't change
+     */
+    @Nullable
+    public synchronized String getUploadedApiDocumentId(
+            @NonNull final GiniVisionDocument document) {
+        load();
+        final Entry entry = mEntries.get(document.getId());
+        if (entry == null || entry.mState != State.UPLOADED) {
+            return null;
+        }
+        final Uri uri = document.getUri();
+        if (uri == null || !uri.toString().equals(entry.mDataUri)
+                || getDataLength(document) != entry.mDataLength
+                || getDataLastModified(document) != entry.mDataLastModified) {
+            LOG.debug("Journal entry of {} doesn't match the document", document.getId());
+            return null;
+        }
+        return entry.mApiDocumentId;
+    }
+
+    @Nullable
+    public synchronized State getState(@NonNull final String documentId) {
+        load();
+        final Entry entry = mEntries.get(documentId);
+        return entry != null ? entry.mState : null;
+    }
+
+    public synchronized int getAttempts(@NonNull final String documentId) {
+        load();
+        final Entry entry = mEntries.get(documentId);
+        return entry != null ? entry.mAttempts : 0;
+    }
+
+    /**
+     * Records an upload attempt.
+     */
+    public synchronized void markPending(@NonNull final GiniVisionDocument document) {
+        load();
+        final Entry entry = getOrCreateEntry(document);
+        entry.mState = State.PENDING;
+        entry.mAttempts++;
+        entry.mUpdatedAtMs = System.currentTimeMillis();
+        persist();
+    }
+
+    public synchronized void markUploaded(@NonNull final GiniVisionDocument document,
+            @NonNull final String apiDocumentId) {
+        load();
+        final Entry entry = getOrCreateEntry(document);
+        entry.mState = State.UPLOADED;
+        entry.mApiDocumentId = apiDocumentId;
+        entry.mUpdatedAtMs = System.currentTimeMillis();
+        persist();
+    }
+
+    public synchronized void markFailed(@NonNull final GiniVisionDocument document) {
+        load();
+        final Entry entry = getOrCreateEntry(document);
+        entry.mState = State.FAILED;
+        entry.mUpdatedAtMs = System.currentTimeMillis();
+        persist();
+    }
+
+    public synchronized void remove(@NonNull final String documentId) {
+        load();
+        if (mEntries.remove(documentId) != null) {
+            persist();
+        }
+    }
+
+    /**
+     * Removes all entries. The file is deleted after the pending writes finished.
+     */
+    public synchronized void clear() {
+        mLoaded = true;
+        mEntries.clear();
+        mWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                //noinspection ResultOfMethodCallIgnored
+                mFile.delete();
+            }
+        });
+    }
+
+    public static void clear(@NonNull final Context context) {
+        //noinspection ResultOfMethodCallIgnored
+        new File(context.getFilesDir(), JOURNAL_FILE).delete();
+    }
+
+    /**
+     * @return the size of the document's file in the disk store or -1, if it is not a file
+     */
+    static long getDataLength(@NonNull final GiniVisionDocument document) {
+        final Uri uri = document.getUri();
+        if (uri == null || !"file".equals(uri.getScheme()) || uri.getPath() == null) {
+            return -1;
+        }
+        final File file = new File(uri.getPath());
+        return file.isFile() ? file.length() : -1;
+    }
+
+    /**
+     * @return the modification time of the document's file in the disk store or -1, if it is not
+     * a file
+     */
+    static long getDataLastModified(@NonNull final GiniVisionDocument document) {
+        final Uri uri = document.getUri();
+        if (uri == null || !"file".equals(uri.getScheme()) || uri.getPath() == null) {
+            return -1;
+        }
+        final File file = new File(uri.getPath());
+        return file.isFile() ? file.lastModified() : -1;
+    }
+
+    @NonNull
+    private Entry getOrCreateEntry(@NonNull final GiniVisionDocument document) {
+        Entry entry = mEntries.get(document.getId());
+        if (entry == null) {
+            entry = new Entry(document.getId());
+            mEntries.put(document.getId(), entry);
+        }
+        final Uri uri = document.getUri();
+        entry.mDataUri = uri != null ? uri.toString() : null;
+        entry.mDataLength = getDataLength(document);
+        entry.mDataLastModified = getDataLastModified(document);
+        return entry;
+    }
+
+    private void load() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if (!mFile.isFile()) {
+            return;
+        }
+        try {
+            final JSONArray entries = new JSONArray(readFile(mFile));
+            final long now = System.currentTimeMillis();
+            for (int i = 0; i < entries.length(); i++) {
+                final Entry entry = Entry.fromJson(entries.getJSONObject(i));
+                if (now - entry.mUpdatedAtMs <= MAX_ENTRY_AGE_MS) {
+                    mEntries.put(entry.mDocumentId, entry);
+                }
+            }
+            LOG.debug("Upload journal loaded with {} entries", mEntries.size());
+        } catch (final IOException | JSONException e) {
+            LOG.error("Failed to load the upload journal", e);
+        }
+    }
+
+    private void persist() {
+        final JSONArray entries = new JSONArray();
+        try {
+            for (final Entry entry : mEntries.values()) {
+                entries.put(entry.toJson());
+            }
+        } catch (final JSONException e) {
+            LOG.error("Failed to serialize the upload journal", e);
+            return;
+        }
+        final String content = entries.toString();
+        mWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                writeFile(content);
+            }
+        });
+    }
+
+    private void writeFile(@NonNull final String content) {
+        // Write to a temporary file first to not corrupt the journal if the process is killed
+        final File tmpFile = new File(mFile.getPath() + ".tmp");
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(tmpFile);
+            outputStream.write(content.getBytes("UTF-8"));
+            outputStream.flush();
+        } catch (final IOException e) {
+            LOG.error("Failed to write the upload journal", e);
+            return;
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (final IOException ignore) {
+                }
+            }
+        }
+        if (!tmpFile.renameTo(mFile)) {
+            LOG.error("Failed to replace the upload journal");
+        }
+    }
+
+    @NonNull
+    private static String readFile(@NonNull final File file) throws IOException {
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toString("UTF-8");
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (final IOException ignore) {
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final String mDocumentId;
+        private State mState = State.PENDING;
+        private String mApiDocumentId;
+        private int mAttempts;
+        private String mDataUri;
+        private long mDataLength = -1;
+        private long mDataLastModified = -1;
+        private long mUpdatedAtMs;
+
+        Entry(@NonNull final String documentId) {
+            mDocumentId = documentId;
+        }
+
+        @NonNull
+        JSONObject toJson() throws JSONException {
+            final JSONObject json = new JSONObject();
+            json.put(KEY_DOCUMENT_ID, mDocumentId);
+            json.put(KEY_STATE, mState.name());
+            json.putOpt(KEY_API_DOCUMENT_ID, mApiDocumentId);
+            json.put(KEY_ATTEMPTS, mAttempts);
+            json.putOpt(KEY_DATA_URI, mDataUri);
+            json.put(KEY_DATA_LENGTH, mDataLength);
+            json.put(KEY_DATA_LAST_MODIFIED, mDataLastModified);
+            json.put(KEY_UPDATED_AT, mUpdatedAtMs);
+            return json;
+        }
+
+        @NonNull
+        static Entry fromJson(@NonNull final JSONObject json) throws JSONException {
+            final Entry entry = new Entry(json.getString(KEY_DOCUMENT_ID));
+            try {
+                entry.mState = State.valueOf(json.getString(KEY_STATE));
+            } catch (final IllegalArgumentException e) {
+                entry.mState = State.FAILED;
+            }
+            entry.mApiDocumentId = json.optString(KEY_API_DOCUMENT_ID, null);
+            entry.mAttempts = json.optInt(KEY_ATTEMPTS);
+            entry.mDataUri = json.optString(KEY_DATA_URI, null);
+            entry.mDataLength = json.optLong(KEY_DATA_LENGTH, -1);
+            entry.mDataLastModified = json.optLong(KEY_DATA_LAST_MODIFIED, -1);
+            entry.mUpdatedAtMs = json.optLong(KEY_UPDATED_AT);
+            return entry;
+        }
+    }
+}
@@ -10,11 +10,13 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.pdf.PdfRenderer;
 import android.net.Uri;
-import android.os.AsyncTask;
 import android.os.Build;
 import android.os.ParcelFileDescriptor;
 
 import net.gini.android.vision.AsyncCallback;
+import net.gini.android.vision.internal.async.BackgroundTask;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
 import net.gini.android.vision.internal.util.Size;
 
 import org.slf4j.Logger;
@@ -193,7 +195,7 @@ class RendererLollipop implements Renderer {
         return size;
     }
 
-    private static class RenderAsyncTask extends AsyncTask<Void, Void, Bitmap> {
+    private static class RenderAsyncTask extends BackgroundTask<Void, Bitmap> {
 
         private final RendererLollipop mRendererLollipop;
         private final Size mTargetSize;
@@ -202,6 +204,7 @@ class RendererLollipop implements Renderer {
         private RenderAsyncTask(final RendererLollipop rendererLollipop,
                 final Size targetSize,
                 final AsyncCallback<Bitmap, Exception> callback) {
+            super(TaskPool.LATENCY, TaskPriority.NORMAL);
             mRendererLollipop = rendererLollipop;
             mTargetSize = targetSize;
             mCallback = callback;
@@ -214,18 +217,18 @@ class RendererLollipop implements Renderer {
 
         @Override
         protected void onPostExecute(final Bitmap bitmap) {
-            super.onPostExecute(bitmap);
             mCallback.onSuccess(bitmap);
         }
     }
 
-    private static class PageCountAsyncTask extends AsyncTask<Void, Void, Integer> {
+    private static class PageCountAsyncTask extends BackgroundTask<Void, Integer> {
 
         private final RendererLollipop mRendererLollipop;
         private final AsyncCallback<Integer, Exception> mCallback;
 
         private PageCountAsyncTask(final RendererLollipop rendererLollipop,
                 final AsyncCallback<Integer, Exception> callback) {
+            super(TaskPool.IO, TaskPriority.NORMAL);
             mRendererLollipop = rendererLollipop;
             mCallback = callback;
         }
@@ -237,7 +240,6 @@ class RendererLollipop implements Renderer {
 
         @Override
         protected void onPostExecute(final Integer pageCount) {
-            super.onPostExecute(pageCount);
             mCallback.onSuccess(pageCount);
         }
     }
@@ -2,8 +2,10 @@ package net.gini.android.vision.internal.qrcode;
 
 import android.text.TextUtils;
 
-import java.math.BigDecimal;
-import java.util.Locale;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Map;
+import java.util.TreeMap;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -16,40 +18,471 @@ import androidx.annotation.Nullable;
 
 /**
  * Normalizes amount and currency strings to conform to the Gini API amount format: 25.79:EUR
+ * <p>
+ * Amounts are scanned by hand into a fixed-point long of minor units (hundredths) without
+ * depending on the default locale and without intermediate strings or {@code BigDecimal}s, because
+ * this runs for every detected payment QRCode.
  */
 final class AmountAndCurrencyNormalizer {
 
+    /**
+     * Returned by {@link #parseAmountInMinorUnits(CharSequence)} if the amount could not be
+     * parsed.
+     */
+    static final long INVALID_AMOUNT = Long.MIN_VALUE;
+
+    // Keeps the minor units well inside the long range
+    private static final int MAX_INTEGER_DIGITS = 16;
+
+    // The ISO 4217 codes known to Currency sorted by their packed letters (see currencyKey()),
+    // so codes in amounts are looked up without allocations
+    private static final int[] CURRENCY_KEYS;
+    private static final String[] CURRENCY_CODES;
+
+    static {
+        final Map<Integer, String> codes = new TreeMap<>();
+        for (final Currency currency : Currency.getAvailableCurrencies()) {
+            final String code = currency.getCurrencyCode();
+            if (code.length() == 3) {
+                final int key = currencyKey(code, 0);
+                if (key != -1) {
+                    codes.put(key, code.intern());
+                }
+            }
+        }
+        CURRENCY_KEYS = new int[codes.size()];
+        CURRENCY_CODES = new String[codes.size()];
+        int index = 0;
+        for (final Map.Entry<Integer, String> entry : codes.entrySet()) {
+            CURRENCY_KEYS[index] = entry.getKey();
+            CURRENCY_CODES[index] = entry.getValue();
+            index++;
+        }
+    }
+
     /**
      * Creates an amount string in the Gini API format: 25.79:EUR
+     * <p>
+     * If the amount string contains a currency (for ex. "EUR12.3" or "12,30 &euro;") then that
+     * currency is used instead of the default one.
      *
-     * @param amount an amount string
-     * @param currency a currency code
+     * @param amount          an amount string
+     * @param defaultCurrency a currency code
      * @return normalized amount string in the Gini API format or an empty string
      */
     @NonNull
-    static String normalizeAmount(@Nullable final String amount, @NonNull final String currency) {
-        if (!TextUtils.isEmpty(amount)) {
-            try {
-                BigDecimal amountBigDecimal = new BigDecimal(amount.replace(",", "."));
-                if (amountBigDecimal.scale() < 2) {
-                    amountBigDecimal = amountBigDecimal.setScale(2, BigDecimal.ROUND_HALF_EVEN);
-                }
-                return amountBigDecimal.toPlainString() + ":" + currency;
-            } catch (final NumberFormatException ignored) {
-            }
+    static String normalizeAmount(@Nullable final String amount,
+            @NonNull final String defaultCurrency) {
+        return normalizeAmount(amount, defaultCurrency, false);
+    }
+
+    /**
+     * Creates an amount string in the Gini API format from an EPC069-12 amount, which is the
+     * currency code followed by a number with '.' as the decimal separator (for ex. "EUR12.3").
+     *
+     * @param amount an EPC069-12 amount string
+     * @return normalized amount string in the Gini API format or an empty string
+     */
+    @NonNull
+    static String normalizeEpcAmount(@Nullable final String amount) {
+        return normalizeAmount(amount, "EUR", true);
+    }
+
+    @NonNull
+    private static String normalizeAmount(@Nullable final String amount,
+            @NonNull final String defaultCurrency, final boolean decimalPointOnly) {
+        if (TextUtils.isEmpty(amount)) {
+            return "";
         }
-        return "";
+        final long minorUnits = parseAmountInMinorUnits(amount, decimalPointOnly);
+        if (minorUnits == INVALID_AMOUNT) {
+            return "";
+        }
+        final String currency = parseCurrency(amount);
+        return formatAmount(minorUnits, currency != null ? currency : defaultCurrency);
     }
 
     /**
      * Normalizes currency codes.
      *
      * @param currency a currency code
-     * @return normalized currency code or an empty string
+     * @return normalized currency code or an empty string, if it is not an ISO 4217 code known to
+     * {@link Currency}
      */
     @NonNull
     static String normalizeCurrency(@Nullable final String currency) {
-        return TextUtils.isEmpty(currency) ? "" : currency.toUpperCase(Locale.ENGLISH);
+        if (currency == null || currency.length() != 3) {
+            return "";
+        }
+        final String code = currencyCode(currency, 0);
+        return code != null ? code : "";
+    }
+
+    /**
+     * Formats an amount given in minor units in the Gini API format: 25.79:EUR
+     *
+     * @param minorUnits the amount in hundredths
+     * @param currency   a currency code
+     * @return the formatted amount
+     */
+    @NonNull
+    static String formatAmount(final long minorUnits, @NonNull final String currency) {
+        final long absoluteMinorUnits = Math.abs(minorUnits);
+        final long fraction = absoluteMinorUnits % 100;
+        final StringBuilder builder = new StringBuilder(24);
+        if (minorUnits < 0) {
+            builder.append('-');
+        }
+        builder.append(absoluteMinorUnits / 100)
+                .append('.')
+                .append(fraction < 10 ? "0" : "")
+                .append(fraction)
+                .append(':')
+                .append(currency);
+        return builder.toString();
+    }
+
+    /**
+     * Scans an amount string with '.' or ',' as the decimal separator into a fixed-point long of
+     * minor units (hundredths).
+     *
+     * @param amount an amount string
+     * @return the amount in hundredths or {@link #INVALID_AMOUNT}
+     * @see #parseAmountInMinorUnits(CharSequence, boolean)
+     */
+    static long parseAmountInMinorUnits(@Nullable final CharSequence amount) {
+        return parseAmountInMinorUnits(amount, false);
+    }
+
+    /**
+     * Scans an amount string into a fixed-point long of minor units (hundredths).
+     * <p>
+     * Accepted are an optional sign, an optional currency code or symbol before or after the
+     * number and both '.' and ',' as decimal separators. Grouping of thousands is recognized with
+     * '.', ',', ' ', '\'' and non-breaking spaces:
+     * <ul>
+     * <li>if both '.' and ',' are present, the last one is the decimal separator,</li>
+     * <li>if only one of them is present and it occurs only once, it is the decimal
+     * separator,</li>
+     * <li>if only one of them is present and it occurs more than once, it is a grouping
+     * separator.</li>
+     * </ul>
+     * A single separator which follows one to three digits without a leading zero and is followed
+     * by exactly three digits (for ex. "1.234") could be either and the amount is rejected.
+     * Grouped integer parts must consist of groups of three digits. More than two fraction
+     * digits are rounded half-even.
+     * <p>
+     * If only '.' is allowed as the decimal separator, no grouping separators are accepted.
+     *
+     * @param amount           an amount string
+     * @param decimalPointOnly whether '.' is the only accepted separator
+     * @return the amount in hundredths or {@link #INVALID_AMOUNT}
+     */
+    static long parseAmountInMinorUnits(@Nullable final CharSequence amount,
+            final boolean decimalPointOnly) {
+        if (amount == null) {
+            return INVALID_AMOUNT;
+        }
+        int start = skipWhitespace(amount, 0, amount.length());
+        int end = skipTrailingWhitespace(amount, start, amount.length());
+        final int currencyPrefixLength = currencyPrefixLength(amount, start, end);
+        if (currencyPrefixLength > 0) {
+            start = skipWhitespace(amount, start + currencyPrefixLength, end);
+        } else {
+            final int currencySuffixLength = currencySuffixLength(amount, start, end);
+            end = skipTrailingWhitespace(amount, start, end - currencySuffixLength);
+        }
+
+        boolean negative = false;
+        if (start < end && (amount.charAt(start) == '-' || amount.charAt(start) == '+')) {
+            negative = amount.charAt(start) == '-';
+            start++;
+        }
+        if (start == end) {
+            return INVALID_AMOUNT;
+        }
+
+        final int decimalSeparatorIndex = decimalPointOnly
+                ? findDecimalPoint(amount, start, end)
+                : findDecimalSeparator(amount, start, end);
+        if (decimalSeparatorIndex == -2) {
+            return INVALID_AMOUNT;
+        }
+        final int integerEnd = decimalSeparatorIndex == -1 ? end : decimalSeparatorIndex;
+
+        long units = 0;
+        int significantDigits = 0;
+        int digitCount = 0;
+        int groupDigits = 0;
+        boolean grouped = false;
+        for (int i = start; i < integerEnd; i++) {
+            final char character = amount.charAt(i);
+            if (isDigit(character)) {
+                units = units * 10 + character - '0';
+                if (units > 0 && ++significantDigits > MAX_INTEGER_DIGITS) {
+                    return INVALID_AMOUNT;
+                }
+                digitCount++;
+                groupDigits++;
+            } else {
+                // Grouping separator
+                if (groupDigits == 0 || (grouped ? groupDigits != 3 : groupDigits > 3)) {
+                    return INVALID_AMOUNT;
+                }
+                grouped = true;
+                groupDigits = 0;
+            }
+        }
+        if (grouped && groupDigits != 3) {
+            return INVALID_AMOUNT;
+        }
+        units *= 100;
+
+        if (decimalSeparatorIndex != -1) {
+            int fractionDigits = 0;
+            int roundingDigit = 0;
+            boolean sticky = false;
+            for (int i = decimalSeparatorIndex + 1; i < end; i++) {
+                final char character = amount.charAt(i);
+                if (!isDigit(character)) {
+                    return INVALID_AMOUNT;
+                }
+                final int digit = character - '0';
+                if (fractionDigits == 0) {
+                    units += digit * 10;
+                } else if (fractionDigits == 1) {
+                    units += digit;
+                } else if (fractionDigits == 2) {
+                    roundingDigit = digit;
+                } else if (digit != 0) {
+                    sticky = true;
+                }
+                fractionDigits++;
+            }
+            digitCount += fractionDigits;
+            if (roundingDigit > 5
+                    || (roundingDigit == 5 && (sticky || units % 2 == 1))) {
+                units++;
+            }
+        }
+        if (digitCount == 0) {
+            return INVALID_AMOUNT;
+        }
+        return negative ? -units : units;
+    }
+
+    /**
+     * Returns the currency code contained in an amount string (for ex. "EUR12.3" or "12,30 &euro;").
+     * Three letter codes are only recognized if they are ISO 4217 codes known to {@link
+     * Currency}.
+     *
+     * @param amount an amount string
+     * @return the upper case currency code or null
+     */
+    @Nullable
+    static String parseCurrency(@Nullable final CharSequence amount) {
+        if (amount == null) {
+            return null;
+        }
+        final int start = skipWhitespace(amount, 0, amount.length());
+        final int end = skipTrailingWhitespace(amount, start, amount.length());
+        int currencyStart = -1;
+        int currencyLength = currencyPrefixLength(amount, start, end);
+        if (currencyLength > 0) {
+            currencyStart = start;
+        } else {
+            currencyLength = currencySuffixLength(amount, start, end);
+            if (currencyLength > 0) {
+                currencyStart = end - currencyLength;
+            }
+        }
+        if (currencyStart == -1) {
+            return null;
+        }
+        if (currencyLength == 1) {
+            return currencyForSymbol(amount.charAt(currencyStart));
+        }
+        return currencyCode(amount, currencyStart);
+    }
+
+    /**
+     * @return the index of the decimal separator, -1 if there is none or -2 if the amount contains
+     * invalid characters or separators
+     */
+    private static int findDecimalSeparator(@NonNull final CharSequence amount, final int start,
+            final int end) {
+        int dotCount = 0;
+        int commaCount = 0;
+        int lastDot = -1;
+        int lastComma = -1;
+        for (int i = start; i < end; i++) {
+            final char character = amount.charAt(i);
+            if (character == '.') {
+                dotCount++;
+                lastDot = i;
+            } else if (character == ',') {
+                commaCount++;
+                lastComma = i;
+            } else if (!isDigit(character) && !isGroupingSeparator(character)) {
+                return -2;
+            }
+        }
+        if (dotCount > 0 && commaCount > 0) {
+            if (lastDot > lastComma) {
+                return dotCount == 1 ? lastDot : -2;
+            }
+            return commaCount == 1 ? lastComma : -2;
+        }
+        if (dotCount == 1) {
+            return isAmbiguousSeparator(amount, start, lastDot, end) ? -2 : lastDot;
+        }
+        if (commaCount == 1) {
+            return isAmbiguousSeparator(amount, start, lastComma, end) ? -2 : lastComma;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the decimal point, -1 if there is none or -2 if the amount contains
+     * other characters than digits and a single decimal point
+     */
+    private static int findDecimalPoint(@NonNull final CharSequence amount, final int start,
+            final int end) {
+        int decimalPointIndex = -1;
+        for (int i = start; i < end; i++) {
+            final char character = amount.charAt(i);
+            if (character == '.') {
+                if (decimalPointIndex != -1) {
+                    return -2;
+                }
+                decimalPointIndex = i;
+            } else if (!isDigit(character)) {
+                return -2;
+            }
+        }
+        return decimalPointIndex;
+    }
+
+    /**
+     * A single separator is ambiguous if it separates one to three digits without a leading zero
+     * from exactly three digits, like in "1.234". Otherwise it is the decimal separator, like in
+     * "0.125" or "1.2345".
+     */
+    private static boolean isAmbiguousSeparator(@NonNull final CharSequence amount,
+            final int start, final int separatorIndex, final int end) {
+        final int integerDigits = separatorIndex - start;
+        if (integerDigits < 1 || integerDigits > 3 || end - separatorIndex - 1 != 3
+                || amount.charAt(start) == '0') {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (i != separatorIndex && !isDigit(amount.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int currencyPrefixLength(@NonNull final CharSequence amount, final int start,
+            final int end) {
+        if (start < end && currencyForSymbol(amount.charAt(start)) != null) {
+            return 1;
+        }
+        if (end - start > 3 && currencyCode(amount, start) != null) {
+            return 3;
+        }
+        return 0;
+    }
+
+    private static int currencySuffixLength(@NonNull final CharSequence amount, final int start,
+            final int end) {
+        if (start < end && currencyForSymbol(amount.charAt(end - 1)) != null) {
+            return 1;
+        }
+        if (end - start > 3 && currencyCode(amount, end - 3) != null) {
+            return 3;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the upper case ISO 4217 code of the three letters at the start index or null, if
+     * they are not a known currency code
+     */
+    @Nullable
+    private static String currencyCode(@NonNull final CharSequence amount, final int start) {
+        final int key = currencyKey(amount, start);
+        if (key == -1) {
+            return null;
+        }
+        final int index = Arrays.binarySearch(CURRENCY_KEYS, key);
+        return index >= 0 ? CURRENCY_CODES[index] : null;
+    }
+
+    /**
+     * Packs three letters case-insensitively into an int.
+     *
+     * @return the packed letters or -1, if one of the characters is not a letter
+     */
+    private static int currencyKey(@NonNull final CharSequence amount, final int start) {
+        int key = 0;
+        for (int i = start; i < start + 3; i++) {
+            final char character = amount.charAt(i);
+            if (!isLetter(character)) {
+                return -1;
+            }
+            key = key * 26 + (Character.toUpperCase(character) - 'A');
+        }
+        return key;
+    }
+
+    @Nullable
+    private static String currencyForSymbol(final char symbol) {
+        switch (symbol) {
+            case '\u20AC':
+                return "EUR";
+            case '$':
+                return "USD";
+            case '\u00A3':
+                return "GBP";
+            default:
+                return null;
+        }
+    }
+
+    private static int skipWhitespace(@NonNull final CharSequence amount, final int start,
+            final int end) {
+        int index = start;
+        while (index < end && isWhitespace(amount.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipTrailingWhitespace(@NonNull final CharSequence amount, final int start,
+            final int end) {
+        int index = end;
+        while (index > start && isWhitespace(amount.charAt(index - 1))) {
+            index--;
+        }
+        return index;
+    }
+
+    private static boolean isGroupingSeparator(final char character) {
+        return character == ' ' || character == '\'' || character == '\u00A0'
+                || character == '\u202F';
+    }
+
+    private static boolean isWhitespace(final char character) {
+        return character <= ' ' || character == '\u00A0' || character == '\u202F';
+    }
+
+    private static boolean isLetter(final char character) {
+        return (character >= 'A' && character <= 'Z') || (character >= 'a' && character <= 'z');
+    }
+
+    private static boolean isDigit(final char character) {
+        return character >= '0' && character <= '9';
     }
 
     private AmountAndCurrencyNormalizer() {
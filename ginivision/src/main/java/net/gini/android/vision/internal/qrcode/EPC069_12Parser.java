@@ -1,6 +1,6 @@
 package net.gini.android.vision.internal.qrcode;
 
-import static net.gini.android.vision.internal.qrcode.AmountAndCurrencyNormalizer.normalizeAmount;
+import static net.gini.android.vision.internal.qrcode.AmountAndCurrencyNormalizer.normalizeEpcAmount;
 
 import android.text.TextUtils;
 
@@ -8,7 +8,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 
 /**
  * Created by Alpar Szotyori on 11.12.2017.
@@ -55,19 +54,12 @@ class EPC069_12Parser implements QRCodeParser<PaymentQRCodeData> {
             throw new IllegalArgumentException("Invalid IBAN in QRCode. " + e.getMessage(), e);
         }
         final String bic = getLineString(4, lines);
-        final String amount = normalizeAmount(processAmount(getLineString(7, lines)), "EUR");
+        // The amount is prefixed with the currency code (for ex. EUR12.3)
+        final String amount = normalizeEpcAmount(getLineString(7, lines));
         return new PaymentQRCodeData(PaymentQRCodeData.Format.EPC069_12, qrCodeContent,
                 paymentRecipient, paymentReference, iban, bic, amount);
     }
 
-    @NonNull
-    private String processAmount(@Nullable final String amount) {
-        if (TextUtils.isEmpty(amount)) {
-            return "";
-        }
-        return amount.length() > 3 ? amount.substring(3) : "";
-    }
-
     private String getLineString(final int lineNr, final String[] lines) {
         return lines.length > lineNr ? lines[lineNr] : "";
     }
@@ -1,94 +1,154 @@
 package net.gini.android.vision.internal.qrcode;
 
-import android.text.TextUtils;
-
-import java.math.BigInteger;
-import java.util.HashMap;
-import java.util.Locale;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 /**
  * Checks that an IBAN string conforms to the IBAN standard.
+ * <p>
+ * Validation runs for every detected payment QRCode, therefore it works directly on the characters
+ * of the input without creating intermediate strings: spaces are skipped, lower case letters are
+ * treated as upper case and the mod-97 checksum is computed incrementally.
  */
 class IBANValidator {
 
-    private static final Map<String, Integer> COUNTRY_IBAN_MAP = new HashMap<>(); // NOPMD
+    private static final int COUNTRY_CODE_COUNT = 26 * 26;
+
+    private static final byte BBAN_DIGIT = 1;
+    private static final byte BBAN_LETTER = 2;
+    private static final byte BBAN_ALPHANUMERIC = 3;
+
+    // Indexed by the country code (see countryIndex()), zero if the country is unknown
+    private static final byte[] COUNTRY_IBAN_LENGTHS = new byte[COUNTRY_CODE_COUNT];
+    // Indexed by the country code (see countryIndex()), null if the BBAN structure is not checked
+    private static final byte[][] COUNTRY_BBAN_FORMATS = new byte[COUNTRY_CODE_COUNT][];
 
     static {
-        COUNTRY_IBAN_MAP.put("AL", 28);
-        COUNTRY_IBAN_MAP.put("AD", 24);
-        COUNTRY_IBAN_MAP.put("AT", 20);
-        COUNTRY_IBAN_MAP.put("AZ", 28);
-        COUNTRY_IBAN_MAP.put("BH", 22);
-        COUNTRY_IBAN_MAP.put("BE", 16);
-        COUNTRY_IBAN_MAP.put("BA", 20);
-        COUNTRY_IBAN_MAP.put("BR", 29);
-        COUNTRY_IBAN_MAP.put("BG", 22);
-        COUNTRY_IBAN_MAP.put("CR", 21);
-        COUNTRY_IBAN_MAP.put("HR", 21);
-        COUNTRY_IBAN_MAP.put("CY", 28);
-        COUNTRY_IBAN_MAP.put("CZ", 24);
-        COUNTRY_IBAN_MAP.put("DK", 18);
-        COUNTRY_IBAN_MAP.put("DO", 28);
-        COUNTRY_IBAN_MAP.put("EE", 20);
-        COUNTRY_IBAN_MAP.put("FO", 18);
-        COUNTRY_IBAN_MAP.put("FI", 18);
-        COUNTRY_IBAN_MAP.put("FR", 27);
-        COUNTRY_IBAN_MAP.put("GE", 22);
-        COUNTRY_IBAN_MAP.put("DE", 22);
-        COUNTRY_IBAN_MAP.put("GI", 23);
-        COUNTRY_IBAN_MAP.put("GB", 22);
-        COUNTRY_IBAN_MAP.put("GR", 27);
-        COUNTRY_IBAN_MAP.put("GL", 18);
-        COUNTRY_IBAN_MAP.put("GT", 28);
-        COUNTRY_IBAN_MAP.put("HU", 28);
-        COUNTRY_IBAN_MAP.put("IS", 26);
-        COUNTRY_IBAN_MAP.put("IE", 22);
-        COUNTRY_IBAN_MAP.put("IL", 23);
-        COUNTRY_IBAN_MAP.put("IT", 27);
-        COUNTRY_IBAN_MAP.put("KZ", 20);
-        COUNTRY_IBAN_MAP.put("KW", 30);
-        COUNTRY_IBAN_MAP.put("LV", 21);
-        COUNTRY_IBAN_MAP.put("LB", 28);
-        COUNTRY_IBAN_MAP.put("LT", 20);
-        COUNTRY_IBAN_MAP.put("LU", 20);
-        COUNTRY_IBAN_MAP.put("MK", 19);
-        COUNTRY_IBAN_MAP.put("MT", 31);
-        COUNTRY_IBAN_MAP.put("MR", 27);
-        COUNTRY_IBAN_MAP.put("MU", 30);
-        COUNTRY_IBAN_MAP.put("MD", 24);
-        COUNTRY_IBAN_MAP.put("MC", 27);
-        COUNTRY_IBAN_MAP.put("ME", 22);
-        COUNTRY_IBAN_MAP.put("NL", 18);
-        COUNTRY_IBAN_MAP.put("NO", 15);
-        COUNTRY_IBAN_MAP.put("PK", 24);
-        COUNTRY_IBAN_MAP.put("PS", 29);
-        COUNTRY_IBAN_MAP.put("PL", 28);
-        COUNTRY_IBAN_MAP.put("PT", 25);
-        COUNTRY_IBAN_MAP.put("RO", 24);
-        COUNTRY_IBAN_MAP.put("SM", 27);
-        COUNTRY_IBAN_MAP.put("SA", 24);
-        COUNTRY_IBAN_MAP.put("RS", 22);
-        COUNTRY_IBAN_MAP.put("SK", 24);
-        COUNTRY_IBAN_MAP.put("SI", 19);
-        COUNTRY_IBAN_MAP.put("ES", 24);
-        COUNTRY_IBAN_MAP.put("SE", 24);
-        COUNTRY_IBAN_MAP.put("TN", 24);
-        COUNTRY_IBAN_MAP.put("TR", 26);
-        COUNTRY_IBAN_MAP.put("AE", 23);
-        COUNTRY_IBAN_MAP.put("VG", 24);
-        COUNTRY_IBAN_MAP.put("CH", 21);
+        registerCountry("AL", 28, null);
+        registerCountry("AD", 24, null);
+        registerCountry("AT", 20, "16n");
+        registerCountry("AZ", 28, null);
+        registerCountry("BH", 22, null);
+        registerCountry("BE", 16, "12n");
+        registerCountry("BA", 20, null);
+        registerCountry("BR", 29, null);
+        registerCountry("BG", 22, "4a6n8c");
+        registerCountry("CR", 21, null);
+        registerCountry("HR", 21, "17n");
+        registerCountry("CY", 28, "8n16c");
+        registerCountry("CZ", 24, "20n");
+        registerCountry("DK", 18, "14n");
+        registerCountry("DO", 28, null);
+        registerCountry("EE", 20, "16n");
+        registerCountry("FO", 18, null);
+        registerCountry("FI", 18, "14n");
+        registerCountry("FR", 27, "10n11c2n");
+        registerCountry("GE", 22, null);
+        registerCountry("DE", 22, "18n");
+        registerCountry("GI", 23, null);
+        registerCountry("GB", 22, "4a14n");
+        registerCountry("GR", 27, "7n16c");
+        registerCountry("GL", 18, null);
+        registerCountry("GT", 28, null);
+        registerCountry("HU", 28, "24n");
+        registerCountry("IS", 26, "22n");
+        registerCountry("IE", 22, "4a14n");
+        registerCountry("IL", 23, null);
+        registerCountry("IT", 27, "1a10n12c");
+        registerCountry("KZ", 20, null);
+        registerCountry("KW", 30, null);
+        registerCountry("LV", 21, "4a13c");
+        registerCountry("LB", 28, null);
+        registerCountry("LT", 20, "16n");
+        registerCountry("LU", 20, "3n13c");
+        registerCountry("MK", 19, null);
+        registerCountry("MT", 31, "4a5n18c");
+        registerCountry("MR", 27, null);
+        registerCountry("MU", 30, null);
+        registerCountry("MD", 24, null);
+        registerCountry("MC", 27, "10n11c2n");
+        registerCountry("ME", 22, null);
+        registerCountry("NL", 18, "4a10n");
+        registerCountry("NO", 15, "11n");
+        registerCountry("PK", 24, null);
+        registerCountry("PS", 29, null);
+        registerCountry("PL", 28, "24n");
+        registerCountry("PT", 25, "21n");
+        registerCountry("RO", 24, "4a16c");
+        registerCountry("SM", 27, "1a10n12c");
+        registerCountry("SA", 24, null);
+        registerCountry("RS", 22, null);
+        registerCountry("SK", 24, "20n");
+        registerCountry("SI", 19, "15n");
+        registerCountry("ES", 24, "20n");
+        registerCountry("SE", 24, "20n");
+        registerCountry("TN", 24, null);
+        registerCountry("TR", 26, null);
+        registerCountry("AE", 23, null);
+        registerCountry("VG", 24, null);
+        registerCountry("CH", 21, "5n12c");
     }
 
-    private final Pattern mPattern;
+    /**
+     * Registers the IBAN length and the optional BBAN structure of a country.
+     *
+     * @param countryCode an ISO 3166-1 alpha-2 country code
+     * @param ibanLength  the length of the IBAN including the country code and check digits
+     * @param bbanFormat  the BBAN structure as in the IBAN registry without the '!' (e.g. "4a14n")
+     *                    where 'n' stands for digits, 'a' for upper case letters and 'c' for both
+     */
+    private static void registerCountry(@NonNull final String countryCode, final int ibanLength,
+            @Nullable final String bbanFormat) {
+        final int index = countryIndex(countryCode.charAt(0), countryCode.charAt(1));
+        COUNTRY_IBAN_LENGTHS[index] = (byte) ibanLength;
+        if (bbanFormat != null) {
+            final byte[] format = expandBbanFormat(bbanFormat);
+            if (format.length != ibanLength - 4) {
+                throw new IllegalStateException(
+                        "BBAN format " + bbanFormat + " does not match the IBAN length of "
+                                + countryCode);
+            }
+            COUNTRY_BBAN_FORMATS[index] = format;
+        }
+    }
 
-    IBANValidator() {
-        mPattern = Pattern.compile("^[A-Z0-9]+$");
+    @NonNull
+    private static byte[] expandBbanFormat(@NonNull final String bbanFormat) {
+        final byte[] expanded = new byte[32];
+        int length = 0;
+        int count = 0;
+        for (int i = 0; i < bbanFormat.length(); i++) {
+            final char character = bbanFormat.charAt(i);
+            if (character >= '0' && character <= '9') {
+                count = count * 10 + character - '0';
+                continue;
+            }
+            final byte characterClass;
+            switch (character) {
+                case 'n':
+                    characterClass = BBAN_DIGIT;
+                    break;
+                case 'a':
+                    characterClass = BBAN_LETTER;
+                    break;
+                case 'c':
+                    characterClass = BBAN_ALPHANUMERIC;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown BBAN format: " + bbanFormat);
+            }
+            for (int j = 0; j < count; j++) {
+                expanded[length++] = characterClass;
+            }
+            count = 0;
+        }
+        final byte[] format = new byte[length];
+        System.arraycopy(expanded, 0, format, 0, length);
+        return format;
+    }
+
+    private static int countryIndex(final char first, final char second) {
+        return (first - 'A') * 26 + (second - 'A');
     }
 
     /**
@@ -98,88 +158,133 @@ class IBANValidator {
      * @throws IllegalIBANException if the IBAN was not valid
      */
     void validate(@Nullable final String iban) throws IllegalIBANException {
-        if (TextUtils.isEmpty(iban)) {
+        if (iban == null || iban.isEmpty()) {
             throw new IllegalIBANException(IBANError.EMPTY);
         }
 
-        final String sanitizedIban = sanitizeIBAN(iban);
-
-        final Matcher matcher = mPattern.matcher(sanitizedIban);
-        if (!matcher.matches()) {
-            throw new IllegalIBANException(IBANError.INVALID_CHARACTERS);
+        // Trim whitespace and control characters like String.trim()
+        int start = 0;
+        int end = iban.length();
+        while (start < end && iban.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && iban.charAt(end - 1) <= ' ') {
+            end--;
         }
 
-        validateCountryAndChecksum(sanitizedIban);
-        validateLength(sanitizedIban);
-        validateChecksum(sanitizedIban);
-    }
-
-    private String getBban(@NonNull final String iban) {
-        return iban.substring(4, iban.length());
-    }
+        final int length = validateCharacters(iban, start, end);
 
-    private String getCheckDigit(@NonNull final String iban) {
-        return iban.substring(2, 4);
-    }
+        // Read the country code and check digits
+        final char[] header = new char[4];
+        int position = start;
+        int headerLength = 0;
+        while (position < end && headerLength < 4) {
+            final char character = iban.charAt(position++);
+            if (character != ' ') {
+                header[headerLength++] = toUpperCase(character);
+            }
+        }
+        if (headerLength < 4
+                || !isLetter(header[0]) || !isLetter(header[1])
+                || !isDigit(header[2]) || !isDigit(header[3])) {
+            throw new IllegalIBANException(IBANError.INVALID_FORMAT);
+        }
 
-    private String getChecksum(@NonNull final String iban) {
-        final String countryCodeNumbers = lettersToNumbers(getCountryCode(iban));
-        final String checkDigit = getCheckDigit(iban);
-        final String bban = lettersToNumbers(getBban(iban));
-        return bban + countryCodeNumbers + checkDigit;
-    }
+        final int countryIndex = countryIndex(header[0], header[1]);
+        final int requiredLength = COUNTRY_IBAN_LENGTHS[countryIndex];
+        if (requiredLength == 0) {
+            throw new IllegalIBANException(IBANError.INVALID_COUNTRY);
+        }
+        if (length > requiredLength) {
+            throw new IllegalIBANException(IBANError.TOO_LONG);
+        }
+        if (length < requiredLength) {
+            throw new IllegalIBANException(IBANError.TOO_SHORT);
+        }
 
-    private String getCountryCode(@NonNull final String iban) {
-        return iban.substring(0, 2);
+        // Walk the BBAN checking its structure and computing the checksum of the
+        // rearranged IBAN (BBAN + country code + check digits)
+        final byte[] bbanFormat = COUNTRY_BBAN_FORMATS[countryIndex];
+        int remainder = 0;
+        int bbanIndex = 0;
+        while (position < end) {
+            final char character = toUpperCase(iban.charAt(position++));
+            if (character == ' ') {
+                continue;
+            }
+            if (bbanFormat != null && !matchesBbanFormat(character, bbanFormat[bbanIndex])) {
+                throw new IllegalIBANException(IBANError.INVALID_BBAN_FORMAT);
+            }
+            remainder = mod97(remainder, character);
+            bbanIndex++;
+        }
+        for (final char character : header) {
+            remainder = mod97(remainder, character);
+        }
+        if (remainder != 1) {
+            throw new IllegalIBANException(IBANError.INVALID_CHECKSUM);
+        }
     }
 
-    private String lettersToNumbers(@NonNull final String letters) {
-        final StringBuilder numbers = new StringBuilder();
-        final char[] chars = letters.toCharArray();
-        for (final char character : chars) {
-            final int number = character - 55;
-            if (number >= 10 && number <= 35) {
-                numbers.append(String.valueOf(number));
-            } else {
-                numbers.append(String.valueOf(character));
+    /**
+     * Checks that only digits, letters and spaces are present and returns the number of digits
+     * and letters.
+     */
+    private static int validateCharacters(@NonNull final String iban, final int start,
+            final int end) throws IllegalIBANException {
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            final char character = iban.charAt(i);
+            if (character == ' ') {
+                continue;
+            }
+            final char upperCase = toUpperCase(character);
+            if (!isLetter(upperCase) && !isDigit(upperCase)) {
+                throw new IllegalIBANException(IBANError.INVALID_CHARACTERS);
             }
+            length++;
         }
-        return numbers.toString();
+        if (length == 0) {
+            throw new IllegalIBANException(IBANError.INVALID_CHARACTERS);
+        }
+        return length;
     }
 
-    private String sanitizeIBAN(@NonNull final String iban) {
-        String sanitizedIban = iban.trim();
-        sanitizedIban = sanitizedIban.replace(" ", "");
-        sanitizedIban = sanitizedIban.toUpperCase(Locale.ENGLISH);
-        return sanitizedIban;
+    private static boolean matchesBbanFormat(final char character, final byte characterClass) {
+        switch (characterClass) {
+            case BBAN_DIGIT:
+                return isDigit(character);
+            case BBAN_LETTER:
+                return isLetter(character);
+            default:
+                return true;
+        }
     }
 
-    private void validateChecksum(@NonNull final String iban) throws IllegalIBANException {
-        final BigInteger bigInt = new BigInteger(getChecksum(iban));
-        final BigInteger[] divisionResult = bigInt.divideAndRemainder(new BigInteger("97"));
-        if (divisionResult[1].compareTo(BigInteger.ONE) != 0) {
-            throw new IllegalIBANException(IBANError.INVALID_CHECKSUM);
+    /**
+     * Appends a character to the number represented by the remainder and returns the new
+     * remainder. Letters are converted to two digit numbers (A = 10, B = 11, ..., Z = 35).
+     */
+    private static int mod97(final int remainder, final char character) {
+        if (isDigit(character)) {
+            return (remainder * 10 + character - '0') % 97;
         }
+        return (remainder * 100 + character - 'A' + 10) % 97;
     }
 
-    private void validateCountryAndChecksum(@NonNull final String iban)
-            throws IllegalIBANException {
-        if (!iban.matches("^[A-Z]{2}[0-9]{2}.*")) {
-            throw new IllegalIBANException(IBANError.INVALID_FORMAT);
+    private static char toUpperCase(final char character) {
+        if (character >= 'a' && character <= 'z') {
+            return (char) (character - ('a' - 'A'));
         }
+        return character;
     }
 
-    private void validateLength(@NonNull final String iban) throws IllegalIBANException {
-        final Integer requiredLength = COUNTRY_IBAN_MAP.get(getCountryCode(iban));
-        if (requiredLength == null) {
-            throw new IllegalIBANException(IBANError.INVALID_COUNTRY);
-        }
-        if (iban.length() > requiredLength) {
-            throw new IllegalIBANException(IBANError.TOO_LONG);
-        }
-        if (iban.length() < requiredLength) {
-            throw new IllegalIBANException(IBANError.TOO_SHORT);
-        }
+    private static boolean isLetter(final char character) {
+        return character >= 'A' && character <= 'Z';
+    }
+
+    private static boolean isDigit(final char character) {
+        return character >= '0' && character <= '9';
     }
 
     enum IBANError {
@@ -190,6 +295,7 @@ class IBANValidator {
         INVALID_COUNTRY,
         TOO_LONG,
         TOO_SHORT,
+        INVALID_BBAN_FORMAT,
         INVALID_CHECKSUM
     }
 
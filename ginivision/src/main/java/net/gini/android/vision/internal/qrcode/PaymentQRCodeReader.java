@@ -87,7 +87,21 @@ public class PaymentQRCodeReader {
      */
     public void readFromImage(@NonNull final byte[] image, @NonNull final Size imageSize,
             final int rotation) {
-        mDetector.detect(image, imageSize, rotation);
+        readFromImage(image, imageSize, rotation, null);
+    }
+
+    /**
+     * Reads the first supported QRCode payment data from the image and notifies the release
+     * listener when the image byte array is not used anymore and can be reused.
+     *
+     * @param image an image byte array
+     * @param imageSize size of the image
+     * @param rotation rotation to be applied to the image for correct orientation
+     * @param releaseListener (optional) called on a background thread when the image is released
+     */
+    public void readFromImage(@NonNull final byte[] image, @NonNull final Size imageSize,
+            final int rotation, @Nullable final ImageReleaseListener releaseListener) {
+        mDetector.detect(image, imageSize, rotation, releaseListener);
     }
 
     /**
@@ -122,4 +136,19 @@ public class PaymentQRCodeReader {
          */
         void onNonPaymentQRCodeDetected(@NonNull final String qrCodeContent);
     }
+
+    /**
+     * Internal use only.
+     *
+     * @suppress
+     */
+    public interface ImageReleaseListener {
+
+        /**
+         * Called when the image byte array is not used anymore.
+         *
+         * @param image the released image byte array
+         */
+        void onImageReleased(@NonNull final byte[] image);
+    }
 }
@@ -18,7 +18,12 @@ import androidx.annotation.Nullable;
  */
 interface QRCodeDetector {
 
-    void detect(@NonNull byte[] image, @NonNull Size imageSize, int rotation);
+    /**
+     * Detects QRCodes in the image. The optional release listener is called once the image is not
+     * needed anymore, either because detection finished or because a newer image replaced it.
+     */
+    void detect(@NonNull byte[] image, @NonNull Size imageSize, int rotation,
+            @Nullable PaymentQRCodeReader.ImageReleaseListener releaseListener);
 
     void release();
 
@@ -8,6 +8,7 @@ import net.gini.android.vision.internal.camera.api.UIExecutor;
 import net.gini.android.vision.internal.util.Size;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import androidx.annotation.Nullable;
 
@@ -25,25 +26,37 @@ class QRCodeDetectorHandler extends Handler {
 
     static final int DETECT_QRCODE = 1;
     private final QRCodeDetectorTask mQRCodeDetectorTask;
+    private final AtomicReference<ImageData> mPendingImageData;
     private final UIExecutor mUIExecutor;
     private QRCodeDetector.Listener mListener;
 
     QRCodeDetectorHandler(final Looper looper,
-            final QRCodeDetectorTask qrCodeDetectorTask) {
+            final QRCodeDetectorTask qrCodeDetectorTask,
+            final AtomicReference<ImageData> pendingImageData) {
         super(looper);
         mQRCodeDetectorTask = qrCodeDetectorTask;
+        mPendingImageData = pendingImageData;
         mUIExecutor = new UIExecutor();
     }
 
     @Override
     public void handleMessage(final Message msg) {
         if (msg.what == DETECT_QRCODE) {
+            final ImageData imageData = mPendingImageData.getAndSet(null);
+            if (imageData == null) {
+                return;
+            }
             if (mListener == null) {
+                imageData.release();
                 return;
             }
-            final ImageData imageData = (ImageData) msg.obj;
-            final List<String> qrCodes = mQRCodeDetectorTask.detect(imageData.image,
-                    imageData.imageSize, imageData.rotation);
+            final List<String> qrCodes;
+            try {
+                qrCodes = mQRCodeDetectorTask.detect(imageData.image,
+                        imageData.imageSize, imageData.rotation);
+            } finally {
+                imageData.release();
+            }
             if (!qrCodes.isEmpty()) {
                 mUIExecutor.runOnUiThread(new Runnable() {
                     @Override
@@ -70,12 +83,21 @@ class QRCodeDetectorHandler extends Handler {
         final byte[] image;
         final Size imageSize;
         final int rotation;
+        private final PaymentQRCodeReader.ImageReleaseListener mReleaseListener;
 
         ImageData(final byte[] image,
-                final Size imageSize, final int rotation) {
+                final Size imageSize, final int rotation,
+                @Nullable final PaymentQRCodeReader.ImageReleaseListener releaseListener) {
             this.image = image;
             this.imageSize = imageSize;
             this.rotation = rotation;
+            mReleaseListener = releaseListener;
+        }
+
+        void release() {
+            if (mReleaseListener != null) {
+                mReleaseListener.onImageReleased(image);
+            }
         }
     }
 }
@@ -9,6 +9,7 @@ import android.os.Process;
 import net.gini.android.vision.internal.util.Size;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -26,31 +27,47 @@ class QRCodeDetectorImpl implements QRCodeDetector {
 
     private final QRCodeDetectorHandler mHandler;
     private final HandlerThread mHandlerThread;
+    // Only the latest image is kept, older ones are released without detection
+    private final AtomicReference<QRCodeDetectorHandler.ImageData> mPendingImageData =
+            new AtomicReference<>();
     private Listener mListener;
 
     QRCodeDetectorImpl(@NonNull final QRCodeDetectorTask qrCodeDetectorTask) {
         mHandlerThread = new HandlerThread("QRCodeDetectorThread",
                 Process.THREAD_PRIORITY_BACKGROUND);
         mHandlerThread.start();
-        mHandler = new QRCodeDetectorHandler(mHandlerThread.getLooper(), qrCodeDetectorTask);
+        mHandler = new QRCodeDetectorHandler(mHandlerThread.getLooper(), qrCodeDetectorTask,
+                mPendingImageData);
     }
 
     @Override
     public void detect(@NonNull final byte[] image, @NonNull final Size imageSize,
-            final int rotation) {
+            final int rotation,
+            @Nullable final PaymentQRCodeReader.ImageReleaseListener releaseListener) {
+        final QRCodeDetectorHandler.ImageData imageData =
+                new QRCodeDetectorHandler.ImageData(image, imageSize, rotation, releaseListener);
         // If there is no listener, we don't process the image to avoid unnecessary computation
         if (mListener == null) {
+            imageData.release();
             return;
         }
+        final QRCodeDetectorHandler.ImageData skippedImageData =
+                mPendingImageData.getAndSet(imageData);
+        if (skippedImageData != null) {
+            skippedImageData.release();
+        }
         mHandler.removeMessages(DETECT_QRCODE);
-        final Message message = mHandler.obtainMessage(DETECT_QRCODE,
-                new QRCodeDetectorHandler.ImageData(image, imageSize, rotation));
+        final Message message = mHandler.obtainMessage(DETECT_QRCODE);
         mHandler.sendMessageAtFrontOfQueue(message);
     }
 
     @Override
     public void release() {
         mHandler.removeMessages(DETECT_QRCODE);
+        final QRCodeDetectorHandler.ImageData pendingImageData = mPendingImageData.getAndSet(null);
+        if (pendingImageData != null) {
+            pendingImageData.release();
+        }
         mHandler.release();
         mHandlerThread.quit();
     }
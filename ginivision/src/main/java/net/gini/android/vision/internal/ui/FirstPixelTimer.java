@@ -0,0 +1,112 @@
+package net.gini.android.vision.internal.ui;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> Measures the time from the start of a screen until its document was first drawn, once for
+ * the low resolution placeholder and once for the full preview. A bitmap counts as drawn when the
+ * frame following the one which drew it starts.
+ *
+ * <p> Must be used on the main thread.
+ *
+ * @suppress
+ */
+public class FirstPixelTimer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FirstPixelTimer.class);
+
+    private static final long NOT_MEASURED = -1;
+
+    private final String mScreenName;
+    private long mStartMs = NOT_MEASURED;
+    private long mPlaceholderMs = NOT_MEASURED;
+    private long mPreviewMs = NOT_MEASURED;
+
+    public FirstPixelTimer(@NonNull final String screenName) {
+        mScreenName = screenName;
+    }
+
+    /**
+     * Starts a new measurement. Has no effect, if the preview was already shown.
+     */
+    public void start() {
+        if (mPreviewMs != NOT_MEASURED) {
+            return;
+        }
+        mStartMs = SystemClock.elapsedRealtime();
+        mPlaceholderMs = NOT_MEASURED;
+    }
+
+    public void onPlaceholderShown() {
+        if (mStartMs == NOT_MEASURED || mPlaceholderMs != NOT_MEASURED
+                || mPreviewMs != NOT_MEASURED) {
+            return;
+        }
+        final long startMs = mStartMs;
+        afterNextFrame(new Runnable() {
+            @Override
+            public void run() {
+                if (mStartMs != startMs) {
+                    return;
+                }
+                mPlaceholderMs = SystemClock.elapsedRealtime() - mStartMs;
+                LOG.info("{}: placeholder drawn after {} ms", mScreenName, mPlaceholderMs);
+            }
+        });
+    }
+
+    public void onPreviewShown() {
+        if (mStartMs == NOT_MEASURED || mPreviewMs != NOT_MEASURED) {
+            return;
+        }
+        final long startMs = mStartMs;
+        afterNextFrame(new Runnable() {
+            @Override
+            public void run() {
+                if (mStartMs != startMs || mPreviewMs != NOT_MEASURED) {
+                    return;
+                }
+                mPreviewMs = SystemClock.elapsedRealtime() - mStartMs;
+                LOG.info("{}: preview drawn after {} ms", mScreenName, mPreviewMs);
+            }
+        });
+    }
+
+    /**
+     * @return the time until the placeholder was drawn or -1, if it wasn't drawn
+     */
+    public long getPlaceholderTimeMs() {
+        return mPlaceholderMs;
+    }
+
+    /**
+     * @return the time until the preview was drawn or -1, if it wasn't drawn
+     */
+    public long getPreviewTimeMs() {
+        return mPreviewMs;
+    }
+
+    private static void afterNextFrame(@NonNull final Runnable runnable) {
+        Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(final long frameTimeNanos) {
+                // The bitmap is drawn in this frame, the next one starts after it was drawn
+                Choreographer.getInstance().postFrameCallback(
+                        new Choreographer.FrameCallback() {
+                            @Override
+                            public void doFrame(final long frameTimeNanos) {
+                                runnable.run();
+                            }
+                        });
+            }
+        });
+    }
+}
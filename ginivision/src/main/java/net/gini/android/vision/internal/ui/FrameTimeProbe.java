@@ -0,0 +1,133 @@
+package net.gini.android.vision.internal.ui;
+
+import android.view.Choreographer;
+
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Internal use only.
+ *
+ * <p> Measures the time between frames with the {@link Choreographer} while it is running. Frames
+ * which took longer than one and a half frame intervals are counted as dropped.
+ *
+ * <p> Must be used on the main thread.
+ *
+ * @suppress
+ */
+public class FrameTimeProbe {
+
+    private static final long DEFAULT_FRAME_INTERVAL_NS = 16_666_667L;
+    private static final long NS_PER_MS = 1_000_000L;
+
+    private final long mFrameIntervalNs;
+    private final Choreographer.FrameCallback mFrameCallback =
+            new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(final long frameTimeNanos) {
+                    if (!mRunning) {
+                        return;
+                    }
+                    recordFrame(frameTimeNanos);
+                    Choreographer.getInstance().postFrameCallback(this);
+                }
+            };
+    private boolean mRunning;
+    private long mLastFrameTimeNs;
+    private int mFrameCount;
+    private int mDroppedFrameCount;
+    private long mTotalFrameTimeNs;
+    private long mMaxFrameTimeNs;
+
+    public FrameTimeProbe() {
+        this(DEFAULT_FRAME_INTERVAL_NS);
+    }
+
+    /**
+     * @param frameIntervalNs the expected time between frames in nanoseconds
+     */
+    public FrameTimeProbe(final long frameIntervalNs) {
+        mFrameIntervalNs = frameIntervalNs;
+    }
+
+    /**
+     * Starts measuring with the next frame. Has no effect, if already running.
+     */
+    public void start() {
+        if (mRunning) {
+            return;
+        }
+        mRunning = true;
+        mLastFrameTimeNs = 0;
+        Choreographer.getInstance().postFrameCallback(mFrameCallback);
+    }
+
+    /**
+     * Stops measuring. The measured values are kept until {@link #reset()} is called.
+     */
+    public void stop() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    public void reset() {
+        mLastFrameTimeNs = 0;
+        mFrameCount = 0;
+        mDroppedFrameCount = 0;
+        mTotalFrameTimeNs = 0;
+        mMaxFrameTimeNs = 0;
+    }
+
+    @VisibleForTesting
+    void recordFrame(final long frameTimeNanos) {
+        if (mLastFrameTimeNs != 0) {
+            final long frameTimeNs = frameTimeNanos - mLastFrameTimeNs;
+            mFrameCount++;
+            mTotalFrameTimeNs += frameTimeNs;
+            mMaxFrameTimeNs = Math.max(mMaxFrameTimeNs, frameTimeNs);
+            if (frameTimeNs * 2 > mFrameIntervalNs * 3) {
+                mDroppedFrameCount++;
+            }
+        }
+        mLastFrameTimeNs = frameTimeNanos;
+    }
+
+    /**
+     * @return the number of measured frames
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return the number of frames which took longer than one and a half frame intervals
+     */
+    public int getDroppedFrameCount() {
+        return mDroppedFrameCount;
+    }
+
+    public float getMeanFrameTimeMs() {
+        return mFrameCount == 0 ? 0 : (float) mTotalFrameTimeNs / mFrameCount / NS_PER_MS;
+    }
+
+    public float getMaxFrameTimeMs() {
+        return (float) mMaxFrameTimeNs / NS_PER_MS;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "FrameTimeProbe{frames=%d, dropped=%d, mean=%.1fms, max=%.1fms}", mFrameCount,
+                mDroppedFrameCount, getMeanFrameTimeMs(), getMaxFrameTimeMs());
+    }
+}
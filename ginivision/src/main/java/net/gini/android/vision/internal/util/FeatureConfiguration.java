@@ -58,6 +58,18 @@ public final class FeatureConfiguration {
         return GiniVision.hasInstance() && GiniVision.getInstance().isMultiPageEnabled();
     }
 
+    public static boolean isContinuousCaptureEnabled() {
+        return isMultiPageEnabled() && GiniVision.getInstance().isContinuousCaptureEnabled();
+    }
+
+    public static boolean isEagerUploadEnabled() {
+        return isMultiPageEnabled() && GiniVision.getInstance().isEagerUploadEnabled();
+    }
+
+    public static boolean isSpeculativeAnalysisEnabled() {
+        return isMultiPageEnabled() && GiniVision.getInstance().isSpeculativeAnalysisEnabled();
+    }
+
     private FeatureConfiguration() {
     }
 }
@@ -3,9 +3,11 @@ package net.gini.android.vision.internal.util;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.net.Uri;
-import android.os.AsyncTask;
 
 import net.gini.android.vision.AsyncCallback;
+import net.gini.android.vision.internal.async.BackgroundTask;
+import net.gini.android.vision.internal.async.TaskPool;
+import net.gini.android.vision.internal.async.TaskPriority;
 import net.gini.android.vision.util.UriHelper;
 
 import java.io.IOException;
@@ -17,7 +19,7 @@ import androidx.annotation.NonNull;
  *
  * @suppress
  */
-public class UriReaderAsyncTask extends AsyncTask<Uri, Void, byte[]> {
+public class UriReaderAsyncTask extends BackgroundTask<Uri, byte[]> {
 
     @SuppressLint("StaticFieldLeak")
     private final Context mContext;
@@ -26,6 +28,7 @@ public class UriReaderAsyncTask extends AsyncTask<Uri, Void, byte[]> {
 
     public UriReaderAsyncTask(@NonNull final Context context,
             @NonNull final AsyncCallback<byte[], Exception> listener) {
+        super(TaskPool.IO, TaskPriority.NORMAL);
         mContext = context;
         mListener = listener;
     }
@@ -48,4 +51,9 @@ public class UriReaderAsyncTask extends AsyncTask<Uri, Void, byte[]> {
         }
         mListener.onSuccess(bytes);
     }
+
+    @Override
+    protected void onCancelled() {
+        mListener.onCancelled();
+    }
 }
@@ -0,0 +1,88 @@
+package net.gini.android.vision.network;
+
+import net.gini.android.vision.GiniVision;
+
+import java.util.Locale;
+
+/**
+ * Collects the sizes of the page images prepared for upload when upload payload optimization is
+ * enabled with {@link GiniVision.Builder#setUploadPayloadOptimizationEnabled(boolean)}.
+ *
+ * <p> You can read the statistics of the current session using {@link
+ * GiniVision#getUploadPayloadStatistics()}. They are reset when {@link
+ * GiniVision#cleanup(android.content.Context)} is called.
+ */
+public final class UploadPayloadStatistics {
+
+    private long mPageCount;
+    private long mInputBytes;
+    private long mOutputBytes;
+    private long mQualitySum;
+    private double mScaleSum;
+
+    /**
+     * Internal use only.
+     *
+     * @suppress
+     */
+    public synchronized void record(final long inputBytes, final long outputBytes,
+            final int jpegQuality, final double scale) {
+        mPageCount++;
+        mInputBytes += inputBytes;
+        mOutputBytes += outputBytes;
+        mQualitySum += jpegQuality;
+        mScaleSum += scale;
+    }
+
+    /**
+     * @return the number of optimized pages
+     */
+    public synchronized long getPageCount() {
+        return mPageCount;
+    }
+
+    /**
+     * @return the size of the captured or imported images in bytes
+     */
+    public synchronized long getInputBytes() {
+        return mInputBytes;
+    }
+
+    /**
+     * @return the size of the optimized images in bytes
+     */
+    public synchronized long getOutputBytes() {
+        return mOutputBytes;
+    }
+
+    /**
+     * @return the number of bytes which don't need to be uploaded
+     */
+    public synchronized long getBytesSaved() {
+        return mInputBytes - mOutputBytes;
+    }
+
+    /**
+     * @return the average JPEG quality of the optimized images or 0, if nothing was recorded
+     */
+    public synchronized int getMeanJpegQuality() {
+        return mPageCount == 0 ? 0 : (int) (mQualitySum / mPageCount);
+    }
+
+    /**
+     * @return the average factor the optimized images were downscaled by or 1, if nothing was
+     * recorded
+     */
+    public synchronized double getMeanScale() {
+        return mPageCount == 0 ? 1 : mScaleSum / mPageCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "UploadPayloadStatistics{pages=%d, input=%d bytes, output=%d bytes, "
+                        + "saved=%d bytes, mean quality=%d, mean scale=%.2f}",
+                mPageCount, mInputBytes, mOutputBytes, getBytesSaved(), getMeanJpegQuality(),
+                getMeanScale());
+    }
+}
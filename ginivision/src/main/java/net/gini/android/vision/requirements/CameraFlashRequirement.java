@@ -2,7 +2,7 @@ package net.gini.android.vision.requirements;
 
 import android.hardware.Camera;
 
-import java.util.List;
+import net.gini.android.vision.internal.camera.api.CameraCapabilities;
 
 import androidx.annotation.NonNull;
 
@@ -27,11 +27,9 @@ class CameraFlashRequirement implements Requirement {
         String details = "";
 
         try {
-            final Camera.Parameters parameters = mCameraHolder.getCameraParameters();
-            if (parameters != null) {
-                final List<String> supportedFlashModes = parameters.getSupportedFlashModes();
-                if (supportedFlashModes == null || !supportedFlashModes.contains(
-                        Camera.Parameters.FLASH_MODE_ON)) {
+            final CameraCapabilities capabilities = mCameraHolder.getCameraCapabilities();
+            if (capabilities != null) {
+                if (!capabilities.isFlashModeSupported(Camera.Parameters.FLASH_MODE_ON)) {
                     result = false;
                     details = "Camera does not support flash";
                 }
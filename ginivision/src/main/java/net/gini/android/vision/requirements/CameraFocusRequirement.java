@@ -2,7 +2,7 @@ package net.gini.android.vision.requirements;
 
 import android.hardware.Camera;
 
-import java.util.List;
+import net.gini.android.vision.internal.camera.api.CameraCapabilities;
 
 import androidx.annotation.NonNull;
 
@@ -27,11 +27,9 @@ class CameraFocusRequirement implements Requirement {
         String details = "";
 
         try {
-            final Camera.Parameters parameters = mCameraHolder.getCameraParameters();
-            if (parameters != null) {
-                final List<String> supportedFocusModes = parameters.getSupportedFocusModes();
-                if (supportedFocusModes == null || !supportedFocusModes.contains(
-                        Camera.Parameters.FOCUS_MODE_AUTO)) {
+            final CameraCapabilities capabilities = mCameraHolder.getCameraCapabilities();
+            if (capabilities != null) {
+                if (!capabilities.isFocusModeSupported(Camera.Parameters.FOCUS_MODE_AUTO)) {
                     fulfilled = false;
                     details = "Camera does not support auto-focus";
                 }
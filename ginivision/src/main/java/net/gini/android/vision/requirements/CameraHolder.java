@@ -2,11 +2,25 @@ package net.gini.android.vision.requirements;
 
 import android.hardware.Camera;
 
+import net.gini.android.vision.internal.camera.api.CameraCapabilities;
+import net.gini.android.vision.internal.camera.api.CameraCapabilitiesStore;
+
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+/**
+ * Provides the back-facing camera's capabilities to the requirements. The camera is only opened,
+ * if the capabilities weren't stored yet on this device and OS build.
+ */
 class CameraHolder {
 
+    private final CameraCapabilitiesStore mCapabilitiesStore;
     private Camera mCamera;
+    private CameraCapabilities mCapabilities;
+
+    CameraHolder(@NonNull final CameraCapabilitiesStore capabilitiesStore) {
+        mCapabilitiesStore = capabilitiesStore;
+    }
 
     public void closeCamera() {
         if (mCamera != null) {
@@ -16,17 +30,23 @@ class CameraHolder {
     }
 
     public boolean hasCamera() throws RuntimeException {
-        openCamera();
-        return mCamera != null;
+        return getCameraCapabilities() != null;
     }
 
     @Nullable
-    public Camera.Parameters getCameraParameters() throws RuntimeException {
-        openCamera();
-        if (mCamera != null) {
-            return mCamera.getParameters();
+    public CameraCapabilities getCameraCapabilities() throws RuntimeException {
+        if (mCapabilities == null) {
+            mCapabilities = mCapabilitiesStore.load();
         }
-        return null;
+        if (mCapabilities == null) {
+            openCamera();
+            if (mCamera != null) {
+                mCapabilities = CameraCapabilities.create(mCamera.getParameters(),
+                        getBackFacingCameraOrientation());
+                mCapabilitiesStore.save(mCapabilities);
+            }
+        }
+        return mCapabilities;
     }
 
     private void openCamera() throws RuntimeException {
@@ -34,4 +54,15 @@ class CameraHolder {
             mCamera = Camera.open();
         }
     }
+
+    private static int getBackFacingCameraOrientation() {
+        final Camera.CameraInfo cameraInfo = new Camera.CameraInfo();
+        for (int i = 0; i < Camera.getNumberOfCameras(); i++) {
+            Camera.getCameraInfo(i, cameraInfo);
+            if (cameraInfo.facing == Camera.CameraInfo.CAMERA_FACING_BACK) {
+                return cameraInfo.orientation;
+            }
+        }
+        return 0;
+    }
 }
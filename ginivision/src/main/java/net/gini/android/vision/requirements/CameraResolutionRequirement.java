@@ -1,10 +1,9 @@
 package net.gini.android.vision.requirements;
 
-import android.hardware.Camera;
-
 import androidx.annotation.NonNull;
 import androidx.core.util.Pair;
 
+import net.gini.android.vision.internal.camera.api.CameraCapabilities;
 import net.gini.android.vision.internal.camera.api.SizeSelectionHelper;
 import net.gini.android.vision.internal.util.Size;
 
@@ -41,10 +40,10 @@ public class CameraResolutionRequirement implements Requirement {
         String details = "";
 
         try {
-            final Camera.Parameters parameters = mCameraHolder.getCameraParameters();
-            if (parameters != null) {
-                final Pair<Size, Size> sizes = SizeSelectionHelper.getBestSize(parameters.getSupportedPictureSizes(),
-                        parameters.getSupportedPreviewSizes(),
+            final CameraCapabilities capabilities = mCameraHolder.getCameraCapabilities();
+            if (capabilities != null) {
+                final Pair<Size, Size> sizes = SizeSelectionHelper.getBestSize(capabilities.getPictureSizes(),
+                        capabilities.getPreviewSizes(),
                         MAX_PICTURE_AREA,
                         MIN_PICTURE_AREA,
                         MIN_ASPECT_RATIO
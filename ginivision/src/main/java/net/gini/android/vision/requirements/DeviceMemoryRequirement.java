@@ -1,7 +1,6 @@
 package net.gini.android.vision.requirements;
 
-import android.hardware.Camera;
-
+import net.gini.android.vision.internal.camera.api.CameraCapabilities;
 import net.gini.android.vision.internal.camera.api.SizeSelectionHelper;
 import net.gini.android.vision.internal.util.Size;
 
@@ -30,10 +29,10 @@ class DeviceMemoryRequirement implements Requirement {
         String details = "";
 
         try {
-            final Camera.Parameters parameters = mCameraHolder.getCameraParameters();
-            if (parameters != null) {
-                final Pair<Size, Size> sizes = SizeSelectionHelper.getBestSize(parameters.getSupportedPictureSizes(),
-                        parameters.getSupportedPreviewSizes(),
+            final CameraCapabilities capabilities = mCameraHolder.getCameraCapabilities();
+            if (capabilities != null) {
+                final Pair<Size, Size> sizes = SizeSelectionHelper.getBestSize(capabilities.getPictureSizes(),
+                        capabilities.getPreviewSizes(),
                         CameraResolutionRequirement.MAX_PICTURE_AREA,
                         CameraResolutionRequirement.MIN_PICTURE_AREA,
                         CameraResolutionRequirement.MIN_ASPECT_RATIO);
@@ -4,6 +4,8 @@ import static net.gini.android.vision.internal.util.ContextHelper.isTablet;
 
 import android.content.Context;
 
+import net.gini.android.vision.internal.camera.api.CameraCapabilitiesStore;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,7 +41,7 @@ public final class GiniVisionRequirements {
      */
     public static RequirementsReport checkRequirements(final Context context) {
         LOG.info("Checking requirements");
-        final CameraHolder cameraHolder = new CameraHolder();
+        final CameraHolder cameraHolder = new CameraHolder(new CameraCapabilitiesStore(context));
 
         final List<Requirement> requirements;
         if (isTablet(context)) {
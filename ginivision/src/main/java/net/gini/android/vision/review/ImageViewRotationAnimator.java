@@ -0,0 +1,93 @@
+package net.gini.android.vision.review;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ObjectAnimator;
+import android.animation.PropertyValuesHolder;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Internal use only.
+ *
+ * <p> Creates rotation animations which only change the transformation of an {@link ImageView}.
+ * The view is drawn into a hardware layer once and the frames are produced by rotating and scaling
+ * that layer. The size of the view is not animated which would require a layout pass in every
+ * frame.
+ *
+ * <p> The caller has to apply the target size to the view when the animation ends. The scale is
+ * reset at the same time so the image doesn't jump.
+ *
+ * @suppress
+ */
+final class ImageViewRotationAnimator {
+
+    /**
+     * @param imageView    the view to rotate
+     * @param degrees      the rotation at the end of the animation
+     * @param targetWidth  the width of the view after the animation
+     * @param targetHeight the height of the view after the animation
+     */
+    @NonNull
+    static Animator create(@NonNull final ImageView imageView, final float degrees,
+            final int targetWidth, final int targetHeight) {
+        final float scale = calculateScale(imageView, targetWidth, targetHeight);
+        final ObjectAnimator animator = ObjectAnimator.ofPropertyValuesHolder(imageView,
+                PropertyValuesHolder.ofFloat(View.ROTATION, degrees),
+                PropertyValuesHolder.ofFloat(View.SCALE_X, scale),
+                PropertyValuesHolder.ofFloat(View.SCALE_Y, scale));
+        animator.addListener(new AnimatorListenerAdapter() {
+
+            private int mLayerType = View.LAYER_TYPE_NONE;
+
+            @Override
+            public void onAnimationStart(final Animator animation) {
+                mLayerType = imageView.getLayerType();
+                imageView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            }
+
+            @Override
+            public void onAnimationEnd(final Animator animation) {
+                imageView.setLayerType(mLayerType, null);
+                imageView.setScaleX(1f);
+                imageView.setScaleY(1f);
+            }
+        });
+        return animator;
+    }
+
+    private static float calculateScale(@NonNull final ImageView imageView,
+            final int targetWidth, final int targetHeight) {
+        final Drawable drawable = imageView.getDrawable();
+        if (drawable == null || drawable.getIntrinsicWidth() <= 0
+                || drawable.getIntrinsicHeight() <= 0) {
+            return calculateFitScale(imageView.getWidth(), imageView.getHeight(),
+                    imageView.getWidth(), imageView.getHeight(), targetWidth, targetHeight);
+        }
+        return calculateFitScale(drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight(),
+                imageView.getWidth(), imageView.getHeight(), targetWidth, targetHeight);
+    }
+
+    /**
+     * Calculates the scale which shows the image centered inside the current view size as large
+     * as it will be shown centered inside the target view size.
+     */
+    @VisibleForTesting
+    static float calculateFitScale(final int imageWidth, final int imageHeight,
+            final int width, final int height, final int targetWidth, final int targetHeight) {
+        if (imageWidth <= 0 || imageHeight <= 0 || width <= 0 || height <= 0) {
+            return 1f;
+        }
+        final float fitScale = Math.min((float) width / imageWidth, (float) height / imageHeight);
+        final float targetFitScale = Math.min((float) targetWidth / imageWidth,
+                (float) targetHeight / imageHeight);
+        return targetFitScale / fitScale;
+    }
+
+    private ImageViewRotationAnimator() {
+    }
+}
@@ -5,10 +5,11 @@ import static net.gini.android.vision.internal.util.ActivityHelper.forcePortrait
 import static net.gini.android.vision.internal.util.FileImportHelper.showAlertIfOpenWithDocumentAndAppIsDefault;
 import static net.gini.android.vision.tracking.EventTrackingHelper.trackReviewScreenEvent;
 
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.app.Activity;
 import android.content.DialogInterface;
+import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -29,13 +30,17 @@ import net.gini.android.vision.R;
 import net.gini.android.vision.document.DocumentFactory;
 import net.gini.android.vision.document.GiniVisionDocument;
 import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.internal.async.TaskPriority;
 import net.gini.android.vision.internal.cache.PhotoMemoryCache;
 import net.gini.android.vision.internal.camera.photo.ParcelableMemoryCache;
 import net.gini.android.vision.internal.camera.photo.Photo;
 import net.gini.android.vision.internal.camera.photo.PhotoEdit;
 import net.gini.android.vision.internal.camera.photo.PhotoFactoryDocumentAsyncTask;
+import net.gini.android.vision.internal.document.DocumentRenderer;
+import net.gini.android.vision.internal.document.DocumentRendererFactory;
 import net.gini.android.vision.internal.network.NetworkRequestResult;
 import net.gini.android.vision.internal.network.NetworkRequestsManager;
+import net.gini.android.vision.internal.ui.FirstPixelTimer;
 import net.gini.android.vision.internal.ui.FragmentImplCallback;
 import net.gini.android.vision.internal.util.FileImportHelper;
 import net.gini.android.vision.network.model.GiniVisionSpecificExtraction;
@@ -111,6 +116,7 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
     private ProgressBar mActivityIndicator;
 
     private final FragmentImplCallback mFragment;
+    private final FirstPixelTimer mFirstPixelTimer = new FirstPixelTimer("Review Screen");
     @VisibleForTesting
     Photo mPhoto;
     private ImageDocument mDocument;
@@ -118,6 +124,8 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
     private boolean mDocumentWasUploaded;
     private boolean mDocumentWasModified;
     private int mCurrentRotation;
+    // The rotation last written to the photo's exif or -1
+    private int mWrittenRotation = -1;
     private boolean mNextClicked;
     private boolean mStopped;
     private String mDocumentAnalysisErrorMessage;
@@ -161,7 +169,11 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
     }
 
     public void onCreate(@Nullable final Bundle savedInstanceState) {
-        forcePortraitOrientationOnPhones(mFragment.getActivity());
+        final Activity activity = mFragment.getActivity();
+        forcePortraitOrientationOnPhones(activity);
+        if (activity != null && GiniVision.hasInstance()) {
+            GiniVision.getInstance().internal().resumeBackgroundDeletions(activity);
+        }
         if (savedInstanceState != null) {
             restoreSavedState(savedInstanceState);
         }
@@ -212,6 +224,7 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
             if (activity == null) {
                 return;
             }
+            mFirstPixelTimer.start();
             showActivityIndicatorAndDisableButtons();
             LOG.debug("Loading document data");
             mDocument.loadData(activity, new AsyncCallback<byte[], Exception>() {
@@ -221,6 +234,7 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
                     if (mNextClicked || mStopped) {
                         return;
                     }
+                    showPlaceholder();
                     createPhoto();
                 }
 
@@ -293,6 +307,31 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
         mDocumentAnalysisErrorMessage = activity.getString(R.string.gv_document_analysis_error);
     }
 
+    private void showPlaceholder() {
+        final Activity activity = mFragment.getActivity();
+        if (activity == null) {
+            return;
+        }
+        LOG.debug("Decoding placeholder");
+        DocumentRendererFactory.fromDocument(mDocument).toPlaceholderBitmap(activity,
+                new DocumentRenderer.Callback() {
+                    @Override
+                    public void onBitmapReady(@Nullable final Bitmap bitmap,
+                            final int rotationForDisplay) {
+                        // The placeholder must not replace an already shown preview
+                        if (bitmap == null || mPhoto != null || mNextClicked || mStopped) {
+                            return;
+                        }
+                        LOG.debug("Placeholder decoded");
+                        if (mLayoutDocumentContainer.getWidth() > 0) {
+                            rotateImageView(rotationForDisplay, false);
+                        }
+                        mImageDocument.setImageBitmap(bitmap);
+                        mFirstPixelTimer.onPlaceholderShown();
+                    }
+                });
+    }
+
     private void createPhoto() {
         final Activity activity = mFragment.getActivity();
         if (activity == null) {
@@ -323,7 +362,7 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
         } else {
             LOG.debug("Instantiating a Photo from the Document");
             final PhotoFactoryDocumentAsyncTask asyncTask = new PhotoFactoryDocumentAsyncTask(
-                    new AsyncCallback<Photo, Exception>() {
+                    TaskPriority.HIGH, new AsyncCallback<Photo, Exception>() {
                         @Override
                         public void onSuccess(final Photo result) {
                             LOG.debug("Photo instantiated");
@@ -383,7 +422,7 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
         }
         LOG.debug("Compressing the Photo");
         mPhoto.edit()
-                .compressByDefault()
+                .compressForUpload()
                 .applyAsync(callback);
     }
 
@@ -460,6 +499,7 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
             return;
         }
         mImageDocument.setImageBitmap(mPhoto.getBitmapPreview());
+        mFirstPixelTimer.onPreviewShown();
     }
 
     void onStop() {
@@ -496,6 +536,7 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
     private void bindViews(@NonNull final View view) {
         mLayoutDocumentContainer = view.findViewById(R.id.gv_layout_document_container);
         mImageDocument = view.findViewById(R.id.gv_image_document);
+        mImageDocument.setRenderingMode(TouchImageView.RenderingMode.GESTURE_PROXY);
         mButtonRotate = view.findViewById(R.id.gv_button_rotate);
         mButtonNext = view.findViewById(R.id.gv_button_next);
         mActivityIndicator = view.findViewById(R.id.gv_activity_indicator);
@@ -570,10 +611,15 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
             mPhoto.updateRotationDeltaBy(90);
             return;
         }
+        // Rotating only the metadata is possible with a network service. Without one the
+        // listener's document has to contain the rotated jpeg, so the rotation is written to the
+        // exif before notifying the listener
         mDocumentWasModified = true;
+        final int rotation = mCurrentRotation;
         applyRotationToPhoto(new PhotoEdit.PhotoEditCallback() {
             @Override
             public void onDone(@NonNull final Photo photo) {
+                mWrittenRotation = rotation;
                 if (mStopped) {
                     return;
                 }
@@ -630,6 +676,9 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
                 // results
                 documentReviewedAndUploaded();
             }
+        } else if (mWrittenRotation == mCurrentRotation) {
+            LOG.debug("Document was modified and the rotation was already written");
+            proceedToAnalysisScreen();
         } else {
             LOG.debug("Document was modified");
             applyRotationToPhoto(new PhotoEdit.PhotoEditCallback() {
@@ -705,56 +754,42 @@ class ReviewFragmentImpl implements ReviewFragmentInterface {
 
         mImageDocument.resetZoom();
 
-        final ValueAnimator widthAnimation;
-        final ValueAnimator heightAnimation;
+        final int targetWidth;
+        final int targetHeight;
         if (degrees % 360 == 90 || degrees % 360 == 270) {
             LOG.debug("ImageView width needs to fit container height");
             LOG.debug("ImageView height needs fit container width");
-            widthAnimation = ValueAnimator.ofInt(mImageDocument.getWidth(),
-                    mLayoutDocumentContainer.getHeight());
-            heightAnimation = ValueAnimator.ofInt(mImageDocument.getHeight(),
-                    mLayoutDocumentContainer.getWidth());
+            targetWidth = mLayoutDocumentContainer.getHeight();
+            targetHeight = mLayoutDocumentContainer.getWidth();
         } else {
             LOG.debug("ImageView width needs to fit container width");
             LOG.debug("ImageView height needs to fit container height");
-            widthAnimation = ValueAnimator.ofInt(mImageDocument.getWidth(),
-                    mLayoutDocumentContainer.getWidth());
-            heightAnimation = ValueAnimator.ofInt(mImageDocument.getHeight(),
-                    mLayoutDocumentContainer.getHeight());
+            targetWidth = mLayoutDocumentContainer.getWidth();
+            targetHeight = mLayoutDocumentContainer.getHeight();
         }
 
-        widthAnimation.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(final ValueAnimator valueAnimator) {
-                final int width = (int) valueAnimator.getAnimatedValue();
-                final FrameLayout.LayoutParams layoutParams =
-                        (FrameLayout.LayoutParams) mImageDocument.getLayoutParams();
-                layoutParams.width = width;
-                mImageDocument.requestLayout();
-            }
-        });
-        heightAnimation.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        if (!animated) {
+            mImageDocument.setRotation(degrees);
+            resizeImageView(targetWidth, targetHeight);
+            return;
+        }
+
+        final Animator animator = ImageViewRotationAnimator.create(mImageDocument, degrees,
+                targetWidth, targetHeight);
+        animator.addListener(new AnimatorListenerAdapter() {
             @Override
-            public void onAnimationUpdate(final ValueAnimator valueAnimator) {
-                final int height = (int) valueAnimator.getAnimatedValue();
-                final FrameLayout.LayoutParams layoutParams =
-                        (FrameLayout.LayoutParams) mImageDocument.getLayoutParams();
-                layoutParams.height = height;
-                mImageDocument.requestLayout();
+            public void onAnimationEnd(final Animator animation) {
+                resizeImageView(targetWidth, targetHeight);
             }
         });
+        animator.start();
+    }
 
-        final ObjectAnimator rotateAnimation = ObjectAnimator.ofFloat(mImageDocument, "rotation",
-                degrees);
-
-        if (!animated) {
-            widthAnimation.setDuration(0);
-            heightAnimation.setDuration(0);
-            rotateAnimation.setDuration(0);
-        }
-
-        widthAnimation.start();
-        heightAnimation.start();
-        rotateAnimation.start();
+    private void resizeImageView(final int width, final int height) {
+        final FrameLayout.LayoutParams layoutParams =
+                (FrameLayout.LayoutParams) mImageDocument.getLayoutParams();
+        layoutParams.width = width;
+        layoutParams.height = height;
+        mImageDocument.requestLayout();
     }
 }
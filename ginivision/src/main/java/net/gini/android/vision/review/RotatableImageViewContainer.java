@@ -2,9 +2,6 @@ package net.gini.android.vision.review;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.util.AttributeSet;
 import android.view.Gravity;
@@ -108,46 +105,22 @@ public class RotatableImageViewContainer extends FrameLayout {
             isRotating = false;
             // Set ImageView size to match parent after rotation (in onMeasure())
             requestLayout();
+            return;
         }
 
-        final ValueAnimator widthAnimation;
-        final ValueAnimator heightAnimation;
+        final int targetWidth;
+        final int targetHeight;
         if (degrees % 360 == 90 || degrees % 360 == 270) {
-            widthAnimation = ValueAnimator.ofInt(mImageView.getWidth(),
-                    getHeight());
-            heightAnimation = ValueAnimator.ofInt(mImageView.getHeight(),
-                    getWidth());
+            targetWidth = getHeight();
+            targetHeight = getWidth();
         } else {
-            widthAnimation = ValueAnimator.ofInt(mImageView.getWidth(),
-                    getWidth());
-            heightAnimation = ValueAnimator.ofInt(mImageView.getHeight(),
-                    getHeight());
+            targetWidth = getWidth();
+            targetHeight = getHeight();
         }
 
-        widthAnimation.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(final ValueAnimator valueAnimator) {
-                final int width = (int) valueAnimator.getAnimatedValue();
-                final ViewGroup.LayoutParams layoutParams = mImageView.getLayoutParams();
-                layoutParams.width = width;
-                mImageView.requestLayout();
-            }
-        });
-        heightAnimation.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(final ValueAnimator valueAnimator) {
-                final int height = (int) valueAnimator.getAnimatedValue();
-                final ViewGroup.LayoutParams layoutParams = mImageView.getLayoutParams();
-                layoutParams.height = height;
-                mImageView.requestLayout();
-            }
-        });
-
-        final ObjectAnimator rotateAnimation = ObjectAnimator.ofFloat(mImageView, "rotation",
-                degrees);
-
-        final AnimatorSet animations = new AnimatorSet();
-        animations.addListener(new AnimatorListenerAdapter() {
+        final Animator animator = ImageViewRotationAnimator.create(mImageView, degrees,
+                targetWidth, targetHeight);
+        animator.addListener(new AnimatorListenerAdapter() {
             @Override
             public void onAnimationEnd(final Animator animation) {
                 isRotating = false;
@@ -155,10 +128,6 @@ public class RotatableImageViewContainer extends FrameLayout {
                 requestLayout();
             }
         });
-        animations.play(widthAnimation)
-                .with(heightAnimation)
-                .with(rotateAnimation);
-
-        animations.start();
+        animator.start();
     }
 }
@@ -49,6 +49,7 @@ public class RotatableTouchImageViewContainer extends RotatableImageViewContaine
     @Override
     protected ImageView createImageView(final Context context) {
         mTouchImageView = new TouchImageView(context);
+        mTouchImageView.setRenderingMode(TouchImageView.RenderingMode.GESTURE_PROXY);
         return mTouchImageView;
     }
 
@@ -3,6 +3,7 @@ package net.gini.android.vision.review.multipage;
 import static net.gini.android.vision.document.GiniVisionDocumentError.ErrorCode.FILE_VALIDATION_FAILED;
 import static net.gini.android.vision.document.GiniVisionDocumentError.ErrorCode.UPLOAD_FAILED;
 import static net.gini.android.vision.internal.util.ActivityHelper.forcePortraitOrientationOnPhones;
+import static net.gini.android.vision.internal.util.FeatureConfiguration.isSpeculativeAnalysisEnabled;
 import static net.gini.android.vision.internal.util.FileImportHelper.showAlertIfOpenWithDocumentAndAppIsDefault;
 import static net.gini.android.vision.review.multipage.previews.PreviewFragment.ErrorButtonAction.DELETE;
 import static net.gini.android.vision.review.multipage.previews.PreviewFragment.ErrorButtonAction.RETRY;
@@ -29,6 +30,7 @@ import net.gini.android.vision.document.ImageDocument;
 import net.gini.android.vision.document.ImageMultiPageDocument;
 import net.gini.android.vision.internal.network.NetworkRequestResult;
 import net.gini.android.vision.internal.network.NetworkRequestsManager;
+import net.gini.android.vision.internal.network.RequestPriority;
 import net.gini.android.vision.internal.ui.FragmentImplCallback;
 import net.gini.android.vision.internal.util.AlertDialogHelperCompat;
 import net.gini.android.vision.internal.util.FileImportHelper;
@@ -38,6 +40,7 @@ import net.gini.android.vision.review.multipage.previews.PreviewsAdapter;
 import net.gini.android.vision.review.multipage.previews.PreviewsAdapterListener;
 import net.gini.android.vision.review.multipage.previews.PreviewsPageChangeHandler;
 import net.gini.android.vision.review.multipage.previews.PreviewsPageChangeListener;
+import net.gini.android.vision.review.multipage.previews.PreviewsPrefetcher;
 import net.gini.android.vision.review.multipage.thumbnails.ThumbnailsAdapter;
 import net.gini.android.vision.review.multipage.thumbnails.ThumbnailsAdapterListener;
 import net.gini.android.vision.review.multipage.thumbnails.ThumbnailsTouchHelperCallback;
@@ -112,6 +115,8 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
 
     private static final Logger LOG = LoggerFactory.getLogger(MultiPageReviewFragment.class);
 
+    private static final long SPECULATIVE_ANALYSIS_DELAY_MS = 2000;
+
     @VisibleForTesting
     Map<String, Boolean> mDocumentUploadResults = new HashMap<>();
     @VisibleForTesting
@@ -119,6 +124,7 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
     private MultiPageReviewFragmentListener mListener;
     private ViewPager mPreviewsPager;
     private PreviewsAdapter mPreviewsAdapter;
+    private PreviewsPrefetcher mPreviewsPrefetcher;
     private TextView mPageIndicator;
     private RecyclerView mThumbnailsRecycler;
     @VisibleForTesting
@@ -130,6 +136,15 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
     private TextView mReorderPagesTip;
     private boolean mNextClicked;
     private boolean mPreviewsShown;
+    // Cancelling it detaches this screen from the analysis shared with the Analysis Screen
+    private CompletableFuture<?> mSpeculativeAnalysisFuture;
+    private ImageDocument mVisibleDocument;
+    private final Runnable mSpeculativeAnalysisRunnable = new Runnable() {
+        @Override
+        public void run() {
+            startSpeculativeAnalysis();
+        }
+    };
 
     public static MultiPageReviewFragment createInstance() {
         return new MultiPageReviewFragment();
@@ -143,7 +158,11 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
     @Override
     public void onCreate(final Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        forcePortraitOrientationOnPhones(getActivity());
+        final Activity activity = getActivity();
+        forcePortraitOrientationOnPhones(activity);
+        if (activity != null && GiniVision.hasInstance()) {
+            GiniVision.getInstance().internal().resumeBackgroundDeletions(activity);
+        }
         initMultiPageDocument();
         initListener();
     }
@@ -229,16 +248,18 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
                 previewsAdapterListener);
         mPreviewsPager.setAdapter(mPreviewsAdapter);
 
+        mPreviewsPrefetcher = new PreviewsPrefetcher(activity, mMultiPageDocument);
         final PreviewsPageChangeHandler previewsPageChangeHandler = new PreviewsPageChangeHandler(
                 new PreviewsPageChangeListener() {
                     @Override
                     public void onPageSelected(final int position) {
                         updatePageIndicator(position);
+                        prioritizeVisibleDocumentUpload(position);
                         if (!mThumbnailsAdapter.isThumbnailHighlighted(position)) {
                             highlightThumbnail(position);
                         }
                     }
-                });
+                }, mPreviewsPrefetcher);
         mPreviewsPager.addOnPageChangeListener(previewsPageChangeHandler);
     }
 
@@ -265,6 +286,7 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
                         if (adapter != null) {
                             adapter.notifyDataSetChanged();
                         }
+                        onDocumentChanged();
                     }
 
                     @Override
@@ -376,6 +398,7 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
     private void doDeleteDocumentAndUpdateUI(@NonNull final ImageDocument document) {
         final int deletedPosition = mMultiPageDocument.getDocuments().indexOf(document);
 
+        onDocumentChanged();
         deleteDocument(document);
 
         final int nrOfDocuments = mMultiPageDocument.getDocuments().size();
@@ -420,7 +443,7 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
             final NetworkRequestsManager networkRequestsManager =
                     GiniVision.getInstance().internal().getNetworkRequestsManager();
             if (networkRequestsManager != null) {
-                networkRequestsManager.delete(document);
+                networkRequestsManager.deleteInBackground(document);
             }
         }
     }
@@ -440,6 +463,7 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
             final GiniVision.Internal gvInternal = GiniVision.getInstance().internal();
             gvInternal.getDocumentDataMemoryCache().invalidate(document);
             gvInternal.getPhotoMemoryCache().invalidate(document);
+            gvInternal.getThumbnailMemoryCache().invalidate(document);
         }
     }
 
@@ -519,12 +543,94 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
         document.updateRotationDeltaBy(rotationStep);
         mPreviewsAdapter.rotateImageInCurrentItemBy(mPreviewsPager, rotationStep);
         mThumbnailsAdapter.rotateHighlightedThumbnailBy(rotationStep);
+        onDocumentChanged();
+    }
+
+    private void onDocumentChanged() {
+        if (!isSpeculativeAnalysisEnabled()) {
+            return;
+        }
+        final NetworkRequestsManager networkRequestsManager =
+                GiniVision.getInstance().internal().getNetworkRequestsManager();
+        if (networkRequestsManager != null) {
+            // The analysis was started for the previous pages or rotations
+            networkRequestsManager.discardAnalysis(mMultiPageDocument);
+        }
+        scheduleSpeculativeAnalysis();
+    }
+
+    /**
+     * Starts the analysis if all pages were uploaded and the user didn't change the document
+     * for a while. The analysis screen will use the running or finished analysis.
+     */
+    private void scheduleSpeculativeAnalysis() {
+        if (!isSpeculativeAnalysisEnabled() || mButtonNext == null) {
+            return;
+        }
+        mButtonNext.removeCallbacks(mSpeculativeAnalysisRunnable);
+        if (!areAllDocumentsUploaded()) {
+            return;
+        }
+        mButtonNext.postDelayed(mSpeculativeAnalysisRunnable, SPECULATIVE_ANALYSIS_DELAY_MS);
+    }
+
+    private boolean areAllDocumentsUploaded() {
+        if (mMultiPageDocument.getDocuments().isEmpty()) {
+            return false;
+        }
+        for (final ImageDocument document : mMultiPageDocument.getDocuments()) {
+            final Boolean uploadSuccess = mDocumentUploadResults.get(document.getId());
+            if (uploadSuccess == null || !uploadSuccess) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void startSpeculativeAnalysis() {
+        if (mNextClicked || !isVisible() || !GiniVision.hasInstance()) {
+            return;
+        }
+        final NetworkRequestsManager networkRequestsManager =
+                GiniVision.getInstance().internal().getNetworkRequestsManager();
+        if (networkRequestsManager == null) {
+            return;
+        }
+        LOG.debug("Start speculative analysis of {}", mMultiPageDocument.getId());
+        // Subscribe before detaching to keep an unchanged analysis running
+        final CompletableFuture<?> previousFuture = mSpeculativeAnalysisFuture;
+        mSpeculativeAnalysisFuture = networkRequestsManager.analyze(mMultiPageDocument);
+        if (previousFuture != null) {
+            previousFuture.cancel(false);
+        }
+    }
+
+    /**
+     * Keeps the speculative analysis running until the Analysis Screen subscribed to it.
+     */
+    private void handOverSpeculativeAnalysis() {
+        if (mButtonNext != null) {
+            mButtonNext.removeCallbacks(mSpeculativeAnalysisRunnable);
+        }
+        if (mSpeculativeAnalysisFuture != null && GiniVision.hasInstance()) {
+            GiniVision.getInstance().internal()
+                    .handOverSpeculativeAnalysis(mSpeculativeAnalysisFuture);
+            mSpeculativeAnalysisFuture = null; // NOPMD
+        }
+    }
+
+    private void detachFromSpeculativeAnalysis() {
+        if (mSpeculativeAnalysisFuture != null) {
+            mSpeculativeAnalysisFuture.cancel(false);
+            mSpeculativeAnalysisFuture = null; // NOPMD
+        }
     }
 
     @VisibleForTesting
     void onNextButtonClicked() {
         trackReviewScreenEvent(ReviewScreenEvent.NEXT);
         mNextClicked = true;
+        handOverSpeculativeAnalysis();
         mListener.onProceedToAnalysisScreen(mMultiPageDocument);
     }
 
@@ -536,10 +642,17 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
             return;
         }
         initMultiPageDocument();
+        if (mNextClicked && GiniVision.hasInstance()) {
+            // Back from the Analysis Screen, which subscribed itself, if it needed the analysis
+            GiniVision.getInstance().internal().releaseSpeculativeAnalysis();
+        }
         mNextClicked = false;
         if (!mPreviewsShown) {
             observeViewTree();
         }
+        if (mPreviewsPrefetcher != null && mPreviewsPager != null) {
+            mPreviewsPrefetcher.prefetchAround(mPreviewsPager.getCurrentItem());
+        }
         showAlertIfOpenWithDocumentAndAppIsDefault(activity,
                 mMultiPageDocument, new FileImportHelper.ShowAlertCallback() {
                     @Override
@@ -565,6 +678,9 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
     }
 
     private void uploadDocuments() {
+        if (mPreviewsPager != null) {
+            prioritizeVisibleDocumentUpload(mPreviewsPager.getCurrentItem());
+        }
         for (final ImageDocument imageDocument : mMultiPageDocument.getDocuments()) {
             if (!mMultiPageDocument.hasDocumentError(imageDocument)) {
                 // Documents with a an error should not be uploaded automatically
@@ -573,6 +689,28 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
         }
     }
 
+    private void prioritizeVisibleDocumentUpload(final int position) {
+        if (position < 0 || position >= mMultiPageDocument.getDocuments().size()
+                || !GiniVision.hasInstance()) {
+            return;
+        }
+        final NetworkRequestsManager networkRequestsManager =
+                GiniVision.getInstance().internal().getNetworkRequestsManager();
+        if (networkRequestsManager == null) {
+            return;
+        }
+        final ImageDocument document = mMultiPageDocument.getDocuments().get(position);
+        if (document.equals(mVisibleDocument)) {
+            return;
+        }
+        if (mVisibleDocument != null) {
+            networkRequestsManager.setUploadPriority(mVisibleDocument, RequestPriority.UPLOAD);
+        }
+        // Upload the page the user is looking at first
+        networkRequestsManager.setUploadPriority(document, RequestPriority.VISIBLE_PAGE);
+        mVisibleDocument = document;
+    }
+
     @VisibleForTesting
     void uploadDocument(final ImageDocument document) {
         if (!GiniVision.hasInstance()) {
@@ -613,6 +751,7 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
                             mThumbnailsAdapter.setUploadState(
                                     ThumbnailsAdapter.UploadState.COMPLETED,
                                     document);
+                            scheduleSpeculativeAnalysis();
                         }
                         updateNextButtonVisibility();
                         return null;
@@ -671,6 +810,7 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
         mPreviewsPager.setCurrentItem(0);
         updatePageIndicator(0);
         highlightThumbnail(0);
+        scheduleSpeculativeAnalysis();
     }
 
     @Override
@@ -682,6 +822,22 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
         }
     }
 
+    @Override
+    public void onStop() {
+        super.onStop();
+        if (mButtonNext != null) {
+            mButtonNext.removeCallbacks(mSpeculativeAnalysisRunnable);
+        }
+        if (mPreviewsPrefetcher != null) {
+            mPreviewsPrefetcher.cancel();
+        }
+        final Activity activity = getActivity();
+        if (!mNextClicked && (activity == null || !activity.isChangingConfigurations())) {
+            // The analysis is cancelled unless the Analysis Screen also requested it
+            detachFromSpeculativeAnalysis();
+        }
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
@@ -698,23 +854,7 @@ public class MultiPageReviewFragment extends Fragment implements MultiPageReview
             final NetworkRequestsManager networkRequestsManager = GiniVision.getInstance()
                     .internal().getNetworkRequestsManager();
             if (networkRequestsManager != null) {
-                networkRequestsManager.cancel(mMultiPageDocument);
-                networkRequestsManager.delete(mMultiPageDocument)
-                        .handle(new CompletableFuture.BiFun<NetworkRequestResult<
-                                GiniVisionDocument>, Throwable, Void>() {
-                            @Override
-                            public Void apply(
-                                    final NetworkRequestResult<GiniVisionDocument> requestResult,
-                                    final Throwable throwable) {
-                                for (final Object document : mMultiPageDocument.getDocuments()) {
-                                    final GiniVisionDocument giniVisionDocument =
-                                            (GiniVisionDocument) document;
-                                    networkRequestsManager.cancel(giniVisionDocument);
-                                    networkRequestsManager.delete(giniVisionDocument);
-                                }
-                                return null;
-                            }
-                        });
+                networkRequestsManager.deleteInBackground(mMultiPageDocument);
             }
         }
     }
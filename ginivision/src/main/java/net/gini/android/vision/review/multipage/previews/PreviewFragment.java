@@ -13,6 +13,8 @@ import net.gini.android.vision.AsyncCallback;
 import net.gini.android.vision.GiniVision;
 import net.gini.android.vision.R;
 import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.internal.async.TaskPriority;
+import net.gini.android.vision.internal.cache.LoadRequest;
 import net.gini.android.vision.internal.camera.photo.ParcelableMemoryCache;
 import net.gini.android.vision.internal.camera.photo.Photo;
 import net.gini.android.vision.internal.ui.ErrorSnackbar;
@@ -46,6 +48,8 @@ public class PreviewFragment extends Fragment {
     private ProgressBar mActivityIndicator;
     private boolean mStopped = true;
     private ErrorButtonAction mErrorButtonAction;
+    private LoadRequest mPhotoRequest;
+    private boolean mPrimary;
 
     public static PreviewFragment createInstance(@Nullable final ImageDocument document,
             @Nullable final String errorMessage,
@@ -102,40 +106,44 @@ public class PreviewFragment extends Fragment {
             LOG.debug("Loading preview bitmap ({})", this);
             showActivityIndicator();
             if (GiniVision.hasInstance()) {
-                GiniVision.getInstance().internal().getPhotoMemoryCache()
-                        .get(context, mDocument, new AsyncCallback<Photo, Exception>() {
-                            @Override
-                            public void onSuccess(final Photo result) {
-                                LOG.debug("Preview bitmap received ({})", this);
-                                if (mStopped) {
-                                    LOG.debug("Stopped: preview discarded ({})", this);
-                                    return;
-                                }
-                                hideActivityIndicator();
-                                LOG.debug("Showing preview ({})", this);
-                                mImageViewContainer.getImageView().setImageBitmap(
-                                        result.getBitmapPreview());
-                                LOG.debug("Applying rotation ({})", this);
-                                rotateImageView(mDocument.getRotationForDisplay(), false);
-                            }
+                mPhotoRequest = GiniVision.getInstance().internal().getPhotoMemoryCache()
+                        .get(context, mDocument, getLoadPriority(),
+                                new AsyncCallback<Photo, Exception>() {
+                                    @Override
+                                    public void onSuccess(final Photo result) {
+                                        mPhotoRequest = null; // NOPMD
+                                        LOG.debug("Preview bitmap received ({})", this);
+                                        if (mStopped) {
+                                            LOG.debug("Stopped: preview discarded ({})", this);
+                                            return;
+                                        }
+                                        hideActivityIndicator();
+                                        LOG.debug("Showing preview ({})", this);
+                                        mImageViewContainer.getImageView().setImageBitmap(
+                                                result.getBitmapPreview());
+                                        LOG.debug("Applying rotation ({})", this);
+                                        rotateImageView(mDocument.getRotationForDisplay(), false);
+                                    }
 
-                            @Override
-                            public void onError(final Exception exception) {
-                                LOG.error("Failed to create preview bitmap ({})", this, exception);
-                                if (mStopped) {
-                                    LOG.debug("Stopped: ignoring error ({})", this);
-                                    return;
-                                }
-                                hideActivityIndicator();
-                                LOG.debug("Showing error ({})", this);
-                                showPreviewError(context);
-                            }
+                                    @Override
+                                    public void onError(final Exception exception) {
+                                        mPhotoRequest = null; // NOPMD
+                                        LOG.error("Failed to create preview bitmap ({})", this,
+                                                exception);
+                                        if (mStopped) {
+                                            LOG.debug("Stopped: ignoring error ({})", this);
+                                            return;
+                                        }
+                                        hideActivityIndicator();
+                                        LOG.debug("Showing error ({})", this);
+                                        showPreviewError(context);
+                                    }
 
-                            @Override
-                            public void onCancelled() {
-                                // Not used
-                            }
-                        });
+                                    @Override
+                                    public void onCancelled() {
+                                        // Not used
+                                    }
+                                });
             } else {
                 LOG.error(
                         "Cannot show preview. GiniVision instance not available. Create it with GiniVision.newInstance().");
@@ -146,6 +154,22 @@ public class PreviewFragment extends Fragment {
         }
     }
 
+    /**
+     * The primary page is the one the user is looking at, its photo is loaded before the photos
+     * of the other pages.
+     */
+    public void setPrimary(final boolean primary) {
+        mPrimary = primary;
+        if (mPhotoRequest != null) {
+            mPhotoRequest.setPriority(getLoadPriority());
+        }
+    }
+
+    @NonNull
+    private TaskPriority getLoadPriority() {
+        return mPrimary ? TaskPriority.HIGH : TaskPriority.NORMAL;
+    }
+
     private void showPreviewError(final Context context) {
         final View view = getView();
         if (view == null) {
@@ -217,6 +241,11 @@ public class PreviewFragment extends Fragment {
         super.onStop();
         LOG.debug("Stopped ({})", this);
         mStopped = true;
+        if (mPhotoRequest != null) {
+            // Don't load the photo, if the user swiped past this page before it was loaded
+            mPhotoRequest.cancel();
+            mPhotoRequest = null; // NOPMD
+        }
     }
 
     @Override
@@ -1,5 +1,7 @@
 package net.gini.android.vision.review.multipage.previews;
 
+import android.view.ViewGroup;
+
 import net.gini.android.vision.document.GiniVisionDocumentError;
 import net.gini.android.vision.document.ImageDocument;
 import net.gini.android.vision.document.ImageMultiPageDocument;
@@ -25,6 +27,7 @@ public class PreviewsAdapter extends FragmentStatePagerAdapter {
 
     private final ImageMultiPageDocument mMultiPageDocument;
     private final PreviewsAdapterListener mListener;
+    private PreviewFragment mPrimaryFragment;
 
     public PreviewsAdapter(@NonNull final FragmentManager fm,
             @NonNull final ImageMultiPageDocument multiPageDocument,
@@ -60,6 +63,19 @@ public class PreviewsAdapter extends FragmentStatePagerAdapter {
         return PreviewFragment.createInstance(document, errorMessage, errorButtonAction);
     }
 
+    @Override
+    public void setPrimaryItem(@NonNull final ViewGroup container, final int position,
+            @NonNull final Object object) {
+        super.setPrimaryItem(container, position, object);
+        if (object != mPrimaryFragment) {
+            if (mPrimaryFragment != null) {
+                mPrimaryFragment.setPrimary(false);
+            }
+            mPrimaryFragment = (PreviewFragment) object;
+            mPrimaryFragment.setPrimary(true);
+        }
+    }
+
     public void rotateImageInCurrentItemBy(@NonNull final ViewPager viewPager, final int degrees) {
         final PreviewFragment fragment = (PreviewFragment) instantiateItem(viewPager,
                 viewPager.getCurrentItem());
@@ -6,6 +6,7 @@ package net.gini.android.vision.review.multipage.previews;
  * Copyright (c) 2018 Gini GmbH.
  */
 
+import androidx.annotation.Nullable;
 import androidx.viewpager.widget.ViewPager;
 
 /**
@@ -16,11 +17,23 @@ import androidx.viewpager.widget.ViewPager;
 public class PreviewsPageChangeHandler implements ViewPager.OnPageChangeListener {
 
     private final PreviewsPageChangeListener mListener;
+    private final PreviewsPrefetcher mPrefetcher;
     private int mLastPosition = -1;
+    private int mScrollState = ViewPager.SCROLL_STATE_IDLE;
 
     public PreviewsPageChangeHandler(
             final PreviewsPageChangeListener listener) {
+        this(listener, null);
+    }
+
+    /**
+     * @param prefetcher loads the pages next to the selected page once the pager is idle
+     */
+    public PreviewsPageChangeHandler(
+            final PreviewsPageChangeListener listener,
+            @Nullable final PreviewsPrefetcher prefetcher) {
         mListener = listener;
+        mPrefetcher = prefetcher;
     }
 
     @Override
@@ -33,10 +46,23 @@ public class PreviewsPageChangeHandler implements ViewPager.OnPageChangeListener
         if (mLastPosition != position) {
             mLastPosition = position;
             mListener.onPageSelected(position);
+            if (mPrefetcher != null && mScrollState == ViewPager.SCROLL_STATE_IDLE) {
+                mPrefetcher.prefetchAround(position);
+            }
         }
     }
 
     @Override
     public void onPageScrollStateChanged(final int state) {
+        mScrollState = state;
+        if (mPrefetcher == null) {
+            return;
+        }
+        if (state == ViewPager.SCROLL_STATE_DRAGGING) {
+            // Don't load pages the user might swipe past
+            mPrefetcher.cancel();
+        } else if (state == ViewPager.SCROLL_STATE_IDLE && mLastPosition >= 0) {
+            mPrefetcher.prefetchAround(mLastPosition);
+        }
     }
 }
@@ -0,0 +1,119 @@
+package net.gini.android.vision.review.multipage.previews;
+
+import android.content.Context;
+
+import net.gini.android.vision.AsyncCallback;
+import net.gini.android.vision.GiniVision;
+import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.document.ImageMultiPageDocument;
+import net.gini.android.vision.internal.async.TaskPriority;
+import net.gini.android.vision.internal.cache.LoadRequest;
+import net.gini.android.vision.internal.camera.photo.Photo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Internal use only.
+ *
+ * <p> Loads the photos of the pages next to the visible page into the photo memory cache to show
+ * their previews without delay when the user swipes to them. The photos are loaded with a low
+ * priority to not delay the visible page.
+ *
+ * @suppress
+ */
+public class PreviewsPrefetcher {
+
+    static final int PREFETCH_DISTANCE = 2;
+
+    private final Context mContext;
+    private final ImageMultiPageDocument mMultiPageDocument;
+    private final Map<ImageDocument, LoadRequest> mRequests = new HashMap<>();
+
+    public PreviewsPrefetcher(@NonNull final Context context,
+            @NonNull final ImageMultiPageDocument multiPageDocument) {
+        mContext = context.getApplicationContext();
+        mMultiPageDocument = multiPageDocument;
+    }
+
+    /**
+     * Loads the photos of the pages around the position and cancels the pending loads of pages
+     * which are farther away.
+     */
+    public void prefetchAround(final int position) {
+        if (!GiniVision.hasInstance()) {
+            return;
+        }
+        final List<ImageDocument> documents = mMultiPageDocument.getDocuments();
+        final List<ImageDocument> documentsToPrefetch = new ArrayList<>();
+        for (int i = Math.max(0, position - PREFETCH_DISTANCE);
+                i <= Math.min(documents.size() - 1, position + PREFETCH_DISTANCE); i++) {
+            if (i != position) {
+                documentsToPrefetch.add(documents.get(i));
+            }
+        }
+        for (final ImageDocument document : new ArrayList<>(mRequests.keySet())) {
+            if (!documentsToPrefetch.contains(document)) {
+                mRequests.remove(document).cancel();
+            }
+        }
+        for (final ImageDocument document : documentsToPrefetch) {
+            if (!mRequests.containsKey(document)) {
+                prefetch(document);
+            }
+        }
+    }
+
+    /**
+     * Cancels the pending loads, used while the user swipes to not load pages which are skipped.
+     */
+    public void cancel() {
+        for (final LoadRequest request : mRequests.values()) {
+            request.cancel();
+        }
+        mRequests.clear();
+    }
+
+    private void prefetch(@NonNull final ImageDocument document) {
+        final PrefetchCallback callback = new PrefetchCallback(document);
+        final LoadRequest request = GiniVision.getInstance().internal().getPhotoMemoryCache()
+                .get(mContext, document, TaskPriority.LOW, callback);
+        if (!callback.mDone) {
+            mRequests.put(document, request);
+        }
+    }
+
+    private class PrefetchCallback implements AsyncCallback<Photo, Exception> {
+
+        private final ImageDocument mDocument;
+        private boolean mDone;
+
+        PrefetchCallback(@NonNull final ImageDocument document) {
+            mDocument = document;
+        }
+
+        @Override
+        public void onSuccess(final Photo result) {
+            done();
+        }
+
+        @Override
+        public void onError(final Exception exception) {
+            done();
+        }
+
+        @Override
+        public void onCancelled() {
+            done();
+        }
+
+        private void done() {
+            mDone = true;
+            mRequests.remove(mDocument);
+        }
+    }
+}
@@ -18,7 +18,9 @@ import net.gini.android.vision.GiniVision;
 import net.gini.android.vision.R;
 import net.gini.android.vision.document.ImageDocument;
 import net.gini.android.vision.document.ImageMultiPageDocument;
-import net.gini.android.vision.internal.camera.photo.Photo;
+import net.gini.android.vision.internal.async.TaskPriority;
+import net.gini.android.vision.internal.cache.LoadRequest;
+import net.gini.android.vision.internal.util.Size;
 import net.gini.android.vision.review.RotatableImageViewContainer;
 
 import java.util.ArrayList;
@@ -26,6 +28,7 @@ import java.util.Collections;
 import java.util.List;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.RecyclerView;
@@ -50,8 +53,21 @@ public class ThumbnailsAdapter extends
     private final ThumbnailsAdapterListener mListener;
     private final List<Thumbnail> mThumbnails;
     private final boolean mShowPlusButton;
+    private final Size mThumbnailSize;
     private ItemTouchHelper mItemTouchHelper;
     private RecyclerView mRecyclerView;
+    private int mScrollState = RecyclerView.SCROLL_STATE_IDLE;
+    private final RecyclerView.OnScrollListener mScrollListener =
+            new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrollStateChanged(@NonNull final RecyclerView recyclerView,
+                        final int newState) {
+                    mScrollState = newState;
+                    if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                        prioritizeAttachedThumbnails(recyclerView);
+                    }
+                }
+            };
 
     public ThumbnailsAdapter(@NonNull final Context context,
             @NonNull final ImageMultiPageDocument multiPageDocument,
@@ -60,6 +76,10 @@ public class ThumbnailsAdapter extends
         mContext = context;
         mMultiPageDocument = multiPageDocument;
         mShowPlusButton = showPlusButton;
+        mThumbnailSize = new Size(context.getResources().getDimensionPixelSize(
+                R.dimen.gv_multi_page_review_thumbnail_card_width),
+                context.getResources().getDimensionPixelSize(
+                        R.dimen.gv_multi_page_review_thumbnail_card_height));
         final List<ImageDocument> documents = mMultiPageDocument.getDocuments();
         mThumbnails = new ArrayList<>(documents.size());
         for (final ImageDocument document : documents) {
@@ -124,12 +144,37 @@ public class ThumbnailsAdapter extends
     public void onAttachedToRecyclerView(final RecyclerView recyclerView) {
         super.onAttachedToRecyclerView(recyclerView);
         mRecyclerView = recyclerView;
+        mRecyclerView.addOnScrollListener(mScrollListener);
     }
 
     @Override
     public void onDetachedFromRecyclerView(final RecyclerView recyclerView) {
         super.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeOnScrollListener(mScrollListener);
         mRecyclerView = null; // NOPMD
+        mScrollState = RecyclerView.SCROLL_STATE_IDLE;
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull final ViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.cancelThumbnailRequest();
+    }
+
+    private void prioritizeAttachedThumbnails(@NonNull final RecyclerView recyclerView) {
+        for (int i = 0; i < recyclerView.getChildCount(); i++) {
+            final ViewHolder holder = (ViewHolder) recyclerView.getChildViewHolder(
+                    recyclerView.getChildAt(i));
+            if (holder.thumbnailRequest != null) {
+                holder.thumbnailRequest.setPriority(TaskPriority.NORMAL);
+            }
+        }
+    }
+
+    private TaskPriority getThumbnailLoadPriority() {
+        // Thumbnails bound while flinging are likely scrolled out before they are shown
+        return mScrollState == RecyclerView.SCROLL_STATE_IDLE ? TaskPriority.NORMAL
+                : TaskPriority.LOW;
     }
 
     private void bindThumbnail(@NonNull final ViewHolder holder,
@@ -137,23 +182,28 @@ public class ThumbnailsAdapter extends
         holder.resetImageView();
         holder.showActivityIndicator();
         updateThumbnail(position, holder);
+        holder.cancelThumbnailRequest();
         if (GiniVision.hasInstance()) {
-            GiniVision.getInstance().internal().getPhotoMemoryCache()
+            holder.thumbnailRequest = GiniVision.getInstance().internal()
+                    .getThumbnailMemoryCache()
                     .get(mContext, mMultiPageDocument.getDocuments().get(position),
-                            new AsyncCallback<Photo, Exception>() {
+                            mThumbnailSize, getThumbnailLoadPriority(),
+                            new AsyncCallback<Bitmap, Exception>() {
                                 @Override
-                                public void onSuccess(final Photo result) {
+                                public void onSuccess(final Bitmap result) {
+                                    holder.thumbnailRequest = null; // NOPMD
                                     // Only update if the holder still points to the position for
-                                    // which the Photo was loaded
+                                    // which the thumbnail was loaded
                                     if (holder.getAdapterPosition() == position) {
-                                        showPhoto(result, holder);
+                                        showThumbnail(result, holder);
                                     }
                                 }
 
                                 @Override
                                 public void onError(final Exception exception) {
+                                    holder.thumbnailRequest = null; // NOPMD
                                     // Only update if the holder still points to the position for
-                                    // which the Photo was loaded
+                                    // which the thumbnail was loaded
                                     if (holder.getAdapterPosition() == position) {
                                         final ImageView imageView =
                                                 holder.thumbnailContainer.getImageView();
@@ -170,10 +220,9 @@ public class ThumbnailsAdapter extends
         }
     }
 
-    private void showPhoto(@NonNull final Photo photo,
+    private void showThumbnail(@Nullable final Bitmap bitmap,
             @NonNull final ViewHolder holder) {
         final ImageView imageView = holder.thumbnailContainer.getImageView();
-        final Bitmap bitmap = photo.getBitmapPreview();
         if (bitmap != null) {
             imageView.setBackgroundColor(Color.TRANSPARENT);
             imageView.setImageBitmap(bitmap);
@@ -420,6 +469,7 @@ public class ThumbnailsAdapter extends
         final ViewType viewType;
         final ImageView uploadResultIconBackground;
         final ImageView uploadResultIconForeground;
+        LoadRequest thumbnailRequest;
 
         ViewHolder(@NonNull final View itemView, @NonNull final ViewType viewType) {
             super(itemView);
@@ -435,6 +485,13 @@ public class ThumbnailsAdapter extends
                     R.id.gv_upload_result_icon_foreground);
         }
 
+        void cancelThumbnailRequest() {
+            if (thumbnailRequest != null) {
+                thumbnailRequest.cancel();
+                thumbnailRequest = null; // NOPMD
+            }
+        }
+
         void showActivityIndicator() {
             if (activityIndicator == null) {
                 return;
@@ -0,0 +1,66 @@
+package net.gini.android.vision;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+@RunWith(AndroidJUnit4.class)
+public class StartupTraceTest {
+
+    @After
+    public void tearDown() {
+        StartupTrace.clear();
+    }
+
+    @Test
+    public void should_returnMinusOne_forMilestonesNotReached() {
+        // Given
+        StartupTrace.restart();
+        // When
+        StartupTrace.mark(StartupTrace.Milestone.GINI_VISION_READY);
+        // Then
+        assertThat(StartupTrace.getElapsedMs(StartupTrace.Milestone.GINI_VISION_READY))
+                .isAtLeast(0L);
+        assertThat(StartupTrace.getElapsedMs(StartupTrace.Milestone.CAMERA_OPENED))
+                .isEqualTo(-1L);
+    }
+
+    @Test
+    public void should_recordMilestone_onlyTheFirstTime() {
+        // Given
+        StartupTrace.restart();
+        final List<StartupTrace.Milestone> reached = new ArrayList<>();
+        StartupTrace.setListener(new StartupTrace.Listener() {
+            @Override
+            public void onMilestoneReached(@NonNull final StartupTrace.Milestone milestone,
+                    final long elapsedMs) {
+                reached.add(milestone);
+            }
+        });
+        // When
+        StartupTrace.mark(StartupTrace.Milestone.FIRST_PREVIEW_FRAME);
+        StartupTrace.mark(StartupTrace.Milestone.FIRST_PREVIEW_FRAME);
+        // Then
+        assertThat(reached).containsExactly(StartupTrace.Milestone.FIRST_PREVIEW_FRAME);
+    }
+
+    @Test
+    public void should_forgetMilestones_onRestart() {
+        // Given
+        StartupTrace.restart();
+        StartupTrace.mark(StartupTrace.Milestone.CAMERA_OPENED);
+        // When
+        StartupTrace.restart();
+        // Then
+        assertThat(StartupTrace.getElapsedMs(StartupTrace.Milestone.CAMERA_OPENED))
+                .isEqualTo(-1L);
+    }
+}
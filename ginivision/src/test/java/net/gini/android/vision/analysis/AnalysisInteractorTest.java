@@ -4,6 +4,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -338,7 +339,7 @@ public class AnalysisInteractorTest {
     }
 
     @Test
-    public void should_deleteMultiPageDocument() throws Exception {
+    public void should_deleteMultiPageDocument_inBackground() throws Exception {
         // Given
         //noinspection unchecked
         final GiniVisionMultiPageDocument<GiniVisionDocument, GiniVisionDocumentError>
@@ -354,27 +355,16 @@ public class AnalysisInteractorTest {
         createGiniVision(networkRequestsManager);
 
         // When
-        mAnalysisInteractor.deleteMultiPageDocument(multiPageDocument);
+        final CompletableFuture<Void> future =
+                mAnalysisInteractor.deleteMultiPageDocument(multiPageDocument);
 
         // Then
-        verify(networkRequestsManager).cancel(multiPageDocument);
-        verify(networkRequestsManager).delete(multiPageDocument);
-    }
-
-    private NetworkRequestsManager createtNetworkRequestsManager(
-            final NetworkRequestResult<GiniVisionDocument> deletionRequestResult) {
-        final CompletableFuture<NetworkRequestResult<GiniVisionDocument>>
-                deletionResultFuture = new CompletableFuture<>();
-        deletionResultFuture.complete(deletionRequestResult);
-
-        final NetworkRequestsManager networkRequestsManager = mock(NetworkRequestsManager.class);
-        when(networkRequestsManager.delete(any(GiniVisionDocument.class))).thenReturn(
-                deletionResultFuture);
-        return networkRequestsManager;
+        assertThat(future.isDone()).isTrue();
+        verify(networkRequestsManager).deleteInBackground(multiPageDocument);
     }
 
     @Test
-    public void should_deleteEveryPage_ofMultiPageDocument() throws Exception {
+    public void should_notDeletePagesOneByOne_ofMultiPageDocument() throws Exception {
         // Given
         //noinspection unchecked
         final GiniVisionMultiPageDocument<GiniVisionDocument, GiniVisionDocumentError>
@@ -398,51 +388,17 @@ public class AnalysisInteractorTest {
         mAnalysisInteractor.deleteMultiPageDocument(multiPageDocument);
 
         // Then
-        for (final GiniVisionDocument document : documents) {
-            verify(networkRequestsManager).cancel(document);
-            verify(networkRequestsManager).delete(document);
-        }
-    }
-
-    @Test
-    public void should_deleteEverypPage_ofMultiPageDocument_whenDeletion_ofMultiPageDocumentFailes()
-            throws Exception {
-        // Given
-        //noinspection unchecked
-        final GiniVisionMultiPageDocument<GiniVisionDocument, GiniVisionDocumentError>
-                multiPageDocument = mock(GiniVisionMultiPageDocument.class);
-        final List<GiniVisionDocument> documents = new ArrayList<>();
-        documents.add(mock(GiniVisionDocument.class));
-        documents.add(mock(GiniVisionDocument.class));
-        documents.add(mock(GiniVisionDocument.class));
-        when(multiPageDocument.getDocuments()).thenReturn(documents);
-
-        final NetworkRequestsManager networkRequestsManager =
-                createtNetworkRequestsManagerWithDeletionException(new RuntimeException());
-
-        createGiniVision(networkRequestsManager);
-
-        // When
-        mAnalysisInteractor.deleteMultiPageDocument(multiPageDocument);
-
-        // Then
-        verify(networkRequestsManager).cancel(multiPageDocument);
-        verify(networkRequestsManager).delete(multiPageDocument);
-
-        for (final GiniVisionDocument document : documents) {
-            verify(networkRequestsManager).cancel(document);
-            verify(networkRequestsManager).delete(document);
-        }
+        verify(networkRequestsManager, never()).delete(any(GiniVisionDocument.class));
     }
 
-    private NetworkRequestsManager createtNetworkRequestsManagerWithDeletionException(
-            @NonNull final RuntimeException deletionException) {
+    private NetworkRequestsManager createtNetworkRequestsManager(
+            final NetworkRequestResult<GiniVisionDocument> deletionRequestResult) {
         final CompletableFuture<NetworkRequestResult<GiniVisionDocument>>
                 deletionResultFuture = new CompletableFuture<>();
-        deletionResultFuture.completeExceptionally(deletionException);
+        deletionResultFuture.complete(deletionRequestResult);
 
         final NetworkRequestsManager networkRequestsManager = mock(NetworkRequestsManager.class);
-        when(networkRequestsManager.delete(any(GiniVisionMultiPageDocument.class))).thenReturn(
+        when(networkRequestsManager.delete(any(GiniVisionDocument.class))).thenReturn(
                 deletionResultFuture);
         return networkRequestsManager;
     }
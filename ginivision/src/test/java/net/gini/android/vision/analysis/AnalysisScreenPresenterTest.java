@@ -138,6 +138,12 @@ public class AnalysisScreenPresenterTest {
                 callback.onBitmapReady(bitmap, rotationForDisplay);
             }
 
+            @Override
+            public void toPlaceholderBitmap(@NonNull final Context context,
+                    @NonNull final Callback callback) {
+                callback.onBitmapReady(null, 0);
+            }
+
             @Override
             public void getPageCount(@NonNull final Context context,
                     @NonNull final AsyncCallback<Integer, Exception> asyncCallback) {
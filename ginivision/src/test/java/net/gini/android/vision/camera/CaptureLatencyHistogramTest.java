@@ -0,0 +1,90 @@
+package net.gini.android.vision.camera;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CaptureLatencyHistogramTest {
+
+    @Test
+    public void should_returnZeros_whenNothingWasRecorded() {
+        final CaptureLatencyHistogram histogram = new CaptureLatencyHistogram();
+
+        assertThat(histogram.getCount(CaptureLatencyHistogram.Stage.FOCUS)).isEqualTo(0L);
+        assertThat(histogram.getMeanMs(CaptureLatencyHistogram.Stage.FOCUS)).isEqualTo(0L);
+        assertThat(histogram.getMaxMs(CaptureLatencyHistogram.Stage.FOCUS)).isEqualTo(0L);
+        assertThat(histogram.getPercentileMs(CaptureLatencyHistogram.Stage.FOCUS, 50)).isEqualTo(
+                0L);
+    }
+
+    @Test
+    public void should_recordDurations_perStage() {
+        final CaptureLatencyHistogram histogram = new CaptureLatencyHistogram();
+
+        histogram.record(CaptureLatencyHistogram.Stage.FOCUS, 100);
+        histogram.record(CaptureLatencyHistogram.Stage.FOCUS, 300);
+        histogram.record(CaptureLatencyHistogram.Stage.CAPTURE, 40);
+
+        assertThat(histogram.getCount(CaptureLatencyHistogram.Stage.FOCUS)).isEqualTo(2L);
+        assertThat(histogram.getMeanMs(CaptureLatencyHistogram.Stage.FOCUS)).isEqualTo(200L);
+        assertThat(histogram.getMaxMs(CaptureLatencyHistogram.Stage.FOCUS)).isEqualTo(300L);
+        assertThat(histogram.getCount(CaptureLatencyHistogram.Stage.CAPTURE)).isEqualTo(1L);
+        assertThat(histogram.getCount(CaptureLatencyHistogram.Stage.TOTAL)).isEqualTo(0L);
+    }
+
+    @Test
+    public void should_countDurations_inBuckets() {
+        final CaptureLatencyHistogram histogram = new CaptureLatencyHistogram();
+
+        histogram.record(CaptureLatencyHistogram.Stage.JPEG_CALLBACK, 0);
+        histogram.record(CaptureLatencyHistogram.Stage.JPEG_CALLBACK, 10);
+        histogram.record(CaptureLatencyHistogram.Stage.JPEG_CALLBACK, 11);
+        histogram.record(CaptureLatencyHistogram.Stage.JPEG_CALLBACK, 60000);
+
+        final long[] upperBounds = histogram.getBucketUpperBoundsMs();
+        final long[] counts = histogram.getBucketCounts(CaptureLatencyHistogram.Stage.JPEG_CALLBACK);
+        assertThat(counts.length).isEqualTo(upperBounds.length);
+        assertThat(counts[0]).isEqualTo(2L);
+        assertThat(counts[1]).isEqualTo(1L);
+        assertThat(counts[counts.length - 1]).isEqualTo(1L);
+    }
+
+    @Test
+    public void should_returnBucketUpperBound_asPercentile() {
+        final CaptureLatencyHistogram histogram = new CaptureLatencyHistogram();
+        for (int i = 1; i <= 90; i++) {
+            histogram.record(CaptureLatencyHistogram.Stage.TOTAL, 45);
+        }
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(CaptureLatencyHistogram.Stage.TOTAL, 900);
+        }
+
+        assertThat(histogram.getPercentileMs(CaptureLatencyHistogram.Stage.TOTAL, 50)).isEqualTo(
+                50L);
+        assertThat(histogram.getPercentileMs(CaptureLatencyHistogram.Stage.TOTAL, 90)).isEqualTo(
+                50L);
+        assertThat(histogram.getPercentileMs(CaptureLatencyHistogram.Stage.TOTAL, 95)).isEqualTo(
+                900L);
+        assertThat(histogram.getPercentileMs(CaptureLatencyHistogram.Stage.TOTAL, 100)).isEqualTo(
+                900L);
+    }
+
+    @Test
+    public void should_clearDurations_onReset() {
+        final CaptureLatencyHistogram histogram = new CaptureLatencyHistogram();
+        histogram.record(CaptureLatencyHistogram.Stage.DISK_SAVE, 120);
+
+        histogram.reset();
+
+        assertThat(histogram.getCount(CaptureLatencyHistogram.Stage.DISK_SAVE)).isEqualTo(0L);
+        assertThat(histogram.getMaxMs(CaptureLatencyHistogram.Stage.DISK_SAVE)).isEqualTo(0L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throw_forInvalidPercentile() {
+        new CaptureLatencyHistogram().getPercentileMs(CaptureLatencyHistogram.Stage.FOCUS, 101);
+    }
+}
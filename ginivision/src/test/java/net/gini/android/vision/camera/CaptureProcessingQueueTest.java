@@ -0,0 +1,160 @@
+package net.gini.android.vision.camera;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import net.gini.android.vision.document.ImageDocument;
+import net.gini.android.vision.internal.camera.photo.Photo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+@RunWith(AndroidJUnit4.class)
+public class CaptureProcessingQueueTest {
+
+    private ManualExecutor mExecutor;
+    private ImageDocument mProcessedDocument;
+    private RecordingListener mListener;
+    private CaptureProcessingQueue mQueue;
+
+    @Before
+    public void setUp() {
+        mExecutor = new ManualExecutor();
+        mProcessedDocument = mock(ImageDocument.class);
+        mListener = new RecordingListener();
+        mQueue = new CaptureProcessingQueue(2, mExecutor,
+                new CaptureProcessingQueue.PageProcessor() {
+                    @Nullable
+                    @Override
+                    public ImageDocument process(@NonNull final Photo photo) {
+                        return mProcessedDocument;
+                    }
+                });
+        mQueue.setListener(mListener);
+    }
+
+    @Test
+    public void should_rejectPictures_whenFull() {
+        assertThat(mQueue.enqueue(mock(Photo.class))).isTrue();
+        assertThat(mQueue.isFull()).isFalse();
+        assertThat(mQueue.enqueue(mock(Photo.class))).isTrue();
+        assertThat(mQueue.isFull()).isTrue();
+
+        assertThat(mQueue.enqueue(mock(Photo.class))).isFalse();
+        assertThat(mQueue.getPendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_acceptPictures_afterAPictureWasProcessed() {
+        mQueue.enqueue(mock(Photo.class));
+        mQueue.enqueue(mock(Photo.class));
+
+        mExecutor.runNext();
+
+        assertThat(mQueue.isFull()).isFalse();
+        assertThat(mQueue.enqueue(mock(Photo.class))).isTrue();
+    }
+
+    @Test
+    public void should_notifyListener_inOrder() {
+        final Photo first = mock(Photo.class);
+        final Photo second = mock(Photo.class);
+        mQueue.enqueue(first);
+        mQueue.enqueue(second);
+
+        mExecutor.runNext();
+        mExecutor.runNext();
+
+        assertThat(mListener.mProcessedPhotos).containsExactly(first, second).inOrder();
+        assertThat(mListener.mIdleCount).isEqualTo(1);
+    }
+
+    @Test
+    public void should_notifyListener_whenProcessingFailed() {
+        mProcessedDocument = null;
+        mQueue.enqueue(mock(Photo.class));
+
+        mExecutor.runNext();
+
+        assertThat(mListener.mFailedCount).isEqualTo(1);
+        assertThat(mListener.mProcessedPhotos).isEmpty();
+        assertThat(mQueue.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_notNotifyListener_afterCancel() {
+        mQueue.enqueue(mock(Photo.class));
+
+        mQueue.cancel();
+        mExecutor.runNext();
+
+        assertThat(mListener.mProcessedPhotos).isEmpty();
+        assertThat(mListener.mIdleCount).isEqualTo(0);
+        assertThat(mQueue.enqueue(mock(Photo.class))).isFalse();
+    }
+
+    @Test
+    public void should_handProcessedPagesToDrainListener_afterDrain() {
+        mQueue.enqueue(mock(Photo.class));
+        final List<ImageDocument> drainedDocuments = new ArrayList<>();
+
+        mQueue.drain(new CaptureProcessingQueue.DrainListener() {
+            @Override
+            public void onPageProcessed(@NonNull final ImageDocument document) {
+                drainedDocuments.add(document);
+            }
+        });
+        mExecutor.runNext();
+
+        assertThat(drainedDocuments).containsExactly(mProcessedDocument);
+        assertThat(mListener.mProcessedPhotos).isEmpty();
+        assertThat(mQueue.enqueue(mock(Photo.class))).isFalse();
+    }
+
+    private static class ManualExecutor implements Executor {
+
+        private final List<Runnable> mRunnables = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull final Runnable runnable) {
+            mRunnables.add(runnable);
+        }
+
+        void runNext() {
+            mRunnables.remove(0).run();
+        }
+    }
+
+    private static class RecordingListener implements CaptureProcessingQueue.Listener {
+
+        private final List<Photo> mProcessedPhotos = new ArrayList<>();
+        private int mFailedCount;
+        private int mIdleCount;
+
+        @Override
+        public void onPageProcessed(@NonNull final Photo photo,
+                @NonNull final ImageDocument document) {
+            mProcessedPhotos.add(photo);
+        }
+
+        @Override
+        public void onPageFailed() {
+            mFailedCount++;
+        }
+
+        @Override
+        public void onIdle() {
+            mIdleCount++;
+        }
+    }
+}
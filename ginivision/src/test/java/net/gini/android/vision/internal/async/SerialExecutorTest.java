@@ -0,0 +1,94 @@
+package net.gini.android.vision.internal.async;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
+
+@RunWith(JUnit4.class)
+public class SerialExecutorTest {
+
+    @Test
+    public void should_submitOneTaskAtATime() {
+        // Given
+        final QueueingExecutor pool = new QueueingExecutor();
+        final SerialExecutor executor = new SerialExecutor(pool);
+        final List<String> executionOrder = new ArrayList<>();
+        // When
+        executor.execute(recording(executionOrder, "first"));
+        executor.execute(recording(executionOrder, "second"));
+        // Then
+        assertThat(pool.mQueued).hasSize(1);
+    }
+
+    @Test
+    public void should_executeTasks_inSubmissionOrder() {
+        // Given
+        final QueueingExecutor pool = new QueueingExecutor();
+        final SerialExecutor executor = new SerialExecutor(pool);
+        final List<String> executionOrder = new ArrayList<>();
+        executor.execute(recording(executionOrder, "first"));
+        executor.execute(recording(executionOrder, "second"));
+        executor.execute(recording(executionOrder, "third"));
+        // When
+        pool.runAll();
+        // Then
+        assertThat(executionOrder).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    public void should_continue_afterATaskFailed() {
+        // Given
+        final QueueingExecutor pool = new QueueingExecutor();
+        final SerialExecutor executor = new SerialExecutor(pool);
+        final List<String> executionOrder = new ArrayList<>();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException();
+            }
+        });
+        executor.execute(recording(executionOrder, "second"));
+        // When
+        pool.runAll();
+        // Then
+        assertThat(executionOrder).containsExactly("second");
+    }
+
+    private static Runnable recording(final List<String> executionOrder, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                executionOrder.add(name);
+            }
+        };
+    }
+
+    private static class QueueingExecutor implements Executor {
+
+        final List<Runnable> mQueued = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            mQueued.add(command);
+        }
+
+        void runAll() {
+            while (!mQueued.isEmpty()) {
+                final Runnable runnable = mQueued.remove(0);
+                try {
+                    runnable.run();
+                } catch (final RuntimeException ignored) {
+                    // Thrown by the pool's thread
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package net.gini.android.vision.internal.async;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class TaskPoolExecutorTest {
+
+    private TaskMetrics mMetrics;
+    private TaskPoolExecutor mExecutor;
+    private CountDownLatch mBlockingLatch;
+    private List<String> mExecutionOrder;
+
+    @Before
+    public void setUp() throws Exception {
+        mMetrics = new TaskMetrics();
+        mExecutor = new TaskPoolExecutor(TaskPool.CPU, 1, Executors.defaultThreadFactory(),
+                mMetrics);
+        mExecutionOrder = Collections.synchronizedList(new ArrayList<String>());
+        mBlockingLatch = new CountDownLatch(1);
+        // Occupy the only thread to let the following tasks wait in the queue
+        mExecutor.enqueue(new PrioritizedTask<>(TaskPriority.HIGH, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                mBlockingLatch.await();
+                return null;
+            }
+        }));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mBlockingLatch.countDown();
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void should_startTasks_orderedByPriority() throws Exception {
+        // Given
+        mExecutor.enqueue(createTask(TaskPriority.LOW, "low"));
+        mExecutor.enqueue(createTask(TaskPriority.NORMAL, "normal"));
+        final PrioritizedTask<String> last = createTask(TaskPriority.HIGH, "high");
+        mExecutor.enqueue(last);
+        // When
+        mBlockingLatch.countDown();
+        awaitTermination();
+        // Then
+        assertThat(mExecutionOrder).containsExactly("high", "normal", "low").inOrder();
+    }
+
+    @Test
+    public void should_startTasks_withSamePriority_inSubmissionOrder() throws Exception {
+        // Given
+        mExecutor.enqueue(createTask(TaskPriority.NORMAL, "first"));
+        mExecutor.enqueue(createTask(TaskPriority.NORMAL, "second"));
+        mExecutor.enqueue(createTask(TaskPriority.NORMAL, "third"));
+        // When
+        mBlockingLatch.countDown();
+        awaitTermination();
+        // Then
+        assertThat(mExecutionOrder).containsExactly("first", "second", "third").inOrder();
+    }
+
+    @Test
+    public void should_removeCancelledTask_fromQueue() throws Exception {
+        // Given
+        final PrioritizedTask<String> cancelled = createTask(TaskPriority.NORMAL, "cancelled");
+        mExecutor.enqueue(cancelled);
+        mExecutor.enqueue(createTask(TaskPriority.NORMAL, "other"));
+        // When
+        final boolean result = mExecutor.cancel(cancelled, false);
+        // Then
+        assertThat(result).isTrue();
+        assertThat(mExecutor.getQueue()).hasSize(1);
+        assertThat(mMetrics.getQueueDepth(TaskPool.CPU)).isEqualTo(1);
+        mBlockingLatch.countDown();
+        awaitTermination();
+        assertThat(cancelled.isCancelled()).isTrue();
+        assertThat(mExecutionOrder).containsExactly("other");
+    }
+
+    @Test
+    public void should_recordMetrics() throws Exception {
+        // Given
+        mExecutor.enqueue(createTask(TaskPriority.NORMAL, "first"));
+        mExecutor.enqueue(createTask(TaskPriority.NORMAL, "second"));
+        // When
+        mBlockingLatch.countDown();
+        awaitTermination();
+        // Then
+        assertThat(mMetrics.getCount(TaskPool.CPU)).isEqualTo(3L);
+        assertThat(mMetrics.getMaxQueueDepth(TaskPool.CPU)).isEqualTo(2);
+        assertThat(mMetrics.getQueueDepth(TaskPool.CPU)).isEqualTo(0);
+        assertThat(mMetrics.getCount(TaskPool.IO)).isEqualTo(0L);
+    }
+
+    private PrioritizedTask<String> createTask(final TaskPriority priority, final String name) {
+        return new PrioritizedTask<>(priority, new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                mExecutionOrder.add(name);
+                return name;
+            }
+        });
+    }
+
+    private void awaitTermination() throws InterruptedException {
+        mExecutor.shutdown();
+        assertThat(mExecutor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
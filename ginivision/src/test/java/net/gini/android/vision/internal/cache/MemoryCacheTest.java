@@ -0,0 +1,175 @@
+package net.gini.android.vision.internal.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import android.content.Context;
+import android.util.LruCache;
+
+import net.gini.android.vision.AsyncCallback;
+import net.gini.android.vision.internal.async.TaskPriority;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+@RunWith(AndroidJUnit4.class)
+public class MemoryCacheTest {
+
+    private Context mContext;
+    private TestMemoryCache mCache;
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = mock(Context.class);
+        mCache = new TestMemoryCache(1);
+    }
+
+    @Test
+    public void should_startQueuedWorkers_orderedByPriority() {
+        // Given
+        mCache.get(mContext, "running", new TestCallback());
+        mCache.get(mContext, "low", TaskPriority.LOW, new TestCallback());
+        mCache.get(mContext, "high", TaskPriority.HIGH, new TestCallback());
+        // When
+        mCache.completeWorker("running");
+        // Then
+        assertThat(mCache.getStartedKeys()).containsExactly("running", "high").inOrder();
+    }
+
+    @Test
+    public void should_notLoadValue_whenQueuedRequestCancelled() {
+        // Given
+        mCache.get(mContext, "running", new TestCallback());
+        final TestCallback callback = new TestCallback();
+        final LoadRequest request = mCache.get(mContext, "skipped", callback);
+        // When
+        request.cancel();
+        mCache.completeWorker("running");
+        // Then
+        assertThat(mCache.getStartedKeys()).containsExactly("running");
+        assertThat(callback.results).isEmpty();
+    }
+
+    @Test
+    public void should_loadValue_whenOtherRequestStillWaiting() {
+        // Given
+        mCache.get(mContext, "running", new TestCallback());
+        final TestCallback callback = new TestCallback();
+        final LoadRequest request = mCache.get(mContext, "shared", new TestCallback());
+        mCache.get(mContext, "shared", callback);
+        // When
+        request.cancel();
+        mCache.completeWorker("running");
+        mCache.completeWorker("shared");
+        // Then
+        assertThat(callback.results).containsExactly("shared-value");
+    }
+
+    @Test
+    public void should_raisePriority_ofQueuedWorker() {
+        // Given
+        mCache.get(mContext, "running", new TestCallback());
+        mCache.get(mContext, "first", new TestCallback());
+        final LoadRequest request = mCache.get(mContext, "second", new TestCallback());
+        // When
+        request.setPriority(TaskPriority.HIGH);
+        mCache.completeWorker("running");
+        // Then
+        assertThat(mCache.getStartedKeys()).containsExactly("running", "second").inOrder();
+    }
+
+    @Test
+    public void should_notStartSecondWorker_whenValueIsLoading() {
+        // Given
+        final TestCallback first = new TestCallback();
+        final TestCallback second = new TestCallback();
+        mCache.get(mContext, "key", first);
+        mCache.get(mContext, "key", second);
+        // When
+        mCache.completeWorker("key");
+        // Then
+        assertThat(mCache.getStartedKeys()).containsExactly("key");
+        assertThat(first.results).containsExactly("key-value");
+        assertThat(second.results).containsExactly("key-value");
+    }
+
+    @Test
+    public void should_cacheValue_whenRunningRequestCancelled() {
+        // Given
+        final LoadRequest request = mCache.get(mContext, "key", new TestCallback());
+        request.cancel();
+        mCache.completeWorker("key");
+        final TestCallback callback = new TestCallback();
+        // When
+        mCache.get(mContext, "key", callback);
+        // Then
+        assertThat(mCache.getStartedKeys()).containsExactly("key");
+        assertThat(callback.results).containsExactly("key-value");
+    }
+
+    private static class TestCallback implements AsyncCallback<String, Exception> {
+
+        final List<String> results = new ArrayList<>();
+
+        @Override
+        public void onSuccess(final String result) {
+            results.add(result);
+        }
+
+        @Override
+        public void onError(final Exception exception) {
+        }
+
+        @Override
+        public void onCancelled() {
+        }
+    }
+
+    private static class TestMemoryCache extends MemoryCache<String, String> {
+
+        private final Map<String, AsyncCallback<String, Exception>> mStartedWorkers =
+                new LinkedHashMap<>();
+
+        TestMemoryCache(final int runningWorkersLimit) {
+            super(runningWorkersLimit);
+        }
+
+        @Override
+        protected LruCache<String, String> createCache() {
+            return new LruCache<>(10);
+        }
+
+        @Override
+        protected Worker<String, String> createWorker(
+                @NonNull final List<Worker<String, String>> runningWorkers,
+                @NonNull final String subject,
+                @NonNull final AsyncCallback<String, Exception> callback) {
+            return new Worker<String, String>(runningWorkers, subject, callback) {
+                @Override
+                protected void doExecute(@NonNull final Context context,
+                        @NonNull final String subject,
+                        @NonNull final AsyncCallback<String, Exception> callback) {
+                    mStartedWorkers.put(subject, callback);
+                }
+            };
+        }
+
+        List<String> getStartedKeys() {
+            return new ArrayList<>(mStartedWorkers.keySet());
+        }
+
+        void completeWorker(@NonNull final String key) {
+            mStartedWorkers.get(key).onSuccess(key + "-value");
+        }
+    }
+}
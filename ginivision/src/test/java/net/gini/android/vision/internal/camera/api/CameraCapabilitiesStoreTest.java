@@ -0,0 +1,149 @@
+package net.gini.android.vision.internal.camera.api;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import android.hardware.Camera;
+
+import net.gini.android.vision.internal.util.Size;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+@RunWith(AndroidJUnit4.class)
+public class CameraCapabilitiesStoreTest {
+
+    @After
+    public void tearDown() {
+        new CameraCapabilitiesStore(getApplicationContext(), "fingerprint").clear();
+    }
+
+    @Test
+    public void should_loadSavedCapabilities() {
+        // Given
+        final CameraCapabilitiesStore store = new CameraCapabilitiesStore(
+                getApplicationContext(), "fingerprint");
+        // When
+        store.save(createCapabilities());
+        // Then
+        final CameraCapabilities capabilities = store.load();
+        assertThat(capabilities).isNotNull();
+        assertThat(capabilities.getPictureSizes()).asList().containsExactly(
+                new Size(4032, 3024), new Size(3840, 2160)).inOrder();
+        assertThat(capabilities.getPreviewSizes()).asList().containsExactly(
+                new Size(1440, 1080));
+        assertThat(capabilities.isFocusModeSupported(
+                Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE)).isTrue();
+        assertThat(capabilities.isFocusModeSupported(Camera.Parameters.FOCUS_MODE_MACRO))
+                .isFalse();
+        assertThat(capabilities.isFlashModeSupported(Camera.Parameters.FLASH_MODE_ON)).isFalse();
+        assertThat(capabilities.getOrientation()).isEqualTo(90);
+    }
+
+    @Test
+    public void should_notLoadCapabilities_ofAnotherOsBuild() {
+        // Given
+        new CameraCapabilitiesStore(getApplicationContext(), "fingerprint").save(
+                createCapabilities());
+        // When
+        final CameraCapabilities capabilities = new CameraCapabilitiesStore(
+                getApplicationContext(), "updated fingerprint").load();
+        // Then
+        assertThat(capabilities).isNull();
+    }
+
+    @Test
+    public void should_loadSavedConfiguration() {
+        // Given
+        final CameraCapabilitiesStore store = new CameraCapabilitiesStore(
+                getApplicationContext(), "fingerprint");
+        // When
+        store.saveConfiguration(new CameraConfiguration(new Size(4032, 3024),
+                new Size(1440, 1080), Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE, null));
+        // Then
+        final CameraConfiguration configuration = store.loadConfiguration();
+        assertThat(configuration).isNotNull();
+        assertThat(configuration.pictureSize.width).isEqualTo(4032);
+        assertThat(configuration.pictureSize.height).isEqualTo(3024);
+        assertThat(configuration.previewSize.width).isEqualTo(1440);
+        assertThat(configuration.previewSize.height).isEqualTo(1080);
+        assertThat(configuration.focusMode).isEqualTo(
+                Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE);
+        assertThat(configuration.flashMode).isNull();
+    }
+
+    @Test
+    public void should_notLoadConfiguration_ofAnotherOsBuild() {
+        // Given
+        new CameraCapabilitiesStore(getApplicationContext(), "fingerprint").saveConfiguration(
+                new CameraConfiguration(new Size(4032, 3024), new Size(1440, 1080), null,
+                        null));
+        // When
+        final CameraConfiguration configuration = new CameraCapabilitiesStore(
+                getApplicationContext(), "updated fingerprint").loadConfiguration();
+        // Then
+        assertThat(configuration).isNull();
+    }
+
+    @Test
+    public void should_notLoadCapabilities_ofAnotherOsBuild_afterSavingConfiguration() {
+        // Given
+        new CameraCapabilitiesStore(getApplicationContext(), "fingerprint").save(
+                createCapabilities());
+        final CameraCapabilitiesStore store = new CameraCapabilitiesStore(
+                getApplicationContext(), "updated fingerprint");
+        // When
+        store.saveConfiguration(new CameraConfiguration(new Size(4032, 3024),
+                new Size(1440, 1080), null, null));
+        // Then
+        assertThat(store.load()).isNull();
+        assertThat(store.loadConfiguration()).isNotNull();
+    }
+
+    @Test
+    public void should_keepCapabilities_afterClearingConfiguration() {
+        // Given
+        final CameraCapabilitiesStore store = new CameraCapabilitiesStore(
+                getApplicationContext(), "fingerprint");
+        store.save(createCapabilities());
+        store.saveConfiguration(new CameraConfiguration(new Size(4032, 3024),
+                new Size(1440, 1080), null, null));
+        // When
+        store.clearConfiguration();
+        // Then
+        assertThat(store.loadConfiguration()).isNull();
+        assertThat(store.load()).isNotNull();
+    }
+
+    @Test
+    public void should_clearConfiguration_withCapabilities() {
+        // Given
+        final CameraCapabilitiesStore store = new CameraCapabilitiesStore(
+                getApplicationContext(), "fingerprint");
+        store.save(createCapabilities());
+        store.saveConfiguration(new CameraConfiguration(new Size(4032, 3024),
+                new Size(1440, 1080), null, null));
+        // When
+        store.clear();
+        // Then
+        assertThat(store.load()).isNull();
+        assertThat(store.loadConfiguration()).isNull();
+    }
+
+    private CameraCapabilities createCapabilities() {
+        return new CameraCapabilities(
+                new Size[]{new Size(4032, 3024), new Size(3840, 2160)},
+                new Size[]{new Size(1440, 1080)},
+                Arrays.asList(Camera.Parameters.FOCUS_MODE_AUTO,
+                        Camera.Parameters.FOCUS_MODE_CONTINUOUS_PICTURE),
+                Collections.<String>emptyList(),
+                90);
+    }
+}
@@ -0,0 +1,76 @@
+package net.gini.android.vision.internal.camera.edge;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DocumentEdgeDetectorTest {
+
+    // Corners may be off by one pixel in the downsampled frame and a little more in perspective
+    private static final double CORNER_TOLERANCE = 0.02;
+
+    @Test
+    public void should_detectDocumentCorners_inCorpusFrames() {
+        // Given
+        final DocumentEdgeDetector detector = new DocumentEdgeDetector();
+        for (final Nv21FrameCorpus.Frame frame : Nv21FrameCorpus.framesWithDocument()) {
+            // When
+            final DocumentQuadrilateral quadrilateral = detector.detect(frame.image, frame.size,
+                    frame.rotation);
+            // Then
+            assertThat(quadrilateral).named(frame.name).isNotNull();
+            for (int corner = 0; corner < 4; corner++) {
+                assertThat(quadrilateral.getX(corner)).named(frame.name + " x of " + corner)
+                        .isWithin(CORNER_TOLERANCE).of(frame.expectedCorners[2 * corner]);
+                assertThat(quadrilateral.getY(corner)).named(frame.name + " y of " + corner)
+                        .isWithin(CORNER_TOLERANCE).of(frame.expectedCorners[2 * corner + 1]);
+            }
+        }
+    }
+
+    @Test
+    public void should_notDetectDocument_inCorpusFramesWithoutCompleteDocument() {
+        // Given
+        final DocumentEdgeDetector detector = new DocumentEdgeDetector();
+        for (final Nv21FrameCorpus.Frame frame : Nv21FrameCorpus.framesWithoutDocument()) {
+            // When
+            final DocumentQuadrilateral quadrilateral = detector.detect(frame.image, frame.size,
+                    frame.rotation);
+            // Then
+            assertThat(quadrilateral).named(frame.name).isNull();
+        }
+    }
+
+    @Test
+    public void should_detectDocument_afterFramesOfAnotherSize() {
+        // Given
+        final DocumentEdgeDetector detector = new DocumentEdgeDetector();
+        final Nv21FrameCorpus.Frame small = Nv21FrameCorpus.framesWithDocument().get(0);
+        final Nv21FrameCorpus.Frame large = Nv21FrameCorpus.framesWithDocument().get(1);
+        detector.detect(small.image, small.size, small.rotation);
+        // When
+        final DocumentQuadrilateral quadrilateral = detector.detect(large.image, large.size,
+                large.rotation);
+        // Then
+        assertThat(quadrilateral).isNotNull();
+        assertThat(quadrilateral.getX(DocumentQuadrilateral.TOP_LEFT))
+                .isWithin(CORNER_TOLERANCE).of(large.expectedCorners[0]);
+    }
+
+    @Test
+    public void should_detectDocument_inLoadedFrame_afterTheImageWasReused() {
+        // Given
+        final DocumentEdgeDetector detector = new DocumentEdgeDetector();
+        final Nv21FrameCorpus.Frame frame = Nv21FrameCorpus.framesWithDocument().get(0);
+        final byte[] image = frame.image.clone();
+        detector.loadFrame(image, frame.size);
+        // When
+        java.util.Arrays.fill(image, (byte) 0);
+        final DocumentQuadrilateral quadrilateral = detector.detect(frame.rotation);
+        // Then
+        assertThat(quadrilateral).isNotNull();
+    }
+}
@@ -0,0 +1,80 @@
+package net.gini.android.vision.internal.camera.edge;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DocumentEdgeSmootherTest {
+
+    private static DocumentQuadrilateral rectangle(final float left, final float top,
+            final float right, final float bottom) {
+        return DocumentQuadrilateral.fromCorners(
+                new float[]{left, top, right, top, right, bottom, left, bottom});
+    }
+
+    @Test
+    public void should_returnFirstDetection_unchanged() {
+        // Given
+        final DocumentEdgeSmoother smoother = new DocumentEdgeSmoother();
+        final DocumentQuadrilateral detected = rectangle(0.2f, 0.2f, 0.8f, 0.8f);
+        // When
+        final DocumentQuadrilateral smoothed = smoother.update(detected);
+        // Then
+        assertThat(smoothed).isEqualTo(detected);
+    }
+
+    @Test
+    public void should_smoothSmallMovements() {
+        // Given
+        final DocumentEdgeSmoother smoother = new DocumentEdgeSmoother();
+        smoother.update(rectangle(0.2f, 0.2f, 0.8f, 0.8f));
+        // When
+        final DocumentQuadrilateral smoothed = smoother.update(rectangle(0.24f, 0.2f, 0.8f, 0.8f));
+        // Then
+        assertThat(smoothed.getX(DocumentQuadrilateral.TOP_LEFT)).isWithin(0.001f).of(0.22f);
+    }
+
+    @Test
+    public void should_followLargeMovements_immediately() {
+        // Given
+        final DocumentEdgeSmoother smoother = new DocumentEdgeSmoother();
+        smoother.update(rectangle(0.2f, 0.2f, 0.8f, 0.8f));
+        final DocumentQuadrilateral moved = rectangle(0.05f, 0.1f, 0.6f, 0.9f);
+        // When
+        final DocumentQuadrilateral smoothed = smoother.update(moved);
+        // Then
+        assertThat(smoothed).isEqualTo(moved);
+    }
+
+    @Test
+    public void should_keepDocument_forFewFramesWithoutDetection() {
+        // Given
+        final DocumentEdgeSmoother smoother = new DocumentEdgeSmoother();
+        final DocumentQuadrilateral detected = rectangle(0.2f, 0.2f, 0.8f, 0.8f);
+        smoother.update(detected);
+        // When
+        DocumentQuadrilateral smoothed = null;
+        for (int i = 0; i < DocumentEdgeSmoother.MAX_MISSED_FRAMES; i++) {
+            smoothed = smoother.update(null);
+        }
+        // Then
+        assertThat(smoothed).isEqualTo(detected);
+    }
+
+    @Test
+    public void should_hideDocument_afterTooManyFramesWithoutDetection() {
+        // Given
+        final DocumentEdgeSmoother smoother = new DocumentEdgeSmoother();
+        smoother.update(rectangle(0.2f, 0.2f, 0.8f, 0.8f));
+        // When
+        DocumentQuadrilateral smoothed = null;
+        for (int i = 0; i <= DocumentEdgeSmoother.MAX_MISSED_FRAMES; i++) {
+            smoothed = smoother.update(null);
+        }
+        // Then
+        assertThat(smoothed).isNull();
+    }
+}
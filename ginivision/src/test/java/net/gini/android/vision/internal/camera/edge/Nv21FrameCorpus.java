@@ -0,0 +1,212 @@
+package net.gini.android.vision.internal.camera.edge;
+
+import net.gini.android.vision.internal.util.Size;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * NV21 preview frames rendered from a description of the scene, so the corpus doesn't need binary
+ * fixtures. Noise is seeded and the frames are the same on every run.
+ */
+final class Nv21FrameCorpus {
+
+    static final class Frame {
+
+        final String name;
+        final byte[] image;
+        final Size size;
+        final int rotation;
+        // Expected corners normalized to the display orientation starting at the top left in
+        // clockwise order or null, if no document should be detected
+        @Nullable
+        final float[] expectedCorners;
+
+        Frame(@NonNull final String name, @NonNull final byte[] image, @NonNull final Size size,
+                final int rotation, @Nullable final float[] expectedCorners) {
+            this.name = name;
+            this.image = image;
+            this.size = size;
+            this.rotation = rotation;
+            this.expectedCorners = expectedCorners;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    @NonNull
+    static List<Frame> framesWithDocument() {
+        return Arrays.asList(
+                document("light document on a dark table", new Size(640, 480),
+                        new float[]{200, 40, 440, 40, 440, 440, 200, 440},
+                        220, 60, 6, false, false),
+                document("document in perspective", new Size(1280, 960),
+                        new float[]{300, 120, 1000, 160, 1080, 860, 220, 820},
+                        210, 70, 8, false, false),
+                document("tilted document", new Size(1280, 960),
+                        tiltedRectangle(640, 480, 560, 760, 12),
+                        205, 50, 8, false, false),
+                document("dark document on a light table", new Size(640, 480),
+                        new float[]{160, 60, 480, 80, 470, 420, 150, 400},
+                        70, 200, 6, false, false),
+                document("document with text", new Size(1280, 960),
+                        new float[]{280, 80, 1000, 100, 1010, 880, 270, 870},
+                        225, 65, 8, true, false),
+                document("document on a wooden table", new Size(1280, 960),
+                        new float[]{260, 100, 1020, 90, 1040, 880, 250, 890},
+                        230, 110, 8, true, true),
+                rotatedDocument());
+    }
+
+    @NonNull
+    static List<Frame> framesWithoutDocument() {
+        return Arrays.asList(
+                document("uniform gray", new Size(640, 480), null, 128, 128, 0, false, false),
+                document("noise", new Size(1280, 960), null, 128, 128, 40, false, false),
+                document("wooden table", new Size(1280, 960), null, 110, 110, 8, false, true),
+                document("document cut off at the left and bottom", new Size(1280, 960),
+                        new float[]{-200, 200, 900, 180, 940, 1200, -240, 1220},
+                        220, 60, 8, false, false),
+                document("document too small", new Size(1280, 960),
+                        new float[]{560, 380, 720, 380, 720, 580, 560, 580},
+                        220, 60, 8, false, false));
+    }
+
+    @NonNull
+    private static Frame rotatedDocument() {
+        // A 16:9 landscape sensor frame shown in portrait, as on most phones
+        final Size size = new Size(1920, 1080);
+        final float[] corners = {360, 150, 1560, 170, 1580, 930, 340, 910};
+        final byte[] image = render(size, corners, 215, 55, 8, true, false);
+        // Rotating clockwise by 90 degrees: display x = 1 - y, display y = x
+        final float[] expected = new float[8];
+        // The display top left is the image's bottom left
+        final int[] order = {3, 0, 1, 2};
+        for (int i = 0; i < 4; i++) {
+            final float x = corners[2 * order[i]] / size.width;
+            final float y = corners[2 * order[i] + 1] / size.height;
+            expected[2 * i] = 1 - y;
+            expected[2 * i + 1] = x;
+        }
+        return new Frame("document in a rotated frame", image, size, 90, expected);
+    }
+
+    @NonNull
+    private static Frame document(@NonNull final String name, @NonNull final Size size,
+            @Nullable final float[] corners, final int documentLuminance,
+            final int backgroundLuminance, final int noise, final boolean text,
+            final boolean woodenTable) {
+        final byte[] image = render(size, corners, documentLuminance, backgroundLuminance, noise,
+                text, woodenTable);
+        float[] expected = null;
+        if (corners != null) {
+            expected = new float[8];
+            for (int i = 0; i < 4; i++) {
+                expected[2 * i] = corners[2 * i] / size.width;
+                expected[2 * i + 1] = corners[2 * i + 1] / size.height;
+            }
+        }
+        return new Frame(name, image, size, 0, expected);
+    }
+
+    @NonNull
+    private static float[] tiltedRectangle(final float centerX, final float centerY,
+            final float width, final float height, final float degrees) {
+        final double radians = Math.toRadians(degrees);
+        final float cos = (float) Math.cos(radians);
+        final float sin = (float) Math.sin(radians);
+        final float[] offsets = {-width / 2, -height / 2, width / 2, -height / 2,
+                width / 2, height / 2, -width / 2, height / 2};
+        final float[] corners = new float[8];
+        for (int i = 0; i < 4; i++) {
+            final float x = offsets[2 * i];
+            final float y = offsets[2 * i + 1];
+            corners[2 * i] = centerX + x * cos - y * sin;
+            corners[2 * i + 1] = centerY + x * sin + y * cos;
+        }
+        return corners;
+    }
+
+    /**
+     * Renders the luminance plane with the document as a clockwise quadrilateral and fills the
+     * chroma plane with neutral gray.
+     */
+    @NonNull
+    private static byte[] render(@NonNull final Size size, @Nullable final float[] corners,
+            final int documentLuminance, final int backgroundLuminance, final int noise,
+            final boolean text, final boolean woodenTable) {
+        final byte[] image = new byte[size.width * size.height * 3 / 2];
+        final Random random = new Random(size.width * 31L + size.height);
+        for (int y = 0; y < size.height; y++) {
+            for (int x = 0; x < size.width; x++) {
+                int luminance;
+                if (corners != null && isInside(corners, x + 0.5f, y + 0.5f)) {
+                    luminance = documentLuminance;
+                    if (text && isText(corners, x, y)) {
+                        luminance = 40;
+                    }
+                } else {
+                    luminance = backgroundLuminance;
+                    if (woodenTable) {
+                        luminance += (int) (12 * Math.sin(y / 9.0 + Math.sin(x / 60.0) * 2));
+                    }
+                }
+                if (noise > 0) {
+                    luminance += (int) (random.nextGaussian() * noise);
+                }
+                image[y * size.width + x] = (byte) Math.max(0, Math.min(255, luminance));
+            }
+        }
+        Arrays.fill(image, size.width * size.height, image.length, (byte) 128);
+        return image;
+    }
+
+    private static boolean isInside(@NonNull final float[] corners, final float x,
+            final float y) {
+        for (int i = 0; i < 4; i++) {
+            final int next = (i + 1) % 4;
+            final float cross = (corners[2 * next] - corners[2 * i]) * (y - corners[2 * i + 1])
+                    - (corners[2 * next + 1] - corners[2 * i + 1]) * (x - corners[2 * i]);
+            if (cross < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lines of text are bars inside the document's bounding box, keeping a margin to the edges.
+     */
+    private static boolean isText(@NonNull final float[] corners, final int x, final int y) {
+        float minX = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            minX = Math.min(minX, corners[2 * i]);
+            maxX = Math.max(maxX, corners[2 * i]);
+            minY = Math.min(minY, corners[2 * i + 1]);
+            maxY = Math.max(maxY, corners[2 * i + 1]);
+        }
+        final float marginX = (maxX - minX) * 0.15f;
+        final float marginY = (maxY - minY) * 0.15f;
+        if (x < minX + marginX || x > maxX - marginX || y < minY + marginY
+                || y > maxY - marginY) {
+            return false;
+        }
+        final float lineHeight = (maxY - minY) / 24;
+        final int line = (int) ((y - minY) / lineHeight);
+        // Every other line is text and the words are separated by gaps
+        return line % 2 == 0 && ((int) (x - minX) / 40) % 4 != 3;
+    }
+
+    private Nv21FrameCorpus() {
+    }
+}
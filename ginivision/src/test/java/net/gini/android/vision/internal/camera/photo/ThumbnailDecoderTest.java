@@ -0,0 +1,49 @@
+package net.gini.android.vision.internal.camera.photo;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import net.gini.android.vision.internal.util.Size;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ThumbnailDecoderTest {
+
+    @Test
+    public void should_scaleDown_toCoverTargetSize() {
+        // When
+        final Size size = ThumbnailDecoder.calculateScaledSize(new Size(4000, 3000),
+                new Size(288, 492));
+        // Then
+        assertThat(size).isEqualTo(new Size(656, 492));
+    }
+
+    @Test
+    public void should_keepImageSize_whenSmallerThanTargetSize() {
+        // When
+        final Size size = ThumbnailDecoder.calculateScaledSize(new Size(200, 100),
+                new Size(288, 492));
+        // Then
+        assertThat(size).isEqualTo(new Size(200, 100));
+    }
+
+    @Test
+    public void should_useLargestSampleSize_whichCoversThumbnailSize() {
+        // When
+        final int inSampleSize = ThumbnailDecoder.calculateInSampleSize(new Size(4000, 3000),
+                new Size(656, 492));
+        // Then
+        assertThat(inSampleSize).isEqualTo(4);
+    }
+
+    @Test
+    public void should_notSample_whenImageIsNotTwiceAsLarge() {
+        // When
+        final int inSampleSize = ThumbnailDecoder.calculateInSampleSize(new Size(1000, 750),
+                new Size(656, 492));
+        // Then
+        assertThat(inSampleSize).isEqualTo(1);
+    }
+}
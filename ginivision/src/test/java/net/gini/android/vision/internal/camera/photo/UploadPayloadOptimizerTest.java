@@ -0,0 +1,183 @@
+package net.gini.android.vision.internal.camera.photo;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import net.gini.android.vision.network.UploadPayloadStatistics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+
+@RunWith(JUnit4.class)
+public class UploadPayloadOptimizerTest {
+
+    private static final int BUDGET = 400 * 1024;
+    private static final long PIXEL_COUNT = 4000L * 3000L;
+
+    @Test
+    public void should_useConfiguredBudget_whenThroughputIsUnknown() {
+        // Given
+        final UploadPayloadOptimizer optimizer = createOptimizer(-1);
+        // Then
+        assertThat(optimizer.getPageByteBudget()).isEqualTo((long) BUDGET);
+    }
+
+    @Test
+    public void should_lowerBudget_onSlowLinks() {
+        // Given
+        final UploadPayloadOptimizer optimizer = createOptimizer(50 * 1024);
+        // Then
+        assertThat(optimizer.getPageByteBudget()).isEqualTo(200L * 1024);
+    }
+
+    @Test
+    public void should_notLowerBudget_belowMinimum() {
+        // Given
+        final UploadPayloadOptimizer optimizer = createOptimizer(1024);
+        // Then
+        assertThat(optimizer.getPageByteBudget()).isEqualTo(
+                (long) UploadPayloadOptimizer.MIN_PAGE_BYTE_BUDGET);
+    }
+
+    @Test
+    public void should_useHigherQuality_forDenseText() {
+        // Given
+        final UploadPayloadOptimizer optimizer = createOptimizer(-1);
+        // When
+        final UploadPayloadOptimizer.Parameters sparse = optimizer.getInitialParameters(0.1);
+        final UploadPayloadOptimizer.Parameters dense = optimizer.getInitialParameters(0.9);
+        // Then
+        assertThat(dense.getJpegQuality()).isGreaterThan(sparse.getJpegQuality());
+        assertThat(sparse.getJpegQuality()).isAtLeast(UploadPayloadOptimizer.MIN_JPEG_QUALITY);
+        assertThat(dense.getJpegQuality()).isAtMost(UploadPayloadOptimizer.MAX_JPEG_QUALITY);
+        assertThat(dense.getScale()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void should_notAdjust_whenPageFitsBudget() {
+        // Given
+        final UploadPayloadOptimizer optimizer = createOptimizer(-1);
+        final UploadPayloadOptimizer.Parameters parameters = optimizer.getInitialParameters(0.5);
+        // Then
+        assertThat(optimizer.adjust(parameters, BUDGET, PIXEL_COUNT)).isNull();
+    }
+
+    @Test
+    public void should_lowerQuality_beforeDownscaling() {
+        // Given
+        final UploadPayloadOptimizer optimizer = createOptimizer(-1);
+        final UploadPayloadOptimizer.Parameters parameters = optimizer.getInitialParameters(0.5);
+        // When
+        final UploadPayloadOptimizer.Parameters adjusted = optimizer.adjust(parameters,
+                BUDGET * 2, PIXEL_COUNT);
+        // Then
+        assertThat(adjusted).isNotNull();
+        assertThat(adjusted.getJpegQuality()).isLessThan(parameters.getJpegQuality());
+        assertThat(adjusted.getScale()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void should_downscale_whenQualityCannotBeLowered() {
+        // Given
+        final UploadPayloadOptimizer optimizer = createOptimizer(-1);
+        final UploadPayloadOptimizer.Parameters parameters =
+                new UploadPayloadOptimizer.Parameters(UploadPayloadOptimizer.MIN_JPEG_QUALITY, 1,
+                        0);
+        // When
+        final UploadPayloadOptimizer.Parameters adjusted = optimizer.adjust(parameters,
+                BUDGET * 2, PIXEL_COUNT);
+        // Then
+        assertThat(adjusted).isNotNull();
+        assertThat(adjusted.getJpegQuality()).isEqualTo(UploadPayloadOptimizer.MIN_JPEG_QUALITY);
+        assertThat(adjusted.getScale()).isLessThan(1.0);
+    }
+
+    @Test
+    public void should_notDownscale_belowMinimumPixelCount() {
+        // Given
+        final UploadPayloadOptimizer optimizer = createOptimizer(-1);
+        final UploadPayloadOptimizer.Parameters parameters =
+                new UploadPayloadOptimizer.Parameters(UploadPayloadOptimizer.MIN_JPEG_QUALITY, 1,
+                        0);
+        // When
+        final UploadPayloadOptimizer.Parameters adjusted = optimizer.adjust(parameters,
+                BUDGET * 100, PIXEL_COUNT);
+        // Then
+        assertThat(adjusted).isNotNull();
+        final double pixelCount = PIXEL_COUNT * adjusted.getScale() * adjusted.getScale();
+        assertThat(pixelCount).isAtLeast(UploadPayloadOptimizer.MIN_PIXEL_COUNT - 1.0);
+        assertThat(optimizer.adjust(adjusted, BUDGET * 100, PIXEL_COUNT)).isNull();
+    }
+
+    @Test
+    public void should_estimateNoText_forUniformImage() {
+        // Given
+        final int[] luminance = new int[100 * 100];
+        Arrays.fill(luminance, 200);
+        // Then
+        assertThat(UploadPayloadOptimizer.estimateTextDensity(luminance, 100, 100))
+                .isEqualTo(0.0);
+    }
+
+    @Test
+    public void should_estimateDenseText_forHighContrastPattern() {
+        // Given
+        final int width = 100;
+        final int height = 100;
+        final int[] luminance = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                luminance[y * width + x] = (x / 2 + y / 2) % 2 == 0 ? 20 : 230;
+            }
+        }
+        // Then
+        assertThat(UploadPayloadOptimizer.estimateTextDensity(luminance, width, height))
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    public void should_formatParameters_forUserComment() {
+        // Given
+        final UploadPayloadOptimizer.Parameters parameters =
+                new UploadPayloadOptimizer.Parameters(62, 0.8, 0.35);
+        // Then
+        assertThat(parameters.toUserCommentValue()).isEqualTo("q62s0.80t0.35");
+    }
+
+    @Test
+    public void should_recordBytesSaved() {
+        // Given
+        final UploadPayloadStatistics statistics = new UploadPayloadStatistics();
+        final UploadPayloadOptimizer optimizer = new UploadPayloadOptimizer(BUDGET, null,
+                statistics);
+        // When
+        optimizer.recordResult(1000, 400, new UploadPayloadOptimizer.Parameters(60, 1, 0.5));
+        optimizer.recordResult(2000, 600, new UploadPayloadOptimizer.Parameters(40, 0.5, 0.5));
+        // Then
+        assertThat(statistics.getPageCount()).isEqualTo(2L);
+        assertThat(statistics.getBytesSaved()).isEqualTo(2000L);
+        assertThat(statistics.getMeanJpegQuality()).isEqualTo(50);
+        assertThat(statistics.getMeanScale()).isEqualTo(0.75);
+    }
+
+    private static UploadPayloadOptimizer createOptimizer(final double throughput) {
+        return new UploadPayloadOptimizer(BUDGET, new FixedThroughput(throughput),
+                new UploadPayloadStatistics());
+    }
+
+    private static class FixedThroughput implements UploadPayloadOptimizer.ThroughputSource {
+
+        private final double mThroughput;
+
+        FixedThroughput(final double throughput) {
+            mThroughput = throughput;
+        }
+
+        @Override
+        public double getUploadThroughputBytesPerSecond() {
+            return mThroughput;
+        }
+    }
+}
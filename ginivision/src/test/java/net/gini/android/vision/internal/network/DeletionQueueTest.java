@@ -0,0 +1,157 @@
+package net.gini.android.vision.internal.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+@RunWith(AndroidJUnit4.class)
+public class DeletionQueueTest {
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            command.run();
+        }
+    };
+
+    private File mQueueFile;
+    private RecordingSender mSender;
+
+    @Before
+    public void setUp() {
+        mQueueFile = new File(getApplicationContext().getFilesDir(), DeletionQueue.QUEUE_FILE);
+        //noinspection ResultOfMethodCallIgnored
+        mQueueFile.delete();
+        mSender = new RecordingSender();
+    }
+
+    @Test
+    public void should_deleteCompositeDocuments_beforePartialDocuments() {
+        // Given
+        final DeletionQueue deletionQueue = createDeletionQueue(mSender);
+        // When
+        deletionQueue.enqueue(Collections.singletonList("composite"),
+                Arrays.asList("partial1", "partial2"));
+        // Then
+        assertThat(mSender.mSent).containsExactly("composite");
+        // When
+        mSender.complete("composite");
+        // Then
+        assertThat(mSender.mSent).containsExactly("composite", "partial1", "partial2").inOrder();
+    }
+
+    @Test
+    public void should_notEnqueueDocumentTwice() {
+        // Given
+        final DeletionQueue deletionQueue = createDeletionQueue(mSender);
+        // When
+        deletionQueue.enqueue(Collections.<String>emptyList(), Collections.singletonList("1"));
+        deletionQueue.enqueue(Collections.<String>emptyList(), Collections.singletonList("1"));
+        // Then
+        assertThat(mSender.mSent).containsExactly("1");
+        assertThat(deletionQueue.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_removeDeletedDocuments() {
+        // Given
+        final DeletionQueue deletionQueue = createDeletionQueue(mSender);
+        deletionQueue.enqueue(Collections.<String>emptyList(), Arrays.asList("1", "2"));
+        // When
+        mSender.complete("1");
+        mSender.complete("2");
+        // Then
+        assertThat(deletionQueue.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_retryFailedDeletion() {
+        // Given
+        final DeletionQueue deletionQueue = createDeletionQueue(mSender);
+        deletionQueue.enqueue(Collections.<String>emptyList(), Collections.singletonList("1"));
+        // When
+        mSender.fail("1");
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMinutes(1));
+        // Then
+        assertThat(mSender.mSent).containsExactly("1", "1");
+        assertThat(deletionQueue.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_dropDocument_afterMaxAttempts() {
+        // Given
+        final DeletionQueue deletionQueue = createDeletionQueue(mSender);
+        deletionQueue.enqueue(Collections.<String>emptyList(), Collections.singletonList("1"));
+        // When
+        for (int i = 0; i < DeletionQueue.MAX_ATTEMPTS; i++) {
+            mSender.fail("1");
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMinutes(1));
+        }
+        // Then
+        assertThat(mSender.mSent).hasSize(DeletionQueue.MAX_ATTEMPTS);
+        assertThat(deletionQueue.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_resumeDeletions_ofPreviousProcess() {
+        // Given
+        final DeletionQueue deletionQueue = createDeletionQueue(new RecordingSender());
+        deletionQueue.enqueue(Collections.singletonList("composite"),
+                Collections.singletonList("partial"));
+        // When
+        final DeletionQueue restoredDeletionQueue = createDeletionQueue(mSender);
+        restoredDeletionQueue.resume();
+        // Then
+        assertThat(restoredDeletionQueue.size()).isEqualTo(2);
+        assertThat(mSender.mSent).containsExactly("composite");
+    }
+
+    private DeletionQueue createDeletionQueue(@NonNull final DeletionQueue.Sender sender) {
+        return new DeletionQueue(mQueueFile, DIRECT_EXECUTOR,
+                new Handler(Looper.getMainLooper()), sender);
+    }
+
+    private static class RecordingSender implements DeletionQueue.Sender {
+
+        private final List<String> mSent = new ArrayList<>();
+        private final Map<String, CompletableFuture<Void>> mFutures = new LinkedHashMap<>();
+
+        @Override
+        public void delete(@NonNull final String apiDocumentId,
+                @NonNull final CompletableFuture<Void> future) {
+            mSent.add(apiDocumentId);
+            mFutures.put(apiDocumentId, future);
+        }
+
+        void complete(@NonNull final String apiDocumentId) {
+            mFutures.remove(apiDocumentId).complete(null);
+        }
+
+        void fail(@NonNull final String apiDocumentId) {
+            mFutures.remove(apiDocumentId).completeExceptionally(new RuntimeException());
+        }
+    }
+}
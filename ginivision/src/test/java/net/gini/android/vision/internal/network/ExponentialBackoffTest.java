@@ -0,0 +1,81 @@
+package net.gini.android.vision.internal.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class ExponentialBackoffTest {
+
+    @Test
+    public void should_doubleDelay_afterEachFailedAttempt() {
+        // Given
+        final ExponentialBackoff backoff = new ExponentialBackoff(1000, 16000,
+                new FixedRandom(0));
+        // Then
+        assertThat(backoff.getDelayMs(1)).isEqualTo(1000L);
+        assertThat(backoff.getDelayMs(2)).isEqualTo(2000L);
+        assertThat(backoff.getDelayMs(3)).isEqualTo(4000L);
+        assertThat(backoff.getDelayMs(4)).isEqualTo(8000L);
+    }
+
+    @Test
+    public void should_capDelay_atMaxDelay() {
+        // Given
+        final ExponentialBackoff backoff = new ExponentialBackoff(1000, 5000,
+                new FixedRandom(0));
+        // Then
+        assertThat(backoff.getDelayMs(4)).isEqualTo(5000L);
+        assertThat(backoff.getDelayMs(100)).isEqualTo(5000L);
+    }
+
+    @Test
+    public void should_subtractJitter_ofUpToHalfTheDelay() {
+        // Given
+        final ExponentialBackoff backoff = new ExponentialBackoff(1000, 16000,
+                new FixedRandom(0.99999));
+        // Then
+        assertThat(backoff.getDelayMs(1)).isEqualTo(501L);
+        assertThat(backoff.getDelayMs(3)).isEqualTo(2001L);
+    }
+
+    @Test
+    public void should_keepDelays_inJitterRange() {
+        // Given
+        final ExponentialBackoff backoff = new ExponentialBackoff(1000, 16000);
+        // Then
+        for (int i = 0; i < 100; i++) {
+            final long delayMs = backoff.getDelayMs(2);
+            assertThat(delayMs).isAtLeast(1000L);
+            assertThat(delayMs).isAtMost(2000L);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throwException_forNonPositiveBaseDelay() {
+        new ExponentialBackoff(0, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_throwException_whenMaxDelay_isSmallerThanBaseDelay() {
+        new ExponentialBackoff(1000, 500);
+    }
+
+    private static class FixedRandom extends Random {
+
+        private final double mValue;
+
+        FixedRandom(final double value) {
+            mValue = value;
+        }
+
+        @Override
+        public double nextDouble() {
+            return mValue;
+        }
+    }
+}
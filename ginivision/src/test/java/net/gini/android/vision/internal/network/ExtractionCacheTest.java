@@ -0,0 +1,165 @@
+package net.gini.android.vision.internal.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import net.gini.android.vision.network.AnalysisResult;
+import net.gini.android.vision.network.model.GiniVisionBox;
+import net.gini.android.vision.network.model.GiniVisionExtraction;
+import net.gini.android.vision.network.model.GiniVisionSpecificExtraction;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+@RunWith(AndroidJUnit4.class)
+public class ExtractionCacheTest {
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            command.run();
+        }
+    };
+    private static final long TIME_TO_LIVE_MS = 60000;
+
+    private File mCacheFile;
+
+    @Before
+    public void setUp() {
+        mCacheFile = new File(getApplicationContext().getFilesDir(), ExtractionCache.CACHE_FILE);
+        //noinspection ResultOfMethodCallIgnored
+        mCacheFile.delete();
+    }
+
+    @Test
+    public void should_createKey_fromPageHashesAndNormalizedRotations() {
+        // When
+        final String key = ExtractionCache.createKey(Arrays.asList("a", "b"),
+                Arrays.asList(90, -90));
+        // Then
+        assertThat(key).isEqualTo("a:90,b:270");
+    }
+
+    @Test
+    public void should_returnCopyOfCachedResult() {
+        // Given
+        final ExtractionCache extractionCache = new ExtractionCache(4, TIME_TO_LIVE_MS);
+        extractionCache.put("key", createAnalysisResult("apiId"));
+        // When
+        final AnalysisResult cachedResult = extractionCache.get("key");
+        cachedResult.getExtractions().get("amountToPay").setValue("1.00:EUR");
+        // Then
+        final AnalysisResult otherCachedResult = extractionCache.get("key");
+        assertThat(otherCachedResult.getGiniApiDocumentId()).isEqualTo("apiId");
+        final GiniVisionSpecificExtraction extraction =
+                otherCachedResult.getExtractions().get("amountToPay");
+        assertThat(extraction.getValue()).isEqualTo("24.99:EUR");
+        assertThat(extraction.isDirty()).isFalse();
+        assertThat(extraction.getBox().getPageNumber()).isEqualTo(2);
+        assertThat(extraction.getCandidates().get(0).getValue()).isEqualTo("12.00:EUR");
+    }
+
+    @Test
+    public void should_returnNull_forUnknownKey() {
+        // Given
+        final ExtractionCache extractionCache = new ExtractionCache(4, TIME_TO_LIVE_MS);
+        extractionCache.put(ExtractionCache.createKey(Collections.singletonList("a"),
+                Collections.singletonList(0)), createAnalysisResult("apiId"));
+        // Then
+        assertThat(extractionCache.get(ExtractionCache.createKey(
+                Collections.singletonList("a"), Collections.singletonList(90)))).isNull();
+    }
+
+    @Test
+    public void should_evictLeastRecentlyUsedEntry() {
+        // Given
+        final ExtractionCache extractionCache = new ExtractionCache(2, TIME_TO_LIVE_MS);
+        extractionCache.put("1", createAnalysisResult("apiId1"));
+        extractionCache.put("2", createAnalysisResult("apiId2"));
+        extractionCache.get("1");
+        // When
+        extractionCache.put("3", createAnalysisResult("apiId3"));
+        // Then
+        assertThat(extractionCache.size()).isEqualTo(2);
+        assertThat(extractionCache.get("1")).isNotNull();
+        assertThat(extractionCache.get("2")).isNull();
+        assertThat(extractionCache.get("3")).isNotNull();
+    }
+
+    @Test
+    public void should_dropExpiredEntries() throws Exception {
+        // Given
+        final ExtractionCache extractionCache = new ExtractionCache(4, 1);
+        extractionCache.put("key", createAnalysisResult("apiId"));
+        // When
+        Thread.sleep(10);
+        // Then
+        assertThat(extractionCache.get("key")).isNull();
+    }
+
+    @Test
+    public void should_removeEntries_ofDeletedApiDocument() {
+        // Given
+        final ExtractionCache extractionCache = new ExtractionCache(4, TIME_TO_LIVE_MS);
+        extractionCache.put("1", createAnalysisResult("apiId1"));
+        extractionCache.put("2", createAnalysisResult("apiId2"));
+        // When
+        extractionCache.removeByApiDocumentId("apiId1");
+        // Then
+        assertThat(extractionCache.get("1")).isNull();
+        assertThat(extractionCache.get("2")).isNotNull();
+    }
+
+    @Test
+    public void should_restoreEntries_fromFile() {
+        // Given
+        final ExtractionCache extractionCache = new ExtractionCache(4, TIME_TO_LIVE_MS,
+                mCacheFile, DIRECT_EXECUTOR);
+        extractionCache.put("key", createAnalysisResult("apiId"));
+        // When
+        final ExtractionCache restoredExtractionCache = new ExtractionCache(4, TIME_TO_LIVE_MS,
+                mCacheFile, DIRECT_EXECUTOR);
+        // Then
+        final AnalysisResult cachedResult = restoredExtractionCache.get("key");
+        assertThat(cachedResult.getGiniApiDocumentId()).isEqualTo("apiId");
+        assertThat(cachedResult.getExtractions().get("amountToPay").getValue()).isEqualTo(
+                "24.99:EUR");
+    }
+
+    @Test
+    public void should_deleteFile_whenCleared() {
+        // Given
+        final ExtractionCache extractionCache = new ExtractionCache(4, TIME_TO_LIVE_MS,
+                mCacheFile, DIRECT_EXECUTOR);
+        extractionCache.put("key", createAnalysisResult("apiId"));
+        // When
+        extractionCache.clear();
+        // Then
+        assertThat(mCacheFile.exists()).isFalse();
+        assertThat(extractionCache.get("key")).isNull();
+    }
+
+    private static AnalysisResult createAnalysisResult(@NonNull final String apiDocumentId) {
+        final Map<String, GiniVisionSpecificExtraction> extractions = new HashMap<>();
+        extractions.put("amountToPay", new GiniVisionSpecificExtraction("amountToPay",
+                "24.99:EUR", "amount", new GiniVisionBox(2, 10, 20, 30, 40),
+                Collections.singletonList(
+                        new GiniVisionExtraction("12.00:EUR", "amount", null))));
+        extractions.put("iban", new GiniVisionSpecificExtraction("iban",
+                "DE89370400440532013000", "iban", null,
+                Collections.<GiniVisionExtraction>emptyList()));
+        return new AnalysisResult(apiDocumentId, extractions);
+    }
+}
@@ -0,0 +1,193 @@
+package net.gini.android.vision.internal.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import net.gini.android.vision.internal.network.NetworkRequestMetrics.RequestType;
+import net.gini.android.vision.util.CancellationToken;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+@RunWith(AndroidJUnit4.class)
+public class NetworkRequestSchedulerTest {
+
+    private NetworkRequestMetrics mMetrics;
+    private NetworkRequestScheduler mScheduler;
+    private List<String> mStartedRequests;
+    private List<String> mCancelledRequests;
+    private List<CompletableFuture<String>> mStartedFutures;
+
+    @Before
+    public void setUp() {
+        mMetrics = new NetworkRequestMetrics();
+        mScheduler = new NetworkRequestScheduler(mMetrics);
+        mStartedRequests = new ArrayList<>();
+        mCancelledRequests = new ArrayList<>();
+        mStartedFutures = new ArrayList<>();
+    }
+
+    @Test
+    public void should_limitRequests_inFlight() {
+        mScheduler.setMaxInFlight(2);
+
+        schedule(RequestType.UPLOAD, "1", RequestPriority.UPLOAD);
+        schedule(RequestType.UPLOAD, "2", RequestPriority.UPLOAD);
+        schedule(RequestType.UPLOAD, "3", RequestPriority.UPLOAD);
+
+        assertThat(mStartedRequests).containsExactly("1", "2").inOrder();
+        assertThat(mScheduler.getInFlightCount()).isEqualTo(2);
+        assertThat(mScheduler.getQueuedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_startNextRequest_whenARequestCompleted() {
+        mScheduler.setMaxInFlight(1);
+        final CompletableFuture<String> first = schedule(RequestType.UPLOAD, "1",
+                RequestPriority.UPLOAD);
+        schedule(RequestType.UPLOAD, "2", RequestPriority.UPLOAD);
+
+        first.complete("1");
+
+        assertThat(mStartedRequests).containsExactly("1", "2").inOrder();
+        assertThat(mScheduler.getInFlightCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_startRequests_byPriority() {
+        mScheduler.setMaxInFlight(1);
+        schedule(RequestType.UPLOAD, "1", RequestPriority.UPLOAD);
+        schedule(RequestType.DELETE, "2", RequestPriority.DELETE);
+        schedule(RequestType.UPLOAD, "3", RequestPriority.UPLOAD);
+        schedule(RequestType.UPLOAD, "4", RequestPriority.ANALYSIS);
+        schedule(RequestType.UPLOAD, "5", RequestPriority.VISIBLE_PAGE);
+
+        completeStartedRequests();
+
+        assertThat(mStartedRequests).containsExactly("1", "5", "4", "3", "2").inOrder();
+    }
+
+    @Test
+    public void should_reorderQueuedRequest_whenPriorityChanged() {
+        mScheduler.setMaxInFlight(1);
+        schedule(RequestType.UPLOAD, "1", RequestPriority.UPLOAD);
+        schedule(RequestType.UPLOAD, "2", RequestPriority.UPLOAD);
+        schedule(RequestType.UPLOAD, "3", RequestPriority.UPLOAD);
+
+        assertThat(mScheduler.setPriority(RequestType.UPLOAD, "3",
+                RequestPriority.VISIBLE_PAGE, false)).isTrue();
+        completeStartedRequests();
+
+        assertThat(mStartedRequests).containsExactly("1", "3", "2").inOrder();
+    }
+
+    @Test
+    public void should_notLowerPriority_whenOnlyRaising() {
+        mScheduler.setMaxInFlight(1);
+        schedule(RequestType.UPLOAD, "1", RequestPriority.UPLOAD);
+        schedule(RequestType.UPLOAD, "2", RequestPriority.UPLOAD);
+        schedule(RequestType.UPLOAD, "3", RequestPriority.VISIBLE_PAGE);
+
+        mScheduler.setPriority(RequestType.UPLOAD, "3", RequestPriority.UPLOAD, true);
+        completeStartedRequests();
+
+        assertThat(mStartedRequests).containsExactly("1", "3", "2").inOrder();
+    }
+
+    @Test
+    public void should_notChangePriority_ofStartedRequests() {
+        schedule(RequestType.UPLOAD, "1", RequestPriority.UPLOAD);
+
+        assertThat(mScheduler.setPriority(RequestType.UPLOAD, "1",
+                RequestPriority.VISIBLE_PAGE, false)).isFalse();
+    }
+
+    @Test
+    public void should_removeQueuedRequest_whenCancelled() {
+        mScheduler.setMaxInFlight(1);
+        final CompletableFuture<String> first = schedule(RequestType.UPLOAD, "1",
+                RequestPriority.UPLOAD);
+        final CompletableFuture<String> second = schedule(RequestType.UPLOAD, "2",
+                RequestPriority.UPLOAD);
+
+        second.cancel(false);
+        first.complete("1");
+
+        assertThat(mStartedRequests).containsExactly("1");
+        assertThat(mScheduler.getQueuedCount()).isEqualTo(0);
+        assertThat(mCancelledRequests).isEmpty();
+    }
+
+    @Test
+    public void should_cancelRequestInFlight_whenCancelled() {
+        final CompletableFuture<String> future = schedule(RequestType.DELETE, "1",
+                RequestPriority.DELETE);
+
+        future.cancel(false);
+
+        assertThat(mCancelledRequests).containsExactly("1");
+        assertThat(mScheduler.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_recordMetrics_forCompletedRequests() {
+        final CompletableFuture<String> upload = schedule(RequestType.UPLOAD, "1",
+                RequestPriority.UPLOAD);
+        final CompletableFuture<String> delete = schedule(RequestType.DELETE, "2",
+                RequestPriority.DELETE);
+
+        upload.complete("1");
+        delete.completeExceptionally(new RuntimeException());
+
+        assertThat(mMetrics.getCount(RequestType.UPLOAD)).isEqualTo(1L);
+        assertThat(mMetrics.getCount(RequestType.DELETE)).isEqualTo(1L);
+        assertThat(mMetrics.getCount(RequestType.ANALYSIS)).isEqualTo(0L);
+    }
+
+    @Test
+    public void should_notRecordMetrics_forRequestsCancelledInQueue() {
+        mScheduler.setMaxInFlight(1);
+        schedule(RequestType.UPLOAD, "1", RequestPriority.UPLOAD);
+        final CompletableFuture<String> second = schedule(RequestType.UPLOAD, "2",
+                RequestPriority.UPLOAD);
+
+        second.cancel(false);
+
+        assertThat(mMetrics.getCount(RequestType.UPLOAD)).isEqualTo(0L);
+    }
+
+    private CompletableFuture<String> schedule(@NonNull final RequestType type,
+            @NonNull final String documentId, @NonNull final RequestPriority priority) {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        mScheduler.schedule(type, documentId, priority, 0, future,
+                new NetworkRequestScheduler.RequestStarter() {
+                    @NonNull
+                    @Override
+                    public CancellationToken start() {
+                        mStartedRequests.add(documentId);
+                        mStartedFutures.add(future);
+                        return new CancellationToken() {
+                            @Override
+                            public void cancel() {
+                                mCancelledRequests.add(documentId);
+                            }
+                        };
+                    }
+                });
+        return future;
+    }
+
+    private void completeStartedRequests() {
+        // Completing a request starts the next one
+        for (int i = 0; i < mStartedFutures.size(); i++) {
+            mStartedFutures.get(i).complete("");
+        }
+    }
+}
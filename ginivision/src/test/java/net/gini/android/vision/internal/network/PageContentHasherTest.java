@@ -0,0 +1,90 @@
+package net.gini.android.vision.internal.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+
+@RunWith(JUnit4.class)
+public class PageContentHasherTest {
+
+    @Test
+    public void should_returnSameHash_forSameData() {
+        // Given
+        final byte[] data = new byte[]{1, 2, 3, 4, 5};
+        // When
+        final String hash = PageContentHasher.hash(data);
+        // Then
+        assertThat(hash).isEqualTo(PageContentHasher.hash(data.clone()));
+        assertThat(hash).hasLength(64);
+    }
+
+    @Test
+    public void should_returnDifferentHash_forDifferentData() {
+        // Then
+        assertThat(PageContentHasher.hash(new byte[]{1, 2, 3, 4, 5})).isNotEqualTo(
+                PageContentHasher.hash(new byte[]{1, 2, 3, 4, 6}));
+    }
+
+    @Test
+    public void should_ignoreJpegMetadata() {
+        // Given
+        final byte[] jpeg = createJpeg("content id 1", new byte[]{10, 20, 30});
+        final byte[] jpegWithOtherExif = createJpeg("content id 2 is longer",
+                new byte[]{10, 20, 30});
+        // Then
+        assertThat(PageContentHasher.hash(jpeg)).isEqualTo(
+                PageContentHasher.hash(jpegWithOtherExif));
+    }
+
+    @Test
+    public void should_hashJpegScanData() {
+        // Given
+        final byte[] jpeg = createJpeg("content id", new byte[]{10, 20, 30});
+        final byte[] otherJpeg = createJpeg("content id", new byte[]{10, 20, 31});
+        // Then
+        assertThat(PageContentHasher.hash(jpeg)).isNotEqualTo(
+                PageContentHasher.hash(otherJpeg));
+    }
+
+    @Test
+    public void should_hashMalformedJpeg() {
+        // Given
+        final byte[] jpeg = createJpeg("content id", new byte[]{10, 20, 30});
+        // Segment length beyond the end of the data
+        jpeg[4] = (byte) 0x7F;
+        // Then
+        assertThat(PageContentHasher.hash(jpeg)).hasLength(64);
+    }
+
+    private static byte[] createJpeg(final String exif, final byte[] scanData) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        // SOI
+        outputStream.write(0xFF);
+        outputStream.write(0xD8);
+        // APP1 with the metadata
+        writeSegment(outputStream, 0xE1, exif.getBytes());
+        // DQT
+        writeSegment(outputStream, 0xDB, new byte[]{0, 1, 2, 3});
+        // SOS
+        writeSegment(outputStream, 0xDA, new byte[]{1, 0});
+        outputStream.write(scanData, 0, scanData.length);
+        // EOI
+        outputStream.write(0xFF);
+        outputStream.write(0xD9);
+        return outputStream.toByteArray();
+    }
+
+    private static void writeSegment(final ByteArrayOutputStream outputStream, final int marker,
+            final byte[] payload) {
+        final int length = payload.length + 2;
+        outputStream.write(0xFF);
+        outputStream.write(marker);
+        outputStream.write((length >> 8) & 0xFF);
+        outputStream.write(length & 0xFF);
+        outputStream.write(payload, 0, payload.length);
+    }
+}
@@ -0,0 +1,108 @@
+package net.gini.android.vision.internal.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import jersey.repackaged.jsr166e.CompletableFuture;
+
+@RunWith(JUnit4.class)
+public class SharedRequestTest {
+
+    @Test
+    public void should_completeAllSubscribers_withResult() throws Exception {
+        // Given
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        final SharedRequest<String> request = new SharedRequest<>(future);
+        final CompletableFuture<String> first = request.subscribe();
+        final CompletableFuture<String> second = request.subscribe();
+        // When
+        future.complete("result");
+        // Then
+        assertThat(first.get()).isEqualTo("result");
+        assertThat(second.get()).isEqualTo("result");
+    }
+
+    @Test
+    public void should_completeSubscriber_ofCompletedRequest() throws Exception {
+        // Given
+        final SharedRequest<String> request = new SharedRequest<>(
+                CompletableFuture.completedFuture("result"));
+        // When
+        final CompletableFuture<String> subscriber = request.subscribe();
+        // Then
+        assertThat(subscriber.get()).isEqualTo("result");
+    }
+
+    @Test
+    public void should_failAllSubscribers_withError() {
+        // Given
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        final SharedRequest<String> request = new SharedRequest<>(future);
+        final CompletableFuture<String> subscriber = request.subscribe();
+        // When
+        future.completeExceptionally(new IllegalStateException());
+        // Then
+        assertThat(subscriber.isCompletedExceptionally()).isTrue();
+        assertThat(subscriber.isCancelled()).isFalse();
+    }
+
+    @Test
+    public void should_notCancelRequest_whenOtherSubscribersRemain() {
+        // Given
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        final SharedRequest<String> request = new SharedRequest<>(future);
+        final CompletableFuture<String> first = request.subscribe();
+        final CompletableFuture<String> second = request.subscribe();
+        // When
+        first.cancel(false);
+        // Then
+        assertThat(future.isCancelled()).isFalse();
+        assertThat(second.isDone()).isFalse();
+        assertThat(request.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_cancelRequest_whenLastSubscriberDetached() {
+        // Given
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        final SharedRequest<String> request = new SharedRequest<>(future);
+        final CompletableFuture<String> first = request.subscribe();
+        final CompletableFuture<String> second = request.subscribe();
+        // When
+        first.cancel(false);
+        second.cancel(false);
+        // Then
+        assertThat(future.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void should_cancelAllSubscribers_whenRequestCancelled() {
+        // Given
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        final SharedRequest<String> request = new SharedRequest<>(future);
+        final CompletableFuture<String> first = request.subscribe();
+        final CompletableFuture<String> second = request.subscribe();
+        // When
+        request.cancel();
+        // Then
+        assertThat(first.isCancelled()).isTrue();
+        assertThat(second.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void should_notCancelCompletedRequest_whenSubscriberCancelled() throws Exception {
+        // Given
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        final SharedRequest<String> request = new SharedRequest<>(future);
+        final CompletableFuture<String> subscriber = request.subscribe();
+        future.complete("result");
+        // When
+        subscriber.cancel(false);
+        // Then
+        assertThat(future.isCancelled()).isFalse();
+        assertThat(subscriber.get()).isEqualTo("result");
+    }
+}
@@ -0,0 +1,206 @@
+package net.gini.android.vision.internal.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import android.net.Uri;
+
+import net.gini.android.vision.document.GiniVisionDocument;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+@RunWith(AndroidJUnit4.class)
+public class UploadJournalTest {
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            command.run();
+        }
+    };
+
+    private File mJournalFile;
+    private File mDataFile;
+    private GiniVisionDocument mDocument;
+
+    @Before
+    public void setUp() throws Exception {
+        final File filesDir = getApplicationContext().getFilesDir();
+        mJournalFile = new File(filesDir, UploadJournal.JOURNAL_FILE);
+        //noinspection ResultOfMethodCallIgnored
+        mJournalFile.delete();
+        mDataFile = new File(filesDir, "page.jpg");
+        writeBytes(mDataFile, 42);
+        mDocument = newDocument("1", mDataFile);
+    }
+
+    @Test
+    public void should_returnApiDocumentId_ofUploadedDocument() {
+        // Given
+        final UploadJournal uploadJournal = new UploadJournal(mJournalFile, DIRECT_EXECUTOR);
+        // When
+        uploadJournal.markPending(mDocument);
+        uploadJournal.markUploaded(mDocument, "apiId");
+        // Then
+        assertThat(uploadJournal.getUploadedApiDocumentId(mDocument)).isEqualTo("apiId");
+        assertThat(uploadJournal.getState("1")).isEqualTo(UploadJournal.State.UPLOADED);
+    }
+
+    @Test
+    public void should_notReturnApiDocumentId_ofPendingOrFailedDocument() {
+        // Given
+        final UploadJournal uploadJournal = new UploadJournal(mJournalFile, DIRECT_EXECUTOR);
+        // When
+        uploadJournal.markPending(mDocument);
+        final String pendingApiDocumentId = uploadJournal.getUploadedApiDocumentId(mDocument);
+        uploadJournal.markFailed(mDocument);
+        // Then
+        assertThat(pendingApiDocumentId).isNull();
+        assertThat(uploadJournal.getUploadedApiDocumentId(mDocument)).isNull();
+        assertThat(uploadJournal.getState("1")).isEqualTo(UploadJournal.State.FAILED);
+    }
+
+    @Test
+    public void should_countUploadAttempts() {
+        // Given
+        final UploadJournal uploadJournal = new UploadJournal(mJournalFile, DIRECT_EXECUTOR);
+        // When
+        uploadJournal.markPending(mDocument);
+        uploadJournal.markPending(mDocument);
+        // Then
+        assertThat(uploadJournal.getAttempts("1")).isEqualTo(2);
+    }
+
+    @Test
+    public void should_restoreEntries_fromFile() {
+        // Given
+        new UploadJournal(mJournalFile, DIRECT_EXECUTOR).markUploaded(mDocument, "apiId");
+        // When
+        final UploadJournal uploadJournal = new UploadJournal(mJournalFile, DIRECT_EXECUTOR);
+        // Then
+        assertThat(uploadJournal.getUploadedApiDocumentId(mDocument)).isEqualTo("apiId");
+    }
+
+    @Test
+    public void should_notReturnApiDocumentId_whenDocumentData_changed() throws Exception {
+        // Given
+        final UploadJournal uploadJournal = new UploadJournal(mJournalFile, DIRECT_EXECUTOR);
+        uploadJournal.markUploaded(mDocument, "apiId");
+        // When
+        writeBytes(mDataFile, 43);
+        // Then
+        assertThat(uploadJournal.getUploadedApiDocumentId(mDocument)).isNull();
+    }
+
+    @Test
+    public void should_notReturnApiDocumentId_whenDocumentData_changedWithSameSize() {
+        // Given
+        final UploadJournal uploadJournal = new UploadJournal(mJournalFile, DIRECT_EXECUTOR);
+        uploadJournal.markUploaded(mDocument, "apiId");
+        // When
+        //noinspection ResultOfMethodCallIgnored
+        mDataFile.setLastModified(mDataFile.lastModified() - 60000);
+        // Then
+        assertThat(uploadJournal.getUploadedApiDocumentId(mDocument)).isNull();
+    }
+
+    @Test
+    public void should_removeEntry() {
+        // Given
+        final UploadJournal uploadJournal = new UploadJournal(mJournalFile, DIRECT_EXECUTOR);
+        uploadJournal.markUploaded(mDocument, "apiId");
+        // When
+        uploadJournal.remove("1");
+        // Then
+        assertThat(uploadJournal.getState("1")).isNull();
+        assertThat(new UploadJournal(mJournalFile, DIRECT_EXECUTOR).getState("1")).isNull();
+    }
+
+    @Test
+    public void should_dropOldEntries_whenLoading() throws Exception {
+        // Given
+        new UploadJournal(mJournalFile, DIRECT_EXECUTOR).markUploaded(mDocument, "apiId");
+        final JSONArray entries = new JSONArray(readString(mJournalFile));
+        final JSONObject entry = entries.getJSONObject(0);
+        entry.put("updatedAt",
+                System.currentTimeMillis() - UploadJournal.MAX_ENTRY_AGE_MS - 1000);
+        writeString(mJournalFile, entries.toString());
+        // When
+        final UploadJournal uploadJournal = new UploadJournal(mJournalFile, DIRECT_EXECUTOR);
+        // Then
+        assertThat(uploadJournal.getState("1")).isNull();
+    }
+
+    @Test
+    public void should_deleteFile_whenCleared() {
+        // Given
+        final UploadJournal uploadJournal = new UploadJournal(mJournalFile, DIRECT_EXECUTOR);
+        uploadJournal.markUploaded(mDocument, "apiId");
+        // When
+        uploadJournal.clear();
+        // Then
+        assertThat(uploadJournal.getState("1")).isNull();
+        assertThat(mJournalFile.exists()).isFalse();
+    }
+
+    @NonNull
+    private static GiniVisionDocument newDocument(@NonNull final String id,
+            @NonNull final File file) {
+        final GiniVisionDocument document = mock(GiniVisionDocument.class);
+        when(document.getId()).thenReturn(id);
+        when(document.getUri()).thenReturn(Uri.fromFile(file));
+        return document;
+    }
+
+    private static void writeBytes(@NonNull final File file, final int length)
+            throws IOException {
+        final FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(new byte[length]);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private static void writeString(@NonNull final File file, @NonNull final String content)
+            throws IOException {
+        final FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content.getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    @NonNull
+    private static String readString(@NonNull final File file) throws IOException {
+        final FileInputStream inputStream = new FileInputStream(file);
+        try {
+            final byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < bytes.length) {
+                offset += inputStream.read(bytes, offset, bytes.length - offset);
+            }
+            return new String(bytes, "UTF-8");
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package net.gini.android.vision.internal.qrcode;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static net.gini.android.vision.internal.qrcode.AmountAndCurrencyNormalizer.INVALID_AMOUNT;
+import static net.gini.android.vision.internal.qrcode.AmountAndCurrencyNormalizer.formatAmount;
+import static net.gini.android.vision.internal.qrcode.AmountAndCurrencyNormalizer.normalizeAmount;
+import static net.gini.android.vision.internal.qrcode.AmountAndCurrencyNormalizer.normalizeCurrency;
+import static net.gini.android.vision.internal.qrcode.AmountAndCurrencyNormalizer.normalizeEpcAmount;
+import static net.gini.android.vision.internal.qrcode.AmountAndCurrencyNormalizer.parseAmountInMinorUnits;
+import static net.gini.android.vision.internal.qrcode.AmountAndCurrencyNormalizer.parseCurrency;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+@RunWith(AndroidJUnit4.class)
+public class AmountAndCurrencyNormalizerTest {
+
+    private static final int ITERATIONS = 20000;
+
+    @Test
+    public void should_normalizeAmounts() {
+        assertThat(normalizeAmount("25.79", "EUR")).isEqualTo("25.79:EUR");
+        assertThat(normalizeAmount("25,7", "EUR")).isEqualTo("25.70:EUR");
+        assertThat(normalizeAmount("25", "usd")).isEqualTo("25.00:usd");
+        assertThat(normalizeAmount("EUR12.3", "EUR")).isEqualTo("12.30:EUR");
+        assertThat(normalizeAmount("12,30 \u20AC", "USD")).isEqualTo("12.30:EUR");
+        assertThat(normalizeAmount("1.234,56 chf", "EUR")).isEqualTo("1234.56:CHF");
+        assertThat(normalizeAmount("-0,5", "EUR")).isEqualTo("-0.50:EUR");
+    }
+
+    @Test
+    public void should_returnEmptyString_forInvalidAmounts() {
+        assertThat(normalizeAmount(null, "EUR")).isEqualTo("");
+        assertThat(normalizeAmount("", "EUR")).isEqualTo("");
+        assertThat(normalizeAmount("EUR", "EUR")).isEqualTo("");
+        assertThat(normalizeAmount("12a", "EUR")).isEqualTo("");
+        assertThat(normalizeAmount(".", "EUR")).isEqualTo("");
+        assertThat(normalizeAmount("12.3 abc", "EUR")).isEqualTo("");
+        assertThat(normalizeAmount("XYZ12.3", "EUR")).isEqualTo("");
+    }
+
+    @Test
+    public void should_parseSeparatorVariants() {
+        assertThat(parseAmountInMinorUnits("1234.56")).isEqualTo(123456L);
+        assertThat(parseAmountInMinorUnits("1234,56")).isEqualTo(123456L);
+        assertThat(parseAmountInMinorUnits("1,234.56")).isEqualTo(123456L);
+        assertThat(parseAmountInMinorUnits("1.234,56")).isEqualTo(123456L);
+        assertThat(parseAmountInMinorUnits("1 234,56")).isEqualTo(123456L);
+        assertThat(parseAmountInMinorUnits("1'234.56")).isEqualTo(123456L);
+        assertThat(parseAmountInMinorUnits("1\u00A0234,56")).isEqualTo(123456L);
+        assertThat(parseAmountInMinorUnits("1.234.567")).isEqualTo(123456700L);
+        assertThat(parseAmountInMinorUnits("1,234,567.8")).isEqualTo(123456780L);
+        assertThat(parseAmountInMinorUnits(".5")).isEqualTo(50L);
+        assertThat(parseAmountInMinorUnits("5.")).isEqualTo(500L);
+        assertThat(parseAmountInMinorUnits("+5")).isEqualTo(500L);
+        assertThat(parseAmountInMinorUnits("  5 ")).isEqualTo(500L);
+    }
+
+    @Test
+    public void should_rejectAmbiguousSingleSeparator_beforeThreeDigits() {
+        assertThat(parseAmountInMinorUnits("1.234")).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("1,234")).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("-12.500")).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("EUR123.456")).isEqualTo(INVALID_AMOUNT);
+        assertThat(normalizeAmount("1.234", "EUR")).isEqualTo("");
+    }
+
+    @Test
+    public void should_readSingleSeparator_asDecimalSeparator_ifItCannotGroupThousands() {
+        assertThat(parseAmountInMinorUnits("0.125")).isEqualTo(12L);
+        assertThat(parseAmountInMinorUnits("1234.567")).isEqualTo(123457L);
+        assertThat(parseAmountInMinorUnits("1.2345")).isEqualTo(123L);
+        assertThat(parseAmountInMinorUnits("1.23")).isEqualTo(123L);
+        assertThat(parseAmountInMinorUnits(".234")).isEqualTo(23L);
+    }
+
+    @Test
+    public void should_roundHalfEven_fractionDigitsAfterTheSecond() {
+        assertThat(parseAmountInMinorUnits("0.125")).isEqualTo(12L);
+        assertThat(parseAmountInMinorUnits("0.135")).isEqualTo(14L);
+        assertThat(parseAmountInMinorUnits("0.1251")).isEqualTo(13L);
+        assertThat(parseAmountInMinorUnits("-0.135")).isEqualTo(-14L);
+    }
+
+    @Test
+    public void should_rejectMalformedAmounts() {
+        assertThat(parseAmountInMinorUnits(null)).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("")).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("-")).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("1.2.3,4.5")).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("12,34,5")).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("1234.567,8")).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("1,23 4")).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("1e3")).isEqualTo(INVALID_AMOUNT);
+        assertThat(parseAmountInMinorUnits("12345678901234567")).isEqualTo(INVALID_AMOUNT);
+    }
+
+    @Test
+    public void should_normalizeEpcAmounts_withDecimalPoint() {
+        assertThat(normalizeEpcAmount("EUR1.500")).isEqualTo("1.50:EUR");
+        assertThat(normalizeEpcAmount("EUR12.345")).isEqualTo("12.34:EUR");
+        assertThat(normalizeEpcAmount("EUR12.3")).isEqualTo("12.30:EUR");
+        assertThat(normalizeEpcAmount("EUR1234.56")).isEqualTo("1234.56:EUR");
+        assertThat(normalizeEpcAmount("12.3")).isEqualTo("12.30:EUR");
+    }
+
+    @Test
+    public void should_rejectEpcAmounts_withOtherSeparators() {
+        assertThat(normalizeEpcAmount(null)).isEqualTo("");
+        assertThat(normalizeEpcAmount("EUR12,30")).isEqualTo("");
+        assertThat(normalizeEpcAmount("EUR1,234.56")).isEqualTo("");
+        assertThat(normalizeEpcAmount("EUR1 234.56")).isEqualTo("");
+        assertThat(normalizeEpcAmount("EUR1.234.56")).isEqualTo("");
+    }
+
+    @Test
+    public void should_parseCurrencies() {
+        assertThat(parseCurrency("EUR12.3")).isEqualTo("EUR");
+        assertThat(parseCurrency("12.3 chf")).isEqualTo("CHF");
+        assertThat(parseCurrency("\u00A312.3")).isEqualTo("GBP");
+        assertThat(parseCurrency("12.3")).isNull();
+        assertThat(parseCurrency("EUR")).isNull();
+        assertThat(parseCurrency("12.3 abc")).isNull();
+        assertThat(parseCurrency("XYZ12.3")).isNull();
+    }
+
+    @Test
+    public void should_returnSameCurrencyCodeInstance_forEveryAmount() {
+        assertThat(parseCurrency("12.3 chf")).isSameAs(parseCurrency("CHF1,5"));
+        assertThat(normalizeCurrency("eur")).isSameAs(parseCurrency("EUR12.3"));
+    }
+
+    @Test
+    public void should_normalizeCurrencies() {
+        assertThat(normalizeCurrency("eur")).isEqualTo("EUR");
+        assertThat(normalizeCurrency("CHF")).isEqualTo("CHF");
+        assertThat(normalizeCurrency(null)).isEqualTo("");
+        assertThat(normalizeCurrency("abc")).isEqualTo("");
+        assertThat(normalizeCurrency("EURO")).isEqualTo("");
+        assertThat(normalizeCurrency("E1R")).isEqualTo("");
+    }
+
+    @Test
+    public void should_formatAndParse_randomAmounts_inAllNotations() {
+        final Random random = new Random(4217);
+        for (int i = 0; i < ITERATIONS; i++) {
+            final long minorUnits = randomMinorUnits(random);
+            final String formatted = formatAmount(minorUnits, "EUR");
+            assertThat(parseAmountInMinorUnits(formatted.substring(0, formatted.indexOf(':'))))
+                    .isEqualTo(minorUnits);
+            assertThat(parseAmountInMinorUnits(format(minorUnits, '.', ','))).isEqualTo(
+                    minorUnits);
+            assertThat(parseAmountInMinorUnits(format(minorUnits, ',', '.'))).isEqualTo(
+                    minorUnits);
+            assertThat(parseAmountInMinorUnits(format(minorUnits, ',', ' '))).isEqualTo(
+                    minorUnits);
+            assertThat(parseAmountInMinorUnits(format(minorUnits, '.', '\''))).isEqualTo(
+                    minorUnits);
+            assertThat(parseAmountInMinorUnits("EUR" + format(minorUnits, ',', '.'))).isEqualTo(
+                    minorUnits);
+            assertThat(parseAmountInMinorUnits(format(minorUnits, ',', '.') + " \u20AC"))
+                    .isEqualTo(minorUnits);
+        }
+    }
+
+    @Test
+    public void should_returnSameResults_asBigDecimal_forUngroupedAmounts() {
+        final Random random = new Random(97);
+        for (int i = 0; i < ITERATIONS; i++) {
+            final String amount = randomUngroupedAmount(random);
+            final BigDecimal expected = new BigDecimal(amount.replace(",", "."))
+                    .setScale(2, BigDecimal.ROUND_HALF_EVEN);
+            assertThat(normalizeAmount(amount, "EUR")).named("Normalized \"" + amount + "\"")
+                    .isEqualTo(expected.toPlainString() + ":EUR");
+        }
+    }
+
+    private static long randomMinorUnits(final Random random) {
+        final long magnitude = (long) Math.pow(10, random.nextInt(15));
+        final long minorUnits = (long) (random.nextDouble() * magnitude * 100);
+        return random.nextBoolean() ? minorUnits : -minorUnits;
+    }
+
+    private static String format(final long minorUnits, final char decimalSeparator,
+            final char groupingSeparator) {
+        final String integerPart = String.valueOf(Math.abs(minorUnits) / 100);
+        final StringBuilder builder = new StringBuilder();
+        if (minorUnits < 0) {
+            builder.append('-');
+        }
+        for (int i = 0; i < integerPart.length(); i++) {
+            if (i > 0 && (integerPart.length() - i) % 3 == 0) {
+                builder.append(groupingSeparator);
+            }
+            builder.append(integerPart.charAt(i));
+        }
+        final long fraction = Math.abs(minorUnits) % 100;
+        builder.append(decimalSeparator).append(fraction < 10 ? "0" : "").append(fraction);
+        return builder.toString();
+    }
+
+    private static String randomUngroupedAmount(final Random random) {
+        final StringBuilder builder = new StringBuilder();
+        switch (random.nextInt(3)) {
+            case 0:
+                builder.append('-');
+                break;
+            case 1:
+                builder.append('+');
+                break;
+            default:
+                break;
+        }
+        final int integerDigits = random.nextInt(16);
+        for (int i = 0; i < integerDigits; i++) {
+            builder.append((char) ('0' + random.nextInt(10)));
+        }
+        int fractionDigits = random.nextInt(6);
+        // One to three integer digits followed by three fraction digits are ambiguous
+        if (fractionDigits == 3 && integerDigits > 0 && integerDigits <= 3) {
+            fractionDigits = 4;
+        }
+        if (integerDigits == 0 || fractionDigits > 0 || random.nextBoolean()) {
+            builder.append(random.nextBoolean() ? '.' : ',');
+            for (int i = 0; i < fractionDigits; i++) {
+                builder.append((char) ('0' + random.nextInt(10)));
+            }
+            if (integerDigits == 0 && fractionDigits == 0) {
+                builder.append('0');
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package net.gini.android.vision.internal.qrcode;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IBANValidatorTest {
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String INPUT_ALPHABET = ALPHABET + "abcxyz -/.\t";
+
+    private final IBANValidator mValidator = new IBANValidator();
+    private final LegacyIBANValidator mLegacyValidator = new LegacyIBANValidator();
+
+    @Test
+    public void should_acceptValidIbans() {
+        assertThat(validate("DE89370400440532013000")).isNull();
+        assertThat(validate("de89 3704 0044 0532 0130 00")).isNull();
+        assertThat(validate("  AT611904300234573201 ")).isNull();
+        assertThat(validate("CH9300762011623852957")).isNull();
+        assertThat(validate("GB29NWBK60161331926819")).isNull();
+        assertThat(validate("FR1420041010050500013M02606")).isNull();
+        assertThat(validate("IT60X0542811101000000123456")).isNull();
+        assertThat(validate("NL91ABNA0417164300")).isNull();
+        assertThat(validate("MT84MALT011000012345MTLCAST001S")).isNull();
+    }
+
+    @Test
+    public void should_reportErrors() {
+        assertThat(validate(null)).isEqualTo(IBANValidator.IBANError.EMPTY);
+        assertThat(validate("")).isEqualTo(IBANValidator.IBANError.EMPTY);
+        assertThat(validate("   ")).isEqualTo(IBANValidator.IBANError.INVALID_CHARACTERS);
+        assertThat(validate("DE89-3704")).isEqualTo(IBANValidator.IBANError.INVALID_CHARACTERS);
+        assertThat(validate("D189370400440532013000")).isEqualTo(
+                IBANValidator.IBANError.INVALID_FORMAT);
+        assertThat(validate("DE8")).isEqualTo(IBANValidator.IBANError.INVALID_FORMAT);
+        assertThat(validate("XX89370400440532013000")).isEqualTo(
+                IBANValidator.IBANError.INVALID_COUNTRY);
+        assertThat(validate("DE893704004405320130001")).isEqualTo(
+                IBANValidator.IBANError.TOO_LONG);
+        assertThat(validate("DE8937040044053201300")).isEqualTo(
+                IBANValidator.IBANError.TOO_SHORT);
+        assertThat(validate("DE89370400440532013001")).isEqualTo(
+                IBANValidator.IBANError.INVALID_CHECKSUM);
+    }
+
+    @Test
+    public void should_reportInvalidBbanFormat() {
+        // Letter in a German BBAN with a correct checksum
+        assertThat(validate(withCheckDigits("DE", "37040044053201300A"))).isEqualTo(
+                IBANValidator.IBANError.INVALID_BBAN_FORMAT);
+        // Digit where the bank code letters are expected in a British BBAN
+        assertThat(validate(withCheckDigits("GB", "1WBK60161331926819"))).isEqualTo(
+                IBANValidator.IBANError.INVALID_BBAN_FORMAT);
+    }
+
+    @Test
+    public void should_returnSameResults_asLegacyValidator_forAllCountryCodes() {
+        for (char first = 'A'; first <= 'Z'; first++) {
+            for (char second = 'A'; second <= 'Z'; second++) {
+                final String countryCode = "" + first + second;
+                final int length = LegacyIBANValidator.isKnownCountry(countryCode)
+                        ? LegacyIBANValidator.getIbanLength(countryCode) : 22;
+                final String bban = "1234567890123456789012345678".substring(0, length - 4);
+                assertSameResult(withCheckDigits(countryCode, bban));
+                assertSameResult(countryCode + "00" + bban);
+                assertSameResult(countryCode.toLowerCase() + "00" + bban);
+            }
+        }
+    }
+
+    @Test
+    public void should_returnSameResults_asLegacyValidator_forMutatedIbans() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            final String iban = randomValidIban(random);
+            assertSameResult(iban);
+            assertSameResult(mutate(iban, random));
+            assertSameResult(mutate(mutate(iban, random), random));
+        }
+    }
+
+    @Test
+    public void should_returnSameResults_asLegacyValidator_forRandomStrings() {
+        final Random random = new Random(97);
+        for (int i = 0; i < 20000; i++) {
+            final StringBuilder builder = new StringBuilder();
+            final int length = random.nextInt(36);
+            for (int j = 0; j < length; j++) {
+                builder.append(INPUT_ALPHABET.charAt(random.nextInt(INPUT_ALPHABET.length())));
+            }
+            assertSameResult(builder.toString());
+        }
+    }
+
+    private void assertSameResult(final String iban) {
+        final IBANValidator.IBANError error = validate(iban);
+        final IBANValidator.IBANError legacyError = mLegacyValidator.validate(iban);
+        if (error == IBANValidator.IBANError.INVALID_BBAN_FORMAT) {
+            // The BBAN structure check is stricter than the legacy validator, but it can
+            // only reject IBANs which passed all the legacy checks up to the checksum
+            assertThat(legacyError == null
+                    || legacyError == IBANValidator.IBANError.INVALID_CHECKSUM).isTrue();
+        } else {
+            assertThat(error).named("Validation result for \"" + iban + "\"")
+                    .isEqualTo(legacyError);
+        }
+    }
+
+    private IBANValidator.IBANError validate(final String iban) {
+        try {
+            mValidator.validate(iban);
+            return null;
+        } catch (final IBANValidator.IllegalIBANException e) {
+            return e.getIBANError();
+        }
+    }
+
+    private static String randomValidIban(final Random random) {
+        final String[] countryCodes = {"DE", "AT", "CH", "GB", "FR", "IT", "NL", "MT", "NO",
+                "BR", "KW", "LV", "RO", "BG", "CY"};
+        final String countryCode = countryCodes[random.nextInt(countryCodes.length)];
+        final int bbanLength = LegacyIBANValidator.getIbanLength(countryCode) - 4;
+        final StringBuilder bban = new StringBuilder();
+        for (int i = 0; i < bbanLength; i++) {
+            // Mostly digits so that the structured BBAN formats are frequently satisfied
+            if (random.nextInt(8) == 0) {
+                bban.append(ALPHABET.charAt(random.nextInt(26)));
+            } else {
+                bban.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+        return withCheckDigits(countryCode, bban.toString());
+    }
+
+    private static String mutate(final String iban, final Random random) {
+        final StringBuilder builder = new StringBuilder(iban);
+        final int position = builder.length() == 0 ? 0 : random.nextInt(builder.length());
+        switch (random.nextInt(6)) {
+            case 0:
+                if (builder.length() > 0) {
+                    builder.setCharAt(position,
+                            INPUT_ALPHABET.charAt(random.nextInt(INPUT_ALPHABET.length())));
+                }
+                break;
+            case 1:
+                if (position + 1 < builder.length()) {
+                    final char character = builder.charAt(position);
+                    builder.setCharAt(position, builder.charAt(position + 1));
+                    builder.setCharAt(position + 1, character);
+                }
+                break;
+            case 2:
+                builder.insert(position, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                break;
+            case 3:
+                if (builder.length() > 0) {
+                    builder.deleteCharAt(position);
+                }
+                break;
+            case 4:
+                builder.insert(position, ' ');
+                break;
+            default:
+                return builder.toString().toLowerCase();
+        }
+        return builder.toString();
+    }
+
+    private static String withCheckDigits(final String countryCode, final String bban) {
+        final String number = LegacyIBANValidator.lettersToNumbers(bban + countryCode) + "00";
+        final int checkDigits = 98 - new BigInteger(number).mod(BigInteger.valueOf(97))
+                .intValue();
+        return countryCode + String.format("%02d", checkDigits) + bban;
+    }
+}
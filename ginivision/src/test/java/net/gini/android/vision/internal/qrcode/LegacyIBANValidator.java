@@ -0,0 +1,141 @@
+package net.gini.android.vision.internal.qrcode;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The previous {@link IBANValidator} implementation based on regular expressions and {@link
+ * BigInteger}. Used as a reference to verify that the current implementation returns the same
+ * results.
+ */
+class LegacyIBANValidator {
+
+    private static final Map<String, Integer> COUNTRY_IBAN_MAP = new HashMap<>(); // NOPMD
+
+    static {
+        COUNTRY_IBAN_MAP.put("AL", 28);
+        COUNTRY_IBAN_MAP.put("AD", 24);
+        COUNTRY_IBAN_MAP.put("AT", 20);
+        COUNTRY_IBAN_MAP.put("AZ", 28);
+        COUNTRY_IBAN_MAP.put("BH", 22);
+        COUNTRY_IBAN_MAP.put("BE", 16);
+        COUNTRY_IBAN_MAP.put("BA", 20);
+        COUNTRY_IBAN_MAP.put("BR", 29);
+        COUNTRY_IBAN_MAP.put("BG", 22);
+        COUNTRY_IBAN_MAP.put("CR", 21);
+        COUNTRY_IBAN_MAP.put("HR", 21);
+        COUNTRY_IBAN_MAP.put("CY", 28);
+        COUNTRY_IBAN_MAP.put("CZ", 24);
+        COUNTRY_IBAN_MAP.put("DK", 18);
+        COUNTRY_IBAN_MAP.put("DO", 28);
+        COUNTRY_IBAN_MAP.put("EE", 20);
+        COUNTRY_IBAN_MAP.put("FO", 18);
+        COUNTRY_IBAN_MAP.put("FI", 18);
+        COUNTRY_IBAN_MAP.put("FR", 27);
+        COUNTRY_IBAN_MAP.put("GE", 22);
+        COUNTRY_IBAN_MAP.put("DE", 22);
+        COUNTRY_IBAN_MAP.put("GI", 23);
+        COUNTRY_IBAN_MAP.put("GB", 22);
+        COUNTRY_IBAN_MAP.put("GR", 27);
+        COUNTRY_IBAN_MAP.put("GL", 18);
+        COUNTRY_IBAN_MAP.put("GT", 28);
+        COUNTRY_IBAN_MAP.put("HU", 28);
+        COUNTRY_IBAN_MAP.put("IS", 26);
+        COUNTRY_IBAN_MAP.put("IE", 22);
+        COUNTRY_IBAN_MAP.put("IL", 23);
+        COUNTRY_IBAN_MAP.put("IT", 27);
+        COUNTRY_IBAN_MAP.put("KZ", 20);
+        COUNTRY_IBAN_MAP.put("KW", 30);
+        COUNTRY_IBAN_MAP.put("LV", 21);
+        COUNTRY_IBAN_MAP.put("LB", 28);
+        COUNTRY_IBAN_MAP.put("LT", 20);
+        COUNTRY_IBAN_MAP.put("LU", 20);
+        COUNTRY_IBAN_MAP.put("MK", 19);
+        COUNTRY_IBAN_MAP.put("MT", 31);
+        COUNTRY_IBAN_MAP.put("MR", 27);
+        COUNTRY_IBAN_MAP.put("MU", 30);
+        COUNTRY_IBAN_MAP.put("MD", 24);
+        COUNTRY_IBAN_MAP.put("MC", 27);
+        COUNTRY_IBAN_MAP.put("ME", 22);
+        COUNTRY_IBAN_MAP.put("NL", 18);
+        COUNTRY_IBAN_MAP.put("NO", 15);
+        COUNTRY_IBAN_MAP.put("PK", 24);
+        COUNTRY_IBAN_MAP.put("PS", 29);
+        COUNTRY_IBAN_MAP.put("PL", 28);
+        COUNTRY_IBAN_MAP.put("PT", 25);
+        COUNTRY_IBAN_MAP.put("RO", 24);
+        COUNTRY_IBAN_MAP.put("SM", 27);
+        COUNTRY_IBAN_MAP.put("SA", 24);
+        COUNTRY_IBAN_MAP.put("RS", 22);
+        COUNTRY_IBAN_MAP.put("SK", 24);
+        COUNTRY_IBAN_MAP.put("SI", 19);
+        COUNTRY_IBAN_MAP.put("ES", 24);
+        COUNTRY_IBAN_MAP.put("SE", 24);
+        COUNTRY_IBAN_MAP.put("TN", 24);
+        COUNTRY_IBAN_MAP.put("TR", 26);
+        COUNTRY_IBAN_MAP.put("AE", 23);
+        COUNTRY_IBAN_MAP.put("VG", 24);
+        COUNTRY_IBAN_MAP.put("CH", 21);
+    }
+
+    private final Pattern mPattern = Pattern.compile("^[A-Z0-9]+$");
+
+    /**
+     * @return the error or null if the IBAN is valid
+     */
+    IBANValidator.IBANError validate(final String iban) {
+        if (iban == null || iban.isEmpty()) {
+            return IBANValidator.IBANError.EMPTY;
+        }
+        final String sanitizedIban = iban.trim().replace(" ", "").toUpperCase(Locale.ENGLISH);
+        if (!mPattern.matcher(sanitizedIban).matches()) {
+            return IBANValidator.IBANError.INVALID_CHARACTERS;
+        }
+        if (!sanitizedIban.matches("^[A-Z]{2}[0-9]{2}.*")) {
+            return IBANValidator.IBANError.INVALID_FORMAT;
+        }
+        final Integer requiredLength = COUNTRY_IBAN_MAP.get(sanitizedIban.substring(0, 2));
+        if (requiredLength == null) {
+            return IBANValidator.IBANError.INVALID_COUNTRY;
+        }
+        if (sanitizedIban.length() > requiredLength) {
+            return IBANValidator.IBANError.TOO_LONG;
+        }
+        if (sanitizedIban.length() < requiredLength) {
+            return IBANValidator.IBANError.TOO_SHORT;
+        }
+        final String checksum = lettersToNumbers(sanitizedIban.substring(4))
+                + lettersToNumbers(sanitizedIban.substring(0, 2))
+                + sanitizedIban.substring(2, 4);
+        final BigInteger[] divisionResult = new BigInteger(checksum).divideAndRemainder(
+                new BigInteger("97"));
+        if (divisionResult[1].compareTo(BigInteger.ONE) != 0) {
+            return IBANValidator.IBANError.INVALID_CHECKSUM;
+        }
+        return null;
+    }
+
+    static boolean isKnownCountry(final String countryCode) {
+        return COUNTRY_IBAN_MAP.containsKey(countryCode);
+    }
+
+    static int getIbanLength(final String countryCode) {
+        return COUNTRY_IBAN_MAP.get(countryCode);
+    }
+
+    static String lettersToNumbers(final String letters) {
+        final StringBuilder numbers = new StringBuilder();
+        for (final char character : letters.toCharArray()) {
+            final int number = character - 55;
+            if (number >= 10 && number <= 35) {
+                numbers.append(number);
+            } else {
+                numbers.append(character);
+            }
+        }
+        return numbers.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package net.gini.android.vision.internal.ui;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FrameTimeProbeTest {
+
+    private static final long FRAME_INTERVAL_NS = 16_000_000L;
+
+    @Test
+    public void should_measureTimeBetweenFrames() {
+        // Given
+        final FrameTimeProbe probe = new FrameTimeProbe(FRAME_INTERVAL_NS);
+        // When
+        probe.recordFrame(100_000_000L);
+        probe.recordFrame(116_000_000L);
+        probe.recordFrame(136_000_000L);
+        // Then
+        assertThat(probe.getFrameCount()).isEqualTo(2);
+        assertThat(probe.getMeanFrameTimeMs()).isWithin(0.01f).of(18f);
+        assertThat(probe.getMaxFrameTimeMs()).isWithin(0.01f).of(20f);
+        assertThat(probe.getDroppedFrameCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_countDroppedFrames_longerThanOneAndAHalfIntervals() {
+        // Given
+        final FrameTimeProbe probe = new FrameTimeProbe(FRAME_INTERVAL_NS);
+        // When
+        probe.recordFrame(100_000_000L);
+        probe.recordFrame(124_000_000L);
+        probe.recordFrame(149_000_000L);
+        probe.recordFrame(165_000_000L);
+        // Then
+        assertThat(probe.getFrameCount()).isEqualTo(3);
+        assertThat(probe.getDroppedFrameCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_clearMeasurements_onReset() {
+        // Given
+        final FrameTimeProbe probe = new FrameTimeProbe(FRAME_INTERVAL_NS);
+        probe.recordFrame(100_000_000L);
+        probe.recordFrame(150_000_000L);
+        // When
+        probe.reset();
+        probe.recordFrame(200_000_000L);
+        // Then
+        assertThat(probe.getFrameCount()).isEqualTo(0);
+        assertThat(probe.getDroppedFrameCount()).isEqualTo(0);
+        assertThat(probe.getMaxFrameTimeMs()).isWithin(0.01f).of(0f);
+    }
+}
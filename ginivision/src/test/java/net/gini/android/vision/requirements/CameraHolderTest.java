@@ -0,0 +1,45 @@
+package net.gini.android.vision.requirements;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.hardware.Camera;
+
+import net.gini.android.vision.internal.camera.api.CameraCapabilities;
+import net.gini.android.vision.internal.camera.api.CameraCapabilitiesStore;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Collections;
+
+@RunWith(JUnit4.class)
+public class CameraHolderTest {
+
+    @Test
+    public void should_returnStoredCapabilities_withoutOpeningTheCamera() {
+        // Given
+        final CameraCapabilitiesStore store = mock(CameraCapabilitiesStore.class);
+        final CameraCapabilities capabilities = createCapabilities();
+        when(store.load()).thenReturn(capabilities);
+        final CameraHolder cameraHolder = new CameraHolder(store);
+        // When
+        final boolean hasCamera = cameraHolder.hasCamera();
+        // Then
+        assertThat(hasCamera).isTrue();
+        assertThat(cameraHolder.getCameraCapabilities()).isSameAs(capabilities);
+        verify(store, never()).save(capabilities);
+    }
+
+    private CameraCapabilities createCapabilities() {
+        final Camera.Parameters parameters = mock(Camera.Parameters.class);
+        when(parameters.getSupportedFocusModes()).thenReturn(
+                Collections.singletonList(Camera.Parameters.FOCUS_MODE_AUTO));
+        return CameraCapabilities.create(parameters, 90);
+    }
+}
@@ -12,6 +12,7 @@ import static org.mockito.Mockito.when;
 
 import android.hardware.Camera;
 
+import net.gini.android.vision.internal.camera.api.CameraCapabilities;
 import net.gini.android.vision.internal.util.Size;
 
 import org.junit.Test;
@@ -71,7 +72,6 @@ public class DeviceMemoryRequirementTest {
     private CameraHolder getCameraHolder(List<Camera.Size> pictureSizes) {
         CameraHolder cameraHolder = mock(CameraHolder.class);
         Camera.Parameters parameters = mock(Camera.Parameters.class);
-        when(cameraHolder.getCameraParameters()).thenReturn(parameters);
         if (pictureSizes == null) {
             Camera.Size size4to3 = createSize(4128, 3096);
             Camera.Size sizeOther = createSize(4128, 2322);
@@ -79,6 +79,8 @@ public class DeviceMemoryRequirementTest {
         }
         when(parameters.getSupportedPictureSizes()).thenReturn(pictureSizes);
         when(parameters.getSupportedPreviewSizes()).thenReturn(pictureSizes);
+        when(cameraHolder.getCameraCapabilities()).thenReturn(
+                CameraCapabilities.create(parameters, 90));
         return cameraHolder;
     }
 
@@ -0,0 +1,39 @@
+package net.gini.android.vision.review;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ImageViewRotationAnimatorTest {
+
+    @Test
+    public void should_scaleUp_whenRotatingLandscapeImage_intoPortraitContainer() {
+        // Given
+        // A 400x300 image fits a 300x600 view at 0.75 and the swapped 600x300 view at 1.0
+        // When
+        final float scale = ImageViewRotationAnimator.calculateFitScale(400, 300, 300, 600, 600,
+                300);
+        // Then
+        assertThat(scale).isWithin(0.001f).of(1f / 0.75f);
+    }
+
+    @Test
+    public void should_notScale_whenTargetSize_isTheSame() {
+        // When
+        final float scale = ImageViewRotationAnimator.calculateFitScale(400, 300, 300, 600, 300,
+                600);
+        // Then
+        assertThat(scale).isWithin(0.001f).of(1f);
+    }
+
+    @Test
+    public void should_notScale_whenViewWasNotLaidOut() {
+        // When
+        final float scale = ImageViewRotationAnimator.calculateFitScale(400, 300, 0, 0, 600, 300);
+        // Then
+        assertThat(scale).isWithin(0.001f).of(1f);
+    }
+}
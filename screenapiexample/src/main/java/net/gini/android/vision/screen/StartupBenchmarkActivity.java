@@ -0,0 +1,146 @@
+package net.gini.android.vision.screen;
+
+import android.Manifest;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import android.os.Handler;
+import android.widget.TextView;
+
+import net.gini.android.vision.GiniVision;
+import net.gini.android.vision.StartupTrace;
+import net.gini.android.vision.camera.CameraActivity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
+
+/**
+ * Measures the startup of the Gini Vision Library's Camera Screen with the {@link StartupTrace}.
+ *
+ * <p> The Camera Screen is launched several times in a row and closed as soon as the first
+ * preview frame was received. The first run is measured from the start of the app's process, the
+ * following runs from just before the {@link GiniVision} instance is built.
+ *
+ * <p> Grant the camera permission and start the benchmark from a stopped app to get a cold start
+ * for the first run:
+ *
+ * <pre>
+ * adb shell pm grant net.gini.android.vision.screen android.permission.CAMERA
+ * adb shell am start -S -n net.gini.android.vision.screen/.StartupBenchmarkActivity
+ * </pre>
+ *
+ * <p> The results are shown on the screen and written to the log.
+ */
+public class StartupBenchmarkActivity extends AppCompatActivity {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupBenchmarkActivity.class);
+
+    private static final int REQUEST_CAMERA_SCREEN = 1;
+    private static final int RUNS = 5;
+    private static final long PAUSE_BETWEEN_RUNS_MS = 1000;
+
+    private final long[][] mElapsedMs = new long[RUNS][StartupTrace.Milestone.values().length];
+    private final Handler mHandler = new Handler();
+    private TextView mTextResults;
+    private int mRun;
+
+    @Override
+    protected void onCreate(final Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mTextResults = new TextView(this);
+        setContentView(mTextResults);
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
+                != PackageManager.PERMISSION_GRANTED) {
+            mTextResults.setText("The camera permission is required to run the benchmark.");
+            return;
+        }
+        if (savedInstanceState == null) {
+            StartupTrace.setListener(new StartupTrace.Listener() {
+                @Override
+                public void onMilestoneReached(@NonNull final StartupTrace.Milestone milestone,
+                        final long elapsedMs) {
+                    if (milestone == StartupTrace.Milestone.FIRST_PREVIEW_FRAME) {
+                        finishActivity(REQUEST_CAMERA_SCREEN);
+                    }
+                }
+            });
+            startRun();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mHandler.removeCallbacksAndMessages(null);
+        StartupTrace.setListener(null);
+    }
+
+    private void startRun() {
+        mTextResults.setText(String.format(Locale.US, "Run %d of %d", mRun + 1, RUNS));
+        GiniVision.cleanup(this);
+        if (mRun > 0) {
+            StartupTrace.restart();
+        }
+        GiniVision.newInstance()
+                .setQRCodeScanningEnabled(true)
+                .setShouldShowOnboardingAtFirstRun(false)
+                .build();
+        final Intent intent = new Intent(this, CameraScreenApiActivity.class);
+        CameraActivity.setReviewActivityExtra(intent, this, ReviewActivity.class);
+        CameraActivity.setAnalysisActivityExtra(intent, this, AnalysisActivity.class);
+        startActivityForResult(intent, REQUEST_CAMERA_SCREEN);
+    }
+
+    @Override
+    protected void onActivityResult(final int requestCode, final int resultCode,
+            final Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode != REQUEST_CAMERA_SCREEN) {
+            return;
+        }
+        for (final StartupTrace.Milestone milestone : StartupTrace.Milestone.values()) {
+            mElapsedMs[mRun][milestone.ordinal()] = StartupTrace.getElapsedMs(milestone);
+        }
+        LOG.info("Startup benchmark run {}: {}", mRun + 1, Arrays.toString(mElapsedMs[mRun]));
+        mRun++;
+        if (mRun < RUNS) {
+            // Let the camera be released before opening it again
+            mHandler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    startRun();
+                }
+            }, PAUSE_BETWEEN_RUNS_MS);
+        } else {
+            showResults();
+        }
+    }
+
+    private void showResults() {
+        GiniVision.cleanup(this);
+        final StringBuilder results = new StringBuilder("Startup benchmark (ms since start)\n");
+        for (final StartupTrace.Milestone milestone : StartupTrace.Milestone.values()) {
+            results.append('\n').append(milestone).append(":\n  cold ")
+                    .append(mElapsedMs[0][milestone.ordinal()])
+                    .append(", warm median ").append(getWarmMedianMs(milestone));
+        }
+        LOG.info(results.toString());
+        mTextResults.setText(results);
+    }
+
+    private long getWarmMedianMs(@NonNull final StartupTrace.Milestone milestone) {
+        final long[] warmElapsedMs = new long[RUNS - 1];
+        for (int run = 1; run < RUNS; run++) {
+            warmElapsedMs[run - 1] = mElapsedMs[run][milestone.ordinal()];
+        }
+        Arrays.sort(warmElapsedMs);
+        return warmElapsedMs[warmElapsedMs.length / 2];
+    }
+}